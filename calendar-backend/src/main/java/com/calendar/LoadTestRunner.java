@@ -10,9 +10,11 @@ import com.calendar.service.AnalyticsService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
 
@@ -20,6 +22,7 @@ import java.time.DayOfWeek;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
 
 /**
@@ -27,15 +30,26 @@ import java.util.Random;
  * and measure actual performance metrics.
  * 
  * Run with: mvn spring-boot:run -Dspring-boot.run.arguments=--spring.profiles.active=loadtest
+ * For the 1M-event range query benchmark add --loadtest.events=1000000
  */
 @Component
 @Profile("loadtest")
 public class LoadTestRunner {
 
     private static final Logger logger = LoggerFactory.getLogger(LoadTestRunner.class);
-    private static final int TARGET_EVENTS = 10000;
     private static final int NUM_USERS = 10;
     private static final int NUM_CALENDARS_PER_USER = 3;
+    private static final int RANGE_QUERY_ITERATIONS = 50;
+
+    // Pre-index query, kept here only so the benchmark can compare plans and latency
+    private static final String LEGACY_RANGE_SQL = "SELECT id FROM events WHERE calendar_id = ? AND " +
+            "((start_time BETWEEN ? AND ?) OR (end_time BETWEEN ? AND ?) OR (start_time <= ? AND end_time >= ?))";
+
+    private static final String INDEXED_RANGE_SQL = "SELECT id FROM events WHERE calendar_id = ? AND long_running = 0 AND " +
+            "start_time > ? AND start_time < ? AND end_time > ?";
+
+    @Value("${loadtest.events:10000}")
+    private int targetEvents = 10000;
 
     @Bean
     public CommandLineRunner loadTestData(
@@ -43,7 +57,8 @@ public class LoadTestRunner {
             CalendarRepository calendarRepository,
             EventRepository eventRepository,
             AnalyticsService analyticsService,
-            PasswordEncoder passwordEncoder) {
+            PasswordEncoder passwordEncoder,
+            JdbcTemplate jdbcTemplate) {
 
         return args -> {
             logger.info("=== Starting Load Test Data Generation ===");
@@ -83,7 +98,7 @@ public class LoadTestRunner {
             }
 
             // Create events
-            logger.info("Creating {} events...", TARGET_EVENTS);
+            logger.info("Creating {} events...", targetEvents);
             Random random = new Random();
             String[] subjects = {
                     "Team Meeting", "Client Call", "Code Review", "Sprint Planning",
@@ -99,7 +114,7 @@ public class LoadTestRunner {
             List<Event> events = new ArrayList<>();
             LocalDateTime baseDate = LocalDateTime.now().minusMonths(6);
 
-            for (int i = 0; i < TARGET_EVENTS; i++) {
+            for (int i = 0; i < targetEvents; i++) {
                 Calendar calendar = calendars.get(random.nextInt(calendars.size()));
                 
                 // Random date within 1 year range
@@ -107,7 +122,8 @@ public class LoadTestRunner {
                         .withHour(random.nextInt(16) + 8) // 8 AM to 11 PM
                         .withMinute(random.nextInt(4) * 15); // 0, 15, 30, 45
                 
-                LocalDateTime endTime = eventStartTime.plusHours(1);
+                // About 1% multi-day events so the long-running index path is exercised too
+                LocalDateTime endTime = i % 100 == 0 ? eventStartTime.plusDays(3) : eventStartTime.plusHours(1);
 
                 Event event = new Event(
                         subjects[random.nextInt(subjects.length)],
@@ -139,12 +155,15 @@ public class LoadTestRunner {
             logger.info("Total time: {}ms", loadTime);
             logger.info("Users created: {}", NUM_USERS);
             logger.info("Calendars created: {}", NUM_USERS * NUM_CALENDARS_PER_USER);
-            logger.info("Events created: {}", TARGET_EVENTS);
+            logger.info("Events created: {}", targetEvents);
 
             // Test analytics performance
             logger.info("\n=== Testing Analytics Performance ===");
             testAnalyticsPerformance(users, analyticsService);
 
+            logger.info("\n=== Testing Range Query Performance ===");
+            testRangeQueryPerformance(calendars, eventRepository, jdbcTemplate);
+
             logger.info("\n=== Load Test Complete ===");
             logger.info("View metrics at: http://localhost:8080/actuator/metrics");
             logger.info("View cache stats at: http://localhost:8080/actuator/caches");
@@ -184,4 +203,70 @@ public class LoadTestRunner {
         logger.info("Estimated cache hit ratio: ~{}%", 
                 String.format("%.1f", ((iterations - 1.0) / iterations) * 100));
     }
+
+    /**
+     * Compare the old BETWEEN/OR range predicate with the indexed overlap query:
+     * EXPLAIN output for both, then latency over the same random one-week windows.
+     */
+    private void testRangeQueryPerformance(List<Calendar> calendars, EventRepository eventRepository,
+                                           JdbcTemplate jdbcTemplate) {
+        Random random = new Random(42);
+        LocalDateTime baseDate = LocalDateTime.now().minusMonths(6);
+        List<Long> calendarIds = new ArrayList<>();
+        List<LocalDateTime> windowStarts = new ArrayList<>();
+        for (int i = 0; i < RANGE_QUERY_ITERATIONS; i++) {
+            calendarIds.add(calendars.get(random.nextInt(calendars.size())).getId());
+            windowStarts.add(baseDate.plusDays(random.nextInt(358)));
+        }
+
+        Long sampleCalendar = calendarIds.get(0);
+        LocalDateTime sampleStart = windowStarts.get(0);
+        LocalDateTime sampleEnd = sampleStart.plusDays(7);
+        logPlan("Legacy BETWEEN/OR", jdbcTemplate, "EXPLAIN " + LEGACY_RANGE_SQL, sampleCalendar,
+                sampleStart, sampleEnd, sampleStart, sampleEnd, sampleStart, sampleEnd);
+        logPlan("Indexed overlap", jdbcTemplate, "EXPLAIN " + INDEXED_RANGE_SQL, sampleCalendar,
+                sampleStart.minus(Event.MAX_INDEXED_DURATION), sampleEnd, sampleStart);
+
+        List<Long> legacyTimes = new ArrayList<>();
+        List<Long> indexedTimes = new ArrayList<>();
+        List<Long> repositoryTimes = new ArrayList<>();
+        for (int i = 0; i < RANGE_QUERY_ITERATIONS; i++) {
+            Long calendarId = calendarIds.get(i);
+            LocalDateTime start = windowStarts.get(i);
+            LocalDateTime end = start.plusDays(7);
+
+            long begin = System.nanoTime();
+            jdbcTemplate.queryForList(LEGACY_RANGE_SQL, Long.class, calendarId, start, end, start, end, start, end);
+            legacyTimes.add(System.nanoTime() - begin);
+
+            begin = System.nanoTime();
+            jdbcTemplate.queryForList(INDEXED_RANGE_SQL, Long.class, calendarId,
+                    start.minus(Event.MAX_INDEXED_DURATION), end, start);
+            indexedTimes.add(System.nanoTime() - begin);
+
+            begin = System.nanoTime();
+            eventRepository.findEventsInRange(calendarId, start, end);
+            repositoryTimes.add(System.nanoTime() - begin);
+        }
+
+        logger.info("\n=== Range Query Performance Results ({} events, {} windows) ===", targetEvents, RANGE_QUERY_ITERATIONS);
+        logLatency("Legacy BETWEEN/OR", legacyTimes);
+        logLatency("Indexed overlap", indexedTimes);
+        logLatency("findEventsInRange (JPA, both indexes)", repositoryTimes);
+    }
+
+    private void logPlan(String label, JdbcTemplate jdbcTemplate, String sql, Object... args) {
+        logger.info("{} plan:", label);
+        for (Map<String, Object> row : jdbcTemplate.queryForList(sql, args)) {
+            logger.info("  type={} key={} rows={} extra={}", row.get("type"), row.get("key"), row.get("rows"), row.get("Extra"));
+        }
+    }
+
+    private void logLatency(String label, List<Long> nanos) {
+        List<Long> sorted = new ArrayList<>(nanos);
+        sorted.sort(null);
+        double average = sorted.stream().mapToLong(Long::longValue).average().orElse(0) / 1_000_000.0;
+        double p95 = sorted.isEmpty() ? 0 : sorted.get((int) Math.ceil(sorted.size() * 0.95) - 1) / 1_000_000.0;
+        logger.info("{}: avg {}ms, p95 {}ms", label, String.format("%.2f", average), String.format("%.2f", p95));
+    }
 }
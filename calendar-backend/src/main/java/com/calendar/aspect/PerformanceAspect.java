@@ -1,26 +1,44 @@
 package com.calendar.aspect;
 
+import com.calendar.cache.CacheOutcome;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 
+import java.lang.reflect.Method;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
 /**
  * AOP Aspect for measuring performance of service methods.
  * Tracks execution time and logs slow queries.
+ *
+ * Meters are resolved once per method and reused, so an advised call costs a map lookup and
+ * a timer update. The aspect runs outside the caching proxy, so {@code @Cacheable} methods are
+ * timed on hits too and tagged with whether the cache served them.
  */
 @Aspect
 @Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
 public class PerformanceAspect {
 
     private static final Logger logger = LoggerFactory.getLogger(PerformanceAspect.class);
-    private static final long SLOW_QUERY_THRESHOLD_MS = 100;
+    private static final long SLOW_QUERY_THRESHOLD_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
 
     private final MeterRegistry meterRegistry;
+    private final ConcurrentMap<Method, MethodMeters> meters = new ConcurrentHashMap<>();
 
     public PerformanceAspect(MeterRegistry meterRegistry) {
         this.meterRegistry = meterRegistry;
@@ -31,70 +49,93 @@ public class PerformanceAspect {
      */
     @Around("execution(* com.calendar.service.*.*(..))")
     public Object measureServiceMethodPerformance(ProceedingJoinPoint joinPoint) throws Throwable {
-        String className = joinPoint.getSignature().getDeclaringType().getSimpleName();
-        String methodName = joinPoint.getSignature().getName();
-        String metricName = "service." + className.toLowerCase().replace("service", "") + "." + methodName;
-
-        Timer.Sample sample = Timer.start(meterRegistry);
-        long startTime = System.currentTimeMillis();
+        MethodMeters methodMeters = meters.computeIfAbsent(
+                ((MethodSignature) joinPoint.getSignature()).getMethod(), this::createMeters);
 
+        if (methodMeters.cacheable) {
+            CacheOutcome.clear();
+        }
+        long start = System.nanoTime();
+        Object result;
         try {
-            Object result = joinPoint.proceed();
-            long executionTime = System.currentTimeMillis() - startTime;
-
-            // Record metric
-            sample.stop(Timer.builder(metricName)
-                    .description("Execution time for " + className + "." + methodName)
-                    .tag("class", className)
-                    .tag("method", methodName)
-                    .register(meterRegistry));
-
-            // Log slow queries
-            if (executionTime > SLOW_QUERY_THRESHOLD_MS) {
-                logger.warn("Slow query detected: {}.{} took {}ms", 
-                    className, methodName, executionTime);
-            } else {
-                logger.debug("{}.{} executed in {}ms", 
-                    className, methodName, executionTime);
-            }
-
-            return result;
+            result = joinPoint.proceed();
         } catch (Throwable throwable) {
-            sample.stop(Timer.builder(metricName + ".error")
-                    .description("Error execution time for " + className + "." + methodName)
-                    .tag("class", className)
-                    .tag("method", methodName)
-                    .register(meterRegistry));
+            methodMeters.error.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
             throw throwable;
         }
-    }
+        long executionTime = System.nanoTime() - start;
+
+        methodMeters.timerFor(methodMeters.cacheable ? CacheOutcome.consume() : null)
+                .record(executionTime, TimeUnit.NANOSECONDS);
+
+        // Log slow queries
+        if (executionTime > SLOW_QUERY_THRESHOLD_NANOS) {
+            logger.warn("Slow query detected: {} took {}ms",
+                methodMeters.label, TimeUnit.NANOSECONDS.toMillis(executionTime));
+        } else if (logger.isDebugEnabled()) {
+            logger.debug("{} executed in {}ms",
+                methodMeters.label, TimeUnit.NANOSECONDS.toMillis(executionTime));
+        }
 
-    /**
-     * Specifically track analytics query performance.
-     */
-    @Around("execution(* com.calendar.service.AnalyticsService.getUserAnalytics(..))")
-    public Object measureAnalyticsPerformance(ProceedingJoinPoint joinPoint) throws Throwable {
-        Timer.Sample sample = Timer.start(meterRegistry);
-        long startTime = System.currentTimeMillis();
+        return result;
+    }
 
-        try {
-            Object result = joinPoint.proceed();
-            long executionTime = System.currentTimeMillis() - startTime;
+    private MethodMeters createMeters(Method method) {
+        String className = method.getDeclaringClass().getSimpleName();
+        String methodName = method.getName();
+        String metricName = "service." + className.toLowerCase(Locale.ROOT).replace("service", "") + "." + methodName;
+        boolean cacheable = AnnotatedElementUtils.hasAnnotation(method, Cacheable.class);
+
+        Timer error = Timer.builder(metricName + ".error")
+                .description("Error execution time for " + className + "." + methodName)
+                .tag("class", className)
+                .tag("method", methodName)
+                .register(meterRegistry);
+        if (!cacheable) {
+            return new MethodMeters(className + "." + methodName, false,
+                    timer(metricName, className, methodName, null), null, null, error);
+        }
+        return new MethodMeters(className + "." + methodName, true,
+                timer(metricName, className, methodName, "none"),
+                timer(metricName, className, methodName, "hit"),
+                timer(metricName, className, methodName, "miss"),
+                error);
+    }
 
-            // Record detailed analytics metric
-            sample.stop(Timer.builder("analytics.query.time")
-                    .description("Analytics query execution time")
-                    .tag("cached", "unknown")
-                    .register(meterRegistry));
+    private Timer timer(String metricName, String className, String methodName, String cached) {
+        Timer.Builder builder = Timer.builder(metricName)
+                .description("Execution time for " + className + "." + methodName)
+                .tag("class", className)
+                .tag("method", methodName)
+                .publishPercentileHistogram();
+        if (cached != null) {
+            builder.tag("cached", cached);
+        }
+        return builder.register(meterRegistry);
+    }
 
-            logger.info("Analytics query executed in {}ms", executionTime);
+    private static final class MethodMeters {
+        final String label;
+        final boolean cacheable;
+        final Timer success;
+        final Timer hit;
+        final Timer miss;
+        final Timer error;
+
+        MethodMeters(String label, boolean cacheable, Timer success, Timer hit, Timer miss, Timer error) {
+            this.label = label;
+            this.cacheable = cacheable;
+            this.success = success;
+            this.hit = hit;
+            this.miss = miss;
+            this.error = error;
+        }
 
-            return result;
-        } catch (Throwable throwable) {
-            sample.stop(Timer.builder("analytics.query.error")
-                    .description("Analytics query error time")
-                    .register(meterRegistry));
-            throw throwable;
+        Timer timerFor(Boolean cacheHit) {
+            if (cacheHit == null) {
+                return success;
+            }
+            return cacheHit ? hit : miss;
         }
     }
 }
@@ -0,0 +1,66 @@
+package com.calendar.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+
+/**
+ * Broadcasts L1 invalidations to the other nodes over a Redis pub/sub channel.
+ *
+ * Message format: {@code <nodeId>|<cacheName>|E|<key>} to evict one key, or
+ * {@code <nodeId>|<cacheName>|C|} to clear a cache. A node ignores its own messages.
+ * Delivery is best effort; the L1 TTL bounds staleness when a message is missed.
+ */
+public class CacheInvalidationBus implements MessageListener {
+
+    public static final String CHANNEL = "cache:l1-invalidate";
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheInvalidationBus.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final String nodeId = UUID.randomUUID().toString();
+    private volatile BiConsumer<String, String> localInvalidator = (cacheName, key) -> { };
+
+    public CacheInvalidationBus(StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    /**
+     * @param localInvalidator called with (cacheName, key) for remote evictions, key null for a clear
+     */
+    public void setLocalInvalidator(BiConsumer<String, String> localInvalidator) {
+        this.localInvalidator = localInvalidator;
+    }
+
+    public void publishEvict(String cacheName, String key) {
+        publish(nodeId + "|" + cacheName + "|E|" + key);
+    }
+
+    public void publishClear(String cacheName) {
+        publish(nodeId + "|" + cacheName + "|C|");
+    }
+
+    private void publish(String message) {
+        try {
+            redisTemplate.convertAndSend(CHANNEL, message);
+        } catch (RuntimeException e) {
+            // Other nodes fall back to their L1 TTL
+            logger.warn("Failed to publish cache invalidation: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\\|", 4);
+        if (parts.length < 4 || nodeId.equals(parts[0])) {
+            return;
+        }
+        localInvalidator.accept(parts[1], "C".equals(parts[2]) ? null : parts[3]);
+    }
+}
@@ -0,0 +1,32 @@
+package com.calendar.cache;
+
+/**
+ * Whether the last loading cache read on the current thread was served from the cache.
+ *
+ * {@link TwoTierCache} records it once a {@code @Cacheable(sync = true)} read has finished, so
+ * an outer caller (the performance aspect) can tag its timing without another cache lookup.
+ */
+public final class CacheOutcome {
+
+    private static final ThreadLocal<Boolean> LAST_HIT = new ThreadLocal<>();
+
+    private CacheOutcome() {
+    }
+
+    static void record(boolean hit) {
+        LAST_HIT.set(hit);
+    }
+
+    public static void clear() {
+        LAST_HIT.remove();
+    }
+
+    /**
+     * @return true for a hit, false for a miss, null if no cached read happened since {@link #clear()}
+     */
+    public static Boolean consume() {
+        Boolean hit = LAST_HIT.get();
+        LAST_HIT.remove();
+        return hit;
+    }
+}
@@ -0,0 +1,140 @@
+package com.calendar.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Short-lived Redis lease that lets one node compute a missing cache entry while the other
+ * nodes wait for it to appear in the shared tier.
+ *
+ * Waiting nodes do not poll: they park until the L1 invalidation the computing node broadcasts
+ * with its result arrives (see {@link #signal}), and look in the shared tier then. The lease
+ * expires on its own, and waits are bounded, so a node that dies mid-computation (or a lost
+ * broadcast) only delays the others until they compute for themselves. If Redis is unreachable
+ * every node simply computes for itself.
+ */
+public class SingleFlightLock {
+
+    private static final Logger logger = LoggerFactory.getLogger(SingleFlightLock.class);
+
+    // Token meaning "no lease could be taken, compute without one"
+    static final String NO_LEASE = "";
+
+    // Delete only our own lease, never one a later holder took after ours expired
+    private static final DefaultRedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final Duration leaseTtl;
+    private final Duration maxWait;
+
+    // Completed when an entry waited for may have landed in the shared tier; one per lock key
+    private final ConcurrentMap<String, CompletableFuture<Void>> signals = new ConcurrentHashMap<>();
+
+    public SingleFlightLock(StringRedisTemplate redisTemplate, Duration leaseTtl, Duration maxWait) {
+        this.redisTemplate = redisTemplate;
+        this.leaseTtl = leaseTtl;
+        this.maxWait = maxWait;
+    }
+
+    /**
+     * @return a lease token, {@link #NO_LEASE} if Redis is unavailable, or null if another node holds the lease
+     */
+    public String tryAcquire(String cacheName, String key) {
+        String token = UUID.randomUUID().toString();
+        try {
+            Boolean acquired = redisTemplate.opsForValue().setIfAbsent(lockKey(cacheName, key), token, leaseTtl);
+            return Boolean.TRUE.equals(acquired) ? token : null;
+        } catch (RuntimeException e) {
+            logger.warn("Single-flight lease unavailable for {}::{}: {}", cacheName, key, e.getMessage());
+            return NO_LEASE;
+        }
+    }
+
+    public void release(String cacheName, String key, String token) {
+        if (token == null || NO_LEASE.equals(token)) {
+            return;
+        }
+        try {
+            redisTemplate.execute(RELEASE_SCRIPT, List.of(lockKey(cacheName, key)), token);
+        } catch (RuntimeException e) {
+            // The lease expires by itself
+            logger.debug("Failed to release single-flight lease for {}::{}", cacheName, key);
+        }
+    }
+
+    /**
+     * Wait until {@code probe} returns a value, probing again each time the entry is signalled,
+     * or until the wait expires.
+     *
+     * @return the value, or null on timeout
+     */
+    public Object await(String cacheName, String key, Supplier<Object> probe) {
+        String lockKey = lockKey(cacheName, key);
+        long deadline = System.nanoTime() + maxWait.toNanos();
+        while (true) {
+            // Registered before probing, so a result landing in between still wakes us
+            CompletableFuture<Void> signal = signals.computeIfAbsent(lockKey, k -> new CompletableFuture<>());
+            Object value = probe.get();
+            if (value != null) {
+                return value;
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                signals.remove(lockKey, signal);
+                return null;
+            }
+            try {
+                signal.get(remaining, TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                signals.remove(lockKey, signal);
+                return probe.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            } catch (ExecutionException e) {
+                // Signals are only ever completed normally
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Wake the callers waiting for an entry, e.g. when another node broadcasts that it wrote it.
+     *
+     * @param key the entry, or null for every entry of the cache
+     */
+    public void signal(String cacheName, String key) {
+        if (key != null) {
+            CompletableFuture<Void> signal = signals.remove(lockKey(cacheName, key));
+            if (signal != null) {
+                signal.complete(null);
+            }
+            return;
+        }
+        String prefix = cacheName + "::";
+        signals.forEach((lockKey, signal) -> {
+            if (lockKey.startsWith(prefix) && signals.remove(lockKey, signal)) {
+                signal.complete(null);
+            }
+        });
+    }
+
+    private static String lockKey(String cacheName, String key) {
+        return cacheName + "::" + key + "::lock";
+    }
+}
@@ -0,0 +1,36 @@
+package com.calendar.cache;
+
+/**
+ * A cached value with the time it stops being fresh. Used by caches in stale-while-revalidate
+ * mode, where the store keeps entries past that point so they can still be served while a
+ * refresh runs.
+ */
+public class StampedValue {
+
+    private Object value;
+    private long freshUntil;
+
+    public StampedValue() {
+    }
+
+    public StampedValue(Object value, long freshUntil) {
+        this.value = value;
+        this.freshUntil = freshUntil;
+    }
+
+    public Object getValue() {
+        return value;
+    }
+
+    public void setValue(Object value) {
+        this.value = value;
+    }
+
+    public long getFreshUntil() {
+        return freshUntil;
+    }
+
+    public void setFreshUntil(long freshUntil) {
+        this.freshUntil = freshUntil;
+    }
+}
@@ -0,0 +1,379 @@
+package com.calendar.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A cache with an in-process Caffeine L1 in front of a shared L2 (Redis).
+ *
+ * Reads try L1 first and fill it from L2 on a miss. Writes and evictions go to both tiers and
+ * are broadcast on the invalidation bus so other nodes drop their L1 copy. L1 entries also
+ * expire on their own, which bounds staleness if a broadcast is lost.
+ *
+ * Loads through {@link #get(Object, Callable)} (i.e. {@code @Cacheable(sync = true)}) are
+ * single-flight: one caller per key computes while the others wait on the same future, and
+ * with a {@link SingleFlightLock} only one node computes while the others wait for L2.
+ * In stale-while-revalidate mode entries carry a freshness stamp; a stale entry is still
+ * served to sync callers while one background refresh recomputes it. A load that an eviction
+ * overtook returns its value to its callers but does not cache it.
+ *
+ * L1 returns the cached instance itself, so callers must not mutate cached values.
+ */
+public class TwoTierCache implements Cache {
+
+    private static final Logger logger = LoggerFactory.getLogger(TwoTierCache.class);
+
+    private static final int GENERATION_STRIPES = 1024;
+
+    private final String name;
+    private final Cache l2;
+    private final com.github.benmanes.caffeine.cache.Cache<String, Object> l1;
+    private final CacheInvalidationBus bus;
+    private final ConcurrentMap<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    // Bumped by every eviction of a key in the stripe, and by every clear; a load that saw the
+    // generation change may have read data from before the eviction
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+    private final AtomicLong clears = new AtomicLong();
+
+    private SingleFlightLock singleFlightLock;
+    private Duration freshTtl;          // set in stale-while-revalidate mode
+    private Executor refreshExecutor;
+
+    private final Counter l1Hits;
+    private final Counter l1Misses;
+    private final Counter l2Hits;
+    private final Counter l2Misses;
+    private final Counter staleServed;
+    private final Counter loadWaits;
+    private final Timer l1Latency;
+    private final Timer l2Latency;
+
+    public TwoTierCache(String name, Cache l2, com.github.benmanes.caffeine.cache.Cache<String, Object> l1,
+                        CacheInvalidationBus bus, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.l2 = l2;
+        this.l1 = l1;
+        this.bus = bus;
+        this.l1Hits = counter(meterRegistry, "l1", "hit");
+        this.l1Misses = counter(meterRegistry, "l1", "miss");
+        this.l2Hits = counter(meterRegistry, "l2", "hit");
+        this.l2Misses = counter(meterRegistry, "l2", "miss");
+        this.l1Latency = timer(meterRegistry, "l1");
+        this.l2Latency = timer(meterRegistry, "l2");
+        this.staleServed = Counter.builder("cache.stale.served")
+                .description("Stale entries served while a refresh runs")
+                .tag("cache", name)
+                .register(meterRegistry);
+        this.loadWaits = Counter.builder("cache.load.waits")
+                .description("Loads that waited for another caller's computation instead of running their own")
+                .tag("cache", name)
+                .register(meterRegistry);
+    }
+
+    private Counter counter(MeterRegistry registry, String tier, String result) {
+        return Counter.builder("cache.tier.gets")
+                .description("Cache lookups per tier")
+                .tag("cache", name)
+                .tag("tier", tier)
+                .tag("result", result)
+                .register(registry);
+    }
+
+    private Timer timer(MeterRegistry registry, String tier) {
+        return Timer.builder("cache.tier.latency")
+                .description("Cache lookup latency per tier")
+                .tag("cache", name)
+                .tag("tier", tier)
+                .register(registry);
+    }
+
+    void setSingleFlightLock(SingleFlightLock singleFlightLock) {
+        this.singleFlightLock = singleFlightLock;
+    }
+
+    void enableStaleWhileRevalidate(Duration freshTtl, Executor refreshExecutor) {
+        this.freshTtl = freshTtl;
+        this.refreshExecutor = refreshExecutor;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return l2.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        Object stored = lookup(key);
+        // Without a loader there is nothing to revalidate with, so stale counts as a miss
+        if (stored == null || !isFresh(stored)) {
+            return null;
+        }
+        return new SimpleValueWrapper(unwrap(stored));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        Object stored = lookup(key);
+        if (stored != null) {
+            if (!isFresh(stored)) {
+                staleServed.increment();
+                refreshInBackground(key, valueLoader);
+            }
+            CacheOutcome.record(true);
+            return (T) unwrap(stored);
+        }
+        Object value = load(key, valueLoader);
+        // Recorded after the load so reads nested inside the loader don't overwrite it
+        CacheOutcome.record(false);
+        return (T) value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        if (value == null) {
+            evict(key);
+            return;
+        }
+        Object stored = wrap(value);
+        l2.put(key, stored);
+        String localKey = localKey(key);
+        l1.put(localKey, stored);
+        bus.publishEvict(name, localKey);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = l2.putIfAbsent(key, wrap(value));
+        String localKey = localKey(key);
+        l1.invalidate(localKey);
+        bus.publishEvict(name, localKey);
+        if (existing == null || existing.get() == null) {
+            return existing;
+        }
+        return new SimpleValueWrapper(unwrap(existing.get()));
+    }
+
+    @Override
+    public void evict(Object key) {
+        String localKey = localKey(key);
+        generations.incrementAndGet(stripe(localKey));
+        l2.evict(key);
+        l1.invalidate(localKey);
+        bus.publishEvict(name, localKey);
+    }
+
+    @Override
+    public void clear() {
+        clears.incrementAndGet();
+        l2.clear();
+        l1.invalidateAll();
+        bus.publishClear(name);
+    }
+
+    /**
+     * Drop L1 entries on behalf of another node; L2 is shared and already up to date.
+     *
+     * @param localKey the key to drop, or null to drop everything
+     */
+    void invalidateLocal(String localKey) {
+        if (localKey == null) {
+            clears.incrementAndGet();
+            l1.invalidateAll();
+        } else {
+            generations.incrementAndGet(stripe(localKey));
+            l1.invalidate(localKey);
+        }
+        // The other node may have just written an entry callers here are waiting for
+        if (singleFlightLock != null) {
+            singleFlightLock.signal(name, localKey);
+        }
+    }
+
+    // Stored form of the entry (possibly a StampedValue), from L1 or else L2
+    private Object lookup(Object key) {
+        String localKey = localKey(key);
+
+        long start = System.nanoTime();
+        Object stored = l1.getIfPresent(localKey);
+        l1Latency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (stored != null) {
+            l1Hits.increment();
+            return stored;
+        }
+        l1Misses.increment();
+
+        start = System.nanoTime();
+        Object shared = getFromL2(key);
+        l2Latency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (shared != null) {
+            l2Hits.increment();
+            l1.put(localKey, shared);
+            return shared;
+        }
+        l2Misses.increment();
+        return null;
+    }
+
+    // Stored form of the entry in L2, or null; an unreachable L2 counts as a miss
+    private Object getFromL2(Object key) {
+        try {
+            ValueWrapper wrapper = l2.get(key);
+            return wrapper != null ? wrapper.get() : null;
+        } catch (RuntimeException e) {
+            logger.warn("Shared cache read of {}::{} failed, treating it as a miss: {}", name, key, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Compute the value once per key on this node; concurrent callers share the result.
+     */
+    private Object load(Object key, Callable<?> valueLoader) {
+        String localKey = localKey(key);
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> leader = inFlight.putIfAbsent(localKey, flight);
+        if (leader != null) {
+            loadWaits.increment();
+            try {
+                return leader.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause()
+                        : new ValueRetrievalException(key, valueLoader, e.getCause());
+            }
+        }
+
+        try {
+            Object value = loadAcrossNodes(key, localKey, valueLoader);
+            flight.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(localKey, flight);
+        }
+    }
+
+    private Object loadAcrossNodes(Object key, String localKey, Callable<?> valueLoader) {
+        if (singleFlightLock == null) {
+            return compute(key, valueLoader);
+        }
+        String token = singleFlightLock.tryAcquire(name, localKey);
+        if (token == null) {
+            // Another node is computing; wait for its result to land in L2
+            loadWaits.increment();
+            Object stored = singleFlightLock.await(name, localKey, () -> {
+                Object shared = getFromL2(key);
+                return shared != null && isFresh(shared) ? shared : null;
+            });
+            if (stored != null) {
+                l1.put(localKey, stored);
+                return unwrap(stored);
+            }
+            // The other node is slow or gone; compute rather than wait longer
+            return compute(key, valueLoader);
+        }
+        try {
+            return compute(key, valueLoader);
+        } finally {
+            singleFlightLock.release(name, localKey, token);
+        }
+    }
+
+    private Object compute(Object key, Callable<?> valueLoader) {
+        String localKey = localKey(key);
+        long generation = generation(localKey);
+        Object value;
+        try {
+            value = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        if (generation(localKey) != generation) {
+            logger.debug("Not caching {}::{}: evicted while it was loading", name, key);
+        } else if (value != null) {
+            try {
+                put(key, value);
+            } catch (RuntimeException e) {
+                // The caller still gets the value; the next read computes it again
+                logger.warn("Could not cache {}::{}: {}", name, key, e.getMessage());
+            }
+        }
+        return value;
+    }
+
+    private void refreshInBackground(Object key, Callable<?> valueLoader) {
+        if (inFlight.containsKey(localKey(key))) {
+            return;
+        }
+        refreshExecutor.execute(() -> {
+            try {
+                load(key, valueLoader);
+            } catch (RuntimeException e) {
+                // The stale entry stays until its store TTL; the next read retries
+                logger.warn("Background refresh of {}::{} failed: {}", name, key, e.getMessage());
+            }
+        });
+    }
+
+    private Object wrap(Object value) {
+        if (freshTtl == null || value == null) {
+            return value;
+        }
+        return new StampedValue(value, System.currentTimeMillis() + freshTtl.toMillis());
+    }
+
+    private static Object unwrap(Object stored) {
+        return stored instanceof StampedValue ? ((StampedValue) stored).getValue() : stored;
+    }
+
+    private static boolean isFresh(Object stored) {
+        return !(stored instanceof StampedValue) || ((StampedValue) stored).getFreshUntil() > System.currentTimeMillis();
+    }
+
+    private long generation(String localKey) {
+        return clears.get() + generations.get(stripe(localKey));
+    }
+
+    private static int stripe(String localKey) {
+        return Math.floorMod(localKey.hashCode(), GENERATION_STRIPES);
+    }
+
+    // Keys travel over pub/sub as strings, matching how the Redis tier serializes them
+    private static String localKey(Object key) {
+        return String.valueOf(key);
+    }
+}
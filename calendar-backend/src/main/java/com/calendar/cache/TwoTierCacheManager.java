@@ -0,0 +1,96 @@
+package com.calendar.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+
+/**
+ * Wraps every cache of the L2 manager (Redis) in a {@link TwoTierCache} with a size- and
+ * time-bounded Caffeine L1. Caffeine's W-TinyLFU admission keeps the hot keys when L1 is full.
+ */
+public class TwoTierCacheManager implements CacheManager {
+
+    private final CacheManager l2;
+    private final CacheInvalidationBus bus;
+    private final MeterRegistry meterRegistry;
+    private final long l1MaxSize;
+    private final Duration l1Ttl;
+    private final ConcurrentMap<String, TwoTierCache> caches = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Duration> freshTtls = new ConcurrentHashMap<>();
+    private SingleFlightLock singleFlightLock;
+    private Executor refreshExecutor;
+
+    public TwoTierCacheManager(CacheManager l2, CacheInvalidationBus bus, MeterRegistry meterRegistry,
+                               long l1MaxSize, Duration l1Ttl) {
+        this.l2 = l2;
+        this.bus = bus;
+        this.meterRegistry = meterRegistry;
+        this.l1MaxSize = l1MaxSize;
+        this.l1Ttl = l1Ttl;
+        bus.setLocalInvalidator(this::invalidateLocal);
+    }
+
+    /**
+     * Coordinate misses across nodes so only one of them computes a given entry.
+     */
+    public void setSingleFlightLock(SingleFlightLock singleFlightLock) {
+        this.singleFlightLock = singleFlightLock;
+    }
+
+    /**
+     * Serve entries of {@code cacheName} older than {@code freshTtl} while one background refresh
+     * recomputes them. The L2 TTL of that cache must be longer than {@code freshTtl}, or stale
+     * entries are gone before they can be served.
+     */
+    public void enableStaleWhileRevalidate(String cacheName, Duration freshTtl, Executor refreshExecutor) {
+        freshTtls.put(cacheName, freshTtl);
+        this.refreshExecutor = refreshExecutor;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        return caches.computeIfAbsent(name, this::createCache);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return l2.getCacheNames();
+    }
+
+    private TwoTierCache createCache(String name) {
+        Cache l2Cache = l2.getCache(name);
+        if (l2Cache == null) {
+            return null;
+        }
+        com.github.benmanes.caffeine.cache.Cache<String, Object> l1 = Caffeine.newBuilder()
+                .maximumSize(l1MaxSize)
+                .expireAfterWrite(l1Ttl)
+                .recordStats()
+                .build();
+        // Size, eviction and hit/miss gauges of the L1 itself
+        CaffeineCacheMetrics.monitor(meterRegistry, l1, name, Tags.of("tier", "l1"));
+        TwoTierCache cache = new TwoTierCache(name, l2Cache, l1, bus, meterRegistry);
+        cache.setSingleFlightLock(singleFlightLock);
+        Duration freshTtl = freshTtls.get(name);
+        if (freshTtl != null) {
+            cache.enableStaleWhileRevalidate(freshTtl, refreshExecutor);
+        }
+        return cache;
+    }
+
+    void invalidateLocal(String cacheName, String key) {
+        TwoTierCache cache = caches.get(cacheName);
+        if (cache != null) {
+            cache.invalidateLocal(key);
+        }
+    }
+}
@@ -2,16 +2,22 @@ package com.calendar.config;
 
 import com.google.api.client.googleapis.auth.oauth2.GoogleAuthorizationCodeFlow;
 import com.google.api.client.googleapis.auth.oauth2.GoogleClientSecrets;
-import com.google.api.client.http.javanet.NetHttpTransport;
+import com.google.api.client.http.HttpTransport;
+import com.google.api.client.http.apache.v2.ApacheHttpTransport;
 import com.google.api.client.json.JsonFactory;
 import com.google.api.client.json.gson.GsonFactory;
 import com.google.api.services.calendar.CalendarScopes;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
 
 /**
  * Configuration for Google Calendar API OAuth 2.0 integration.
@@ -31,11 +37,65 @@ public class GoogleCalendarConfig {
     @Value("${frontend.url}")
     private String frontendUrl;
 
+    // Connection pool shared by the OAuth flow and every user's Calendar client
+    @Value("${google.http.max-connections:50}")
+    private int maxConnections = 50;
+
+    @Value("${google.http.max-connections-per-route:20}")
+    private int maxConnectionsPerRoute = 20;
+
+    // Idle connections are closed after this long; Google's front ends drop them anyway
+    @Value("${google.http.idle-timeout-seconds:60}")
+    private long idleTimeoutSeconds = 60;
+
+    // Upper bound on a connection's life, so DNS changes are picked up
+    @Value("${google.http.connection-ttl-seconds:600}")
+    private long connectionTtlSeconds = 600;
+
     private static final JsonFactory JSON_FACTORY = GsonFactory.getDefaultInstance();
     private static final List<String> SCOPES = Collections.singletonList(CalendarScopes.CALENDAR);
 
+    // Closed with the HTTP client that owns it, when googleHttpTransport shuts down
+    @Bean(destroyMethod = "")
+    public PoolingHttpClientConnectionManager googleConnectionManager(MeterRegistry meterRegistry) {
+        PoolingHttpClientConnectionManager pool = new PoolingHttpClientConnectionManager(connectionTtlSeconds, TimeUnit.SECONDS);
+        pool.setMaxTotal(maxConnections);
+        pool.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+        // Check a connection that sat idle before reusing it, instead of failing the request
+        pool.setValidateAfterInactivity(2000);
+
+        registerPoolGauge(meterRegistry, pool, "leased", stats -> stats.getTotalStats().getLeased());
+        registerPoolGauge(meterRegistry, pool, "available", stats -> stats.getTotalStats().getAvailable());
+        registerPoolGauge(meterRegistry, pool, "pending", stats -> stats.getTotalStats().getPending());
+        Gauge.builder("google.http.pool.max", pool, stats -> stats.getTotalStats().getMax())
+                .description("Connections the Google HTTP pool may open")
+                .register(meterRegistry);
+        return pool;
+    }
+
+    private void registerPoolGauge(MeterRegistry meterRegistry, PoolingHttpClientConnectionManager pool, String state,
+                                   ToDoubleFunction<PoolingHttpClientConnectionManager> value) {
+        Gauge.builder("google.http.pool.connections", pool, value)
+                .description("Google HTTP pool connections by state; pending counts requests waiting for one")
+                .tag("state", state)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Keep-alive transport for all Google calls, so requests reuse pooled TLS connections
+     * instead of opening one each.
+     */
+    @Bean
+    public HttpTransport googleHttpTransport(PoolingHttpClientConnectionManager googleConnectionManager) {
+        return new ApacheHttpTransport(ApacheHttpTransport.newDefaultHttpClientBuilder()
+                .setConnectionManager(googleConnectionManager)
+                .evictIdleConnections(idleTimeoutSeconds, TimeUnit.SECONDS)
+                .evictExpiredConnections()
+                .build());
+    }
+
     @Bean
-    public GoogleAuthorizationCodeFlow googleAuthorizationCodeFlow() {
+    public GoogleAuthorizationCodeFlow googleAuthorizationCodeFlow(HttpTransport googleHttpTransport) {
         System.out.println("Initializing Google OAuth Flow:");
         System.out.println("Client ID length: " + (clientId != null ? clientId.length() : "null"));
         System.out.println("Client Secret length: " + (clientSecret != null ? clientSecret.length() : "null"));
@@ -49,7 +109,7 @@ public class GoogleCalendarConfig {
                 .setWeb(details);
 
         return new GoogleAuthorizationCodeFlow.Builder(
-                new NetHttpTransport(),
+                googleHttpTransport,
                 JSON_FACTORY,
                 clientSecrets,
                 SCOPES)
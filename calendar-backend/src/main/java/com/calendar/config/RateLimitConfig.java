@@ -15,6 +15,9 @@ public class RateLimitConfig implements WebMvcConfigurer {
     @Autowired
     private com.calendar.middleware.LoggingInterceptor loggingInterceptor;
 
+    @Autowired
+    private com.calendar.middleware.QueryBudgetInterceptor queryBudgetInterceptor;
+
     @Override
     public void addInterceptors(InterceptorRegistry registry) {
         registry.addInterceptor(rateLimitInterceptor)
@@ -22,5 +25,8 @@ public class RateLimitConfig implements WebMvcConfigurer {
         
         registry.addInterceptor(loggingInterceptor)
                 .addPathPatterns("/api/**");
+
+        registry.addInterceptor(queryBudgetInterceptor)
+                .addPathPatterns("/api/**");
     }
 }
@@ -1,33 +1,114 @@
 package com.calendar.config;
 
+import com.calendar.cache.CacheInvalidationBus;
+import com.calendar.cache.SingleFlightLock;
+import com.calendar.cache.TwoTierCacheManager;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 import java.time.Duration;
+import java.util.concurrent.Executors;
 
 @Configuration
 @EnableCaching
 public class RedisConfig {
 
+    private static final Logger logger = LoggerFactory.getLogger(RedisConfig.class);
+
+    @Value("${cache.l1.max-size:10000}")
+    private long l1MaxSize = 10000;
+
+    // Upper bound on how stale a node's L1 can get if an invalidation message is lost
+    @Value("${cache.l1.ttl-seconds:60}")
+    private long l1TtlSeconds = 60;
+
+    @Value("${cache.single-flight.lease-ms:10000}")
+    private long singleFlightLeaseMs = 10000;
+
+    @Value("${cache.single-flight.max-wait-ms:3000}")
+    private long singleFlightMaxWaitMs = 3000;
+
+    @Value("${cache.analytics.stale-while-revalidate-seconds:0}")
+    private long analyticsStaleSeconds = 0;
+
+    private static final Duration ANALYTICS_TTL = Duration.ofMinutes(5);
+
+    @Bean
+    public CacheInvalidationBus cacheInvalidationBus(StringRedisTemplate stringRedisTemplate) {
+        return new CacheInvalidationBus(stringRedisTemplate);
+    }
+
     @Bean
-    public RedisCacheManager cacheManager(RedisConnectionFactory connectionFactory) {
+    public SingleFlightLock singleFlightLock(StringRedisTemplate stringRedisTemplate) {
+        return new SingleFlightLock(stringRedisTemplate, Duration.ofMillis(singleFlightLeaseMs),
+                Duration.ofMillis(singleFlightMaxWaitMs));
+    }
+
+    @Bean
+    public TwoTierCacheManager cacheManager(RedisConnectionFactory connectionFactory, CacheInvalidationBus cacheInvalidationBus,
+                                            SingleFlightLock singleFlightLock, MeterRegistry meterRegistry) {
         RedisCacheConfiguration config = RedisCacheConfiguration.defaultCacheConfig()
                 .entryTtl(Duration.ofMinutes(10)) // Default TTL
                 .disableCachingNullValues()
                 .serializeKeysWith(RedisSerializationContext.SerializationPair.fromSerializer(new StringRedisSerializer()))
                 .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(new GenericJackson2JsonRedisSerializer()));
 
-        return RedisCacheManager.builder(connectionFactory)
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(connectionFactory)
                 .cacheDefaults(config)
-                .withCacheConfiguration("analytics", config.entryTtl(Duration.ofMinutes(5))) // Short cache for analytics
+                // Short cache for analytics; kept longer in Redis when stale entries may be served
+                .withCacheConfiguration("analytics", config.entryTtl(ANALYTICS_TTL.plusSeconds(analyticsStaleSeconds)))
                 .withCacheConfiguration("calendars", config.entryTtl(Duration.ofMinutes(30))) // Longer cache for calendars
                 .build();
+        redisCacheManager.afterPropertiesSet();
+
+        // In-process L1 in front of Redis; Redis stays the shared source of truth
+        TwoTierCacheManager cacheManager = new TwoTierCacheManager(redisCacheManager, cacheInvalidationBus, meterRegistry,
+                l1MaxSize, Duration.ofSeconds(l1TtlSeconds));
+        cacheManager.setSingleFlightLock(singleFlightLock);
+        if (analyticsStaleSeconds > 0) {
+            cacheManager.enableStaleWhileRevalidate("analytics", ANALYTICS_TTL, Executors.newFixedThreadPool(2));
+        }
+        return cacheManager;
+    }
+
+    @Bean
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                            CacheInvalidationBus cacheInvalidationBus) {
+        // Started once the app is up, so a missing Redis does not fail startup; this version of
+        // the container has no setter for it
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer() {
+            @Override
+            public boolean isAutoStartup() {
+                return false;
+            }
+        };
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(cacheInvalidationBus, new ChannelTopic(CacheInvalidationBus.CHANNEL));
+        return container;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void subscribeToCacheInvalidations(ApplicationReadyEvent event) {
+        try {
+            event.getApplicationContext().getBean(RedisMessageListenerContainer.class).start();
+        } catch (RuntimeException e) {
+            logger.warn("Cache invalidation channel unavailable, relying on L1 TTL: {}", e.getMessage());
+        }
     }
 }
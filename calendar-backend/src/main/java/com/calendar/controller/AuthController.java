@@ -46,11 +46,14 @@ public class AuthController {
         String jwt = jwtUtils.generateJwtToken(authentication);
 
         UserDetails userDetails = (UserDetails) authentication.getPrincipal();
+        // The authentication manager already loaded the user entity
+        User user = userDetails instanceof User ? (User) userDetails
+                : userRepository.findByUsername(userDetails.getUsername()).get();
 
         return ResponseEntity.ok(new JwtResponse(jwt,
-                userRepository.findByUsername(userDetails.getUsername()).get().getId(),
+                user.getId(),
                 userDetails.getUsername(),
-                userRepository.findByUsername(userDetails.getUsername()).get().getEmail()));
+                user.getEmail()));
     }
 
     @PostMapping("/register")
@@ -1,30 +1,44 @@
 package com.calendar.controller;
 
 import com.calendar.model.Calendar;
-import com.calendar.repository.UserRepository;
+import com.calendar.security.CurrentUser;
+import com.calendar.dto.ImportResultDTO;
 import com.calendar.service.CalendarService;
+import com.calendar.service.IcsImportService;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/calendars")
 public class CalendarController {
 
+    private static final MediaType TEXT_CALENDAR = new MediaType("text", "calendar", StandardCharsets.UTF_8);
+
     @Autowired
     private CalendarService calendarService;
 
     @Autowired
-    private UserRepository userRepository;
+    private IcsImportService icsImportService;
+
+    @Autowired
+    private CurrentUser currentUser;
 
     private Long getCurrentUserId() {
-        UserDetails userDetails = (UserDetails) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-        return userRepository.findByUsername(userDetails.getUsername()).get().getId();
+        return currentUser.getId();
     }
 
     @GetMapping
@@ -43,12 +57,84 @@ public class CalendarController {
         return ResponseEntity.ok().build();
     }
 
+    // Streamed straight from the database cursor; gzip-compressed when the client accepts it
     @GetMapping("/{id}/export")
-    public ResponseEntity<byte[]> exportCalendar(@PathVariable Long id) {
-        byte[] icsData = calendarService.exportCalendar(id, getCurrentUserId());
-        return ResponseEntity.ok()
-                .header("Content-Disposition", "attachment; filename=\"calendar.ics\"")
-                .header("Content-Type", "text/calendar")
-                .body(icsData);
+    public ResponseEntity<StreamingResponseBody> exportCalendar(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        // Resolve the user and check access here: the body is written on another thread,
+        // after the status line has gone out
+        Long userId = getCurrentUserId();
+        calendarService.getOwnedCalendar(id, userId);
+
+        boolean gzip = acceptsGzip(acceptEncoding);
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                GZIPOutputStream compressed = new GZIPOutputStream(out, 8192);
+                calendarService.exportCalendar(id, userId, compressed);
+                compressed.finish();
+            } else {
+                calendarService.exportCalendar(id, userId, out);
+            }
+        };
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"calendar.ics\"")
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .contentType(TEXT_CALENDAR);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+
+    /**
+     * Whether an Accept-Encoding header allows gzip: listed with a q-value above zero, or not
+     * listed and allowed by a {@code *} entry. An unreadable q-value counts as zero.
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Double gzipQ = null;
+        Double anyQ = null;
+        for (String entry : acceptEncoding.split(",")) {
+            String[] parts = entry.split(";");
+            String coding = parts[0].trim().toLowerCase(Locale.ROOT);
+            double q = 1.0;
+            for (int i = 1; i < parts.length; i++) {
+                String param = parts[i].trim().toLowerCase(Locale.ROOT);
+                if (param.startsWith("q=")) {
+                    try {
+                        q = Double.parseDouble(param.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        q = 0;
+                    }
+                }
+            }
+            if (coding.equals("gzip") || coding.equals("x-gzip")) {
+                gzipQ = gzipQ == null ? q : Math.max(gzipQ, q);
+            } else if (coding.equals("*")) {
+                anyQ = q;
+            }
+        }
+        if (gzipQ != null) {
+            return gzipQ > 0;
+        }
+        return anyQ != null && anyQ > 0;
+    }
+
+    // Raw .ics body, parsed as it arrives
+    @PostMapping(value = "/{id}/import", consumes = {"text/calendar", MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    public ImportResultDTO importCalendar(@PathVariable Long id, HttpServletRequest request) throws IOException {
+        return icsImportService.importCalendar(id, getCurrentUserId(), request.getInputStream());
+    }
+
+    // File upload form; large uploads are spooled to disk by the multipart resolver, not held in memory
+    @PostMapping(value = "/{id}/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ImportResultDTO importCalendarFile(@PathVariable Long id, @RequestParam("file") MultipartFile file) throws IOException {
+        try (InputStream in = file.getInputStream()) {
+            return icsImportService.importCalendar(id, getCurrentUserId(), in);
+        }
     }
 }
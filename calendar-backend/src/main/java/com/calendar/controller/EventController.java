@@ -1,12 +1,19 @@
 package com.calendar.controller;
 
 import com.calendar.dto.EventDTO;
+import com.calendar.dto.EventPageDTO;
 import com.calendar.service.EventService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -17,11 +24,41 @@ public class EventController {
     @Autowired
     private EventService eventService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @GetMapping("/calendar/{calendarId}")
     public List<EventDTO> getEvents(@PathVariable Long calendarId) {
         return eventService.getEvents(calendarId);
     }
 
+    @GetMapping("/calendar/{calendarId}/page")
+    public EventPageDTO getEventPage(
+            @PathVariable Long calendarId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int limit) {
+        return eventService.getEventPage(calendarId, cursor, limit);
+    }
+
+    // Same JSON array as GET /calendar/{calendarId}, written row by row as the database returns it
+    @GetMapping("/calendar/{calendarId}/stream")
+    public ResponseEntity<StreamingResponseBody> streamEvents(@PathVariable Long calendarId) {
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+                json.writeStartArray();
+                eventService.forEachEvent(calendarId, event -> {
+                    try {
+                        json.writeObject(event);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                json.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
     @GetMapping("/calendar/{calendarId}/range")
     public List<EventDTO> getEventsInRange(
             @PathVariable Long calendarId,
@@ -41,8 +78,17 @@ public class EventController {
     }
 
     @DeleteMapping("/{id}")
-    public ResponseEntity<?> deleteEvent(@PathVariable Long id) {
-        eventService.deleteEvent(id);
+    public ResponseEntity<?> deleteEvent(@PathVariable Long id,
+                                         @RequestParam(defaultValue = "false") boolean series) {
+        eventService.deleteEvent(id, series);
+        return ResponseEntity.ok().build();
+    }
+
+    @DeleteMapping("/{id}/occurrences")
+    public ResponseEntity<?> deleteOccurrence(
+            @PathVariable Long id,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start) {
+        eventService.deleteOccurrence(id, start);
         return ResponseEntity.ok().build();
     }
 }
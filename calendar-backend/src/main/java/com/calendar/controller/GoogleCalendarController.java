@@ -2,6 +2,9 @@ package com.calendar.controller;
 
 import com.calendar.config.GoogleCalendarConfig;
 import com.calendar.service.GoogleCalendarService;
+import com.calendar.service.GoogleCallExecutor;
+import com.calendar.service.GoogleQuotaGovernor;
+import com.calendar.service.GoogleSyncScheduler;
 import com.google.api.client.auth.oauth2.Credential;
 import com.google.api.services.calendar.model.Event;
 import org.slf4j.Logger;
@@ -11,9 +14,11 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.io.IOException;
+import java.time.LocalDateTime;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * Controller for Google Calendar OAuth and synchronization endpoints.
@@ -30,6 +35,9 @@ public class GoogleCalendarController {
     @Autowired
     private GoogleCalendarConfig googleCalendarConfig;
 
+    @Autowired
+    private GoogleSyncScheduler googleSyncScheduler;
+
     @org.springframework.beans.factory.annotation.Value("${frontend.url}")
     private String frontendUrl;
 
@@ -100,6 +108,8 @@ public class GoogleCalendarController {
                     code, googleCalendarConfig.getRedirectUri(), state);
             
             logger.info("Successfully authenticated with Google Calendar for User ID: {}", state);
+            // First pull happens in the background right away
+            googleSyncScheduler.onConnected(Long.parseLong(state));
             
             response.sendRedirect(frontendUrl + "/?google_connected=true");
             
@@ -111,133 +121,148 @@ public class GoogleCalendarController {
     }
 
     /**
-     * Fetch events from Google Calendar.
+     * Fetch events from Google Calendar. Completes asynchronously; no request thread waits on Google.
      */
     @GetMapping("/events")
-    public ResponseEntity<?> fetchEvents(org.springframework.security.core.Authentication authentication) {
-        try {
-            if (authentication == null) {
-                return ResponseEntity.status(401).build();
-            }
-            
-            com.calendar.model.User user = (com.calendar.model.User) authentication.getPrincipal();
-            Long userId = user.getId();
-            
-            Credential credential = googleCalendarService.getCredentialFromDatabase(userId);
-            
-            if (credential == null) {
-                Map<String, String> error = new HashMap<>();
-                error.put("status", "error");
-                error.put("message", "Not connected to Google Calendar. Please authenticate first.");
-                return ResponseEntity.badRequest().body(error);
-            }
-            
-            List<Event> events = googleCalendarService.fetchGoogleCalendarEvents(credential, user);
-            return ResponseEntity.ok(events);
-            
-        } catch (IOException e) {
-            logger.error("Error fetching Google Calendar events", e);
-            if (e.getMessage().contains("401") || e.getMessage().contains("invalid_grant")) {
-                 // Token expired or revoked
-                 Map<String, String> error = new HashMap<>();
-                 error.put("status", "error");
-                 error.put("message", "Google Calendar session expired. Please reconnect.");
-                 return ResponseEntity.status(401).body(error);
-            }
-            Map<String, String> error = new HashMap<>();
-            error.put("status", "error");
-            error.put("message", "Failed to fetch events from Google Calendar");
-            return ResponseEntity.badRequest().body(error);
+    public CompletableFuture<ResponseEntity<?>> fetchEvents(org.springframework.security.core.Authentication authentication) {
+        if (authentication == null) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(401).build());
+        }
+
+        com.calendar.model.User principal = (com.calendar.model.User) authentication.getPrincipal();
+        Long userId = principal.getId();
+
+        Credential credential = googleCalendarService.getCredentialFromDatabase(userId);
+
+        if (credential == null) {
+            return CompletableFuture.completedFuture(notConnected());
         }
+
+        return googleCalendarService.fetchGoogleCalendarEventsAsync(credential, principal)
+                .<ResponseEntity<?>>thenApply(ResponseEntity::ok)
+                .exceptionally(e -> googleError(e, "Error fetching Google Calendar events",
+                        "Failed to fetch events from Google Calendar"));
     }
 
     /**
-     * Export event to Google Calendar.
+     * Export event to Google Calendar. Completes asynchronously; no request thread waits on Google.
      */
     @PostMapping("/export")
-    public ResponseEntity<Map<String, String>> exportEvent(@RequestBody Event event, org.springframework.security.core.Authentication authentication) {
-        try {
-            if (authentication == null) {
-                return ResponseEntity.status(401).build();
-            }
-            
-            com.calendar.model.User user = (com.calendar.model.User) authentication.getPrincipal();
-            Long userId = user.getId();
-            
-            Credential credential = googleCalendarService.getCredentialFromDatabase(userId);
-            
-            if (credential == null) {
-                Map<String, String> error = new HashMap<>();
-                error.put("status", "error");
-                error.put("message", "Not connected to Google Calendar. Please authenticate first.");
-                return ResponseEntity.badRequest().body(error);
-            }
-            
-            Event exported = googleCalendarService.exportToGoogleCalendar(credential, event);
-            
-            Map<String, String> response = new HashMap<>();
-            response.put("status", "success");
-            response.put("eventId", exported.getId());
-            response.put("message", "Event exported to Google Calendar");
-            
-            return ResponseEntity.ok(response);
-            
-        } catch (IOException e) {
-            logger.error("Error exporting event to Google Calendar", e);
-            if (e.getMessage().contains("401") || e.getMessage().contains("invalid_grant")) {
-                 Map<String, String> error = new HashMap<>();
-                 error.put("status", "error");
-                 error.put("message", "Google Calendar session expired. Please reconnect.");
-                 return ResponseEntity.status(401).body(error);
-            }
-            Map<String, String> error = new HashMap<>();
-            error.put("status", "error");
-            error.put("message", "Failed to export event to Google Calendar");
-            return ResponseEntity.badRequest().body(error);
+    public CompletableFuture<ResponseEntity<?>> exportEvent(@RequestBody Event event, org.springframework.security.core.Authentication authentication) {
+        if (authentication == null) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(401).build());
+        }
+
+        com.calendar.model.User user = (com.calendar.model.User) authentication.getPrincipal();
+        Long userId = user.getId();
+
+        Credential credential = googleCalendarService.getCredentialFromDatabase(userId);
+
+        if (credential == null) {
+            return CompletableFuture.completedFuture(notConnected());
         }
+
+        return googleCalendarService.exportToGoogleCalendar(credential, userId, event)
+                .<ResponseEntity<?>>thenApply(exported -> {
+                    Map<String, String> response = new HashMap<>();
+                    response.put("status", "success");
+                    response.put("eventId", exported.getId());
+                    response.put("message", "Event exported to Google Calendar");
+                    return ResponseEntity.ok(response);
+                })
+                .exceptionally(e -> googleError(e, "Error exporting event to Google Calendar",
+                        "Failed to export event to Google Calendar"));
+    }
+
+    private ResponseEntity<?> notConnected() {
+        Map<String, String> error = new HashMap<>();
+        error.put("status", "error");
+        error.put("message", "Not connected to Google Calendar. Please authenticate first.");
+        return ResponseEntity.badRequest().body(error);
+    }
+
+    private ResponseEntity<?> googleError(Throwable failure, String logMessage, String errorMessage) {
+        Throwable e = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+        logger.error(logMessage, e);
+        Map<String, String> error = new HashMap<>();
+        error.put("status", "error");
+        if (e instanceof GoogleCallExecutor.CircuitOpenException) {
+            // Google is failing for everyone; the client may try again shortly
+            error.put("message", "Google Calendar is temporarily unavailable. Please try again later.");
+            return ResponseEntity.status(503).header("Retry-After", "30").body(error);
+        }
+        if (e instanceof GoogleQuotaGovernor.QuotaExceededException) {
+            // Our share of the Google quota is used up for now
+            error.put("message", "Too many requests to Google Calendar. Please try again shortly.");
+            return ResponseEntity.status(429).header("Retry-After", "30").body(error);
+        }
+        String message = e.getMessage() != null ? e.getMessage() : "";
+        if (message.contains("401") || message.contains("invalid_grant")) {
+            // Token expired or revoked
+            error.put("message", "Google Calendar session expired. Please reconnect.");
+            return ResponseEntity.status(401).body(error);
+        }
+        error.put("message", errorMessage);
+        return ResponseEntity.badRequest().body(error);
     }
 
     /**
-     * Sync events from Google Calendar to local database.
+     * Ask for a two-way sync with Google Calendar. The sync runs in the background (see
+     * {@link GoogleSyncScheduler}); poll {@code GET /api/google/sync} for its outcome.
      */
     @PostMapping("/sync")
     public ResponseEntity<?> syncEvents(org.springframework.security.core.Authentication authentication) {
-        try {
-            if (authentication == null) {
-                return ResponseEntity.status(401).build();
-            }
-            
-            com.calendar.model.User principal = (com.calendar.model.User) authentication.getPrincipal();
-            // Reload user
-            com.calendar.model.User user = googleCalendarService.getUserById(principal.getId());
-            
-            logger.info("Initiating two-way sync for user: {}", user.getUsername());
-            
-            // 1. Pull events from Google to local
-            List<com.calendar.model.Event> pulled = googleCalendarService.syncGoogleEvents(user);
-            
-            // 2. Push local events to Google
-            int pushed = googleCalendarService.pushLocalEventsToGoogle(user);
-            
-            Map<String, Object> response = new HashMap<>();
-            response.put("status", "success");
-            response.put("pulledCount", pulled.size());
-            response.put("pushedCount", pushed);
-            response.put("message", String.format("Sync complete! Pulled %d from Google and pushed %d from local.", 
-                    pulled.size(), pushed));
-            
-            logger.info("Completed two-way sync for user {}. Pulled: {}, Pushed: {}", 
-                    user.getUsername(), pulled.size(), pushed);
-            
-            return ResponseEntity.ok(response);
-            
-        } catch (Exception e) {
-            logger.error("Critical error during two-way Google Calendar sync", e);
-            Map<String, String> error = new HashMap<>();
+        if (authentication == null) {
+            return ResponseEntity.status(401).build();
+        }
+
+        com.calendar.model.User principal = (com.calendar.model.User) authentication.getPrincipal();
+        // Reload user
+        com.calendar.model.User user = googleCalendarService.getUserById(principal.getId());
+        if (user == null || user.getGoogleAccessToken() == null) {
+            Map<String, Object> error = new HashMap<>();
             error.put("status", "error");
-            error.put("message", "Sync failed: " + e.getMessage());
-            error.put("details", e.getClass().getSimpleName());
-            return ResponseEntity.status(500).body(error);
+            error.put("message", "Not connected to Google Calendar. Please authenticate first.");
+            return ResponseEntity.badRequest().body(error);
+        }
+
+        googleSyncScheduler.requestSync(user.getId());
+        logger.info("Queued two-way sync for user: {}", user.getUsername());
+
+        Map<String, Object> response = syncStatus(user.getId());
+        response.put("status", "queued");
+        response.put("message", "Sync started. Your calendar will update shortly.");
+        return ResponseEntity.accepted().body(response);
+    }
+
+    /**
+     * Outcome of the user's most recent background sync and when the next one is due.
+     */
+    @GetMapping("/sync")
+    public ResponseEntity<?> getSyncStatus(org.springframework.security.core.Authentication authentication) {
+        if (authentication == null) {
+            return ResponseEntity.status(401).build();
         }
+
+        com.calendar.model.User principal = (com.calendar.model.User) authentication.getPrincipal();
+        Map<String, Object> response = syncStatus(principal.getId());
+        response.put("status", "success");
+        return ResponseEntity.ok(response);
+    }
+
+    private Map<String, Object> syncStatus(Long userId) {
+        Map<String, Object> status = new HashMap<>();
+        googleSyncScheduler.getState(userId).ifPresent(state -> {
+            status.put("running", state.getLeaseUntil() != null && state.getLeaseUntil().isAfter(LocalDateTime.now()));
+            status.put("requestedAt", state.getRequestedAt());
+            status.put("lastStartedAt", state.getLastStartedAt());
+            status.put("lastSuccessAt", state.getLastSuccessAt());
+            status.put("lastFailureAt", state.getLastFailureAt());
+            status.put("lastError", state.getLastError());
+            status.put("nextSyncAt", state.getNextRunAt());
+            status.put("pulledCount", state.getLastPulled());
+            status.put("pushedCount", state.getLastPushed());
+        });
+        return status;
     }
 }
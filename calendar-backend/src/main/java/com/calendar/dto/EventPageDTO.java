@@ -0,0 +1,32 @@
+package com.calendar.dto;
+
+import java.util.List;
+
+public class EventPageDTO {
+    private List<EventDTO> events;
+    private String nextCursor; // opaque continuation token, null on the last page
+
+    public EventPageDTO() {
+    }
+
+    public EventPageDTO(List<EventDTO> events, String nextCursor) {
+        this.events = events;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<EventDTO> getEvents() {
+        return events;
+    }
+
+    public void setEvents(List<EventDTO> events) {
+        this.events = events;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
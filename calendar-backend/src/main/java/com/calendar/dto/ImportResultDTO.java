@@ -0,0 +1,119 @@
+package com.calendar.dto;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class ImportResultDTO {
+    private Long calendarId;
+    private long parsed;      // VEVENTs read from the file
+    private long imported;    // rows written; a materialized series writes one per occurrence
+    private long duplicates;  // UIDs already in the calendar or repeated in the file
+    private long failed;      // VEVENTs that could not be mapped to an event
+    private long millis;
+    private Map<String, Stage> stages = new LinkedHashMap<>();
+
+    public ImportResultDTO() {
+    }
+
+    public ImportResultDTO(Long calendarId) {
+        this.calendarId = calendarId;
+    }
+
+    public Long getCalendarId() {
+        return calendarId;
+    }
+
+    public void setCalendarId(Long calendarId) {
+        this.calendarId = calendarId;
+    }
+
+    public long getParsed() {
+        return parsed;
+    }
+
+    public void setParsed(long parsed) {
+        this.parsed = parsed;
+    }
+
+    public long getImported() {
+        return imported;
+    }
+
+    public void setImported(long imported) {
+        this.imported = imported;
+    }
+
+    public long getDuplicates() {
+        return duplicates;
+    }
+
+    public void setDuplicates(long duplicates) {
+        this.duplicates = duplicates;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public void setFailed(long failed) {
+        this.failed = failed;
+    }
+
+    public long getMillis() {
+        return millis;
+    }
+
+    public void setMillis(long millis) {
+        this.millis = millis;
+    }
+
+    public Map<String, Stage> getStages() {
+        return stages;
+    }
+
+    public void setStages(Map<String, Stage> stages) {
+        this.stages = stages;
+    }
+
+    /**
+     * Time spent in one stage of the import and the events it handled.
+     */
+    public static class Stage {
+        private long events;
+        private long millis;
+        private long eventsPerSecond;
+
+        public Stage() {
+        }
+
+        public Stage(long events, long millis) {
+            this.events = events;
+            this.millis = millis;
+            this.eventsPerSecond = millis > 0 ? events * 1000 / millis : events;
+        }
+
+        public long getEvents() {
+            return events;
+        }
+
+        public void setEvents(long events) {
+            this.events = events;
+        }
+
+        public long getMillis() {
+            return millis;
+        }
+
+        public void setMillis(long millis) {
+            this.millis = millis;
+        }
+
+        public long getEventsPerSecond() {
+            return eventsPerSecond;
+        }
+
+        public void setEventsPerSecond(long eventsPerSecond) {
+            this.eventsPerSecond = eventsPerSecond;
+        }
+    }
+}
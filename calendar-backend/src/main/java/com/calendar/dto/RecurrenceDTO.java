@@ -10,6 +10,7 @@ public class RecurrenceDTO {
     private String type; // COUNT or DATE
     private Integer occurrences;
     private LocalDate untilDate;
+    private String rule; // optional full RRULE, takes precedence over the fields above
 
     public RecurrenceDTO() {
     }
@@ -70,4 +71,12 @@ public class RecurrenceDTO {
     public void setUntilDate(LocalDate untilDate) {
         this.untilDate = untilDate;
     }
+
+    public String getRule() {
+        return rule;
+    }
+
+    public void setRule(String rule) {
+        this.rule = rule;
+    }
 }
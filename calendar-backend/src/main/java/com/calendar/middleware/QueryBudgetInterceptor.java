@@ -0,0 +1,164 @@
+package com.calendar.middleware;
+
+import com.calendar.monitoring.QueryStats;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Counts the SQL statements, rows and database time of each request and records them per
+ * endpoint. A request issuing more statements than its endpoint's budget is logged, which is
+ * how N+1 query patterns show up.
+ *
+ * Budgets are {@code db.query-budget.default} plus comma-separated
+ * {@code METHOD /pattern=N} overrides in {@code db.query-budget.endpoints}, matched against the
+ * endpoint's mapping pattern.
+ *
+ * Statements run on other threads (streaming responses, background refreshes) are not counted.
+ */
+@Component
+public class QueryBudgetInterceptor implements AsyncHandlerInterceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(QueryBudgetInterceptor.class);
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${db.query-budget.default:25}")
+    private int defaultBudget = 25;
+
+    @Value("${db.query-budget.endpoints:}")
+    private String endpointBudgets = "";
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final Map<String, Integer> budgets = new LinkedHashMap<>();
+    private final ConcurrentMap<String, EndpointMeters> meters = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        budgets.clear();
+        for (String entry : endpointBudgets.split(",")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            String[] endpointAndBudget = entry.trim().split("=");
+            if (endpointAndBudget.length != 2 || endpointAndBudget[0].trim().split("\\s+").length != 2) {
+                throw new RuntimeException("Invalid query budget: " + entry);
+            }
+            budgets.put(endpointAndBudget[0].trim().replaceAll("\\s+", " "), Integer.parseInt(endpointAndBudget[1].trim()));
+        }
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getDispatcherType() != DispatcherType.ASYNC) {
+            QueryStats.start();
+        }
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // The rest of the request runs elsewhere; don't leak this request's stats into the next one on this thread
+        QueryStats.stop();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        QueryStats stats = QueryStats.stop();
+        if (stats == null) {
+            return;
+        }
+        String endpoint = request.getMethod() + " " + endpointPattern(request);
+        EndpointMeters endpointMeters = meters.computeIfAbsent(endpoint, this::createMeters);
+        endpointMeters.queries.record(stats.getQueries());
+        endpointMeters.rows.record(stats.getRows());
+        endpointMeters.time.record(stats.getNanos(), TimeUnit.NANOSECONDS);
+
+        if (stats.getQueries() > endpointMeters.budget) {
+            endpointMeters.overBudget.increment();
+            logger.warn("Query budget exceeded: {} issued {} statements (budget {}), {} rows, {}ms in the database",
+                    endpoint, stats.getQueries(), endpointMeters.budget, stats.getRows(),
+                    TimeUnit.NANOSECONDS.toMillis(stats.getNanos()));
+        }
+    }
+
+    private static String endpointPattern(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        // Unmapped requests share one tag instead of one per raw URI
+        return pattern != null ? pattern.toString() : "UNMAPPED";
+    }
+
+    private EndpointMeters createMeters(String endpoint) {
+        String[] methodAndUri = endpoint.split(" ", 2);
+        int budget = defaultBudget;
+        for (Map.Entry<String, Integer> entry : budgets.entrySet()) {
+            String[] budgetMethodAndPattern = entry.getKey().split(" ", 2);
+            if (budgetMethodAndPattern[0].equalsIgnoreCase(methodAndUri[0])
+                    && pathMatcher.match(budgetMethodAndPattern[1], methodAndUri[1])) {
+                budget = entry.getValue();
+                break;
+            }
+        }
+        return new EndpointMeters(
+                DistributionSummary.builder("db.request.queries")
+                        .description("SQL statements per request")
+                        .tag("method", methodAndUri[0])
+                        .tag("uri", methodAndUri[1])
+                        .publishPercentileHistogram()
+                        .register(meterRegistry),
+                DistributionSummary.builder("db.request.rows")
+                        .description("Rows read or written per request")
+                        .tag("method", methodAndUri[0])
+                        .tag("uri", methodAndUri[1])
+                        .publishPercentileHistogram()
+                        .register(meterRegistry),
+                Timer.builder("db.request.time")
+                        .description("Time spent executing SQL per request")
+                        .tag("method", methodAndUri[0])
+                        .tag("uri", methodAndUri[1])
+                        .publishPercentileHistogram()
+                        .register(meterRegistry),
+                Counter.builder("db.request.budget.exceeded")
+                        .description("Requests that issued more SQL statements than their budget")
+                        .tag("method", methodAndUri[0])
+                        .tag("uri", methodAndUri[1])
+                        .register(meterRegistry),
+                budget);
+    }
+
+    private static final class EndpointMeters {
+        final DistributionSummary queries;
+        final DistributionSummary rows;
+        final Timer time;
+        final Counter overBudget;
+        final int budget;
+
+        EndpointMeters(DistributionSummary queries, DistributionSummary rows, Timer time, Counter overBudget, int budget) {
+            this.queries = queries;
+            this.rows = rows;
+            this.time = time;
+            this.overBudget = overBudget;
+            this.budget = budget;
+        }
+    }
+}
@@ -1,40 +1,158 @@
 package com.calendar.middleware;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
 import io.github.bucket4j.Bandwidth;
 import io.github.bucket4j.Bucket;
+import io.github.bucket4j.ConsumptionProbe;
 import io.github.bucket4j.Refill;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import com.calendar.model.User;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.DispatcherType;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.servlet.HandlerInterceptor;
 
 import java.time.Duration;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class RateLimitInterceptor implements HandlerInterceptor {
 
-    private final Map<String, Bucket> cache = new ConcurrentHashMap<>();
+    private static final Logger logger = LoggerFactory.getLogger(RateLimitInterceptor.class);
 
-    // Rate Limit: 100 requests per minute
-    private Bucket createNewBucket() {
-        Bandwidth limit = Bandwidth.classic(100, Refill.greedy(100, Duration.ofMinutes(1)));
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private RateLimitPolicy rateLimitPolicy;
+
+    // "local" keeps buckets per node; "redis" shares one bucket per client across all nodes
+    @Value("${rate.limit.mode:local}")
+    private String mode = "local";
+
+    @Value("${rate.limit.window:60000}")
+    private long windowMs = 60000;
+
+    // Upper bound on tracked clients; the least valuable buckets go first when it is reached
+    @Value("${rate.limit.max-buckets:100000}")
+    private long maxBuckets = 100000;
+
+    // Tokens a node takes from Redis at once in redis mode, and how long it may hold them
+    @Value("${rate.limit.lease-batch:10}")
+    private long leaseBatch = 10;
+
+    @Value("${rate.limit.lease-ms:1000}")
+    private long leaseMs = 1000;
+
+    private Cache<String, Bucket> buckets;
+    private RedisRateLimiter redisRateLimiter;
+    private Counter rejected;
+    private Counter evictions;
+
+    @PostConstruct
+    void init() {
+        // A bucket idle for a whole window has refilled completely, so dropping it loses nothing:
+        // the client gets an identical fresh bucket on its next request
+        buckets = Caffeine.newBuilder()
+                .maximumSize(maxBuckets)
+                .expireAfterAccess(Duration.ofMillis(windowMs))
+                .removalListener((String ip, Bucket bucket, RemovalCause cause) -> {
+                    if (cause.wasEvicted()) {
+                        evictions.increment();
+                    }
+                })
+                .build();
+
+        rejected = Counter.builder("rate.limit.rejected")
+                .description("Requests rejected by the rate limiter")
+                .register(meterRegistry);
+        evictions = Counter.builder("rate.limit.evictions")
+                .description("Rate limit buckets dropped for idleness or size")
+                .register(meterRegistry);
+        Gauge.builder("rate.limit.buckets", buckets, Cache::estimatedSize)
+                .description("Clients currently tracked by the rate limiter")
+                .register(meterRegistry);
+
+        if ("redis".equalsIgnoreCase(mode)) {
+            redisRateLimiter = new RedisRateLimiter(stringRedisTemplate, Duration.ofMillis(windowMs),
+                    leaseBatch, Duration.ofMillis(leaseMs), maxBuckets);
+        }
+    }
+
+    private Bucket createNewBucket(long capacity) {
+        Bandwidth limit = Bandwidth.classic(capacity, Refill.greedy(capacity, Duration.ofMillis(windowMs)));
         return Bucket.builder().addLimit(limit).build();
     }
 
     @Override
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
-        String ip = request.getRemoteAddr();
-        Bucket bucket = cache.computeIfAbsent(ip, k -> createNewBucket());
+        // Streaming responses come back through an async dispatch; they already paid
+        if (request.getDispatcherType() == DispatcherType.ASYNC) {
+            return true;
+        }
+        RateLimitPolicy.Route route = rateLimitPolicy.resolve(request.getMethod(), request.getRequestURI());
+        String bucketKey = route.getTier().name().toLowerCase(Locale.ROOT) + ":" + clientKey(request);
+        ConsumptionProbe probe = tryConsume(bucketKey, rateLimitPolicy.capacity(route.getTier()), route.getCost());
 
-        if (bucket.tryConsume(1)) {
-            response.addHeader("X-Rate-Limit-Remaining", String.valueOf(bucket.getAvailableTokens()));
+        if (probe.isConsumed()) {
+            response.addHeader("X-Rate-Limit-Remaining", String.valueOf(probe.getRemainingTokens()));
             return true;
         } else {
+            rejected.increment();
+            long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(probe.getNanosToWaitForRefill() + 999_999_999L));
             response.setStatus(429); // Too Many Requests
+            response.setHeader("Retry-After", String.valueOf(retryAfterSeconds));
             response.getWriter().write("Too many requests - Rate limit exceeded");
             return false;
         }
     }
+
+    /**
+     * Authenticated requests are limited per user, so users behind one NAT do not share a
+     * quota; anonymous ones (login, register, OAuth callback) per IP.
+     */
+    private String clientKey(HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof User) {
+            Long userId = ((User) authentication.getPrincipal()).getId();
+            if (userId != null) {
+                return "user:" + userId;
+            }
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    private ConsumptionProbe tryConsume(String bucketKey, long capacity, long tokens) {
+        if (redisRateLimiter != null) {
+            try {
+                return redisRateLimiter.tryConsume(bucketKey, capacity, tokens);
+            } catch (RuntimeException e) {
+                // Keep limiting per node rather than failing requests or letting everything through
+                logger.warn("Distributed rate limiter unavailable, using local buckets: {}", e.getMessage());
+            }
+        }
+        return buckets.get(bucketKey, k -> createNewBucket(capacity)).tryConsumeAndReturnRemaining(tokens);
+    }
+
+    long bucketCount() {
+        buckets.cleanUp();
+        return buckets.estimatedSize();
+    }
 }
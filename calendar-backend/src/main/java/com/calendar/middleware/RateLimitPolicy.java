@@ -0,0 +1,114 @@
+package com.calendar.middleware;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Decides which bucket a request draws from and how many tokens it costs.
+ *
+ * Each tier has its own bandwidth per client. Routes listed in {@code rate.limit.routes}
+ * get an explicit tier and cost; anything else costs one token from the read tier for
+ * GET/HEAD and from the write tier for other methods.
+ *
+ * Route rules are comma-separated {@code METHOD /path/pattern=tier:cost} entries, first match
+ * wins, e.g. {@code GET /api/calendars/*}{@code /export=heavy:5}.
+ */
+@Component
+public class RateLimitPolicy {
+
+    public enum Tier {
+        READ, WRITE, HEAVY
+    }
+
+    public static final class Route {
+        private final Tier tier;
+        private final long cost;
+
+        Route(Tier tier, long cost) {
+            this.tier = tier;
+            this.cost = cost;
+        }
+
+        public Tier getTier() {
+            return tier;
+        }
+
+        public long getCost() {
+            return cost;
+        }
+    }
+
+    private static final class Rule {
+        final String method;
+        final String pattern;
+        final Route route;
+
+        Rule(String method, String pattern, Route route) {
+            this.method = method;
+            this.pattern = pattern;
+            this.route = route;
+        }
+    }
+
+    @Value("${rate.limit.requests:100}")
+    private long readRequests = 100;
+
+    @Value("${rate.limit.write.requests:30}")
+    private long writeRequests = 30;
+
+    @Value("${rate.limit.heavy.requests:20}")
+    private long heavyRequests = 20;
+
+    @Value("${rate.limit.routes:}")
+    private String routes = "";
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final List<Rule> rules = new ArrayList<>();
+
+    @PostConstruct
+    void init() {
+        rules.clear();
+        for (String entry : routes.split(",")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            String[] ruleAndRoute = entry.trim().split("=");
+            String[] methodAndPattern = ruleAndRoute[0].trim().split("\\s+");
+            String[] tierAndCost = ruleAndRoute.length > 1 ? ruleAndRoute[1].trim().split(":") : new String[0];
+            if (methodAndPattern.length != 2 || tierAndCost.length != 2) {
+                throw new RuntimeException("Invalid rate limit route: " + entry);
+            }
+            Tier tier = Tier.valueOf(tierAndCost[0].trim().toUpperCase(Locale.ROOT));
+            // A cost above the tier's capacity could never be paid
+            long cost = Math.max(1, Math.min(Long.parseLong(tierAndCost[1].trim()), capacity(tier)));
+            rules.add(new Rule(methodAndPattern[0].toUpperCase(Locale.ROOT), methodAndPattern[1], new Route(tier, cost)));
+        }
+    }
+
+    public Route resolve(String method, String path) {
+        for (Rule rule : rules) {
+            if (rule.method.equalsIgnoreCase(method) && pathMatcher.match(rule.pattern, path)) {
+                return rule.route;
+            }
+        }
+        boolean read = "GET".equalsIgnoreCase(method) || "HEAD".equalsIgnoreCase(method);
+        return new Route(read ? Tier.READ : Tier.WRITE, 1);
+    }
+
+    public long capacity(Tier tier) {
+        switch (tier) {
+            case WRITE:
+                return writeRequests;
+            case HEAVY:
+                return heavyRequests;
+            default:
+                return readRequests;
+        }
+    }
+}
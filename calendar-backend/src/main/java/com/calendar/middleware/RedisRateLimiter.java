@@ -0,0 +1,134 @@
+package com.calendar.middleware;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.bucket4j.ConsumptionProbe;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket shared by all nodes through Redis.
+ *
+ * The bucket lives in a Redis hash and is refilled and debited atomically by a script that
+ * uses the Redis clock, so node clocks do not matter. To keep Redis off the hot path each
+ * node leases a small batch of tokens at a time and serves requests from the lease until it
+ * runs out or expires. Leased tokens have already left the shared bucket, so the cluster-wide
+ * limit holds exactly; an expired lease only wastes its unused tokens.
+ */
+public class RedisRateLimiter {
+
+    private static final String KEY_PREFIX = "rate-limit:";
+
+    // KEYS[1] bucket; ARGV: capacity, refill per ms, tokens wanted, key TTL in ms.
+    // Grants as many of the wanted tokens as are available; returns {granted, tokens left}.
+    private static final DefaultRedisScript<List> TAKE_SCRIPT = new DefaultRedisScript<>(
+            "local t = redis.call('TIME') " +
+            "local now = tonumber(t[1]) * 1000 + math.floor(tonumber(t[2]) / 1000) " +
+            "local capacity = tonumber(ARGV[1]) " +
+            "local rate = tonumber(ARGV[2]) " +
+            "local state = redis.call('HMGET', KEYS[1], 'tokens', 'ts') " +
+            "local tokens = tonumber(state[1]) " +
+            "local ts = tonumber(state[2]) " +
+            "if tokens == nil then tokens = capacity ts = now end " +
+            "tokens = math.min(capacity, tokens + math.max(0, now - ts) * rate) " +
+            "local granted = math.min(tonumber(ARGV[3]), math.floor(tokens)) " +
+            "tokens = tokens - granted " +
+            "redis.call('HSET', KEYS[1], 'tokens', tostring(tokens), 'ts', tostring(now)) " +
+            "redis.call('PEXPIRE', KEYS[1], ARGV[4]) " +
+            "return {granted, math.floor(tokens)}",
+            List.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final long windowMs;
+    private final long leaseBatch;
+    private final long leaseMs;
+    private final Cache<String, Lease> leases;
+
+    public RedisRateLimiter(StringRedisTemplate redisTemplate, Duration window,
+                            long leaseBatch, Duration leaseTtl, long maxClients) {
+        this.redisTemplate = redisTemplate;
+        this.windowMs = window.toMillis();
+        this.leaseBatch = Math.max(1, leaseBatch);
+        this.leaseMs = leaseTtl.toMillis();
+        this.leases = Caffeine.newBuilder()
+                .maximumSize(maxClients)
+                .expireAfterAccess(leaseTtl.multipliedBy(2))
+                .build();
+    }
+
+    /**
+     * Take {@code tokens} from the client's shared bucket, which holds {@code capacity} tokens
+     * and refills completely over one window.
+     *
+     * @throws RuntimeException if Redis is unreachable; the caller decides how to degrade
+     */
+    public ConsumptionProbe tryConsume(String clientKey, long capacity, long tokens) {
+        Lease lease = leases.get(clientKey, k -> new Lease());
+        synchronized (lease) {
+            long now = System.currentTimeMillis();
+            if (lease.expiresAt <= now) {
+                lease.tokens = 0;
+            }
+            if (lease.tokens >= tokens) {
+                lease.tokens -= tokens;
+                return ConsumptionProbe.consumed(lease.tokens + lease.sharedLeft, 0);
+            }
+            // Everyone else's requests drained the shared bucket; don't ask again until it refills
+            if (lease.deniedUntil > now) {
+                return rejected(lease, lease.deniedUntil - now);
+            }
+
+            // Small buckets lease little, so tokens stranded in an expiring lease stay a small share
+            long batch = Math.max(1, Math.min(leaseBatch, capacity / 10));
+            long wanted = Math.max(tokens - lease.tokens, batch);
+            List<?> result = redisTemplate.execute(TAKE_SCRIPT, List.of(KEY_PREFIX + clientKey),
+                    String.valueOf(capacity), String.valueOf((double) capacity / windowMs),
+                    String.valueOf(wanted), String.valueOf(windowMs * 2));
+            long granted = ((Number) result.get(0)).longValue();
+            lease.sharedLeft = ((Number) result.get(1)).longValue();
+            lease.tokens += granted;
+            lease.expiresAt = now + leaseMs;
+
+            if (lease.tokens >= tokens) {
+                lease.tokens -= tokens;
+                return ConsumptionProbe.consumed(lease.tokens + lease.sharedLeft, 0);
+            }
+            long waitMs = (long) Math.ceil((tokens - lease.tokens) * (double) windowMs / capacity);
+            lease.deniedUntil = now + Math.max(1, waitMs);
+            return rejected(lease, waitMs);
+        }
+    }
+
+    /**
+     * Give back tokens taken by {@link #tryConsume} for work that did not go ahead. They return
+     * to this node's lease, not to Redis, and are lost if the lease expires first.
+     */
+    public void refund(String clientKey, long tokens) {
+        Lease lease = leases.getIfPresent(clientKey);
+        if (lease == null) {
+            return;
+        }
+        synchronized (lease) {
+            if (lease.expiresAt > System.currentTimeMillis()) {
+                lease.tokens += tokens;
+            }
+        }
+    }
+
+    private static ConsumptionProbe rejected(Lease lease, long waitMs) {
+        long waitNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, waitMs));
+        return ConsumptionProbe.rejected(lease.tokens + lease.sharedLeft, waitNanos, waitNanos);
+    }
+
+    // Tokens this node holds for one client, plus what it last saw left in Redis
+    private static final class Lease {
+        long tokens;
+        long expiresAt;
+        long sharedLeft;
+        long deniedUntil;
+    }
+}
@@ -0,0 +1,42 @@
+package com.calendar.middleware;
+
+import com.calendar.monitoring.QueryStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import java.util.Locale;
+
+/**
+ * Adds a {@code Server-Timing: db;dur=..;desc=".. queries"} header to response bodies when
+ * {@code db.server-timing.enabled} is set. Headers must go out before the body, so statements
+ * issued while the body is serialized (lazy loading) are only in the metrics, not the header.
+ */
+@ControllerAdvice
+public class ServerTimingAdvice implements ResponseBodyAdvice<Object> {
+
+    @Value("${db.server-timing.enabled:false}")
+    private boolean enabled;
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return enabled;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        QueryStats stats = QueryStats.current();
+        if (stats != null) {
+            response.getHeaders().add("Server-Timing", String.format(Locale.ROOT, "db;dur=%.1f;desc=\"%d queries\"",
+                    stats.getNanos() / 1_000_000.0, stats.getQueries()));
+        }
+        return body;
+    }
+}
@@ -0,0 +1,76 @@
+package com.calendar.model;
+
+import jakarta.persistence.*;
+
+/**
+ * One pre-aggregated analytics count for a user, e.g. (STATUS, "CONFIRMED") or (DAY, "2026-03-01").
+ * Rows are maintained with deltas as events are written, so reading analytics never scans events.
+ */
+@Entity
+@Table(name = "analytics_counters",
+       uniqueConstraints = {
+           @UniqueConstraint(name = "uk_analytics_counter", columnNames = {"user_id", "dimension", "bucket"})
+       })
+public class AnalyticsCounter {
+
+    public enum Dimension {
+        TOTAL,   // single bucket "", all events
+        ONLINE,  // single bucket "", events with an online meeting location
+        STATUS,
+        WEEKDAY,
+        SUBJECT,
+        DAY,     // ISO date of the event start, used for the week/month/30-day windows
+        BUILT    // marker written by a full rebuild, count holds the build time
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Dimension dimension;
+
+    @Column(nullable = false)
+    private String bucket;
+
+    @Column(name = "event_count", nullable = false)
+    private long count;
+
+    public AnalyticsCounter() {
+    }
+
+    public AnalyticsCounter(Long userId, Dimension dimension, String bucket, long count) {
+        this.userId = userId;
+        this.dimension = dimension;
+        this.bucket = bucket;
+        this.count = count;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public Dimension getDimension() {
+        return dimension;
+    }
+
+    public String getBucket() {
+        return bucket;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+}
@@ -6,12 +6,36 @@ import jakarta.validation.constraints.NotNull;
 import org.hibernate.annotations.OnDelete;
 import org.hibernate.annotations.OnDeleteAction;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "events")
+@Table(name = "events",
+       indexes = {
+           // Range scans: calendar_id = ? AND start_time in (earliest start, window end)
+           @Index(name = "idx_events_calendar_range", columnList = "calendar_id, start_time, end_time"),
+           // The few rows the bounded scan cannot reach: long events and series masters
+           @Index(name = "idx_events_calendar_long", columnList = "calendar_id, long_running, end_time"),
+           // Keyset pagination: calendar_id = ? ORDER BY start_time, id
+           @Index(name = "idx_events_calendar_keyset", columnList = "calendar_id, start_time, id"),
+           // Duplicate detection on .ics import
+           @Index(name = "idx_events_calendar_ical_uid", columnList = "calendar_id, ical_uid"),
+           // Rows written since a conflict index snapshot: calendar_id = ? AND updated_at >= ?
+           @Index(name = "idx_events_calendar_updated", columnList = "calendar_id, updated_at")
+       },
+       uniqueConstraints = {
+           // Set-based dedupe and upsert of pulled Google events (GoogleSyncWriter)
+           @UniqueConstraint(name = "uk_events_calendar_google_event_id", columnNames = {"calendar_id", "google_event_id"})
+       })
 public class Event {
 
+    /**
+     * Longest event the bounded range scan finds. An event overlapping [start, end) that is no
+     * longer than this starts after start - MAX_INDEXED_DURATION, which keeps the index range narrow.
+     * Changing it requires re-running the long_running backfill in event_range_index.sql.
+     */
+    public static final Duration MAX_INDEXED_DURATION = Duration.ofHours(24);
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -157,4 +181,97 @@ public class Event {
     public void setGoogleEventId(String googleEventId) {
         this.googleEventId = googleEventId;
     }
+
+    // Edited locally since it was last pushed to Google; JDBC writers rely on the column default
+    @Column(name = "google_push_pending", columnDefinition = "BOOLEAN NOT NULL DEFAULT FALSE")
+    private boolean googlePushPending;
+
+    public boolean isGooglePushPending() {
+        return googlePushPending;
+    }
+
+    public void setGooglePushPending(boolean googlePushPending) {
+        this.googlePushPending = googlePushPending;
+    }
+
+    // Series master storage: a single row carries the RRULE and is expanded on read
+    @Column(name = "recurrence_rule", columnDefinition = "TEXT")
+    private String recurrenceRule;
+
+    // Comma-separated ISO start times of occurrences removed from the series
+    @Column(name = "recurrence_exceptions", columnDefinition = "TEXT")
+    private String recurrenceExceptions;
+
+    // End of the last occurrence, null for open-ended series
+    @Column(name = "recurrence_end")
+    private LocalDateTime recurrenceEnd;
+
+    public String getRecurrenceRule() {
+        return recurrenceRule;
+    }
+
+    public void setRecurrenceRule(String recurrenceRule) {
+        this.recurrenceRule = recurrenceRule;
+    }
+
+    public String getRecurrenceExceptions() {
+        return recurrenceExceptions;
+    }
+
+    public void setRecurrenceExceptions(String recurrenceExceptions) {
+        this.recurrenceExceptions = recurrenceExceptions;
+    }
+
+    public LocalDateTime getRecurrenceEnd() {
+        return recurrenceEnd;
+    }
+
+    public void setRecurrenceEnd(LocalDateTime recurrenceEnd) {
+        this.recurrenceEnd = recurrenceEnd;
+    }
+
+    // Set for series masters and events longer than MAX_INDEXED_DURATION
+    @Column(name = "long_running", nullable = false)
+    private boolean longRunning;
+
+    public boolean isLongRunning() {
+        return longRunning;
+    }
+
+    @PrePersist
+    void updateLongRunning() {
+        longRunning = isLongRunning(startTime, endTime, recurrenceRule);
+    }
+
+    // Other nodes' conflict indexes pick up changed rows by updated_at
+    @PreUpdate
+    void beforeUpdate() {
+        updateLongRunning();
+        updatedAt = LocalDateTime.now();
+    }
+
+    /**
+     * The long_running flag for a row, for writers that bypass the entity lifecycle.
+     */
+    public static boolean isLongRunning(LocalDateTime startTime, LocalDateTime endTime, String recurrenceRule) {
+        return recurrenceRule != null
+                || (startTime != null && endTime != null
+                    && Duration.between(startTime, endTime).compareTo(MAX_INDEXED_DURATION) > 0);
+    }
+
+    public boolean isSeriesMaster() {
+        return recurrenceRule != null;
+    }
+
+    // UID of the imported VEVENT, with "/" and the RECURRENCE-ID appended for a modified occurrence
+    @Column(name = "ical_uid")
+    private String icalUid;
+
+    public String getIcalUid() {
+        return icalUid;
+    }
+
+    public void setIcalUid(String icalUid) {
+        this.icalUid = icalUid;
+    }
 }
@@ -0,0 +1,147 @@
+package com.calendar.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Background Google sync bookkeeping for one connected user: when the next sync is due, who is
+ * running it, and how the last one went. Rows are claimed and completed with conditional updates
+ * (see {@link com.calendar.repository.GoogleSyncStateRepository}), so several instances can share
+ * the schedule.
+ */
+@Entity
+@Table(name = "google_sync_states",
+       indexes = {
+           @Index(name = "idx_google_sync_states_next_run", columnList = "next_run_at")
+       })
+public class GoogleSyncState {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "next_run_at", nullable = false)
+    private LocalDateTime nextRunAt;
+
+    // Set while a sync runs; a lease left behind by a crashed instance simply expires
+    @Column(name = "lease_until")
+    private LocalDateTime leaseUntil;
+
+    // Last time the user asked for a sync; a request made during a run triggers another one
+    @Column(name = "requested_at")
+    private LocalDateTime requestedAt;
+
+    @Column(name = "last_started_at")
+    private LocalDateTime lastStartedAt;
+
+    @Column(name = "last_success_at")
+    private LocalDateTime lastSuccessAt;
+
+    @Column(name = "last_failure_at")
+    private LocalDateTime lastFailureAt;
+
+    @Column(name = "consecutive_failures", nullable = false)
+    private int consecutiveFailures;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    @Column(name = "last_pulled", nullable = false)
+    private int lastPulled;
+
+    @Column(name = "last_pushed", nullable = false)
+    private int lastPushed;
+
+    public GoogleSyncState() {
+    }
+
+    public GoogleSyncState(Long userId, LocalDateTime nextRunAt) {
+        this.userId = userId;
+        this.nextRunAt = nextRunAt;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public LocalDateTime getNextRunAt() {
+        return nextRunAt;
+    }
+
+    public void setNextRunAt(LocalDateTime nextRunAt) {
+        this.nextRunAt = nextRunAt;
+    }
+
+    public LocalDateTime getLeaseUntil() {
+        return leaseUntil;
+    }
+
+    public void setLeaseUntil(LocalDateTime leaseUntil) {
+        this.leaseUntil = leaseUntil;
+    }
+
+    public LocalDateTime getRequestedAt() {
+        return requestedAt;
+    }
+
+    public void setRequestedAt(LocalDateTime requestedAt) {
+        this.requestedAt = requestedAt;
+    }
+
+    public LocalDateTime getLastStartedAt() {
+        return lastStartedAt;
+    }
+
+    public void setLastStartedAt(LocalDateTime lastStartedAt) {
+        this.lastStartedAt = lastStartedAt;
+    }
+
+    public LocalDateTime getLastSuccessAt() {
+        return lastSuccessAt;
+    }
+
+    public void setLastSuccessAt(LocalDateTime lastSuccessAt) {
+        this.lastSuccessAt = lastSuccessAt;
+    }
+
+    public LocalDateTime getLastFailureAt() {
+        return lastFailureAt;
+    }
+
+    public void setLastFailureAt(LocalDateTime lastFailureAt) {
+        this.lastFailureAt = lastFailureAt;
+    }
+
+    public int getConsecutiveFailures() {
+        return consecutiveFailures;
+    }
+
+    public void setConsecutiveFailures(int consecutiveFailures) {
+        this.consecutiveFailures = consecutiveFailures;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+
+    public int getLastPulled() {
+        return lastPulled;
+    }
+
+    public void setLastPulled(int lastPulled) {
+        this.lastPulled = lastPulled;
+    }
+
+    public int getLastPushed() {
+        return lastPushed;
+    }
+
+    public void setLastPushed(int lastPushed) {
+        this.lastPushed = lastPushed;
+    }
+}
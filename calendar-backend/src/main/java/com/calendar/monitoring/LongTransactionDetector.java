@@ -0,0 +1,140 @@
+package com.calendar.monitoring;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times every database transaction and reports those held open longer than
+ * {@code db.transaction.long-threshold-ms}: each one is counted in {@code db.transaction.long}
+ * and logged when it ends, and a watchdog logs it while still open, so a transaction stuck on
+ * a slow call shows up before it completes.
+ *
+ * Spring Boot registers this listener with the auto-configured transaction manager. Only the
+ * outermost transaction is tracked; joined and nested scopes run inside its time.
+ */
+@Component
+public class LongTransactionDetector implements TransactionExecutionListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(LongTransactionDetector.class);
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${db.transaction.long-threshold-ms:2000}")
+    private long thresholdMs = 2000;
+
+    // Keyed by identity: the same execution is passed from begin to commit or rollback
+    private final Map<TransactionExecution, OpenTransaction> open = new ConcurrentHashMap<>();
+    private ScheduledExecutorService watchdog;
+
+    @PostConstruct
+    void init() {
+        Gauge.builder("db.transaction.open", open, Map::size)
+                .description("Database transactions currently open")
+                .register(meterRegistry);
+        watchdog = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "long-transaction-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(100, thresholdMs / 2);
+        watchdog.scheduleWithFixedDelay(this::reportOpen, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (watchdog != null) {
+            watchdog.shutdownNow();
+        }
+    }
+
+    @Override
+    public void afterBegin(TransactionExecution transaction, Throwable beginFailure) {
+        if (beginFailure == null && transaction.isNewTransaction()) {
+            open.put(transaction, new OpenTransaction(name(transaction), Thread.currentThread().getName(), System.nanoTime()));
+        }
+    }
+
+    @Override
+    public void afterCommit(TransactionExecution transaction, Throwable commitFailure) {
+        finish(transaction, commitFailure == null ? "commit" : "commit_failed");
+    }
+
+    @Override
+    public void afterRollback(TransactionExecution transaction, Throwable rollbackFailure) {
+        finish(transaction, "rollback");
+    }
+
+    private void finish(TransactionExecution transaction, String outcome) {
+        OpenTransaction started = open.remove(transaction);
+        if (started == null) {
+            return;
+        }
+        long elapsedNanos = System.nanoTime() - started.startNanos;
+        Timer.builder("db.transaction")
+                .description("Time database transactions are held open")
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+        if (elapsedMs > thresholdMs) {
+            Counter.builder("db.transaction.long")
+                    .description("Database transactions open longer than db.transaction.long-threshold-ms")
+                    .tag("name", started.name)
+                    .register(meterRegistry)
+                    .increment();
+            logger.warn("Transaction {} on thread {} was open for {} ms ({})", started.name, started.thread, elapsedMs, outcome);
+        }
+    }
+
+    // Logs each open transaction once it passes the threshold
+    void reportOpen() {
+        long now = System.nanoTime();
+        open.values().forEach(transaction -> {
+            long elapsedMs = TimeUnit.NANOSECONDS.toMillis(now - transaction.startNanos);
+            if (elapsedMs > thresholdMs && !transaction.reported) {
+                transaction.reported = true;
+                logger.warn("Transaction {} on thread {} has been open for {} ms", transaction.name, transaction.thread, elapsedMs);
+            }
+        });
+    }
+
+    int openCount() {
+        return open.size();
+    }
+
+    private static String name(TransactionExecution transaction) {
+        String name = transaction.getTransactionName();
+        return name == null || name.isEmpty() ? "unnamed" : name;
+    }
+
+    private static final class OpenTransaction {
+        private final String name;
+        private final String thread;
+        private final long startNanos;
+        private volatile boolean reported;
+
+        OpenTransaction(String name, String thread, long startNanos) {
+            this.name = name;
+            this.thread = thread;
+            this.startNanos = startNanos;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.calendar.monitoring;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * DataSource that counts executed statements, rows read or written, and time spent executing
+ * into {@link QueryStats}. Connections, statements and result sets are wrapped in JDK proxies;
+ * every other call passes straight through.
+ *
+ * Extends {@link DelegatingDataSource} so pool metrics and health checks can still unwrap the
+ * underlying pool.
+ */
+public class QueryCountingDataSource extends DelegatingDataSource {
+
+    public QueryCountingDataSource(DataSource targetDataSource) {
+        super(targetDataSource);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrapConnection(obtainTargetDataSource().getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrapConnection(obtainTargetDataSource().getConnection(username, password));
+    }
+
+    private static Connection wrapConnection(Connection connection) {
+        return proxy(Connection.class, (proxy, method, args) -> {
+            Object result = invoke(connection, method, args);
+            return result instanceof Statement ? wrapStatement((Statement) result) : result;
+        });
+    }
+
+    private static Statement wrapStatement(Statement statement) {
+        Class<? extends Statement> type = statement instanceof CallableStatement ? CallableStatement.class
+                : statement instanceof PreparedStatement ? PreparedStatement.class
+                : Statement.class;
+        return proxy(type, (proxy, method, args) -> {
+            if (!method.getName().startsWith("execute")) {
+                Object result = invoke(statement, method, args);
+                return result instanceof ResultSet ? wrapResultSet((ResultSet) result) : result;
+            }
+            long start = System.nanoTime();
+            Object result;
+            try {
+                result = invoke(statement, method, args);
+            } finally {
+                QueryStats.recordQuery(System.nanoTime() - start);
+            }
+            recordAffectedRows(result);
+            return result instanceof ResultSet ? wrapResultSet((ResultSet) result) : result;
+        });
+    }
+
+    private static void recordAffectedRows(Object result) {
+        if (result instanceof Integer || result instanceof Long) {
+            QueryStats.recordRows(Math.max(0, ((Number) result).longValue()));
+        } else if (result instanceof int[]) {
+            for (int count : (int[]) result) {
+                QueryStats.recordRows(Math.max(0, count));
+            }
+        } else if (result instanceof long[]) {
+            for (long count : (long[]) result) {
+                QueryStats.recordRows(Math.max(0, count));
+            }
+        }
+    }
+
+    // Rows read are counted as the caller actually advances through them
+    private static ResultSet wrapResultSet(ResultSet resultSet) {
+        return proxy(ResultSet.class, (proxy, method, args) -> {
+            Object result = invoke(resultSet, method, args);
+            if ("next".equals(method.getName()) && Boolean.TRUE.equals(result)) {
+                QueryStats.recordRows(1);
+            }
+            return result;
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        InvocationHandler identityAware = (proxy, method, args) -> {
+            // Proxies compare by identity; delegating equals would make a proxy unequal to itself
+            if ("equals".equals(method.getName()) && method.getParameterCount() == 1) {
+                return proxy == args[0];
+            }
+            if ("hashCode".equals(method.getName()) && method.getParameterCount() == 0) {
+                return System.identityHashCode(proxy);
+            }
+            return handler.invoke(proxy, method, args);
+        };
+        return (T) Proxy.newProxyInstance(QueryCountingDataSource.class.getClassLoader(), new Class<?>[]{type}, identityAware);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
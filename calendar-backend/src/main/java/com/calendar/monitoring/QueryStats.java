@@ -0,0 +1,68 @@
+package com.calendar.monitoring;
+
+/**
+ * SQL statements, rows and database time accumulated by the current thread while a request is
+ * being handled. Recording is a no-op when no request is being tracked (schedulers, startup).
+ */
+public final class QueryStats {
+
+    private static final ThreadLocal<QueryStats> CURRENT = new ThreadLocal<>();
+
+    private int queries;
+    private long rows;
+    private long nanos;
+
+    private QueryStats() {
+    }
+
+    public static QueryStats start() {
+        QueryStats stats = new QueryStats();
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    /**
+     * @return the stats being collected on this thread, or null
+     */
+    public static QueryStats current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Stop collecting on this thread.
+     *
+     * @return the collected stats, or null if none were being collected
+     */
+    public static QueryStats stop() {
+        QueryStats stats = CURRENT.get();
+        CURRENT.remove();
+        return stats;
+    }
+
+    static void recordQuery(long elapsedNanos) {
+        QueryStats stats = CURRENT.get();
+        if (stats != null) {
+            stats.queries++;
+            stats.nanos += elapsedNanos;
+        }
+    }
+
+    static void recordRows(long count) {
+        QueryStats stats = CURRENT.get();
+        if (stats != null) {
+            stats.rows += count;
+        }
+    }
+
+    public int getQueries() {
+        return queries;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public long getNanos() {
+        return nanos;
+    }
+}
@@ -0,0 +1,379 @@
+package com.calendar.recurrence;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Walks the occurrences of a {@link RecurrenceRule} one period (day, week, month, year)
+ * at a time. Each period is expanded into a small reusable buffer of epoch days, so the
+ * iterator jumps straight from one matching date to the next instead of testing every day.
+ *
+ * {@link #seek(LocalDateTime)} computes the target period arithmetically; only COUNT-bounded
+ * rules need to expand the skipped periods, to keep the occurrence count exact.
+ */
+public final class RecurrenceIterator implements Iterator<LocalDateTime> {
+
+    // The Gregorian calendar repeats every 400 years, so a rule that matches nothing for 400 years
+    // of the periods it visits (400 * INTERVAL years) never matches again, e.g. BYMONTH=2;BYMONTHDAY=30
+    private static final long CALENDAR_CYCLE_YEARS = 400;
+
+    private final RecurrenceRule rule;
+    private final LocalDateTime dtStart;
+    private final long startEpochDay;
+    private final LocalTime time;
+    private final LocalDate anchor;
+    private final long[] buffer;
+
+    private int size;
+    private int position;
+    private long period;       // index of the next period to expand
+    private int generated;     // occurrences produced by the rule so far, EXDATEs included
+    private LocalDateTime peeked;
+    private boolean done;
+
+    RecurrenceIterator(RecurrenceRule rule, LocalDateTime dtStart) {
+        this.rule = rule;
+        this.dtStart = dtStart;
+        this.startEpochDay = dtStart.toLocalDate().toEpochDay();
+        this.time = dtStart.toLocalTime();
+        LocalDate date = dtStart.toLocalDate();
+        switch (rule.frequency) {
+            case WEEKLY:
+                this.anchor = date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+                this.buffer = new long[7];
+                break;
+            case MONTHLY:
+                this.anchor = date.withDayOfMonth(1);
+                this.buffer = new long[31];
+                break;
+            case YEARLY:
+                this.anchor = date.withDayOfYear(1);
+                this.buffer = new long[12 * 31];
+                break;
+            default:
+                this.anchor = date;
+                this.buffer = new long[1];
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (peeked == null && !done) {
+            peeked = advance();
+        }
+        return peeked != null;
+    }
+
+    @Override
+    public LocalDateTime next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        LocalDateTime result = peeked;
+        peeked = null;
+        return result;
+    }
+
+    /**
+     * Position the iterator on the first occurrence at or after {@code target}.
+     * Seeking backwards is a no-op.
+     */
+    public void seek(LocalDateTime target) {
+        if (done || !target.isAfter(dtStart)) {
+            return;
+        }
+        if (peeked != null) {
+            if (!peeked.isBefore(target)) {
+                return;
+            }
+            peeked = null;
+        }
+
+        long targetPeriod = periodIndexOf(target.toLocalDate());
+        if (targetPeriod > period) {
+            if (rule.count > 0) {
+                // Occurrences in the skipped periods still count towards COUNT
+                generated += remainingInBuffer();
+                while (period < targetPeriod && generated < rule.count) {
+                    expand(period++);
+                    generated += remainingInBuffer();
+                }
+                if (generated >= rule.count) {
+                    done = true;
+                    return;
+                }
+            }
+            period = targetPeriod;
+            size = 0;
+            position = 0;
+        }
+
+        while (hasNext() && peeked.isBefore(target)) {
+            peeked = null;
+        }
+    }
+
+    private LocalDateTime advance() {
+        LocalDate horizon = null;
+        while (true) {
+            while (position < size) {
+                long epochDay = buffer[position++];
+                if (epochDay < startEpochDay) {
+                    continue;
+                }
+                LocalDateTime candidate = LocalDate.ofEpochDay(epochDay).atTime(time);
+                if (candidate.isBefore(dtStart)) {
+                    continue;
+                }
+                if (rule.until != null && candidate.isAfter(rule.until)) {
+                    done = true;
+                    return null;
+                }
+                if (rule.count > 0 && generated >= rule.count) {
+                    done = true;
+                    return null;
+                }
+                generated++;
+                if (!rule.exceptions.isEmpty() && rule.exceptions.contains(candidate)) {
+                    continue;
+                }
+                return candidate;
+            }
+
+            if (rule.frequency == RecurrenceRule.Frequency.DAILY && rule.byMonthMask != 0) {
+                period = skipToMatchingMonth(period);
+            }
+            LocalDate start = periodStart(period);
+            if (rule.until != null && start.isAfter(rule.until.toLocalDate())) {
+                done = true;
+                return null;
+            }
+            if (horizon == null) {
+                horizon = start.plusYears(CALENDAR_CYCLE_YEARS * rule.interval);
+            } else if (start.isAfter(horizon)) {
+                done = true;
+                return null;
+            }
+            expand(period++);
+        }
+    }
+
+    /**
+     * First DAILY period at or after {@code index} that falls in a BYMONTH month, so the days of
+     * the other months are jumped over instead of expanded one by one.
+     */
+    private long skipToMatchingMonth(long index) {
+        LocalDate start = periodStart(index);
+        if (matchesMonth(start.getMonthValue())) {
+            return index;
+        }
+        LocalDate month = start.withDayOfMonth(1);
+        do {
+            month = month.plusMonths(1);
+        } while (!matchesMonth(month.getMonthValue()));
+        long days = ChronoUnit.DAYS.between(anchor, month);
+        return Math.max(index, (days + rule.interval - 1) / rule.interval);
+    }
+
+    private int remainingInBuffer() {
+        int remaining = 0;
+        for (int i = position; i < size; i++) {
+            if (buffer[i] > startEpochDay
+                    || (buffer[i] == startEpochDay && !time.isBefore(dtStart.toLocalTime()))) {
+                remaining++;
+            }
+        }
+        position = size;
+        return remaining;
+    }
+
+    private long periodIndexOf(LocalDate date) {
+        long units;
+        switch (rule.frequency) {
+            case WEEKLY:
+                units = ChronoUnit.WEEKS.between(anchor, date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)));
+                break;
+            case MONTHLY:
+                units = ChronoUnit.MONTHS.between(anchor, date.withDayOfMonth(1));
+                break;
+            case YEARLY:
+                units = date.getYear() - anchor.getYear();
+                break;
+            default:
+                units = ChronoUnit.DAYS.between(anchor, date);
+        }
+        return Math.max(0, units / rule.interval);
+    }
+
+    private LocalDate periodStart(long index) {
+        long step = index * rule.interval;
+        switch (rule.frequency) {
+            case WEEKLY:
+                return anchor.plusWeeks(step);
+            case MONTHLY:
+                return anchor.plusMonths(step);
+            case YEARLY:
+                return anchor.plusYears(step);
+            default:
+                return anchor.plusDays(step);
+        }
+    }
+
+    /**
+     * Fill the buffer with the sorted candidate epoch days of one period, BYSETPOS applied.
+     */
+    private void expand(long index) {
+        LocalDate start = periodStart(index);
+        size = 0;
+        position = 0;
+
+        switch (rule.frequency) {
+            case DAILY:
+                if (matchesDay(start) && matchesMonthDay(start) && matchesMonth(start.getMonthValue())) {
+                    buffer[size++] = start.toEpochDay();
+                }
+                break;
+            case WEEKLY:
+                long first = start.toEpochDay();
+                for (int i = 0; i < 7; i++) {
+                    LocalDate day = start.plusDays(i);
+                    boolean dayMatches = rule.byDayMask != 0
+                            ? (rule.byDayMask & (1 << i)) != 0
+                            : day.getDayOfWeek() == dtStart.getDayOfWeek();
+                    if (dayMatches && matchesMonth(day.getMonthValue())) {
+                        buffer[size++] = first + i;
+                    }
+                }
+                break;
+            case MONTHLY:
+                if (matchesMonth(start.getMonthValue())) {
+                    expandMonth(start);
+                }
+                break;
+            case YEARLY:
+                if (rule.byMonthMask == 0) {
+                    expandMonth(start.withMonth(dtStart.getMonthValue()));
+                } else {
+                    for (int month = 1; month <= 12; month++) {
+                        if (matchesMonth(month)) {
+                            expandMonth(start.withMonth(month));
+                        }
+                    }
+                }
+                break;
+        }
+
+        if (rule.bySetPos.length > 0 && size > 0) {
+            applySetPos();
+        }
+    }
+
+    private void expandMonth(LocalDate firstOfMonth) {
+        int length = firstOfMonth.lengthOfMonth();
+        long base = firstOfMonth.toEpochDay() - 1;
+        int from = size;
+
+        if (rule.byMonthDay.length > 0) {
+            for (int monthDay : rule.byMonthDay) {
+                int day = monthDay > 0 ? monthDay : length + monthDay + 1;
+                if (day >= 1 && day <= length && matchesDay(firstOfMonth.withDayOfMonth(day))) {
+                    buffer[size++] = base + day;
+                }
+            }
+            Arrays.sort(buffer, from, size);
+            size = dedupe(from, size);
+        } else if (rule.byDayMask != 0) {
+            int firstDow = firstOfMonth.getDayOfWeek().getValue();
+            for (int day = 1; day <= length; day++) {
+                int dow = (firstDow + day - 2) % 7 + 1;
+                if ((rule.byDayMask & (1 << (dow - 1))) != 0 && matchesOrdinal(dow, day, length)) {
+                    buffer[size++] = base + day;
+                }
+            }
+        } else if (dtStart.getDayOfMonth() <= length) {
+            // Months without the DTSTART day are skipped, as RFC 5545 requires
+            buffer[size++] = base + dtStart.getDayOfMonth();
+        }
+    }
+
+    private boolean matchesDay(LocalDate date) {
+        if (rule.byDayMask == 0) {
+            return true;
+        }
+        int dow = date.getDayOfWeek().getValue();
+        if ((rule.byDayMask & (1 << (dow - 1))) == 0) {
+            return false;
+        }
+        return rule.frequency == RecurrenceRule.Frequency.DAILY
+                || matchesOrdinal(dow, date.getDayOfMonth(), date.lengthOfMonth());
+    }
+
+    private boolean matchesOrdinal(int dow, int day, int length) {
+        if (!rule.hasByDayOrdinals) {
+            return true;
+        }
+        for (int i = 0; i < rule.byDayDays.length; i++) {
+            if (rule.byDayDays[i].getValue() != dow) continue;
+            int ordinal = rule.byDayOrdinals[i];
+            if (ordinal == 0
+                    || (ordinal > 0 && (day - 1) / 7 + 1 == ordinal)
+                    || (ordinal < 0 && (length - day) / 7 + 1 == -ordinal)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean matchesMonthDay(LocalDate date) {
+        if (rule.byMonthDay.length == 0) {
+            return true;
+        }
+        int length = date.lengthOfMonth();
+        for (int monthDay : rule.byMonthDay) {
+            int day = monthDay > 0 ? monthDay : length + monthDay + 1;
+            if (day == date.getDayOfMonth()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean matchesMonth(int month) {
+        return rule.byMonthMask == 0 || (rule.byMonthMask & (1 << (month - 1))) != 0;
+    }
+
+    private int dedupe(int from, int to) {
+        if (to - from < 2) {
+            return to;
+        }
+        int write = from + 1;
+        for (int read = from + 1; read < to; read++) {
+            if (buffer[read] != buffer[write - 1]) {
+                buffer[write++] = buffer[read];
+            }
+        }
+        return write;
+    }
+
+    private void applySetPos() {
+        Arrays.sort(buffer, 0, size);
+        long[] selected = new long[rule.bySetPos.length];
+        int count = 0;
+        for (int pos : rule.bySetPos) {
+            int i = pos > 0 ? pos - 1 : size + pos;
+            if (i >= 0 && i < size) {
+                selected[count++] = buffer[i];
+            }
+        }
+        Arrays.sort(selected, 0, count);
+        System.arraycopy(selected, 0, buffer, 0, count);
+        size = dedupe(0, count);
+    }
+}
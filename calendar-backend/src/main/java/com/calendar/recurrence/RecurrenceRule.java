@@ -0,0 +1,362 @@
+package com.calendar.recurrence;
+
+import com.calendar.dto.RecurrenceDTO;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Compiled RFC 5545 recurrence rule.
+ *
+ * Supports FREQ (DAILY, WEEKLY, MONTHLY, YEARLY), INTERVAL, COUNT, UNTIL, BYDAY (with
+ * ordinals such as 2MO or -1FR), BYMONTHDAY, BYMONTH and BYSETPOS, plus EXDATE lines.
+ * All occurrences keep the time of day of DTSTART. YEARLY rules without BYMONTH are
+ * evaluated in the DTSTART month.
+ *
+ * Instances are immutable and can be shared; use {@link #iterator(LocalDateTime)} to
+ * walk the occurrences of a series.
+ */
+public final class RecurrenceRule {
+
+    public enum Frequency { DAILY, WEEKLY, MONTHLY, YEARLY }
+
+    private static final DateTimeFormatter DATE = DateTimeFormatter.BASIC_ISO_DATE;
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss");
+    private static final String[] DAY_CODES = {"MO", "TU", "WE", "TH", "FR", "SA", "SU"};
+
+    final Frequency frequency;
+    final int interval;
+    final int count;                // 0 when unbounded by COUNT
+    final LocalDateTime until;      // inclusive, null when unbounded by UNTIL
+    final boolean untilIsDate;
+    final int byDayMask;            // bit (dayOfWeek - 1) set for every BYDAY entry
+    final DayOfWeek[] byDayDays;    // BYDAY entries, parallel to byDayOrdinals
+    final int[] byDayOrdinals;      // 0 when the entry has no ordinal
+    final boolean hasByDayOrdinals;
+    final int[] byMonthDay;
+    final int byMonthMask;          // bit (month - 1) set for every BYMONTH entry
+    final int[] bySetPos;
+    final Set<LocalDateTime> exceptions;
+
+    private RecurrenceRule(Frequency frequency, int interval, int count, LocalDateTime until, boolean untilIsDate,
+                           DayOfWeek[] byDayDays, int[] byDayOrdinals, int[] byMonthDay, int byMonthMask,
+                           int[] bySetPos, Set<LocalDateTime> exceptions) {
+        if (frequency == null) {
+            throw new RuntimeException("Recurrence frequency is required.");
+        }
+        this.frequency = frequency;
+        this.interval = interval > 0 ? interval : 1;
+        this.count = Math.max(count, 0);
+        this.until = until;
+        this.untilIsDate = untilIsDate;
+        this.byDayDays = byDayDays;
+        this.byDayOrdinals = byDayOrdinals;
+        int mask = 0;
+        boolean ordinals = false;
+        for (int i = 0; i < byDayDays.length; i++) {
+            mask |= 1 << (byDayDays[i].getValue() - 1);
+            ordinals |= byDayOrdinals[i] != 0;
+        }
+        this.byDayMask = mask;
+        this.hasByDayOrdinals = ordinals;
+        this.byMonthDay = byMonthDay;
+        this.byMonthMask = byMonthMask;
+        this.bySetPos = bySetPos;
+        this.exceptions = exceptions;
+    }
+
+    /**
+     * Parse an RRULE value ("FREQ=WEEKLY;BYDAY=MO,WE") or a multi-line block containing
+     * "RRULE:" and "EXDATE:" properties.
+     */
+    public static RecurrenceRule parse(String text) {
+        if (text == null || text.isBlank()) {
+            throw new RuntimeException("Recurrence rule is empty.");
+        }
+
+        Frequency frequency = null;
+        int interval = 1;
+        int count = 0;
+        LocalDateTime until = null;
+        boolean untilIsDate = false;
+        List<DayOfWeek> days = new ArrayList<>();
+        List<Integer> ordinals = new ArrayList<>();
+        int[] byMonthDay = new int[0];
+        int byMonthMask = 0;
+        int[] bySetPos = new int[0];
+        Set<LocalDateTime> exceptions = new HashSet<>();
+
+        for (String line : text.split("\\r?\\n")) {
+            line = line.trim();
+            if (line.isEmpty()) continue;
+
+            String upper = line.toUpperCase();
+            if (upper.startsWith("EXDATE")) {
+                String values = line.substring(line.indexOf(':') + 1);
+                for (String value : values.split(",")) {
+                    exceptions.add(parseDateTime(value.trim()));
+                }
+                continue;
+            }
+            if (upper.startsWith("RRULE:")) {
+                upper = upper.substring(6);
+            }
+
+            for (String part : upper.split(";")) {
+                int eq = part.indexOf('=');
+                if (eq < 0) continue;
+                String name = part.substring(0, eq).trim();
+                String value = part.substring(eq + 1).trim();
+                try {
+                    switch (name) {
+                        case "FREQ":
+                            frequency = Frequency.valueOf(value);
+                            break;
+                        case "INTERVAL":
+                            interval = Integer.parseInt(value);
+                            break;
+                        case "COUNT":
+                            count = Integer.parseInt(value);
+                            break;
+                        case "UNTIL":
+                            untilIsDate = value.length() == 8;
+                            until = untilIsDate ? LocalDate.parse(value, DATE).atTime(LocalTime.MAX) : parseDateTime(value);
+                            break;
+                        case "BYDAY":
+                            for (String entry : value.split(",")) {
+                                String code = entry.substring(entry.length() - 2);
+                                String ordinal = entry.substring(0, entry.length() - 2);
+                                days.add(dayOf(code));
+                                ordinals.add(ordinal.isEmpty() ? 0 : Integer.parseInt(ordinal));
+                            }
+                            break;
+                        case "BYMONTHDAY":
+                            byMonthDay = parseInts(value);
+                            break;
+                        case "BYMONTH":
+                            for (int month : parseInts(value)) {
+                                byMonthMask |= 1 << (month - 1);
+                            }
+                            break;
+                        case "BYSETPOS":
+                            bySetPos = parseInts(value);
+                            break;
+                        default:
+                            // WKST, BYHOUR and the like are not supported and are ignored
+                            break;
+                    }
+                } catch (RuntimeException e) {
+                    throw new RuntimeException("Invalid recurrence rule part: " + part, e);
+                }
+            }
+        }
+
+        return new RecurrenceRule(frequency, interval, count, until, untilIsDate,
+                days.toArray(new DayOfWeek[0]), ordinals.stream().mapToInt(Integer::intValue).toArray(),
+                byMonthDay, byMonthMask, bySetPos, exceptions);
+    }
+
+    /**
+     * Compile the recurrence form sent by the frontend. A full RRULE in {@code rule}
+     * takes precedence over the individual fields.
+     */
+    public static RecurrenceRule fromRecurrence(RecurrenceDTO recurrence) {
+        if (recurrence == null) {
+            throw new RuntimeException("Recurrence pattern is required for recurring events.");
+        }
+        if (recurrence.getRule() != null && !recurrence.getRule().isBlank()) {
+            return parse(recurrence.getRule());
+        }
+        if (recurrence.getPattern() == null) {
+            throw new RuntimeException("Recurrence pattern is required for recurring events.");
+        }
+
+        Frequency frequency;
+        try {
+            frequency = Frequency.valueOf(recurrence.getPattern().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Unsupported recurrence pattern: " + recurrence.getPattern());
+        }
+
+        int interval = recurrence.getInterval() != null ? recurrence.getInterval() : 1;
+        int count = 0;
+        LocalDateTime until = null;
+        if ("COUNT".equalsIgnoreCase(recurrence.getType())) {
+            count = recurrence.getOccurrences() != null ? recurrence.getOccurrences() : 10;
+        } else if ("DATE".equalsIgnoreCase(recurrence.getType()) && recurrence.getUntilDate() != null) {
+            until = recurrence.getUntilDate().atTime(LocalTime.MAX);
+        }
+
+        List<String> names = recurrence.getDaysOfWeek() != null ? recurrence.getDaysOfWeek() : Collections.emptyList();
+        DayOfWeek[] days = new DayOfWeek[names.size()];
+        for (int i = 0; i < days.length; i++) {
+            days[i] = DayOfWeek.valueOf(names.get(i).toUpperCase());
+        }
+
+        return new RecurrenceRule(frequency, interval, count, until, until != null,
+                days, new int[days.length], new int[0], 0, new int[0], Collections.emptySet());
+    }
+
+    /**
+     * Return a copy of this rule that skips the given occurrence start times.
+     */
+    public RecurrenceRule withExceptions(Collection<LocalDateTime> exdates) {
+        if (exdates == null || exdates.isEmpty()) {
+            return this;
+        }
+        Set<LocalDateTime> merged = new HashSet<>(exceptions);
+        merged.addAll(exdates);
+        return new RecurrenceRule(frequency, interval, count, until, untilIsDate, byDayDays, byDayOrdinals,
+                byMonthDay, byMonthMask, bySetPos, merged);
+    }
+
+    public RecurrenceIterator iterator(LocalDateTime dtStart) {
+        return new RecurrenceIterator(this, dtStart);
+    }
+
+    /**
+     * Occurrence start times in [from, to], at most {@code limit} of them.
+     * The iterator seeks straight to {@code from} instead of replaying the series.
+     */
+    public List<LocalDateTime> occurrences(LocalDateTime dtStart, LocalDateTime from, LocalDateTime to, int limit) {
+        RecurrenceIterator iterator = iterator(dtStart);
+        if (from != null) {
+            iterator.seek(from);
+        }
+        List<LocalDateTime> result = new ArrayList<>();
+        while (result.size() < limit && iterator.hasNext()) {
+            LocalDateTime next = iterator.next();
+            if (to != null && next.isAfter(to)) {
+                break;
+            }
+            result.add(next);
+        }
+        return result;
+    }
+
+    /**
+     * True when COUNT or UNTIL ends the series.
+     */
+    public boolean isBounded() {
+        return count > 0 || until != null;
+    }
+
+    public Frequency getFrequency() {
+        return frequency;
+    }
+
+    public int getInterval() {
+        return interval;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public LocalDateTime getUntil() {
+        return until;
+    }
+
+    /**
+     * Map back to the frontend recurrence form. Parts the form cannot express
+     * (ordinals, BYMONTHDAY, BYSETPOS) are carried in {@code rule}.
+     */
+    public RecurrenceDTO toRecurrence() {
+        RecurrenceDTO recurrence = new RecurrenceDTO();
+        recurrence.setPattern(frequency.name());
+        recurrence.setInterval(interval);
+        if (byDayDays.length > 0) {
+            List<String> names = new ArrayList<>(byDayDays.length);
+            for (DayOfWeek day : byDayDays) {
+                names.add(day.name());
+            }
+            recurrence.setDaysOfWeek(names);
+        }
+        if (count > 0) {
+            recurrence.setType("COUNT");
+            recurrence.setOccurrences(count);
+        } else if (until != null) {
+            recurrence.setType("DATE");
+            recurrence.setUntilDate(until.toLocalDate());
+        }
+        recurrence.setRule(toString());
+        return recurrence;
+    }
+
+    /**
+     * The RRULE value, without EXDATE.
+     */
+    @Override
+    public String toString() {
+        StringBuilder rule = new StringBuilder("FREQ=").append(frequency.name());
+        rule.append(";INTERVAL=").append(interval);
+        if (byDayDays.length > 0) {
+            rule.append(";BYDAY=");
+            for (int i = 0; i < byDayDays.length; i++) {
+                if (i > 0) rule.append(',');
+                if (byDayOrdinals[i] != 0) rule.append(byDayOrdinals[i]);
+                rule.append(DAY_CODES[byDayDays[i].getValue() - 1]);
+            }
+        }
+        appendInts(rule, "BYMONTHDAY", byMonthDay);
+        if (byMonthMask != 0) {
+            rule.append(";BYMONTH=");
+            boolean first = true;
+            for (int month = 1; month <= 12; month++) {
+                if ((byMonthMask & (1 << (month - 1))) != 0) {
+                    if (!first) rule.append(',');
+                    rule.append(month);
+                    first = false;
+                }
+            }
+        }
+        appendInts(rule, "BYSETPOS", bySetPos);
+        if (count > 0) {
+            rule.append(";COUNT=").append(count);
+        } else if (until != null) {
+            rule.append(";UNTIL=").append(untilIsDate ? until.format(DATE) : until.format(DATE_TIME));
+        }
+        return rule.toString();
+    }
+
+    private static void appendInts(StringBuilder rule, String name, int[] values) {
+        if (values.length == 0) return;
+        rule.append(';').append(name).append('=');
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) rule.append(',');
+            rule.append(values[i]);
+        }
+    }
+
+    private static int[] parseInts(String value) {
+        return Arrays.stream(value.split(",")).mapToInt(v -> Integer.parseInt(v.trim())).toArray();
+    }
+
+    private static DayOfWeek dayOf(String code) {
+        for (int i = 0; i < DAY_CODES.length; i++) {
+            if (DAY_CODES[i].equals(code)) {
+                return DayOfWeek.of(i + 1);
+            }
+        }
+        throw new RuntimeException("Invalid BYDAY value: " + code);
+    }
+
+    // Floating and UTC ("Z") forms are both read as local wall-clock time
+    private static LocalDateTime parseDateTime(String value) {
+        String v = value.endsWith("Z") ? value.substring(0, value.length() - 1) : value;
+        if (v.length() == 8) {
+            return LocalDate.parse(v, DATE).atStartOfDay();
+        }
+        return LocalDateTime.parse(v, DATE_TIME);
+    }
+}
@@ -0,0 +1,47 @@
+package com.calendar.repository;
+
+import com.calendar.model.AnalyticsCounter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface AnalyticsCounterRepository extends JpaRepository<AnalyticsCounter, Long> {
+
+    // Atomic upsert on uk_analytics_counter, so concurrent writers never lose a delta
+    @Modifying
+    @Query(value = "INSERT INTO analytics_counters (user_id, dimension, bucket, event_count) " +
+                   "VALUES (:userId, :dimension, :bucket, :delta) " +
+                   "ON DUPLICATE KEY UPDATE event_count = event_count + :delta", nativeQuery = true)
+    int increment(@Param("userId") Long userId,
+                  @Param("dimension") String dimension,
+                  @Param("bucket") String bucket,
+                  @Param("delta") long delta);
+
+    // Everything except the per-day rollups; bounded by the number of distinct statuses and subjects
+    @Query("SELECT c FROM AnalyticsCounter c WHERE c.userId = :userId AND c.dimension <> com.calendar.model.AnalyticsCounter$Dimension.DAY")
+    List<AnalyticsCounter> findTotals(@Param("userId") Long userId);
+
+    // ISO dates compare correctly as strings
+    @Query("SELECT c FROM AnalyticsCounter c WHERE c.userId = :userId AND c.dimension = com.calendar.model.AnalyticsCounter$Dimension.DAY " +
+           "AND c.bucket >= :fromDay AND c.bucket <= :toDay")
+    List<AnalyticsCounter> findDays(@Param("userId") Long userId,
+                                    @Param("fromDay") String fromDay,
+                                    @Param("toDay") String toDay);
+
+    @Query("SELECT COALESCE(SUM(c.count), 0) FROM AnalyticsCounter c WHERE c.userId = :userId " +
+           "AND c.dimension = com.calendar.model.AnalyticsCounter$Dimension.DAY AND c.bucket > :day")
+    long sumDaysAfter(@Param("userId") Long userId, @Param("day") String day);
+
+    // Serializes a user's counter writes with rebuilds, on every node; held until the transaction ends
+    @Query(value = "SELECT id FROM users WHERE id = :userId FOR UPDATE", nativeQuery = true)
+    Long lockUser(@Param("userId") Long userId);
+
+    @Modifying
+    @Query("DELETE FROM AnalyticsCounter c WHERE c.userId = :userId")
+    void deleteByUserId(@Param("userId") Long userId);
+}
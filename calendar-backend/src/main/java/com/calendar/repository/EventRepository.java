@@ -1,13 +1,18 @@
 package com.calendar.repository;
 
 import com.calendar.model.Event;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface EventRepository extends JpaRepository<Event, Long> {
@@ -15,14 +20,60 @@ public interface EventRepository extends JpaRepository<Event, Long> {
     // Find events in a specific calendar
     List<Event> findByCalendarId(Long calendarId);
 
-    // Find events between dates for a specific calendar
+    // Keyset pagination on (start_time, id), served by idx_events_calendar_keyset
+    @Query("SELECT e FROM Event e WHERE e.calendar.id = :calendarId ORDER BY e.startTime, e.id")
+    List<Event> findFirstPage(@Param("calendarId") Long calendarId, Pageable pageable);
+
     @Query("SELECT e FROM Event e WHERE e.calendar.id = :calendarId AND " +
-           "((e.startTime BETWEEN :start AND :end) OR " +
-           "(e.endTime BETWEEN :start AND :end) OR " +
-           "(e.startTime <= :start AND e.endTime >= :end))")
-    List<Event> findEventsInRange(@Param("calendarId") Long calendarId, 
-                                  @Param("start") LocalDateTime start, 
-                                  @Param("end") LocalDateTime end);
+           "(e.startTime > :afterStart OR (e.startTime = :afterStart AND e.id > :afterId)) " +
+           "ORDER BY e.startTime, e.id")
+    List<Event> findPageAfter(@Param("calendarId") Long calendarId,
+                              @Param("afterStart") LocalDateTime afterStart,
+                              @Param("afterId") Long afterId,
+                              Pageable pageable);
+
+    // Row-by-row cursor over a calendar; must be consumed inside a transaction and closed.
+    // A positive fetch size makes the MariaDB driver stream instead of buffering the result set.
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "500"))
+    @Query("SELECT e FROM Event e WHERE e.calendar.id = :calendarId ORDER BY e.startTime, e.id")
+    Stream<Event> streamByCalendarId(@Param("calendarId") Long calendarId);
+
+    /**
+     * Single events overlapping [start, end). Events up to Event.MAX_INDEXED_DURATION long are
+     * found with one range scan of idx_events_calendar_range; longer ones come from the
+     * long_running index. Series masters are expanded separately.
+     */
+    default List<Event> findEventsInRange(Long calendarId, LocalDateTime start, LocalDateTime end) {
+        List<Event> events = new ArrayList<>(findShortEventsInRange(calendarId,
+                start.minus(Event.MAX_INDEXED_DURATION), start, end));
+        events.addAll(findLongEventsInRange(calendarId, start, end));
+        return events;
+    }
+
+    // start_time is bounded on both sides, so the scan covers the window plus one max duration
+    @Query("SELECT e FROM Event e WHERE e.calendar.id = :calendarId AND e.longRunning = false AND " +
+           "e.startTime > :earliestStart AND e.startTime < :end AND e.endTime > :start")
+    List<Event> findShortEventsInRange(@Param("calendarId") Long calendarId,
+                                       @Param("earliestStart") LocalDateTime earliestStart,
+                                       @Param("start") LocalDateTime start,
+                                       @Param("end") LocalDateTime end);
+
+    @Query("SELECT e FROM Event e WHERE e.calendar.id = :calendarId AND e.longRunning = true AND " +
+           "e.recurrenceRule IS NULL AND e.endTime > :start AND e.startTime < :end")
+    List<Event> findLongEventsInRange(@Param("calendarId") Long calendarId,
+                                      @Param("start") LocalDateTime start,
+                                      @Param("end") LocalDateTime end);
+
+    // Find series masters whose occurrences may fall inside [start, end)
+    @Query("SELECT e FROM Event e WHERE e.calendar.id = :calendarId AND e.longRunning = true AND " +
+           "e.recurrenceRule IS NOT NULL AND e.startTime < :end AND " +
+           "(e.recurrenceEnd IS NULL OR e.recurrenceEnd > :start)")
+    List<Event> findSeriesMastersInRange(@Param("calendarId") Long calendarId,
+                                         @Param("start") LocalDateTime start,
+                                         @Param("end") LocalDateTime end);
+
+    @Query("SELECT e FROM Event e WHERE e.calendar.user.id = :userId AND e.recurrenceRule IS NOT NULL")
+    List<Event> findSeriesMastersByUserId(@Param("userId") Long userId);
 
     // Find events in a series
     List<Event> findBySeriesId(String seriesId);
@@ -31,12 +82,47 @@ public interface EventRepository extends JpaRepository<Event, Long> {
     @Query("SELECT COUNT(e) FROM Event e WHERE e.calendar.user.id = :userId AND e.startTime > CURRENT_TIMESTAMP")
     long countUpcomingEvents(@Param("userId") Long userId);
     
-    // Count events by user in date range
-    @Query("SELECT COUNT(e) FROM Event e WHERE e.calendar.user.id = :userId AND e.startTime BETWEEN :start AND :end")
+    // Count single events by user in date range; series occurrences are expanded separately
+    @Query("SELECT COUNT(e) FROM Event e WHERE e.calendar.user.id = :userId AND e.recurrenceRule IS NULL " +
+           "AND e.startTime BETWEEN :start AND :end")
     long countEventsInTimeRange(@Param("userId") Long userId, @Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
 
-    // Find all events for a user (for in-memory analytics)
+    // Lightweight interval rows for the per-user conflict index
+    @Query("SELECT e.id, e.startTime, e.endTime, e.recurrenceRule, e.recurrenceExceptions, e.recurrenceEnd " +
+           "FROM Event e WHERE e.calendar.user.id = :userId")
+    List<Object[]> findIntervalsByUserId(@Param("userId") Long userId);
+
+    // Same rows, only for events written since a point in time (by this node or any other)
+    @Query("SELECT e.id, e.startTime, e.endTime, e.recurrenceRule, e.recurrenceExceptions, e.recurrenceEnd " +
+           "FROM Event e WHERE e.calendar.user.id = :userId AND e.updatedAt >= :since")
+    List<Object[]> findIntervalsChangedSince(@Param("userId") Long userId, @Param("since") LocalDateTime since);
+
+    // Grouped counts of single events used to rebuild a user's analytics counters without
+    // loading them; series masters are expanded separately
+    @Query("SELECT CAST(e.startTime AS LocalDate), COUNT(e) FROM Event e WHERE e.calendar.user.id = :userId " +
+           "AND e.recurrenceRule IS NULL GROUP BY CAST(e.startTime AS LocalDate)")
+    List<Object[]> countByDay(@Param("userId") Long userId);
+
+    @Query("SELECT e.status, COUNT(e) FROM Event e WHERE e.calendar.user.id = :userId AND e.recurrenceRule IS NULL " +
+           "GROUP BY e.status")
+    List<Object[]> countByStatus(@Param("userId") Long userId);
+
+    @Query("SELECT e.subject, COUNT(e) FROM Event e WHERE e.calendar.user.id = :userId AND e.recurrenceRule IS NULL " +
+           "GROUP BY e.subject")
+    List<Object[]> countBySubject(@Param("userId") Long userId);
+
+    // Must match AnalyticsAggregateService.isOnline
+    @Query("SELECT COUNT(e) FROM Event e WHERE e.calendar.user.id = :userId AND e.recurrenceRule IS NULL AND " +
+           "(LOWER(e.location) LIKE '%zoom%' OR LOWER(e.location) LIKE '%meet%' OR " +
+           "LOWER(e.location) LIKE '%online%' OR LOWER(e.location) LIKE '%teams%')")
+    long countOnline(@Param("userId") Long userId);
+
+    // Find all events for a user
     List<Event> findByCalendar_User_Id(Long userId);
     // Find event by Google ID for sync duplicate prevention
     java.util.Optional<Event> findByGoogleEventId(String googleEventId);
+
+    // Events never pushed to Google, and pushed ones edited since
+    @Query("SELECT e FROM Event e WHERE e.calendar.user.id = :userId AND (e.googleEventId IS NULL OR e.googlePushPending = true)")
+    List<Event> findGooglePushCandidates(@Param("userId") Long userId);
 }
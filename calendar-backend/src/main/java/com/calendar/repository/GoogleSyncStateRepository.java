@@ -0,0 +1,91 @@
+package com.calendar.repository;
+
+import com.calendar.model.GoogleSyncState;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface GoogleSyncStateRepository extends JpaRepository<GoogleSyncState, Long> {
+
+    // Oldest due first, so a backlog drains in the order it built up
+    @Query("SELECT s FROM GoogleSyncState s WHERE s.nextRunAt <= :now AND (s.leaseUntil IS NULL OR s.leaseUntil < :now) " +
+           "ORDER BY s.nextRunAt")
+    List<GoogleSyncState> findDue(@Param("now") LocalDateTime now, Pageable pageable);
+
+    // Connected users the scheduler does not know yet (newly connected, or connected before it existed)
+    @Query("SELECT u.id FROM User u WHERE u.googleAccessToken IS NOT NULL " +
+           "AND NOT EXISTS (SELECT s.userId FROM GoogleSyncState s WHERE s.userId = u.id)")
+    List<Long> findUnscheduledUserIds(Pageable pageable);
+
+    // Takes the lease only if the row is still due and free; 0 means another instance got it first
+    @Modifying
+    @Transactional
+    @Query("UPDATE GoogleSyncState s SET s.leaseUntil = :leaseUntil, s.lastStartedAt = :now " +
+           "WHERE s.userId = :userId AND s.nextRunAt <= :now AND (s.leaseUntil IS NULL OR s.leaseUntil < :now)")
+    int claim(@Param("userId") Long userId, @Param("now") LocalDateTime now, @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    // Extends a lease still held; 0 means it expired and another instance may have claimed the row
+    @Modifying
+    @Transactional
+    @Query("UPDATE GoogleSyncState s SET s.leaseUntil = :leaseUntil WHERE s.userId = :userId AND s.leaseUntil = :held")
+    int renew(@Param("userId") Long userId, @Param("held") LocalDateTime held, @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    // The lease is the fencing token: a sync that lost it records nothing. A sync requested
+    // while this one ran is due again right away
+    @Modifying
+    @Transactional
+    @Query("UPDATE GoogleSyncState s SET s.leaseUntil = NULL, s.lastSuccessAt = :now, s.consecutiveFailures = 0, " +
+           "s.lastError = NULL, s.lastPulled = :pulled, s.lastPushed = :pushed, " +
+           "s.nextRunAt = CASE WHEN s.requestedAt > :startedAt THEN :now ELSE :nextRunAt END " +
+           "WHERE s.userId = :userId AND s.leaseUntil = :held")
+    int markSucceeded(@Param("userId") Long userId,
+                      @Param("held") LocalDateTime held,
+                      @Param("startedAt") LocalDateTime startedAt,
+                      @Param("now") LocalDateTime now,
+                      @Param("nextRunAt") LocalDateTime nextRunAt,
+                      @Param("pulled") int pulled,
+                      @Param("pushed") int pushed);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE GoogleSyncState s SET s.leaseUntil = NULL, s.lastFailureAt = :now, " +
+           "s.consecutiveFailures = s.consecutiveFailures + 1, s.lastError = :error, s.nextRunAt = :nextRunAt " +
+           "WHERE s.userId = :userId AND s.leaseUntil = :held")
+    int markFailed(@Param("userId") Long userId,
+                   @Param("held") LocalDateTime held,
+                   @Param("now") LocalDateTime now,
+                   @Param("nextRunAt") LocalDateTime nextRunAt,
+                   @Param("error") String error);
+
+    // Due now unless backing off after failures; a running sync picks the request up when it ends
+    @Modifying
+    @Transactional
+    @Query("UPDATE GoogleSyncState s SET s.requestedAt = :now, " +
+           "s.nextRunAt = CASE WHEN s.consecutiveFailures = 0 OR s.nextRunAt < :now THEN :now ELSE s.nextRunAt END " +
+           "WHERE s.userId = :userId")
+    int request(@Param("userId") Long userId, @Param("now") LocalDateTime now);
+
+    // save() would merge over a row another instance or request created first; this leaves it alone
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT IGNORE INTO google_sync_states (user_id, next_run_at, requested_at, consecutive_failures, " +
+                   "last_pulled, last_pushed) VALUES (:userId, :nextRunAt, :requestedAt, 0, 0, 0)", nativeQuery = true)
+    int insertIfAbsent(@Param("userId") Long userId,
+                       @Param("nextRunAt") LocalDateTime nextRunAt,
+                       @Param("requestedAt") LocalDateTime requestedAt);
+
+    // After a reconnect the old failures say nothing about the new tokens
+    @Modifying
+    @Transactional
+    @Query("UPDATE GoogleSyncState s SET s.requestedAt = :now, s.nextRunAt = :now, s.consecutiveFailures = 0, " +
+           "s.lastError = NULL WHERE s.userId = :userId")
+    int reset(@Param("userId") Long userId, @Param("now") LocalDateTime now);
+}
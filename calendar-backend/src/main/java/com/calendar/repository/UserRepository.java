@@ -2,6 +2,9 @@ package com.calendar.repository;
 
 import com.calendar.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
@@ -13,4 +16,9 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Boolean existsByUsername(String username);
 
     Boolean existsByEmail(String email);
+
+    // Only the token column, so a sync never writes back OAuth tokens refreshed while it ran
+    @Modifying
+    @Query("UPDATE User u SET u.googleSyncToken = :syncToken WHERE u.id = :userId")
+    int updateGoogleSyncToken(@Param("userId") Long userId, @Param("syncToken") String syncToken);
 }
@@ -1,11 +1,15 @@
 package com.calendar.security;
 
+import com.calendar.model.User;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
@@ -13,6 +17,9 @@ import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 
 public class AuthTokenFilter extends OncePerRequestFilter {
 
@@ -27,15 +34,22 @@ public class AuthTokenFilter extends OncePerRequestFilter {
             throws ServletException, IOException {
         try {
             String jwt = parseJwt(request);
-            if (jwt != null && jwtUtils.validateJwtToken(jwt)) {
-                String username = jwtUtils.getUserNameFromJwtToken(jwt);
-
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+            Claims claims = jwt != null ? jwtUtils.parseClaims(jwt) : null;
+            if (claims != null) {
+                UserDetails userDetails = principalFromClaims(claims);
+                Collection<? extends GrantedAuthority> authorities;
+                if (userDetails != null) {
+                    authorities = authoritiesFromClaims(claims);
+                } else {
+                    // Token issued before the user id claim existed; load the user until it expires
+                    userDetails = userDetailsService.loadUserByUsername(claims.getSubject());
+                    authorities = userDetails.getAuthorities();
+                }
                 UsernamePasswordAuthenticationToken authentication =
                         new UsernamePasswordAuthenticationToken(
                                 userDetails,
                                 null,
-                                userDetails.getAuthorities());
+                                authorities);
                 authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
                 SecurityContextHolder.getContext().setAuthentication(authentication);
@@ -47,6 +61,31 @@ public class AuthTokenFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    /**
+     * A detached {@link User} carrying only the id and username from the token. Anything else
+     * about the user has to be loaded explicitly.
+     */
+    private User principalFromClaims(Claims claims) {
+        Object userId = claims.get(JwtUtils.CLAIM_USER_ID);
+        if (!(userId instanceof Number)) {
+            return null;
+        }
+        User user = new User();
+        user.setId(((Number) userId).longValue());
+        user.setUsername(claims.getSubject());
+        return user;
+    }
+
+    private Collection<? extends GrantedAuthority> authoritiesFromClaims(Claims claims) {
+        Object authorities = claims.get(JwtUtils.CLAIM_AUTHORITIES);
+        if (!(authorities instanceof List<?>)) {
+            return Collections.emptyList();
+        }
+        return ((List<?>) authorities).stream()
+                .map(authority -> new SimpleGrantedAuthority(String.valueOf(authority)))
+                .toList();
+    }
+
     private String parseJwt(HttpServletRequest request) {
         String headerAuth = request.getHeader("Authorization");
 
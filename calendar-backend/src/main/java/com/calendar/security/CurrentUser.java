@@ -0,0 +1,29 @@
+package com.calendar.security;
+
+import com.calendar.model.User;
+import com.calendar.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+/**
+ * Resolves the authenticated user's id. Principals set by {@link AuthTokenFilter} already carry
+ * it from the token, so the lookup only hits the database for other kinds of principal.
+ */
+@Component
+public class CurrentUser {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    public Long getId() {
+        UserDetails userDetails = (UserDetails) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        if (userDetails instanceof User && ((User) userDetails).getId() != null) {
+            return ((User) userDetails).getId();
+        }
+        return userRepository.findByUsername(userDetails.getUsername())
+                .orElseThrow(() -> new RuntimeException("User not found"))
+                .getId();
+    }
+}
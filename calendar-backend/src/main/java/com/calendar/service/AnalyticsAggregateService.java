@@ -0,0 +1,318 @@
+package com.calendar.service;
+
+import com.calendar.model.AnalyticsCounter;
+import com.calendar.model.AnalyticsCounter.Dimension;
+import com.calendar.model.Event;
+import com.calendar.recurrence.RecurrenceRule;
+import com.calendar.repository.AnalyticsCounterRepository;
+import com.calendar.repository.EventRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Per-user analytics counters kept up to date with deltas on every event write.
+ *
+ * Counters are built lazily: the first read for a user rebuilds them from grouped queries
+ * (no events are loaded), after which creates, updates and deletes only touch the few counter
+ * rows whose bucket changed. {@link #invalidate(Long)} drops them for a rebuild on next read,
+ * for bulk changes such as deleting a whole calendar.
+ *
+ * A series master counts as its occurrences, up to the same
+ * {@link EventService#MAX_UNBOUNDED_OCCURRENCES} an unwindowed listing expands it to.
+ *
+ * Deltas and rebuilds for a user take a lock on the user's row first, so a rebuild never
+ * recounts while a delta is in flight: a delta that committed before it is in the counts it
+ * reads, and one that commits after it lands on the rebuilt rows.
+ */
+@Service
+public class AnalyticsAggregateService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AnalyticsAggregateService.class);
+
+    // Present once a rebuild has completed; deltas written before that are recounted by the rebuild
+    private static final String BUILT_MARKER = "built";
+
+    @Autowired
+    private AnalyticsCounterRepository counterRepository;
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * The fields of an event that feed the counters. Capture it before mutating an event so
+     * the update can be applied as a delta.
+     */
+    public static final class Contribution {
+        private final LocalDate day;
+        private final String status;
+        private final String subject;
+        private final boolean online;
+
+        private Contribution(LocalDate day, String status, String subject, boolean online) {
+            this.day = day;
+            this.status = status;
+            this.subject = subject;
+            this.online = online;
+        }
+
+        public static Contribution of(Event event) {
+            return of(event, event.getStartTime());
+        }
+
+        /**
+         * One contribution per occurrence of a series master, or the event's own for a single
+         * event. Capture it before mutating an event so the change can be applied as a delta.
+         */
+        public static List<Contribution> allOf(Event event) {
+            if (!event.isSeriesMaster() || event.getStartTime() == null) {
+                return List.of(of(event));
+            }
+            RecurrenceRule rule = RecurrenceRule.parse(event.getRecurrenceRule())
+                    .withExceptions(parseExceptions(event.getRecurrenceExceptions()));
+            List<Contribution> occurrences = new ArrayList<>();
+            for (LocalDateTime start : rule.occurrences(event.getStartTime(), null, null, EventService.MAX_UNBOUNDED_OCCURRENCES)) {
+                occurrences.add(of(event, start));
+            }
+            return occurrences;
+        }
+
+        private static Contribution of(Event event, LocalDateTime start) {
+            return new Contribution(
+                    start != null ? start.toLocalDate() : null,
+                    event.getStatus() != null ? event.getStatus() : "CONFIRMED",
+                    event.getSubject(),
+                    isOnline(event.getLocation()));
+        }
+
+        String bucket(Dimension dimension) {
+            switch (dimension) {
+                case TOTAL:
+                    return "";
+                case ONLINE:
+                    return online ? "" : null;
+                case STATUS:
+                    return status;
+                case WEEKDAY:
+                    return day != null ? day.getDayOfWeek().name() : null;
+                case SUBJECT:
+                    return subject;
+                case DAY:
+                    return day != null ? day.toString() : null;
+                default:
+                    return null;
+            }
+        }
+    }
+
+    public static boolean isOnline(String location) {
+        if (location == null) {
+            return false;
+        }
+        String lower = location.toLowerCase();
+        return lower.contains("zoom") || lower.contains("meet") || lower.contains("online") || lower.contains("teams");
+    }
+
+    @Transactional
+    public void recordCreated(Long userId, Event event) {
+        apply(userId, List.of(), Contribution.allOf(event));
+    }
+
+    /**
+     * @param before {@link Contribution#allOf} the event, taken before it changed
+     */
+    @Transactional
+    public void recordUpdated(Long userId, List<Contribution> before, Event after) {
+        apply(userId, before, Contribution.allOf(after));
+    }
+
+    @Transactional
+    public void recordDeleted(Long userId, List<Contribution> before) {
+        apply(userId, before, List.of());
+    }
+
+    @Transactional
+    public void invalidate(Long userId) {
+        counterRepository.deleteByUserId(userId);
+    }
+
+    /**
+     * Status, weekday, subject, online and total counters, rebuilding them first if needed.
+     */
+    @Transactional
+    public List<AnalyticsCounter> getTotals(Long userId) {
+        List<AnalyticsCounter> totals = counterRepository.findTotals(userId);
+        if (!isBuilt(totals)) {
+            // In a transaction of its own that reads committed rows, so that the counts are taken
+            // after the lock rather than from a snapshot this transaction may already hold
+            TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+            transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            transaction.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+            totals = transaction.execute(status -> rebuild(userId));
+        }
+        return totals;
+    }
+
+    /**
+     * Per-day event counts for [from, to]; days without events are absent.
+     */
+    public Map<LocalDate, Long> getDailyCounts(Long userId, LocalDate from, LocalDate to) {
+        Map<LocalDate, Long> days = new HashMap<>();
+        for (AnalyticsCounter counter : counterRepository.findDays(userId, from.toString(), to.toString())) {
+            days.put(LocalDate.parse(counter.getBucket()), counter.getCount());
+        }
+        return days;
+    }
+
+    public long countDaysAfter(Long userId, LocalDate day) {
+        return counterRepository.sumDaysAfter(userId, day.toString());
+    }
+
+    // Net change per counter row, so a series only touches the rows whose count moved
+    private void apply(Long userId, List<Contribution> before, List<Contribution> after) {
+        counterRepository.lockUser(userId);
+        for (Dimension dimension : Dimension.values()) {
+            if (dimension == Dimension.BUILT) continue;
+            Map<String, Long> deltas = new LinkedHashMap<>();
+            before.forEach(contribution -> addDelta(deltas, contribution.bucket(dimension), -1));
+            after.forEach(contribution -> addDelta(deltas, contribution.bucket(dimension), 1));
+            deltas.forEach((bucket, delta) -> {
+                if (delta != 0) {
+                    counterRepository.increment(userId, dimension.name(), bucket, delta);
+                }
+            });
+        }
+    }
+
+    private static void addDelta(Map<String, Long> deltas, String bucket, long delta) {
+        if (bucket != null) {
+            deltas.merge(bucket, delta, Long::sum);
+        }
+    }
+
+    /**
+     * Occurrences of the user's series masters starting in [from, to]; single events are
+     * counted by the caller.
+     */
+    @Transactional(readOnly = true)
+    public long countSeriesOccurrences(Long userId, LocalDateTime from, LocalDateTime to) {
+        long count = 0;
+        for (Event master : eventRepository.findSeriesMastersByUserId(userId)) {
+            RecurrenceRule rule = RecurrenceRule.parse(master.getRecurrenceRule())
+                    .withExceptions(parseExceptions(master.getRecurrenceExceptions()));
+            count += rule.occurrences(master.getStartTime(), from, to, EventService.MAX_UNBOUNDED_OCCURRENCES).size();
+        }
+        return count;
+    }
+
+    /**
+     * Recount a user's counters from grouped queries and return the non-daily ones. Run it at
+     * READ COMMITTED, or in a transaction that has read nothing yet: the counts must include
+     * every delta committed before the lock is granted.
+     */
+    @Transactional(isolation = Isolation.READ_COMMITTED)
+    public List<AnalyticsCounter> rebuild(Long userId) {
+        long start = System.currentTimeMillis();
+        counterRepository.lockUser(userId);
+        // Another request may have rebuilt them while this one waited for the lock
+        List<AnalyticsCounter> current = counterRepository.findTotals(userId);
+        if (isBuilt(current)) {
+            return current;
+        }
+        counterRepository.deleteByUserId(userId);
+
+        // Single events are counted by the grouped queries, series masters by expanding them
+        Map<Dimension, Map<String, Long>> series = new HashMap<>();
+        for (Event master : eventRepository.findSeriesMastersByUserId(userId)) {
+            for (Contribution occurrence : Contribution.allOf(master)) {
+                for (Dimension dimension : List.of(Dimension.DAY, Dimension.STATUS, Dimension.SUBJECT, Dimension.ONLINE)) {
+                    addDelta(series.computeIfAbsent(dimension, d -> new HashMap<>()), occurrence.bucket(dimension), 1);
+                }
+            }
+        }
+
+        Map<String, Long> days = new HashMap<>(series.getOrDefault(Dimension.DAY, Map.of()));
+        for (Object[] row : eventRepository.countByDay(userId)) {
+            LocalDate day = toLocalDate(row[0]);
+            if (day == null) continue;
+            days.merge(day.toString(), (Long) row[1], Long::sum);
+        }
+        List<AnalyticsCounter> counters = new ArrayList<>();
+        Map<String, Long> weekdays = new HashMap<>();
+        long total = 0;
+        for (Map.Entry<String, Long> day : days.entrySet()) {
+            counters.add(new AnalyticsCounter(userId, Dimension.DAY, day.getKey(), day.getValue()));
+            weekdays.merge(LocalDate.parse(day.getKey()).getDayOfWeek().name(), day.getValue(), Long::sum);
+            total += day.getValue();
+        }
+        List<AnalyticsCounter> totals = new ArrayList<>();
+        weekdays.forEach((weekday, count) -> totals.add(new AnalyticsCounter(userId, Dimension.WEEKDAY, weekday, count)));
+
+        Map<String, Long> statuses = new HashMap<>(series.getOrDefault(Dimension.STATUS, Map.of()));
+        for (Object[] row : eventRepository.countByStatus(userId)) {
+            statuses.merge(row[0] != null ? (String) row[0] : "CONFIRMED", (Long) row[1], Long::sum);
+        }
+        statuses.forEach((status, count) -> totals.add(new AnalyticsCounter(userId, Dimension.STATUS, status, count)));
+
+        Map<String, Long> subjects = new HashMap<>(series.getOrDefault(Dimension.SUBJECT, Map.of()));
+        for (Object[] row : eventRepository.countBySubject(userId)) {
+            if (row[0] != null) {
+                subjects.merge((String) row[0], (Long) row[1], Long::sum);
+            }
+        }
+        subjects.forEach((subject, count) -> totals.add(new AnalyticsCounter(userId, Dimension.SUBJECT, subject, count)));
+        long online = eventRepository.countOnline(userId) + series.getOrDefault(Dimension.ONLINE, Map.of()).getOrDefault("", 0L);
+        totals.add(new AnalyticsCounter(userId, Dimension.ONLINE, "", online));
+        totals.add(new AnalyticsCounter(userId, Dimension.TOTAL, "", total));
+        totals.add(new AnalyticsCounter(userId, Dimension.BUILT, BUILT_MARKER, System.currentTimeMillis()));
+
+        counters.addAll(totals);
+        counterRepository.saveAll(counters);
+        logger.debug("Rebuilt {} analytics counters for user {} in {}ms", counters.size(), userId, System.currentTimeMillis() - start);
+        return totals;
+    }
+
+    private static boolean isBuilt(List<AnalyticsCounter> totals) {
+        return totals.stream().anyMatch(c -> c.getDimension() == Dimension.BUILT);
+    }
+
+    private static Set<LocalDateTime> parseExceptions(String exceptions) {
+        Set<LocalDateTime> result = new HashSet<>();
+        if (exceptions == null || exceptions.isBlank()) {
+            return result;
+        }
+        for (String value : exceptions.split(",")) {
+            result.add(LocalDateTime.parse(value.trim()));
+        }
+        return result;
+    }
+
+    private LocalDate toLocalDate(Object value) {
+        if (value instanceof LocalDate) {
+            return (LocalDate) value;
+        }
+        if (value instanceof java.sql.Date) {
+            return ((java.sql.Date) value).toLocalDate();
+        }
+        return value != null ? LocalDate.parse(value.toString()) : null;
+    }
+}
@@ -0,0 +1,71 @@
+package com.calendar.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Evicts the cached analytics of the users whose events changed, instead of the whole cache.
+ *
+ * Inside a transaction the affected users are collected and evicted once after commit, so a
+ * bulk write (Google sync, a materialized series) costs one eviction per user rather than one
+ * per event, and a concurrent read cannot re-cache the pre-commit state. Outside a transaction
+ * the eviction happens immediately.
+ */
+@Service
+public class AnalyticsCacheInvalidator {
+
+    static final String CACHE_NAME = "analytics";
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    public void evict(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            pendingEvictions().add(userId);
+        } else {
+            evictNow(Set.of(userId));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Set<Long> pendingEvictions() {
+        Set<Long> pending = (Set<Long>) TransactionSynchronizationManager.getResource(this);
+        if (pending != null) {
+            return pending;
+        }
+        Set<Long> users = new LinkedHashSet<>();
+        TransactionSynchronizationManager.bindResource(this, users);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(AnalyticsCacheInvalidator.this);
+                // A rollback leaves the cached analytics correct
+                if (status == STATUS_COMMITTED) {
+                    evictNow(users);
+                }
+            }
+        });
+        return users;
+    }
+
+    private void evictNow(Collection<Long> userIds) {
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        if (cache == null) {
+            return;
+        }
+        for (Long userId : userIds) {
+            cache.evict(userId);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.calendar.service;
 
 import com.calendar.dto.AnalyticsDTO;
+import com.calendar.model.AnalyticsCounter;
 import com.calendar.repository.CalendarRepository;
 import com.calendar.repository.EventRepository;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -8,7 +9,10 @@ import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 
 import java.time.DayOfWeek;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.TemporalAdjusters;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -21,55 +25,61 @@ public class AnalyticsService {
     @Autowired
     private CalendarRepository calendarRepository;
 
-    @Cacheable(value = "analytics", key = "#userId")
+    @Autowired
+    private AnalyticsAggregateService aggregateService;
+
+    /**
+     * Analytics read from the pre-aggregated counters: a handful of counter rows plus at most
+     * two months of per-day rollups, whatever the size of the user's history. Loads are
+     * synchronized so concurrent misses for one user compute it once.
+     */
+    @Cacheable(value = "analytics", key = "#userId", sync = true)
     public AnalyticsDTO getUserAnalytics(Long userId) {
         LocalDateTime now = LocalDateTime.now();
-        LocalDateTime weekStart = now.minusDays(now.getDayOfWeek().getValue() - 1);
-        LocalDateTime monthStart = now.withDayOfMonth(1);
-
-        // Fetch all events for detailed analysis
-        var allEvents = eventRepository.findByCalendar_User_Id(userId);
-        
-        long totalEvents = allEvents.size();
-        long weekEvents = allEvents.stream().filter(e -> e.getStartTime().isAfter(weekStart) && e.getStartTime().isBefore(weekStart.plusDays(7))).count();
-        long monthEvents = allEvents.stream().filter(e -> e.getStartTime().isAfter(monthStart) && e.getStartTime().isBefore(monthStart.plusMonths(1))).count();
-        long upcomingEvents = allEvents.stream().filter(e -> e.getStartTime().isAfter(now)).count();
-        long totalCalendars = calendarRepository.findByUserId(userId).size();
+        LocalDate today = now.toLocalDate();
+        LocalDate weekStart = today.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        LocalDate weekEnd = weekStart.plusDays(6);
+        LocalDate monthStart = today.withDayOfMonth(1);
+        LocalDate monthEnd = today.with(TemporalAdjusters.lastDayOfMonth());
+        LocalDate last30Start = today.minusDays(29);
 
-        // Calculate average events per day (simplified over last 30 days for relevance)
-        // Or simply Total / 365 if we want year average. Let's keep it simple: Total / (Active Days) roughly
-        // For now, let's keep the previous valid logic or improve it.
-        // Let's use events in last 30 days / 30.
-        long last30DaysCount = allEvents.stream().filter(e -> e.getStartTime().isAfter(now.minusDays(30))).count();
-        double averageEventsPerDay = last30DaysCount / 30.0;
-
-        // Group by Status
+        long totalEvents = 0;
+        long onlineCount = 0;
         Map<String, Long> statusBreakdown = new HashMap<>();
-        allEvents.forEach(e -> statusBreakdown.merge(e.getStatus() != null ? e.getStatus() : "CONFIRMED", 1L, Long::sum));
-
-        // Group by Subject (Top 5)
         Map<String, Long> eventsBySubject = new HashMap<>();
-        allEvents.forEach(e -> eventsBySubject.merge(e.getSubject(), 1L, Long::sum));
-        // Sort and limit/filtering can be done here or frontend. Map is unordered.
-
-        // Group by Weekday
         Map<String, Long> eventsByWeekday = new HashMap<>();
         for (DayOfWeek day : DayOfWeek.values()) {
             eventsByWeekday.put(day.name(), 0L);
         }
-        allEvents.forEach(e -> {
-            String day = e.getStartTime().getDayOfWeek().name();
-            eventsByWeekday.merge(day, 1L, Long::sum);
-        });
-
-        // Online Percentage
-        long onlineCount = allEvents.stream()
-                .filter(e -> e.getLocation() != null && 
-                       (e.getLocation().toLowerCase().contains("zoom") || 
-                        e.getLocation().toLowerCase().contains("meet") || 
-                        e.getLocation().toLowerCase().contains("online") ||
-                        e.getLocation().toLowerCase().contains("teams")))
-                .count();
+
+        for (AnalyticsCounter counter : aggregateService.getTotals(userId)) {
+            // Counters can briefly drift below zero under concurrent rebuilds; never report that
+            long count = Math.max(0, counter.getCount());
+            switch (counter.getDimension()) {
+                case TOTAL -> totalEvents = count;
+                case ONLINE -> onlineCount = count;
+                case STATUS -> putIfPositive(statusBreakdown, counter.getBucket(), count);
+                case SUBJECT -> putIfPositive(eventsBySubject, counter.getBucket(), count);
+                case WEEKDAY -> eventsByWeekday.put(counter.getBucket(), count);
+                default -> { }
+            }
+        }
+
+        // Time-relative windows from the per-day rollups
+        LocalDate from = min(min(weekStart, monthStart), last30Start);
+        LocalDate to = weekEnd.isAfter(monthEnd) ? weekEnd : monthEnd;
+        Map<LocalDate, Long> days = aggregateService.getDailyCounts(userId, from, to);
+        long weekEvents = sumDays(days, weekStart, weekEnd);
+        long monthEvents = sumDays(days, monthStart, monthEnd);
+        long last30DaysCount = sumDays(days, last30Start, today);
+        double averageEventsPerDay = last30DaysCount / 30.0;
+
+        // Later days come from the rollups; only the rest of today needs the clock
+        long upcomingEvents = aggregateService.countDaysAfter(userId, today)
+                + eventRepository.countEventsInTimeRange(userId, now, today.atTime(LocalTime.MAX))
+                + aggregateService.countSeriesOccurrences(userId, now, today.atTime(LocalTime.MAX));
+
+        long totalCalendars = calendarRepository.findByUserId(userId).size();
         double onlinePercentage = totalEvents > 0 ? (double) onlineCount / totalEvents * 100 : 0;
 
         // Busiest and Least Busy Days
@@ -91,4 +101,22 @@ public class AnalyticsService {
                 .onlinePercentage(onlinePercentage)
                 .build();
     }
+
+    private void putIfPositive(Map<String, Long> map, String key, long count) {
+        if (count > 0) {
+            map.put(key, count);
+        }
+    }
+
+    private long sumDays(Map<LocalDate, Long> days, LocalDate from, LocalDate to) {
+        long sum = 0;
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            sum += Math.max(0, days.getOrDefault(day, 0L));
+        }
+        return sum;
+    }
+
+    private LocalDate min(LocalDate a, LocalDate b) {
+        return a.isBefore(b) ? a : b;
+    }
 }
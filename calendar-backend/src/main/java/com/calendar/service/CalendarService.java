@@ -1,15 +1,25 @@
 package com.calendar.service;
 
 import com.calendar.model.Calendar;
+import com.calendar.model.Event;
 import com.calendar.model.User;
 import com.calendar.repository.CalendarRepository;
 import com.calendar.repository.UserRepository;
+import com.calendar.util.IcsWriter;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.Iterator;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Service
 public class CalendarService {
@@ -23,6 +33,18 @@ public class CalendarService {
     @Autowired
     private com.calendar.repository.EventRepository eventRepository;
 
+    @Autowired
+    private ConflictIndexService conflictIndexService;
+
+    @Autowired
+    private AnalyticsAggregateService analyticsAggregateService;
+
+    @Autowired
+    private AnalyticsCacheInvalidator analyticsCacheInvalidator;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
     public List<com.calendar.dto.CalendarDTO> getUserCalendars(Long userId) {
         return calendarRepository.findByUserId(userId).stream()
                 .map(this::convertToDTO)
@@ -42,51 +64,73 @@ public class CalendarService {
         Calendar calendar = calendarRepository.findByIdAndUserId(calendarId, userId)
                 .orElseThrow(() -> new RuntimeException("Calendar not found or access denied"));
         calendarRepository.delete(calendar);
+        conflictIndexService.invalidate(userId);
+        // Events go with the calendar through ON DELETE CASCADE, so recount on next read
+        analyticsAggregateService.invalidate(userId);
+        analyticsCacheInvalidator.evict(userId);
     }
 
-    public byte[] exportCalendar(Long calendarId, Long userId) {
-        // Verify access
-        Calendar calendar = calendarRepository.findByIdAndUserId(calendarId, userId)
+    /**
+     * @throws RuntimeException if the calendar does not exist or belongs to another user
+     */
+    public Calendar getOwnedCalendar(Long calendarId, Long userId) {
+        return calendarRepository.findByIdAndUserId(calendarId, userId)
                 .orElseThrow(() -> new RuntimeException("Calendar not found or access denied"));
+    }
 
-        List<com.calendar.model.Event> events = eventRepository.findByCalendarId(calendarId);
-        
-        StringBuilder ics = new StringBuilder();
-        ics.append("BEGIN:VCALENDAR\n");
-        ics.append("VERSION:2.0\n");
-        ics.append("PRODID:-//My Calendar App//EN\n");
-        
+    /**
+     * Write the calendar as iCalendar to {@code out}, reading events from a database cursor and
+     * detaching each one once written, so memory use does not grow with the calendar size.
+     * {@code out} is flushed but not closed.
+     */
+    @Transactional(readOnly = true)
+    public void exportCalendar(Long calendarId, Long userId, OutputStream out) throws IOException {
+        Calendar calendar = getOwnedCalendar(calendarId, userId);
+
+        IcsWriter ics = new IcsWriter(out);
+        ics.property("BEGIN", "VCALENDAR")
+                .property("VERSION", "2.0")
+                .property("PRODID", "-//My Calendar App//EN");
         if (calendar.getTimezone() != null) {
-            ics.append("X-WR-TIMEZONE:").append(calendar.getTimezone()).append("\n");
+            ics.text("X-WR-TIMEZONE", calendar.getTimezone());
         }
-
-        for (com.calendar.model.Event event : events) {
-            ics.append("BEGIN:VEVENT\n");
-            ics.append("UID:").append(event.getId()).append("@calendarapp.com\n");
-            ics.append("SUMMARY:").append(escapeIcs(event.getSubject())).append("\n");
-            ics.append("DTSTART:").append(formatDate(event.getStartTime())).append("\n");
-            ics.append("DTEND:").append(formatDate(event.getEndTime())).append("\n");
-            if (event.getDescription() != null) {
-                ics.append("DESCRIPTION:").append(escapeIcs(event.getDescription())).append("\n");
-            }
-            if (event.getLocation() != null) {
-                ics.append("LOCATION:").append(escapeIcs(event.getLocation())).append("\n");
+        // Get the first bytes to the client before the event query runs
+        ics.flush();
+
+        try (Stream<Event> events = eventRepository.streamByCalendarId(calendarId)) {
+            Iterator<Event> iterator = events.iterator();
+            while (iterator.hasNext()) {
+                Event event = iterator.next();
+                writeEvent(ics, event);
+                entityManager.detach(event);
             }
-            ics.append("END:VEVENT\n");
         }
 
-        ics.append("END:VCALENDAR\n");
-        return ics.toString().getBytes();
-    }
-
-    private String escapeIcs(String value) {
-        if (value == null) return "";
-        return value.replace("\\", "\\\\").replace(";", "\\;").replace(",", "\\,").replace("\n", "\\n");
+        ics.property("END", "VCALENDAR");
+        ics.flush();
     }
 
-    private String formatDate(java.time.LocalDateTime ldt) {
-        // Simple format: YYYYMMDDTHHMMSS
-        return ldt.format(java.time.format.DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss"));
+    private void writeEvent(IcsWriter ics, Event event) throws IOException {
+        ics.property("BEGIN", "VEVENT")
+                .property("UID", event.getId() + "@calendarapp.com")
+                .text("SUMMARY", event.getSubject())
+                .dateTime("DTSTART", event.getStartTime())
+                .dateTime("DTEND", event.getEndTime());
+        if (event.getRecurrenceRule() != null) {
+            ics.property("RRULE", event.getRecurrenceRule());
+            if (event.getRecurrenceExceptions() != null && !event.getRecurrenceExceptions().isBlank()) {
+                for (String exdate : event.getRecurrenceExceptions().split(",")) {
+                    ics.dateTime("EXDATE", LocalDateTime.parse(exdate.trim()));
+                }
+            }
+        }
+        if (event.getDescription() != null) {
+            ics.text("DESCRIPTION", event.getDescription());
+        }
+        if (event.getLocation() != null) {
+            ics.text("LOCATION", event.getLocation());
+        }
+        ics.property("END", "VEVENT");
     }
 
     private com.calendar.dto.CalendarDTO convertToDTO(Calendar calendar) {
@@ -0,0 +1,143 @@
+package com.calendar.service;
+
+import java.time.Duration;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Count-based circuit breaker for calls to a remote service.
+ *
+ * Closed, it records the outcome of the last {@code windowSize} calls and opens once at least
+ * {@code minimumCalls} were recorded and the share of failures reaches the threshold. Open, it
+ * rejects every call until {@code openDuration} has passed, then lets {@code halfOpenCalls}
+ * trial calls through: if all succeed it closes again, and the first failure re-opens it.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int windowSize;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long openNanos;
+    private final int halfOpenCalls;
+    private final LongSupplier nanoTime;
+    private final Consumer<State> onTransition;
+
+    // Ring buffer of the last windowSize outcomes, true for a failure
+    private final boolean[] outcomes;
+    private int next;
+    private int recorded;
+    private int failures;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private int trialsLeft;
+    private int trialSuccesses;
+
+    public CircuitBreaker(int windowSize, int minimumCalls, double failureRateThreshold, Duration openDuration,
+                          int halfOpenCalls, Consumer<State> onTransition) {
+        this(windowSize, minimumCalls, failureRateThreshold, openDuration, halfOpenCalls, onTransition, System::nanoTime);
+    }
+
+    CircuitBreaker(int windowSize, int minimumCalls, double failureRateThreshold, Duration openDuration,
+                   int halfOpenCalls, Consumer<State> onTransition, LongSupplier nanoTime) {
+        this.windowSize = Math.max(1, windowSize);
+        this.minimumCalls = Math.max(1, Math.min(minimumCalls, this.windowSize));
+        this.failureRateThreshold = failureRateThreshold;
+        this.openNanos = openDuration.toNanos();
+        this.halfOpenCalls = Math.max(1, halfOpenCalls);
+        this.onTransition = onTransition;
+        this.nanoTime = nanoTime;
+        this.outcomes = new boolean[this.windowSize];
+    }
+
+    /**
+     * Whether a call may go out now. Every permitted call must report its outcome through
+     * {@link #onSuccess()} or {@link #onFailure()}.
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (nanoTime.getAsLong() - openedAt < openNanos) {
+                return false;
+            }
+            transitionTo(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (trialsLeft == 0) {
+                return false;
+            }
+            trialsLeft--;
+        }
+        return true;
+    }
+
+    /**
+     * Whether calls are being turned away right now, without moving to half-open or taking a
+     * trial permit.
+     */
+    public synchronized boolean isRejecting() {
+        return state == State.OPEN && nanoTime.getAsLong() - openedAt < openNanos;
+    }
+
+    public synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            if (++trialSuccesses >= halfOpenCalls) {
+                transitionTo(State.CLOSED);
+            }
+        } else if (state == State.CLOSED) {
+            record(false);
+        }
+    }
+
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            transitionTo(State.OPEN);
+        } else if (state == State.CLOSED) {
+            record(true);
+            if (recorded >= minimumCalls && (double) failures / recorded >= failureRateThreshold) {
+                transitionTo(State.OPEN);
+            }
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    private void record(boolean failure) {
+        if (recorded == windowSize) {
+            if (outcomes[next]) {
+                failures--;
+            }
+        } else {
+            recorded++;
+        }
+        outcomes[next] = failure;
+        if (failure) {
+            failures++;
+        }
+        next = (next + 1) % windowSize;
+    }
+
+    private void transitionTo(State target) {
+        state = target;
+        switch (target) {
+            case OPEN -> openedAt = nanoTime.getAsLong();
+            case HALF_OPEN -> {
+                trialsLeft = halfOpenCalls;
+                trialSuccesses = 0;
+            }
+            case CLOSED -> {
+                // Start over: the failures before the outage say nothing about now
+                java.util.Arrays.fill(outcomes, false);
+                next = 0;
+                recorded = 0;
+                failures = 0;
+            }
+        }
+        onTransition.accept(target);
+    }
+}
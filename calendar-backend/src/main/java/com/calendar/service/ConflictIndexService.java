@@ -0,0 +1,173 @@
+package com.calendar.service;
+
+import com.calendar.model.Event;
+import com.calendar.repository.EventRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Per-user conflict index spanning every calendar the user owns.
+ *
+ * Each user's busy intervals are loaded once with a lightweight projection and kept as an
+ * {@link IntervalIndex} snapshot, which EventService updates on create, update and delete once
+ * the write commits. A snapshot only replaces the cached one if no write for that user was
+ * applied while it was loading. Before answering "no conflict" the events written since the
+ * snapshot was loaded, on any node, are read back and merged in; snapshots also expire after a
+ * TTL, which is what drops events deleted on other nodes.
+ */
+@Service
+public class ConflictIndexService {
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @Value("${conflict.index.ttl-seconds:300}")
+    private long ttlSeconds = 300;
+
+    @Value("${conflict.index.max-users:10000}")
+    private int maxUsers = 10000;
+
+    private static final int VERSION_STRIPES = 1024;
+
+    // Events written this close before a snapshot was loaded are read back too: DATETIME
+    // columns drop the fraction of a second, and clocks differ a little between nodes
+    private static final Duration CHANGED_SINCE_MARGIN = Duration.ofSeconds(5);
+
+    private final Map<Long, IntervalIndex> indexes = new ConcurrentHashMap<>();
+
+    // Bumped for every write applied to a user's snapshot, striped by user id
+    private final AtomicLongArray versions = new AtomicLongArray(VERSION_STRIPES);
+
+    /**
+     * Does [start, end) overlap any event in any of the user's calendars?
+     */
+    public boolean hasConflict(Long userId, LocalDateTime start, LocalDateTime end) {
+        if (start == null || end == null) {
+            return false;
+        }
+        IntervalIndex index = indexFor(userId);
+        return index.overlaps(start, end) || withRecentWrites(userId, index).overlaps(start, end);
+    }
+
+    /**
+     * Batch check for all occurrences of a new series (sorted starts, shared duration).
+     *
+     * @return the first conflicting occurrence start, or null when the series is free
+     */
+    public LocalDateTime findFirstConflict(Long userId, List<LocalDateTime> occurrenceStarts, Duration duration) {
+        IntervalIndex index = indexFor(userId);
+        LocalDateTime conflict = index.firstOverlap(occurrenceStarts, duration);
+        return conflict != null ? conflict : withRecentWrites(userId, index).firstOverlap(occurrenceStarts, duration);
+    }
+
+    public void add(Long userId, Event event) {
+        if (event.getId() == null) {
+            return;
+        }
+        // Only update loaded snapshots; an absent user is loaded from the database on next use
+        afterCommit(userId, () -> indexes.computeIfPresent(userId, (id, index) -> index.with(event.getId(),
+                event.getStartTime(), event.getEndTime(), event.getRecurrenceRule(),
+                event.getRecurrenceExceptions(), event.getRecurrenceEnd())));
+    }
+
+    public void remove(Long userId, Long eventId) {
+        if (eventId == null) {
+            return;
+        }
+        afterCommit(userId, () -> indexes.computeIfPresent(userId, (id, index) -> index.without(eventId)));
+    }
+
+    public void invalidate(Long userId) {
+        afterCommit(userId, () -> indexes.remove(userId));
+    }
+
+    /**
+     * Apply a write to the cache once its transaction commits, so that a snapshot loaded in the
+     * meantime cannot miss it (see {@link #indexFor}) and a rolled back write is never applied.
+     */
+    private void afterCommit(Long userId, Runnable update) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(userId, update);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                apply(userId, update);
+            }
+        });
+    }
+
+    private void apply(Long userId, Runnable update) {
+        versions.incrementAndGet(stripe(userId));
+        update.run();
+    }
+
+    private IntervalIndex indexFor(Long userId) {
+        IntervalIndex index = indexes.get(userId);
+        long now = System.currentTimeMillis();
+        if (index != null && now - index.getLoadedAt() <= ttlSeconds * 1000) {
+            return index;
+        }
+
+        long version = versions.get(stripe(userId));
+        IntervalIndex loaded = IntervalIndex.build(eventRepository.findIntervalsByUserId(userId));
+        if (indexes.size() >= maxUsers) {
+            evict(now);
+        }
+        // A write applied since the version was read may be missing from what was loaded: use the
+        // snapshot for this check but leave it uncached. A write applied after this check runs
+        // its update after it, under the same map lock, so it lands in the cached snapshot.
+        indexes.compute(userId, (id, current) -> versions.get(stripe(userId)) == version ? loaded : current);
+        return loaded;
+    }
+
+    /**
+     * Merge the user's events written since {@code index} was last synced, by any node, and keep
+     * the result if that snapshot is still the cached one.
+     */
+    private IntervalIndex withRecentWrites(Long userId, IntervalIndex index) {
+        long syncedAt = System.currentTimeMillis();
+        LocalDateTime since = LocalDateTime.ofInstant(Instant.ofEpochMilli(index.getSyncedAt()), ZoneId.systemDefault())
+                .minus(CHANGED_SINCE_MARGIN);
+        List<Object[]> rows = eventRepository.findIntervalsChangedSince(userId, since);
+        IntervalIndex merged = index;
+        if (rows != null) {
+            for (Object[] row : rows) {
+                merged = merged.with((Long) row[0], (LocalDateTime) row[1], (LocalDateTime) row[2],
+                        (String) row[3], (String) row[4], (LocalDateTime) row[5]);
+            }
+        }
+        // Later checks only read rows written after this one started
+        IntervalIndex result = merged.syncedTo(syncedAt);
+        indexes.replace(userId, index, result);
+        return result;
+    }
+
+    private static int stripe(Long userId) {
+        return Math.floorMod(userId.hashCode(), VERSION_STRIPES);
+    }
+
+    // Drop expired snapshots first, then arbitrary ones until there is room
+    private void evict(long now) {
+        indexes.values().removeIf(index -> now - index.getLoadedAt() > ttlSeconds * 1000);
+        Iterator<Long> keys = indexes.keySet().iterator();
+        while (indexes.size() >= maxUsers && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+}
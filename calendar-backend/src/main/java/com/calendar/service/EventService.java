@@ -1,45 +1,175 @@
 package com.calendar.service;
 
 import com.calendar.dto.EventDTO;
+import com.calendar.dto.EventPageDTO;
 import com.calendar.dto.RecurrenceDTO;
 import com.calendar.model.Calendar;
 import com.calendar.model.Event;
+import com.calendar.recurrence.RecurrenceIterator;
+import com.calendar.recurrence.RecurrenceRule;
 import com.calendar.repository.CalendarRepository;
 import com.calendar.repository.EventRepository;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.beans.factory.annotation.Value;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.time.LocalDate;
+import java.time.Duration;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class EventService {
 
+    // Safety limit for series without COUNT/UNTIL when no window bounds the expansion
+    static final int MAX_UNBOUNDED_OCCURRENCES = 1000;
+
+    private static final int MAX_PAGE_SIZE = 500;
+
     @Autowired
     private EventRepository eventRepository;
 
     @Autowired
     private CalendarRepository calendarRepository;
 
+    @Autowired
+    private ConflictIndexService conflictIndexService;
+
+    @Autowired
+    private AnalyticsAggregateService analyticsAggregateService;
+
+    @Autowired
+    private AnalyticsCacheInvalidator analyticsCacheInvalidator;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // MASTER stores one row per series, MATERIALIZED writes one row per occurrence. MASTER is
+    // experimental: its occurrences share the master's id and can only be removed one at a time
+    @Value("${recurrence.storage-mode:MATERIALIZED}")
+    private String recurrenceStorageMode = "MATERIALIZED";
+
+    // How far ahead the occurrences of a new series are checked for conflicts
+    @Value("${conflict.series-horizon-days:730}")
+    private int seriesConflictHorizonDays = 730;
+
     public List<EventDTO> getEvents(Long calendarId) {
-        return eventRepository.findByCalendarId(calendarId).stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        List<EventDTO> result = new ArrayList<>();
+        for (Event event : eventRepository.findByCalendarId(calendarId)) {
+            if (event.isSeriesMaster()) {
+                result.addAll(expandSeries(event, null, null));
+            } else {
+                result.add(convertToDTO(event));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * One page of a calendar's stored events ordered by (startTime, id). Series are returned as
+     * their master row with the recurrence set; use the range endpoint to expand occurrences.
+     *
+     * @param cursor nextCursor of the previous page, or null for the first page
+     */
+    public EventPageDTO getEventPage(Long calendarId, String cursor, int limit) {
+        int size = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        // Fetch one extra row to know whether another page follows
+        PageRequest page = PageRequest.of(0, size + 1);
+
+        List<Event> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = eventRepository.findFirstPage(calendarId, page);
+        } else {
+            String[] key = decodeCursor(cursor);
+            rows = eventRepository.findPageAfter(calendarId, LocalDateTime.parse(key[0]), Long.parseLong(key[1]), page);
+        }
+
+        boolean hasMore = rows.size() > size;
+        if (hasMore) {
+            rows = rows.subList(0, size);
+        }
+        List<EventDTO> events = new ArrayList<>(rows.size());
+        for (Event event : rows) {
+            EventDTO dto = convertToDTO(event);
+            if (event.isSeriesMaster()) {
+                dto.setRecurrence(RecurrenceRule.parse(event.getRecurrenceRule()).toRecurrence());
+            }
+            events.add(dto);
+        }
+
+        String nextCursor = hasMore ? encodeCursor(rows.get(rows.size() - 1)) : null;
+        return new EventPageDTO(events, nextCursor);
+    }
+
+    /**
+     * Feed every event of a calendar to {@code action} straight from a database cursor, with
+     * series expanded like {@link #getEvents(Long)}. Entities are detached as they are
+     * converted, so memory use does not grow with the calendar size.
+     */
+    @Transactional(readOnly = true)
+    public void forEachEvent(Long calendarId, Consumer<EventDTO> action) {
+        try (Stream<Event> events = eventRepository.streamByCalendarId(calendarId)) {
+            events.forEach(event -> {
+                if (event.isSeriesMaster()) {
+                    expandSeries(event, null, null).forEach(action);
+                } else {
+                    action.accept(convertToDTO(event));
+                }
+                entityManager.detach(event);
+            });
+        }
+    }
+
+    private String encodeCursor(Event event) {
+        String key = event.getStartTime() + "|" + event.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String[] decodeCursor(String cursor) {
+        try {
+            String[] key = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+            if (key.length != 2) {
+                throw new IllegalArgumentException();
+            }
+            LocalDateTime.parse(key[0]);
+            Long.parseLong(key[1]);
+            return key;
+        } catch (RuntimeException e) {
+            throw new RuntimeException("Invalid cursor");
+        }
     }
 
     public List<EventDTO> getEventsInRange(Long calendarId, LocalDateTime start, LocalDateTime end) {
-        return eventRepository.findEventsInRange(calendarId, start, end).stream()
+        List<EventDTO> result = eventRepository.findEventsInRange(calendarId, start, end).stream()
                 .map(this::convertToDTO)
                 .collect(Collectors.toList());
+
+        List<Event> masters = eventRepository.findSeriesMastersInRange(calendarId, start, end);
+        if (!masters.isEmpty()) {
+            for (Event master : masters) {
+                result.addAll(expandSeries(master, start, end));
+            }
+            result.sort(Comparator.comparing(EventDTO::getStartTime));
+        }
+        return result;
     }
 
-    @CacheEvict(value = "analytics", allEntries = true) // Invalidate analytics when events change
+    // Writes run in one transaction with their analytics deltas, so the counters never count a
+    // write that rolled back or miss one that committed
+    @Transactional
     public EventDTO createEvent(Long calendarId, EventDTO eventDTO) {
         if (eventDTO.getStartTime() != null && eventDTO.getEndTime() != null && eventDTO.getStartTime().isAfter(eventDTO.getEndTime())) {
             throw new RuntimeException("End time cannot be before start time.");
@@ -49,11 +179,15 @@ public class EventService {
                 .orElseThrow(() -> new RuntimeException("Calendar not found"));
 
         if (eventDTO.getRecurrence() != null) {
-            return createRecurringEvents(calendar, eventDTO);
+            if ("MATERIALIZED".equalsIgnoreCase(recurrenceStorageMode)) {
+                return createRecurringEvents(calendar, eventDTO);
+            }
+            return createSeriesMaster(calendar, eventDTO);
         }
 
-        // Basic conflict detection
-        if (hasConflict(calendarId, eventDTO.getStartTime(), eventDTO.getEndTime())) {
+        // Conflict detection across all of the owner's calendars
+        Long userId = calendar.getUser().getId();
+        if (conflictIndexService.hasConflict(userId, eventDTO.getStartTime(), eventDTO.getEndTime())) {
             throw new RuntimeException("Event conflict detected! Overlaps with existing event.");
         }
 
@@ -64,105 +198,136 @@ public class EventService {
         event.setSeriesId(eventDTO.getSeriesId());
 
         Event savedEvent = eventRepository.save(event);
+        conflictIndexService.add(userId, savedEvent);
+        analyticsAggregateService.recordCreated(userId, savedEvent);
+        analyticsCacheInvalidator.evict(userId);
         return convertToDTO(savedEvent);
     }
 
-    private EventDTO createRecurringEvents(Calendar calendar, EventDTO eventDTO) {
-        RecurrenceDTO recurrence = eventDTO.getRecurrence();
-        if (recurrence == null || recurrence.getPattern() == null) {
-            throw new RuntimeException("Recurrence pattern is required for recurring events.");
-        }
-
-        String seriesId = UUID.randomUUID().toString();
-        List<Event> eventsToSave = new ArrayList<>();
-
-        LocalDateTime currentStart = eventDTO.getStartTime();
-        LocalDateTime currentEnd = eventDTO.getEndTime();
-        java.time.Duration duration = java.time.Duration.between(currentStart, currentEnd);
-
-        int count = 0;
-        int maxOccurrences = 1000; // safety limit
-        if ("COUNT".equalsIgnoreCase(recurrence.getType())) {
-            maxOccurrences = recurrence.getOccurrences() != null ? recurrence.getOccurrences() : 10;
+    /**
+     * Store a recurring event as a single series master row holding the RRULE.
+     * Occurrences are expanded on read for the requested window only.
+     */
+    private EventDTO createSeriesMaster(Calendar calendar, EventDTO eventDTO) {
+        RecurrenceRule rule = RecurrenceRule.fromRecurrence(eventDTO.getRecurrence());
+
+        Duration duration = Duration.between(eventDTO.getStartTime(), eventDTO.getEndTime());
+        RecurrenceIterator occurrences = rule.iterator(eventDTO.getStartTime());
+        if (!occurrences.hasNext()) {
+            throw new RuntimeException("No events were created based on the recurrence rules.");
         }
-        
-        LocalDate untilDate = "DATE".equalsIgnoreCase(recurrence.getType()) ? recurrence.getUntilDate() : null;
 
-        boolean isWeekly = "WEEKLY".equalsIgnoreCase(recurrence.getPattern());
-        List<String> targetDays = recurrence.getDaysOfWeek(); 
-
-        LocalDateTime iterator = currentStart;
-        int safetyLimit = 3650; // 10 years
-        int loopCount = 0;
-
-        while (count < maxOccurrences && loopCount < safetyLimit) {
-            if (untilDate != null && iterator.toLocalDate().isAfter(untilDate)) {
-                break;
+        // The master row starts at the first matching occurrence, which may differ from the
+        // requested start when BYDAY does not include the start day
+        LocalDateTime firstStart = occurrences.next();
+        checkSeriesConflicts(calendar, rule.occurrences(firstStart, null,
+                firstStart.plusDays(seriesConflictHorizonDays), Integer.MAX_VALUE), duration);
+
+        Event master = new Event(eventDTO.getSubject(), firstStart, firstStart.plus(duration), calendar);
+        master.setDescription(eventDTO.getDescription());
+        master.setLocation(eventDTO.getLocation());
+        master.setStatus("CONFIRMED");
+        master.setSeriesId(UUID.randomUUID().toString());
+        master.setRecurrenceRule(rule.toString());
+        if (rule.getCount() > 0) {
+            LocalDateTime lastStart = firstStart;
+            while (occurrences.hasNext()) {
+                lastStart = occurrences.next();
             }
+            master.setRecurrenceEnd(lastStart.plus(duration));
+        } else if (rule.getUntil() != null) {
+            // UNTIL bounds the last start, which is all the range query needs
+            master.setRecurrenceEnd(rule.getUntil().plus(duration));
+        }
 
-            boolean shouldCreate = false;
-
-            if (isWeekly && targetDays != null && !targetDays.isEmpty()) {
-                String currentDayOfWeek = iterator.getDayOfWeek().name();
-                if (targetDays.stream().anyMatch(d -> d.equalsIgnoreCase(currentDayOfWeek))) {
-                     shouldCreate = true;
-                }
-            } else {
-                shouldCreate = true;
-            }
+        Event savedMaster = eventRepository.save(master);
+        conflictIndexService.add(calendar.getUser().getId(), savedMaster);
+        analyticsAggregateService.recordCreated(calendar.getUser().getId(), savedMaster);
+        analyticsCacheInvalidator.evict(calendar.getUser().getId());
+        return convertToDTO(savedMaster);
+    }
 
-            if (shouldCreate) {
-                Event event = new Event(eventDTO.getSubject(), iterator, iterator.plus(duration), calendar);
-                event.setDescription(eventDTO.getDescription());
-                event.setLocation(eventDTO.getLocation());
-                event.setStatus("CONFIRMED");
-                event.setSeriesId(seriesId);
-                eventsToSave.add(event);
-                count++;
-            }
+    private EventDTO createRecurringEvents(Calendar calendar, EventDTO eventDTO) {
+        RecurrenceRule rule = RecurrenceRule.fromRecurrence(eventDTO.getRecurrence());
 
-            // Advance iterator
-            if (isWeekly && targetDays != null && !targetDays.isEmpty()) {
-                iterator = iterator.plusDays(1);
-            } else {
-                 int interval = recurrence.getInterval() != null && recurrence.getInterval() > 0 ? recurrence.getInterval() : 1;
-                 String pattern = recurrence.getPattern().toUpperCase();
-                 switch (pattern) {
-                     case "DAILY":
-                         iterator = iterator.plusDays(interval);
-                         break;
-                     case "WEEKLY":
-                         iterator = iterator.plusWeeks(interval);
-                         break;
-                     case "MONTHLY":
-                         iterator = iterator.plusMonths(interval);
-                         break;
-                     case "YEARLY":
-                         iterator = iterator.plusYears(interval);
-                         break;
-                     default:
-                         iterator = iterator.plusDays(1);
-                 }
-            }
-            loopCount++;
+        String seriesId = UUID.randomUUID().toString();
+        List<Event> eventsToSave = new ArrayList<>();
+        Duration duration = Duration.between(eventDTO.getStartTime(), eventDTO.getEndTime());
+
+        for (LocalDateTime occurrenceStart : rule.occurrences(eventDTO.getStartTime(), null, null, MAX_UNBOUNDED_OCCURRENCES)) {
+            Event event = new Event(eventDTO.getSubject(), occurrenceStart, occurrenceStart.plus(duration), calendar);
+            event.setDescription(eventDTO.getDescription());
+            event.setLocation(eventDTO.getLocation());
+            event.setStatus("CONFIRMED");
+            event.setSeriesId(seriesId);
+            eventsToSave.add(event);
         }
 
         if (eventsToSave.isEmpty()) {
              throw new RuntimeException("No events were created based on the recurrence rules.");
         }
+        checkSeriesConflicts(calendar, eventsToSave.stream().map(Event::getStartTime).collect(Collectors.toList()), duration);
 
         List<Event> savedEvents = eventRepository.saveAll(eventsToSave);
+        Long userId = calendar.getUser().getId();
+        savedEvents.forEach(saved -> {
+            conflictIndexService.add(userId, saved);
+            analyticsAggregateService.recordCreated(userId, saved);
+        });
+        // One eviction for the whole series
+        analyticsCacheInvalidator.evict(userId);
         return convertToDTO(savedEvents.get(0));
     }
 
-    @CacheEvict(value = "analytics", allEntries = true)
+    /**
+     * Check all occurrences of a new series against the owner's conflict index in one pass.
+     */
+    private void checkSeriesConflicts(Calendar calendar, List<LocalDateTime> starts, Duration duration) {
+        LocalDateTime conflict = conflictIndexService.findFirstConflict(calendar.getUser().getId(), starts, duration);
+        if (conflict != null) {
+            throw new RuntimeException("Event conflict detected! Occurrence on " + conflict + " overlaps with existing event.");
+        }
+    }
+
+    /**
+     * Expand a series master into occurrence DTOs overlapping [start, end), matching the
+     * half-open overlap used by the range queries.
+     * A null window expands the whole series up to the unbounded safety limit.
+     */
+    private List<EventDTO> expandSeries(Event master, LocalDateTime start, LocalDateTime end) {
+        RecurrenceRule rule = RecurrenceRule.parse(master.getRecurrenceRule())
+                .withExceptions(parseExceptions(master.getRecurrenceExceptions()));
+        Duration duration = Duration.between(master.getStartTime(), master.getEndTime());
+        RecurrenceDTO recurrence = rule.toRecurrence();
+
+        // Seek past occurrences that end at or before the window instead of replaying the series
+        LocalDateTime from = start != null ? start.minus(duration).plusNanos(1) : null;
+        LocalDateTime to = end != null ? end.minusNanos(1) : null;
+        List<EventDTO> occurrences = new ArrayList<>();
+        for (LocalDateTime occurrenceStart : rule.occurrences(master.getStartTime(), from, to, MAX_UNBOUNDED_OCCURRENCES)) {
+            EventDTO dto = convertToDTO(master);
+            dto.setStartTime(occurrenceStart);
+            dto.setEndTime(occurrenceStart.plus(duration));
+            dto.setRecurrence(recurrence);
+            occurrences.add(dto);
+        }
+        return occurrences;
+    }
+
+    @Transactional
     public EventDTO updateEvent(Long eventId, EventDTO eventDTO) {
         if (eventDTO.getStartTime() != null && eventDTO.getEndTime() != null && eventDTO.getStartTime().isAfter(eventDTO.getEndTime())) {
             throw new RuntimeException("End time cannot be before start time.");
         }
-        
+
         Event event = eventRepository.findById(eventId)
                 .orElseThrow(() -> new RuntimeException("Event not found"));
+        // Expanded occurrences carry the master's id; a PUT on one would rewrite the whole series
+        if (event.isSeriesMaster()) {
+            throw new RuntimeException("Event " + eventId + " is a recurring series; its occurrences cannot be edited "
+                    + "one at a time. Remove one with DELETE /api/events/" + eventId + "/occurrences?start=...");
+        }
+        List<AnalyticsAggregateService.Contribution> before = AnalyticsAggregateService.Contribution.allOf(event);
 
         event.setSubject(eventDTO.getSubject());
         event.setStartTime(eventDTO.getStartTime());
@@ -171,20 +336,80 @@ public class EventService {
         event.setLocation(eventDTO.getLocation());
         event.setStatus(eventDTO.getStatus());
         // Series ID usually doesn't change on single update
+        if (event.getGoogleEventId() != null) {
+            // Picked up by the next push to Google
+            event.setGooglePushPending(true);
+        }
 
         Event updatedEvent = eventRepository.save(event);
+        Long userId = event.getCalendar().getUser().getId();
+        conflictIndexService.add(userId, updatedEvent);
+        analyticsAggregateService.recordUpdated(userId, before, updatedEvent);
+        analyticsCacheInvalidator.evict(userId);
         return convertToDTO(updatedEvent);
     }
 
-    @CacheEvict(value = "analytics", allEntries = true)
+    @Transactional
     public void deleteEvent(Long eventId) {
+        deleteEvent(eventId, false);
+    }
+
+    /**
+     * @param wholeSeries required to delete a series master, since a DELETE aimed at one of its
+     *                    expanded occurrences carries the master's id too
+     */
+    @Transactional
+    public void deleteEvent(Long eventId, boolean wholeSeries) {
+        Event event = eventRepository.findById(eventId).orElse(null);
+        if (event != null && event.isSeriesMaster() && !wholeSeries) {
+            throw new RuntimeException("Event " + eventId + " is a recurring series. Remove one occurrence with "
+                    + "DELETE /api/events/" + eventId + "/occurrences?start=..., or the whole series with ?series=true");
+        }
         eventRepository.deleteById(eventId);
+        if (event != null) {
+            Long userId = event.getCalendar().getUser().getId();
+            conflictIndexService.remove(userId, eventId);
+            analyticsAggregateService.recordDeleted(userId, AnalyticsAggregateService.Contribution.allOf(event));
+            analyticsCacheInvalidator.evict(userId);
+        }
+    }
+
+    /**
+     * Remove a single occurrence from a series master by adding it to the exception list.
+     */
+    @Transactional
+    public void deleteOccurrence(Long eventId, LocalDateTime occurrenceStart) {
+        Event master = eventRepository.findById(eventId)
+                .orElseThrow(() -> new RuntimeException("Event not found"));
+        if (!master.isSeriesMaster()) {
+            throw new RuntimeException("Event is not a recurring series.");
+        }
+
+        Set<LocalDateTime> exceptions = parseExceptions(master.getRecurrenceExceptions());
+        if (exceptions.add(occurrenceStart)) {
+            List<AnalyticsAggregateService.Contribution> before = AnalyticsAggregateService.Contribution.allOf(master);
+            master.setRecurrenceExceptions(exceptions.stream()
+                    .sorted()
+                    .map(LocalDateTime::toString)
+                    .collect(Collectors.joining(",")));
+            eventRepository.save(master);
+            Long userId = master.getCalendar().getUser().getId();
+            conflictIndexService.add(userId, master);
+            // Removes the occurrence's counts, if it was one of the series' occurrences at all
+            analyticsAggregateService.recordUpdated(userId, before, master);
+            analyticsCacheInvalidator.evict(userId);
+        }
     }
 
-    private boolean hasConflict(Long calendarId, LocalDateTime start, LocalDateTime end) {
-        List<Event> conflicts = eventRepository.findEventsInRange(calendarId, start, end);
-        // Filter out strict boundary matches if desired, but for now simple overlap
-        return !conflicts.isEmpty();
+    private Set<LocalDateTime> parseExceptions(String exceptions) {
+        Set<LocalDateTime> result = new HashSet<>();
+        if (exceptions == null || exceptions.isBlank()) {
+            return result;
+        }
+        for (String value : exceptions.split(",")) {
+            result.add(LocalDateTime.parse(value.trim()));
+        }
+        return result;
     }
 
     private EventDTO convertToDTO(Event event) {
@@ -0,0 +1,198 @@
+package com.calendar.service;
+
+import com.google.api.client.googleapis.batch.BatchRequest;
+import com.google.api.client.googleapis.batch.json.JsonBatchCallback;
+import com.google.api.client.googleapis.json.GoogleJsonError;
+import com.google.api.client.http.HttpHeaders;
+import com.google.api.services.calendar.Calendar;
+import com.google.api.services.calendar.model.Event;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes local events to Google Calendar as batch requests.
+ *
+ * Operations are grouped into batches of at most {@link #MAX_BATCH_SIZE} (the limit Google
+ * recommends for the Calendar API) and a bounded number of batches is in flight at once,
+ * shared by all users. A failed operation is not retried here; its event stays unpushed and
+ * is picked up by the next push. Whole batch requests go through {@link GoogleCallExecutor},
+ * which retries them only when Google refused them outright.
+ */
+@Service
+public class GoogleBatchPusher {
+
+    private static final Logger logger = LoggerFactory.getLogger(GoogleBatchPusher.class);
+
+    static final int MAX_BATCH_SIZE = 50;
+
+    // Operations per batch request, capped at MAX_BATCH_SIZE
+    @Value("${google.push.batch-size:50}")
+    private int batchSize = MAX_BATCH_SIZE;
+
+    @Autowired
+    private GoogleCallExecutor googleCallExecutor;
+
+    private final ExecutorService executor;
+
+    public GoogleBatchPusher(@Value("${google.push.concurrency:4}") int concurrency) {
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(concurrency, runnable -> {
+            Thread thread = new Thread(runnable, "google-push-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Run the operations against {@code userId}'s primary calendar, as background calls against
+     * that user's quota, and wait for all of them. A batch request that fails as a whole counts
+     * all its operations as failed and is reported through {@link Result#getError()}; the other
+     * batches' results are still returned, so the ids of events they created can be written back.
+     */
+    public Result push(Calendar service, Long userId, List<Operation> operations) {
+        Result result = new Result();
+        int size = Math.max(1, Math.min(batchSize, MAX_BATCH_SIZE));
+        List<Future<?>> batches = new ArrayList<>();
+        for (int from = 0; from < operations.size(); from += size) {
+            List<Operation> chunk = operations.subList(from, Math.min(from + size, operations.size()));
+            batches.add(executor.submit(() -> {
+                try {
+                    execute(service, userId, chunk, result);
+                } catch (IOException e) {
+                    result.failed.addAndGet(chunk.size());
+                    result.recordError(e);
+                    logger.warn("Google batch request of {} operations failed: {}", chunk.size(), e.getMessage());
+                }
+            }));
+        }
+
+        for (Future<?> batch : batches) {
+            try {
+                batch.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                batches.forEach(pending -> pending.cancel(true));
+                result.recordError(new IOException("Push to Google interrupted", e));
+                break;
+            } catch (ExecutionException e) {
+                result.recordError(new IOException(e.getCause()));
+            }
+        }
+        return result;
+    }
+
+    private void execute(Calendar service, Long userId, List<Operation> chunk, Result result) throws IOException {
+        // Google counts every call in a batch against the quota
+        GoogleQuotaGovernor.Caller caller = GoogleQuotaGovernor.Caller.background(userId).units(chunk.size());
+        // A rejected or rate limited batch was not applied and is sent again, rebuilt from scratch
+        googleCallExecutor.execute("events.batch", false, caller, () -> {
+            BatchRequest batch = service.batch();
+            for (Operation operation : chunk) {
+                queue(service, batch, operation, result);
+            }
+            batch.execute();
+            return null;
+        });
+    }
+
+    private void queue(Calendar service, BatchRequest batch, Operation operation, Result result) throws IOException {
+        JsonBatchCallback<Event> callback = new JsonBatchCallback<>() {
+            @Override
+            public void onSuccess(Event event, HttpHeaders responseHeaders) {
+                if (operation.googleEventId == null) {
+                    result.created.put(operation.localId, event.getId());
+                } else {
+                    result.patched.add(operation.localId);
+                }
+            }
+
+            @Override
+            public void onFailure(GoogleJsonError error, HttpHeaders responseHeaders) {
+                // Deleted in Google: the next pull removes it locally, nothing left to push
+                if (operation.googleEventId != null && (error.getCode() == 404 || error.getCode() == 410)) {
+                    result.patched.add(operation.localId);
+                    return;
+                }
+                result.failed.incrementAndGet();
+                logger.warn("Failed to push event {} to Google: {} {}", operation.localId, error.getCode(), error.getMessage());
+            }
+        };
+        if (operation.googleEventId == null) {
+            service.events().insert("primary", operation.event).queue(batch, callback);
+        } else {
+            service.events().patch("primary", operation.googleEventId, operation.event).queue(batch, callback);
+        }
+    }
+
+    /**
+     * One insert (no Google id yet) or patch of a local event.
+     */
+    public static final class Operation {
+        private final Long localId;
+        private final String googleEventId;
+        private final Event event;
+
+        public Operation(Long localId, String googleEventId, Event event) {
+            this.localId = localId;
+            this.googleEventId = googleEventId;
+            this.event = event;
+        }
+    }
+
+    /**
+     * Outcome of {@link #push}. Filled in concurrently by the batch callbacks.
+     */
+    public static final class Result {
+        private final Map<Long, String> created = new ConcurrentHashMap<>();
+        private final List<Long> patched = Collections.synchronizedList(new ArrayList<>());
+        private final AtomicInteger failed = new AtomicInteger();
+        private IOException error;
+
+        synchronized void recordError(IOException e) {
+            if (error == null) {
+                error = e;
+            } else {
+                error.addSuppressed(e);
+            }
+        }
+
+        // Local id to the id Google assigned
+        public Map<Long, String> getCreated() {
+            return created;
+        }
+
+        public List<Long> getPatched() {
+            return patched;
+        }
+
+        public int getFailed() {
+            return failed.get();
+        }
+
+        // First failure of a whole batch request, or null
+        public synchronized IOException getError() {
+            return error;
+        }
+    }
+}
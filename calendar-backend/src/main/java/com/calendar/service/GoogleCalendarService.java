@@ -1,10 +1,9 @@
 package com.calendar.service;
 
 import com.google.api.client.auth.oauth2.Credential;
+import com.google.api.client.googleapis.json.GoogleJsonResponseException;
 import com.google.api.client.googleapis.auth.oauth2.GoogleAuthorizationCodeFlow;
 import com.google.api.client.googleapis.auth.oauth2.GoogleTokenResponse;
-import com.google.api.client.http.javanet.NetHttpTransport;
-import com.google.api.client.json.JsonFactory;
 import com.google.api.services.calendar.Calendar;
 import com.google.api.services.calendar.model.Event;
 import com.google.api.services.calendar.model.Events;
@@ -13,6 +12,8 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import com.calendar.model.User;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -27,15 +28,21 @@ public class GoogleCalendarService {
 
     private static final Logger logger = LoggerFactory.getLogger(GoogleCalendarService.class);
 
-    @Autowired
-    private GoogleAuthorizationCodeFlow flow;
+    // Largest page events.list returns
+    private static final int PAGE_SIZE = 2500;
+    // HTTP 410 Gone: the sync token is no longer valid
+    private static final int SYNC_TOKEN_EXPIRED = 410;
 
     @Autowired
-    private JsonFactory jsonFactory;
+    private GoogleAuthorizationCodeFlow flow;
 
     @org.springframework.beans.factory.annotation.Value("${google.redirect.uri}")
     private String redirectUri;
 
+    // How far back a full sync (first sync, or after the sync token expired) lists events
+    @org.springframework.beans.factory.annotation.Value("${google.sync.full-window-days:365}")
+    private int fullSyncWindowDays = 365;
+
     /**
      * Generate OAuth authorization URL for user to grant access.
      */
@@ -81,6 +88,7 @@ public class GoogleCalendarService {
                     user.setGoogleTokenExpirationTime(System.currentTimeMillis() + (expiresInSeconds * 1000));
                 }
                 userRepository.save(user);
+                googleClientCache.evict(userId);
                 logger.info("Persisted Google OAuth tokens to database for user: {}", user.getUsername());
             } else {
                 logger.warn("User ID {} from OAuth state not found in database", userId);
@@ -93,15 +101,10 @@ public class GoogleCalendarService {
     }
 
     /**
-     * Get Google Calendar service instance for authenticated user.
+     * Get Google Calendar service instance for authenticated user, on the shared transport.
      */
     public Calendar getCalendarService(Credential credential) {
-        return new Calendar.Builder(
-                new NetHttpTransport(),
-                jsonFactory,
-                credential)
-                .setApplicationName("Multi-Calendar System")
-                .build();
+        return googleClientCache.getCalendar(credential);
     }
     
     @Autowired
@@ -110,17 +113,68 @@ public class GoogleCalendarService {
     @Autowired
     private com.calendar.repository.EventRepository eventRepository;
 
+    @Autowired
+    private ConflictIndexService conflictIndexService;
+
+    @Autowired
+    private AnalyticsCacheInvalidator analyticsCacheInvalidator;
+
+    @Autowired
+    private GoogleSyncWriter googleSyncWriter;
+
+    @Autowired
+    private GoogleBatchPusher googleBatchPusher;
+
+    @Autowired
+    private GoogleCallExecutor googleCallExecutor;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Pulled events written per transaction
+    @org.springframework.beans.factory.annotation.Value("${google.sync.transaction-size:500}")
+    private int transactionSize = 500;
+
+    @Autowired
+    private GoogleClientCache googleClientCache;
+
     /**
-     * Sync events from Google to local database for a specific user.
+     * Apply the changes on the user's primary Google calendar since the last sync to the
+     * local database: new events go to the "Google Calendar" bucket, edited ones are updated
+     * wherever the user keeps them, and cancelled ones are deleted.
+     *
+     * The first sync, and any sync whose token Google has expired, lists the whole window
+     * instead; pulled events missing from that listing are removed.
+     *
+     * Not transactional: all calls to Google, retries included, finish before the first write,
+     * and the changes are then written in short transactions of {@code google.sync.transaction-size}
+     * events, so a slow sync never holds a pooled connection while waiting on the network. The
+     * new sync token is saved by the last transaction; a sync that fails part way is retried from
+     * the previous token, and reapplying the chunks already written is a no-op.
+     *
+     * @return the events created or changed; created ones carry no id
      */
-    @org.springframework.transaction.annotation.Transactional
     public List<com.calendar.model.Event> syncGoogleEvents(com.calendar.model.User user) throws IOException {
         Credential credential = getCredentialFromDatabase(user.getId());
         if (credential == null) {
             throw new IOException("Not connected to Google Calendar");
         }
 
-        // 1. Get or create "Google Calendar" bucket
+        // 1. Fetch changes from Google, outside any transaction
+        GoogleChanges changes = fetchGoogleChanges(credential, user);
+        List<com.calendar.model.Event> incoming = new ArrayList<>();
+        List<String> cancelledIds = new ArrayList<>();
+        java.util.Set<String> listedIds = new java.util.HashSet<>();
+        for (Event gEvent : changes.getItems()) {
+            listedIds.add(gEvent.getId());
+            if ("cancelled".equals(gEvent.getStatus())) {
+                cancelledIds.add(gEvent.getId());
+            } else if (gEvent.getSummary() != null) { // Skip if no summary
+                incoming.add(toLocalEvent(gEvent));
+            }
+        }
+
+        // 2. Get or create "Google Calendar" bucket
         com.calendar.model.Calendar googleBucket = calendarRepository.findByUserId(user.getId())
                 .stream()
                 .filter(c -> "Google Calendar".equals(c.getName()))
@@ -131,41 +185,75 @@ public class GoogleCalendarService {
                     return calendarRepository.save(newCal);
                 });
 
-        // 2. Fetch events from Google
-        List<Event> googleEvents = fetchGoogleCalendarEvents(credential, user);
-        List<com.calendar.model.Event> syncedEvents = new java.util.ArrayList<>();
-
-        // 3. Map and save
-        for (Event gEvent : googleEvents) {
-            // Skip if no summary
-            if (gEvent.getSummary() == null) continue;
+        // 3. Apply them in bulk, one short transaction per chunk
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        int size = Math.max(1, transactionSize);
+        List<com.calendar.model.Event> syncedEvents = new ArrayList<>();
+        int deleted = 0;
+        for (int from = 0; from < incoming.size(); from += size) {
+            List<com.calendar.model.Event> chunk = incoming.subList(from, Math.min(from + size, incoming.size()));
+            GoogleSyncWriter.Result result = transaction.execute(status ->
+                    googleSyncWriter.write(user.getId(), googleBucket, chunk, List.of()));
+            syncedEvents.addAll(result.getSynced());
+        }
+        for (int from = 0; from < cancelledIds.size(); from += size) {
+            List<String> chunk = cancelledIds.subList(from, Math.min(from + size, cancelledIds.size()));
+            GoogleSyncWriter.Result result = transaction.execute(status ->
+                    googleSyncWriter.write(user.getId(), googleBucket, List.of(), chunk));
+            deleted += result.getDeleted();
+        }
 
-            // Check for duplicates
-            if (eventRepository.findByGoogleEventId(gEvent.getId()).isPresent()) {
-                continue;
+        // A full listing has no cancellations; anything pulled earlier that it lacks is gone
+        String nextSyncToken = changes.getNextSyncToken();
+        Integer missing = transaction.execute(status -> {
+            int removed = 0;
+            if (changes.isFullSync() && googleBucket.getId() != null) {
+                removed = googleSyncWriter.deleteMissing(user.getId(), googleBucket.getId(), changes.getWindowStart(), listedIds);
             }
+            if (nextSyncToken != null) {
+                // Only the token: tokens refreshed during the sync stay as stored
+                userRepository.updateGoogleSyncToken(user.getId(), nextSyncToken);
+            }
+            return removed;
+        });
+        deleted += missing;
+        if (nextSyncToken != null) {
+            user.setGoogleSyncToken(nextSyncToken);
+        }
 
-            com.calendar.model.Event localEvent = new com.calendar.model.Event();
-            localEvent.setSubject(safeTruncate(gEvent.getSummary(), 250));
-            localEvent.setDescription(safeTruncate(gEvent.getDescription(), 255)); // Failsafe for unapplied schema changes
-            localEvent.setLocation(safeTruncate(gEvent.getLocation(), 250));
-            localEvent.setGoogleEventId(gEvent.getId());
-            localEvent.setCalendar(googleBucket);
-            localEvent.setStatus("CONFIRMED");
-
-            // Handle dates
-            localEvent.setStartTime(convertToLocalDateTime(gEvent.getStart()));
-            localEvent.setEndTime(convertToLocalDateTime(gEvent.getEnd()));
-
-            // Fallback for null dates (unlikely for Google events but good practice)
-            if (localEvent.getStartTime() == null) localEvent.setStartTime(java.time.LocalDateTime.now());
-            if (localEvent.getEndTime() == null) localEvent.setEndTime(localEvent.getStartTime().plusHours(1));
+        if (!syncedEvents.isEmpty() || deleted > 0) {
+            conflictIndexService.invalidate(user.getId());
+            analyticsCacheInvalidator.evict(user.getId());
+        }
+        logger.info("Synchronized {} changed and {} deleted events for user {} ({} sync)",
+                syncedEvents.size(), deleted, user.getUsername(), changes.isFullSync() ? "full" : "incremental");
+        return syncedEvents;
+    }
 
-            syncedEvents.add(eventRepository.save(localEvent));
+    /**
+     * Transient local copy of a Google event's fields; status stays null unless Google sets one
+     * we map, so an update keeps the stored status.
+     */
+    private com.calendar.model.Event toLocalEvent(Event gEvent) {
+        com.calendar.model.Event localEvent = new com.calendar.model.Event();
+        localEvent.setGoogleEventId(gEvent.getId());
+        localEvent.setSubject(safeTruncate(gEvent.getSummary(), 250));
+        localEvent.setDescription(safeTruncate(gEvent.getDescription(), 255)); // Failsafe for unapplied schema changes
+        localEvent.setLocation(safeTruncate(gEvent.getLocation(), 250));
+        if ("tentative".equals(gEvent.getStatus())) {
+            localEvent.setStatus("TENTATIVE");
+        } else if ("confirmed".equals(gEvent.getStatus())) {
+            localEvent.setStatus("CONFIRMED");
         }
 
-        logger.info("Synchronized {} new events for user {}", syncedEvents.size(), user.getUsername());
-        return syncedEvents;
+        // Handle dates
+        localEvent.setStartTime(convertToLocalDateTime(gEvent.getStart()));
+        localEvent.setEndTime(convertToLocalDateTime(gEvent.getEnd()));
+
+        // Fallback for null dates (unlikely for Google events but good practice)
+        if (localEvent.getStartTime() == null) localEvent.setStartTime(java.time.LocalDateTime.now());
+        if (localEvent.getEndTime() == null) localEvent.setEndTime(localEvent.getStartTime().plusHours(1));
+        return localEvent;
     }
 
     private java.time.LocalDateTime convertToLocalDateTime(com.google.api.services.calendar.model.EventDateTime googleDate) {
@@ -185,69 +273,144 @@ public class GoogleCalendarService {
     }
 
     /**
-     * Reconstruct Credential from database for a user.
+     * The user's Google credential, reused across calls and refreshed ahead of expiry.
      */
     public Credential getCredentialFromDatabase(Long userId) {
-        com.calendar.model.User user = userRepository.findById(userId).orElse(null);
-        if (user == null || user.getGoogleAccessToken() == null) {
-            return null;
-        }
-        
-        com.google.api.client.auth.oauth2.TokenResponse tokenResponse = new com.google.api.client.auth.oauth2.TokenResponse();
-        tokenResponse.setAccessToken(user.getGoogleAccessToken());
-        tokenResponse.setRefreshToken(user.getGoogleRefreshToken());
-        if (user.getGoogleTokenExpirationTime() != null) {
-            tokenResponse.setExpiresInSeconds((user.getGoogleTokenExpirationTime() - System.currentTimeMillis()) / 1000);
-        }
+        return googleClientCache.getCredential(userId);
+    }
 
-        try {
-             return flow.createAndStoreCredential(tokenResponse, userId.toString());
-        } catch (IOException e) {
-            logger.error("Failed to create credential from stored tokens", e);
-            return null;
+    /**
+     * Fetch the events of the user's primary Google calendar in the full sync window, in start
+     * order, across all pages. Does not touch the sync token.
+     */
+    public List<Event> fetchGoogleCalendarEvents(Credential credential, com.calendar.model.User user) throws IOException {
+        // Someone is waiting on the result: ahead of background sync for quota
+        GoogleQuotaGovernor.Caller caller = GoogleQuotaGovernor.Caller.interactive(user != null ? user.getId() : null);
+        Events events = listAllPages(credential, caller, null, fullSyncWindowStart(), true);
+        logger.info("Fetched {} events from Google Calendar", events.getItems().size());
+        return events.getItems();
+    }
+
+    /**
+     * {@link #fetchGoogleCalendarEvents} on a virtual thread, for callers that must not block.
+     */
+    public java.util.concurrent.CompletableFuture<List<Event>> fetchGoogleCalendarEventsAsync(Credential credential,
+                                                                                              com.calendar.model.User user) {
+        return googleCallExecutor.offload(() -> fetchGoogleCalendarEvents(credential, user));
+    }
+
+    /**
+     * Changes on the user's primary Google calendar since {@code user}'s sync token, or a full
+     * listing of the sync window when there is no token or Google no longer accepts it.
+     */
+    public GoogleChanges fetchGoogleChanges(Credential credential, com.calendar.model.User user) throws IOException {
+        String syncToken = user.getGoogleSyncToken();
+        GoogleQuotaGovernor.Caller caller = GoogleQuotaGovernor.Caller.background(user.getId());
+        if (syncToken != null) {
+            try {
+                Events events = listAllPages(credential, caller, syncToken, null, false);
+                logger.info("Fetched {} changed events from Google Calendar for user {}", events.getItems().size(), user.getUsername());
+                return new GoogleChanges(events.getItems(), events.getNextSyncToken(), false, null);
+            } catch (GoogleJsonResponseException e) {
+                if (e.getStatusCode() != SYNC_TOKEN_EXPIRED) {
+                    throw e;
+                }
+                logger.info("Google sync token expired for user {}, running a full sync", user.getUsername());
+            }
         }
+        java.time.LocalDateTime windowStart = java.time.LocalDateTime.now().minusDays(fullSyncWindowDays);
+        Events events = listAllPages(credential, caller, null, toGoogleDateTime(windowStart), false);
+        logger.info("Fetched {} events from Google Calendar for user {} (full sync)", events.getItems().size(), user.getUsername());
+        return new GoogleChanges(events.getItems(), events.getNextSyncToken(), true, windowStart);
     }
 
     /**
-     * Fetch events from user's Google Calendar with retry logic.
+     * Follow nextPageToken to the last page. Each page is retried on its own, so a failure
+     * late in a long listing does not restart it. The returned Events carries every item and
+     * the sync token from the last page.
      */
-    public List<Event> fetchGoogleCalendarEvents(Credential credential, com.calendar.model.User user) throws IOException {
-        return executeWithRetry(() -> {
-            Calendar service = getCalendarService(credential);
-            
-            Calendar.Events.List request = service.events().list("primary")
-                    .setOrderBy("startTime")
-                    .setSingleEvents(true)
-                    .setMaxResults(250);
-
-            // Use syncToken if available for incremental sync, else fallback to time-window
-            if (user.getGoogleSyncToken() != null) {
-                // request.setSyncToken(user.getGoogleSyncToken()); // Real API usage
-            } else {
-                request.setTimeMin(new com.google.api.client.util.DateTime(System.currentTimeMillis() - 365L * 24 * 60 * 60 * 1000));
+    private Events listAllPages(Credential credential, GoogleQuotaGovernor.Caller caller, String syncToken,
+                                com.google.api.client.util.DateTime timeMin, boolean ordered) throws IOException {
+        Calendar service = getCalendarService(credential);
+        List<Event> items = new ArrayList<>();
+        String pageToken = null;
+        Events page;
+        do {
+            String currentPageToken = pageToken;
+            page = googleCallExecutor.execute("events.list", true, caller, () -> {
+                Calendar.Events.List request = service.events().list("primary")
+                        .setSingleEvents(true)
+                        .setMaxResults(PAGE_SIZE)
+                        .setPageToken(currentPageToken);
+                // Google rejects orderBy and timeMin together with a sync token
+                if (syncToken != null) {
+                    request.setSyncToken(syncToken);
+                } else {
+                    request.setTimeMin(timeMin);
+                    if (ordered) {
+                        request.setOrderBy("startTime");
+                    }
+                }
+                return request.execute();
+            });
+            if (page.getItems() != null) {
+                items.addAll(page.getItems());
             }
+            pageToken = page.getNextPageToken();
+        } while (pageToken != null);
+        return new Events().setItems(items).setNextSyncToken(page.getNextSyncToken());
+    }
 
-            Events events = request.execute();
+    private com.google.api.client.util.DateTime fullSyncWindowStart() {
+        return toGoogleDateTime(java.time.LocalDateTime.now().minusDays(fullSyncWindowDays));
+    }
 
-            // Save the next sync token for subsequent incremental syncs
-            if (events.getNextSyncToken() != null) {
-                user.setGoogleSyncToken(events.getNextSyncToken());
-                userRepository.save(user);
-            }
+    private com.google.api.client.util.DateTime toGoogleDateTime(java.time.LocalDateTime time) {
+        return new com.google.api.client.util.DateTime(time.atZone(java.time.ZoneId.systemDefault()).toInstant().toEpochMilli());
+    }
 
-            List<Event> items = events.getItems();
-            logger.info("Fetched {} events from Google Calendar (SyncToken: {})", 
-                items != null ? items.size() : 0, user.getGoogleSyncToken() != null);
-            return items != null ? items : new ArrayList<>();
-        });
+    /**
+     * Result of {@link #fetchGoogleChanges}: changed or, on a full sync, all events in the window.
+     */
+    public static final class GoogleChanges {
+        private final List<Event> items;
+        private final String nextSyncToken;
+        private final boolean fullSync;
+        private final java.time.LocalDateTime windowStart;
+
+        public GoogleChanges(List<Event> items, String nextSyncToken, boolean fullSync, java.time.LocalDateTime windowStart) {
+            this.items = items;
+            this.nextSyncToken = nextSyncToken;
+            this.fullSync = fullSync;
+            this.windowStart = windowStart;
+        }
+
+        public List<Event> getItems() {
+            return items;
+        }
+
+        public String getNextSyncToken() {
+            return nextSyncToken;
+        }
+
+        public boolean isFullSync() {
+            return fullSync;
+        }
+
+        // Start of the listed window on a full sync, null otherwise
+        public java.time.LocalDateTime getWindowStart() {
+            return windowStart;
+        }
     }
 
     /**
-     * Export event to Google Calendar with retry logic.
+     * Export event to Google Calendar. Completes once Google has the event; retries of rate
+     * limited attempts wait without holding a thread.
      */
-    public Event exportToGoogleCalendar(Credential credential, Event event) throws IOException {
-        return executeWithRetry(() -> {
-            Calendar service = getCalendarService(credential);
+    public java.util.concurrent.CompletableFuture<Event> exportToGoogleCalendar(Credential credential, Long userId, Event event) {
+        Calendar service = getCalendarService(credential);
+        // Not idempotent: after a broken connection Google may already have the event
+        return googleCallExecutor.submit("events.insert", false, GoogleQuotaGovernor.Caller.interactive(userId), () -> {
             Event createdEvent = service.events()
                     .insert("primary", event)
                     .execute();
@@ -256,98 +419,78 @@ public class GoogleCalendarService {
         });
     }
 
-    /**
-     * Helper to execute Google API calls with exponential backoff.
-     */
-    private <T> T executeWithRetry(GoogleApiCallable<T> callable) throws IOException {
-        int maxRetries = 3;
-        long waitTime = 1000; // 1 second start
-        
-        for (int i = 0; i <= maxRetries; i++) {
-            try {
-                return callable.call();
-            } catch (IOException e) {
-                if (i == maxRetries) throw e;
-                
-                // Only retry on transient errors (403 rate limit, 5xx server error)
-                // Note: The Google Client library often throws IOException for these.
-                logger.warn("Transient Google API error, retrying in {}ms... (Attempt {})", waitTime, i + 1);
-                try {
-                    Thread.sleep(waitTime + (long)(Math.random() * 500)); // Add jitter
-                } catch (InterruptedException ie) {
-                    Thread.currentThread().interrupt();
-                    throw new IOException("Retry interrupted", ie);
-                }
-                waitTime *= 2; // Exponential backoff
-            }
-        }
-        throw new IOException("Failed after retries");
-    }
-
-    @FunctionalInterface
-    private interface GoogleApiCallable<T> {
-        T call() throws IOException;
-    }
-
     public com.calendar.model.User getUserById(Long id) {
         return userRepository.findById(id).orElse(null);
     }
 
     /**
-     * Push unsynced local events to Google Calendar.
+     * Push local events Google does not have yet, and pushed events edited since, to the user's
+     * primary Google calendar as batch requests. Not transactional: the candidates are read and
+     * the results written back in transactions of their own, none open during the push.
+     *
+     * @return the number of events created or updated in Google
      */
-    @org.springframework.transaction.annotation.Transactional
     public int pushLocalEventsToGoogle(com.calendar.model.User user) throws IOException {
         Credential credential = getCredentialFromDatabase(user.getId());
         if (credential == null) {
             throw new IOException("Not connected to Google Calendar");
         }
 
-        // Fetch all events for this user
-        List<com.calendar.model.Event> localEvents = eventRepository.findByCalendar_User_Id(user.getId());
-        int pushCount = 0;
-
-        for (com.calendar.model.Event localEvent : localEvents) {
-            // Only push events that don't have a Google ID yet
-            if (localEvent.getGoogleEventId() == null) {
-                try {
-                    // Map local Event to Google Event
-                    Event gEvent = new Event();
-                    gEvent.setSummary(localEvent.getSubject());
-                    gEvent.setDescription(localEvent.getDescription());
-                    gEvent.setLocation(localEvent.getLocation());
-
-                    if (localEvent.getStartTime() == null || localEvent.getEndTime() == null) {
-                        logger.warn("Skipping event {} due to missing start or end time", localEvent.getId());
-                        continue;
-                    }
-
-                    com.google.api.services.calendar.model.EventDateTime start = new com.google.api.services.calendar.model.EventDateTime();
-                    start.setDateTime(new com.google.api.client.util.DateTime(
-                            java.util.Date.from(localEvent.getStartTime().atZone(java.time.ZoneId.systemDefault()).toInstant())));
-                    gEvent.setStart(start);
-
-                    com.google.api.services.calendar.model.EventDateTime end = new com.google.api.services.calendar.model.EventDateTime();
-                    end.setDateTime(new com.google.api.client.util.DateTime(
-                            java.util.Date.from(localEvent.getEndTime().atZone(java.time.ZoneId.systemDefault()).toInstant())));
-                    gEvent.setEnd(end);
-
-                    // Push to Google
-                    Event createdGEvent = exportToGoogleCalendar(credential, gEvent);
-                    
-                    // Save back the Google ID to prevent double sync
-                    localEvent.setGoogleEventId(createdGEvent.getId());
-                    eventRepository.save(localEvent);
-                    pushCount++;
-                    
-                } catch (Exception e) {
-                    logger.error("Failed to push event {} to Google", localEvent.getId(), e);
-                }
+        List<GoogleBatchPusher.Operation> operations = new ArrayList<>();
+        // The version each operation carries, so edits made during the push are not marked pushed
+        java.util.Map<Long, java.time.LocalDateTime> sentVersions = new java.util.HashMap<>();
+        for (com.calendar.model.Event localEvent : eventRepository.findGooglePushCandidates(user.getId())) {
+            if (localEvent.getStartTime() == null || localEvent.getEndTime() == null) {
+                logger.warn("Skipping event {} due to missing start or end time", localEvent.getId());
+                continue;
             }
+            operations.add(new GoogleBatchPusher.Operation(localEvent.getId(), localEvent.getGoogleEventId(), toGoogleEvent(localEvent)));
+            sentVersions.put(localEvent.getId(), localEvent.getUpdatedAt());
+        }
+        if (operations.isEmpty()) {
+            return 0;
+        }
+
+        GoogleBatchPusher.Result result = googleBatchPusher.push(getCalendarService(credential), user.getId(), operations);
+        // Save back the Google IDs to prevent double sync, including those of a partly failed push
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                googleSyncWriter.markPushed(result.getCreated(), result.getPatched(), sentVersions));
+
+        int pushCount = result.getCreated().size() + result.getPatched().size();
+        logger.info("Pushed {} events to Google for user {} ({} created, {} failed)",
+                pushCount, user.getUsername(), result.getCreated().size(), result.getFailed());
+        if (pushCount == 0 && result.getError() != null) {
+            throw result.getError();
         }
         return pushCount;
     }
 
+    private Event toGoogleEvent(com.calendar.model.Event localEvent) {
+        Event gEvent = new Event();
+        gEvent.setSummary(localEvent.getSubject());
+        gEvent.setDescription(localEvent.getDescription());
+        gEvent.setLocation(localEvent.getLocation());
+
+        com.google.api.services.calendar.model.EventDateTime start = new com.google.api.services.calendar.model.EventDateTime();
+        start.setDateTime(new com.google.api.client.util.DateTime(
+                java.util.Date.from(localEvent.getStartTime().atZone(java.time.ZoneId.systemDefault()).toInstant())));
+        gEvent.setStart(start);
+
+        com.google.api.services.calendar.model.EventDateTime end = new com.google.api.services.calendar.model.EventDateTime();
+        end.setDateTime(new com.google.api.client.util.DateTime(
+                java.util.Date.from(localEvent.getEndTime().atZone(java.time.ZoneId.systemDefault()).toInstant())));
+        gEvent.setEnd(end);
+
+        // Series masters are pushed as a single recurring Google event
+        if (localEvent.getRecurrenceRule() != null) {
+            gEvent.setRecurrence(java.util.Collections.singletonList("RRULE:" + localEvent.getRecurrenceRule()));
+            // Google requires an explicit time zone to expand recurring events
+            start.setTimeZone(java.time.ZoneId.systemDefault().getId());
+            end.setTimeZone(java.time.ZoneId.systemDefault().getId());
+        }
+        return gEvent;
+    }
+
     private String safeTruncate(String value, int maxLength) {
         if (value == null) return null;
         return value.length() <= maxLength ? value : value.substring(0, maxLength);
@@ -372,7 +515,7 @@ public class GoogleCalendarService {
 
     public void exportEvent(String userId, Event event) throws IOException {
         Credential credential = getCredentialFromDatabase(Long.parseLong(userId));
-        exportToGoogleCalendar(credential, event);
+        googleCallExecutor.await(exportToGoogleCalendar(credential, Long.parseLong(userId), event));
     }
 
     public void syncEvents(String userId) throws IOException {
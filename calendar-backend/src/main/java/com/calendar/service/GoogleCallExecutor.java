@@ -0,0 +1,381 @@
+package com.calendar.service;
+
+import com.google.api.client.googleapis.json.GoogleJsonError;
+import com.google.api.client.googleapis.json.GoogleJsonResponseException;
+import com.google.api.client.http.HttpResponseException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs calls to the Google APIs within quota, with retries and a circuit breaker shared by all users.
+ *
+ * Each attempt first waits, without holding a thread, for its share of the quota from
+ * {@link GoogleQuotaGovernor}, then runs on a virtual thread. A failed call is retried only when the error is transient
+ * (rate limited, 5xx, or, for idempotent calls, a broken connection), after a delay with
+ * jitter or the one Google asks for in Retry-After; the wait is a scheduled task, not a
+ * sleeping thread. Server errors and broken connections count against the breaker, which
+ * rejects calls outright while Google is failing, so an outage does not tie up our threads.
+ */
+@Service
+public class GoogleCallExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(GoogleCallExecutor.class);
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private GoogleQuotaGovernor quotaGovernor;
+
+    // Attempts per call, the first one included
+    @Value("${google.retry.max-attempts:4}")
+    private int maxAttempts = 4;
+
+    // Delay before the first retry, doubled for each further one
+    @Value("${google.retry.initial-delay-ms:1000}")
+    private long initialDelayMs = 1000;
+
+    // Longest wait before a retry; a longer Retry-After fails the call instead
+    @Value("${google.retry.max-delay-ms:30000}")
+    private long maxDelayMs = 30000;
+
+    // Longest a caller blocks on a call, quota waits and retries included; a backstop, not a budget
+    @Value("${google.retry.call-timeout-seconds:600}")
+    private long callTimeoutSeconds = 600;
+
+    // The breaker opens when this share of the last window-size calls failed
+    @Value("${google.circuit.window-size:50}")
+    private int windowSize = 50;
+
+    @Value("${google.circuit.minimum-calls:20}")
+    private int minimumCalls = 20;
+
+    @Value("${google.circuit.failure-rate-threshold:0.5}")
+    private double failureRateThreshold = 0.5;
+
+    @Value("${google.circuit.open-seconds:30}")
+    private long openSeconds = 30;
+
+    // Trial calls let through once the open period is over
+    @Value("${google.circuit.half-open-calls:3}")
+    private int halfOpenCalls = 3;
+
+    private CircuitBreaker breaker;
+    private ExecutorService callExecutor;
+    private ScheduledExecutorService retryScheduler;
+
+    @PostConstruct
+    void init() {
+        breaker = new CircuitBreaker(windowSize, minimumCalls, failureRateThreshold, Duration.ofSeconds(openSeconds),
+                halfOpenCalls, this::onTransition);
+        for (CircuitBreaker.State state : CircuitBreaker.State.values()) {
+            Gauge.builder("google.circuit.state", breaker, b -> b.getState() == state ? 1 : 0)
+                    .description("Circuit breaker for Google API calls; 1 for the current state")
+                    .tag("state", state.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry);
+        }
+        callExecutor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("google-call-", 1).factory());
+        retryScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "google-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        retryScheduler.shutdownNow();
+        callExecutor.shutdownNow();
+    }
+
+    /**
+     * Run {@code call} with retries and complete the future with its result or last failure.
+     *
+     * @param operation  names the call in metrics, e.g. "events.list"
+     * @param idempotent whether the call may be repeated after a broken connection, when it
+     *                   is unknown whether Google applied it
+     * @param caller     whose quota the call uses, and its priority
+     */
+    public <T> CompletableFuture<T> submit(String operation, boolean idempotent, GoogleQuotaGovernor.Caller caller,
+                                           GoogleApiCall<T> call) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        schedule(operation, idempotent, caller, call, 1, result);
+        return result;
+    }
+
+    /**
+     * {@link #submit} and wait for the outcome. Meant for virtual threads and background work;
+     * a request thread should return the future from {@link #submit} instead.
+     */
+    public <T> T execute(String operation, boolean idempotent, GoogleQuotaGovernor.Caller caller,
+                         GoogleApiCall<T> call) throws IOException {
+        return await(submit(operation, idempotent, caller, call));
+    }
+
+    /**
+     * Run blocking work made of several calls (e.g. a paginated listing) on a virtual thread,
+     * so a request thread can return the future instead of waiting.
+     */
+    public <T> CompletableFuture<T> offload(GoogleApiCall<T> work) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        callExecutor.execute(() -> {
+            try {
+                result.complete(work.call());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+
+    public CircuitBreaker.State getCircuitState() {
+        return breaker.getState();
+    }
+
+    // Wait for quota, then make the attempt on a virtual thread; retries queue for quota again
+    private <T> void schedule(String operation, boolean idempotent, GoogleQuotaGovernor.Caller caller,
+                              GoogleApiCall<T> call, int attempt, CompletableFuture<T> result) {
+        if (result.isDone()) {
+            return;
+        }
+        // No point spending quota on a call the breaker will turn away
+        if (breaker.isRejecting()) {
+            count(operation, "rejected");
+            result.completeExceptionally(new CircuitOpenException(operation));
+            return;
+        }
+        CompletableFuture<Void> quota = quotaGovernor.acquire(caller);
+        result.whenComplete((value, e) -> quota.cancel(false));
+        quota.whenComplete((granted, e) -> {
+            if (result.isDone()) {
+                return;
+            }
+            if (e != null) {
+                count(operation, "throttled");
+                result.completeExceptionally(e);
+                return;
+            }
+            try {
+                callExecutor.execute(() -> attempt(operation, idempotent, caller, call, attempt, result));
+            } catch (RejectedExecutionException shutDown) {
+                result.completeExceptionally(new IOException("Google call executor is shut down", shutDown));
+            }
+        });
+    }
+
+    private <T> void attempt(String operation, boolean idempotent, GoogleQuotaGovernor.Caller caller,
+                             GoogleApiCall<T> call, int attempt, CompletableFuture<T> result) {
+        if (result.isDone()) {
+            return;
+        }
+        if (!breaker.tryAcquire()) {
+            count(operation, "rejected");
+            result.completeExceptionally(new CircuitOpenException(operation));
+            return;
+        }
+        try {
+            T value = call.call();
+            breaker.onSuccess();
+            count(operation, "success");
+            result.complete(value);
+        } catch (IOException e) {
+            if (isServiceFailure(e)) {
+                breaker.onFailure();
+            } else {
+                // Google answered; the request itself was refused
+                breaker.onSuccess();
+            }
+            Duration delay = attempt < maxAttempts && isRetryable(e, idempotent) ? retryDelay(e, attempt) : null;
+            if (delay == null) {
+                count(operation, "failure");
+                result.completeExceptionally(e);
+                return;
+            }
+            Counter.builder("google.api.retries")
+                    .description("Google API calls retried after a transient error")
+                    .tag("operation", operation)
+                    .register(meterRegistry)
+                    .increment();
+            logger.warn("Transient Google API error on {}, retrying in {}ms (attempt {}): {}",
+                    operation, delay.toMillis(), attempt, e.getMessage());
+            retryScheduler.schedule(() -> schedule(operation, idempotent, caller, call, attempt + 1, result),
+                    delay.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (RuntimeException e) {
+            // A bug on our side, not Google failing; still settles a half-open trial
+            breaker.onSuccess();
+            count(operation, "failure");
+            result.completeExceptionally(e);
+        }
+    }
+
+    private void count(String operation, String outcome) {
+        Counter.builder("google.api.calls")
+                .description("Google API calls by final outcome")
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private void onTransition(CircuitBreaker.State state) {
+        if (state == CircuitBreaker.State.OPEN) {
+            logger.error("Google API circuit breaker opened; failing calls fast for {}s", openSeconds);
+        } else {
+            logger.info("Google API circuit breaker {}", state.name().toLowerCase(Locale.ROOT).replace('_', '-'));
+        }
+        Counter.builder("google.circuit.transitions")
+                .description("Google API circuit breaker state changes")
+                .tag("state", state.name().toLowerCase(Locale.ROOT))
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * Whether {@code e} is worth retrying. An error response means Google did not apply the
+     * call when it is a rate limit or 503; other 5xx are only retried for idempotent calls,
+     * as are failures without a response (timeouts, resets).
+     */
+    static boolean isRetryable(IOException e, boolean idempotent) {
+        if (e instanceof CircuitOpenException) {
+            return false;
+        }
+        if (e instanceof HttpResponseException) {
+            int status = ((HttpResponseException) e).getStatusCode();
+            if (status == 429 || status == 503 || isRateLimited(e)) {
+                return true;
+            }
+            return idempotent && (status == 408 || status == 500 || status == 502 || status == 504);
+        }
+        return idempotent;
+    }
+
+    /**
+     * Whether {@code e} says Google is in trouble, rather than that it refused this request.
+     */
+    static boolean isServiceFailure(IOException e) {
+        if (e instanceof CircuitOpenException) {
+            return false;
+        }
+        if (e instanceof HttpResponseException) {
+            return ((HttpResponseException) e).getStatusCode() >= 500;
+        }
+        return true;
+    }
+
+    // Google reports some rate limits as 403 with a reason instead of 429
+    private static boolean isRateLimited(IOException e) {
+        if (!(e instanceof GoogleJsonResponseException) || ((GoogleJsonResponseException) e).getStatusCode() != 403) {
+            return false;
+        }
+        GoogleJsonError details = ((GoogleJsonResponseException) e).getDetails();
+        if (details == null || details.getErrors() == null) {
+            return false;
+        }
+        return details.getErrors().stream().anyMatch(error ->
+                "rateLimitExceeded".equals(error.getReason()) || "userRateLimitExceeded".equals(error.getReason()));
+    }
+
+    /**
+     * Exponential backoff with full jitter, or Google's Retry-After if that is longer. Null when
+     * Retry-After asks for more than the longest wait allowed.
+     */
+    Duration retryDelay(IOException e, int attempt) {
+        long backoff = Math.min(maxDelayMs, initialDelayMs << Math.min(attempt - 1, 20));
+        long delay = ThreadLocalRandom.current().nextLong(backoff / 2, backoff + 1);
+        if (e instanceof HttpResponseException) {
+            Duration retryAfter = parseRetryAfter(((HttpResponseException) e).getHeaders().getRetryAfter());
+            if (retryAfter != null) {
+                if (retryAfter.toMillis() > maxDelayMs) {
+                    return null;
+                }
+                delay = Math.max(delay, retryAfter.toMillis());
+            }
+        }
+        return Duration.ofMillis(delay);
+    }
+
+    /**
+     * Retry-After as delta-seconds or an HTTP date; null if absent or unreadable.
+     */
+    static Duration parseRetryAfter(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return Duration.ofSeconds(Math.max(0, Long.parseLong(value.trim())));
+        } catch (NumberFormatException notSeconds) {
+            try {
+                ZonedDateTime at = ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+                Duration delay = Duration.between(ZonedDateTime.now(at.getZone()), at);
+                return delay.isNegative() ? Duration.ZERO : delay;
+            } catch (DateTimeParseException notDate) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Wait for {@code future}, rethrowing the failure it completed with. Gives up, cancelling
+     * the call, after the call timeout.
+     */
+    <T> T await(CompletableFuture<T> future) throws IOException {
+        try {
+            return future.get(callTimeoutSeconds, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new IOException("Google API call did not complete within " + callTimeoutSeconds + "s", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new IOException("Google API call interrupted", e);
+        } catch (ExecutionException | CancellationException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    @FunctionalInterface
+    public interface GoogleApiCall<T> {
+        T call() throws IOException;
+    }
+
+    /**
+     * Thrown instead of calling Google while the circuit breaker is open.
+     */
+    public static class CircuitOpenException extends IOException {
+        public CircuitOpenException(String operation) {
+            super("Google Calendar is temporarily unavailable (" + operation + " not attempted)");
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.calendar.service;
+
+import com.calendar.model.User;
+import com.calendar.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.api.client.auth.oauth2.BearerToken;
+import com.google.api.client.auth.oauth2.Credential;
+import com.google.api.client.auth.oauth2.CredentialRefreshListener;
+import com.google.api.client.auth.oauth2.TokenErrorResponse;
+import com.google.api.client.auth.oauth2.TokenResponse;
+import com.google.api.client.googleapis.auth.oauth2.GoogleAuthorizationCodeFlow;
+import com.google.api.client.http.HttpTransport;
+import com.google.api.client.json.JsonFactory;
+import com.google.api.services.calendar.Calendar;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Per-user Google credentials and Calendar clients, kept between calls so the shared transport's
+ * pooled connections and the current access token are reused.
+ *
+ * A credential is built from the user's stored tokens on first use. Tokens Google issues on
+ * refresh are written back to the user, and a token close to expiry is refreshed before the
+ * credential is handed out rather than by the first API call that fails with it.
+ */
+@Service
+public class GoogleClientCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(GoogleClientCache.class);
+
+    @Autowired
+    private GoogleAuthorizationCodeFlow flow;
+
+    @Autowired
+    private HttpTransport httpTransport;
+
+    @Autowired
+    private JsonFactory jsonFactory;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Users whose credential is kept; the least recently used go first
+    @Value("${google.clients.max-size:1000}")
+    private long maxSize = 1000;
+
+    @Value("${google.clients.idle-minutes:30}")
+    private long idleMinutes = 30;
+
+    // A token expiring within this many seconds is refreshed before use
+    @Value("${google.token.refresh-skew-seconds:300}")
+    private long refreshSkewSeconds = 300;
+
+    private Cache<Long, Credential> credentials;
+    // Keyed by credential identity: a client lives as long as its credential is cached
+    private Cache<Credential, Calendar> calendars;
+    private Counter refreshes;
+    private Counter refreshFailures;
+    private final ReentrantLock[] refreshLocks = new ReentrantLock[64];
+
+    @PostConstruct
+    void init() {
+        for (int i = 0; i < refreshLocks.length; i++) {
+            refreshLocks[i] = new ReentrantLock();
+        }
+        credentials = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterAccess(Duration.ofMinutes(idleMinutes))
+                .recordStats()
+                .build();
+        calendars = Caffeine.newBuilder().weakKeys().build();
+        CaffeineCacheMetrics.monitor(meterRegistry, credentials, "google.clients");
+        refreshes = Counter.builder("google.token.refresh")
+                .description("Proactive Google access token refreshes")
+                .tag("outcome", "success")
+                .register(meterRegistry);
+        refreshFailures = Counter.builder("google.token.refresh")
+                .description("Proactive Google access token refreshes")
+                .tag("outcome", "failure")
+                .register(meterRegistry);
+    }
+
+    /**
+     * The user's credential, or null if they have not connected Google Calendar.
+     */
+    public Credential getCredential(Long userId) {
+        Credential credential = credentials.get(userId, this::loadCredential);
+        if (credential != null) {
+            refreshIfExpiring(userId, credential);
+        }
+        return credential;
+    }
+
+    /**
+     * A Calendar client for {@code credential} on the shared transport.
+     */
+    public Calendar getCalendar(Credential credential) {
+        return calendars.get(credential, key -> new Calendar.Builder(httpTransport, jsonFactory, key)
+                .setApplicationName("Multi-Calendar System")
+                .build());
+    }
+
+    /**
+     * Drop the user's cached credential, e.g. after they reconnected with new tokens.
+     */
+    public void evict(Long userId) {
+        credentials.invalidate(userId);
+    }
+
+    private Credential loadCredential(Long userId) {
+        User user = userRepository.findById(userId).orElse(null);
+        if (user == null || user.getGoogleAccessToken() == null) {
+            // Not cached: the user may connect at any time
+            return null;
+        }
+        Credential credential = new Credential.Builder(BearerToken.authorizationHeaderAccessMethod())
+                .setTransport(flow.getTransport())
+                .setJsonFactory(flow.getJsonFactory())
+                .setTokenServerEncodedUrl(flow.getTokenServerEncodedUrl())
+                .setClientAuthentication(flow.getClientAuthentication())
+                .addRefreshListener(new TokenWriter(userId))
+                .build();
+        credential.setAccessToken(user.getGoogleAccessToken());
+        credential.setRefreshToken(user.getGoogleRefreshToken());
+        credential.setExpirationTimeMilliseconds(user.getGoogleTokenExpirationTime());
+        return credential;
+    }
+
+    private void refreshIfExpiring(Long userId, Credential credential) {
+        if (!isExpiring(credential) || credential.getRefreshToken() == null) {
+            return;
+        }
+        // One refresh per user; callers that waited find a fresh token. A lock rather than
+        // synchronized, which would pin a background sync's virtual thread during the request
+        ReentrantLock lock = refreshLocks[Math.floorMod(userId.hashCode(), refreshLocks.length)];
+        lock.lock();
+        try {
+            if (!isExpiring(credential)) {
+                return;
+            }
+            if (credential.refreshToken()) {
+                refreshes.increment();
+            } else {
+                refreshFailures.increment();
+            }
+        } catch (IOException e) {
+            // The credential still refreshes on its own when a call is rejected
+            refreshFailures.increment();
+            logger.warn("Proactive Google token refresh failed for user {}: {}", userId, e.getMessage());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean isExpiring(Credential credential) {
+        Long expiresIn = credential.getExpiresInSeconds();
+        return expiresIn != null && expiresIn <= refreshSkewSeconds;
+    }
+
+    /**
+     * Persists tokens the credential obtains on refresh, so a restart does not fall back to an
+     * expired access token.
+     */
+    private class TokenWriter implements CredentialRefreshListener {
+        private final Long userId;
+
+        TokenWriter(Long userId) {
+            this.userId = userId;
+        }
+
+        @Override
+        public void onTokenResponse(Credential credential, TokenResponse tokenResponse) {
+            userRepository.findById(userId).ifPresent(user -> {
+                user.setGoogleAccessToken(credential.getAccessToken());
+                if (credential.getRefreshToken() != null) {
+                    user.setGoogleRefreshToken(credential.getRefreshToken());
+                }
+                user.setGoogleTokenExpirationTime(credential.getExpirationTimeMilliseconds());
+                userRepository.save(user);
+            });
+        }
+
+        @Override
+        public void onTokenErrorResponse(Credential credential, TokenErrorResponse tokenErrorResponse) {
+            // Revoked or expired grant: rebuild from the database next time instead of reusing it
+            logger.warn("Google token refresh rejected for user {}: {}", userId,
+                    tokenErrorResponse != null ? tokenErrorResponse.getError() : "no details");
+            evict(userId);
+        }
+    }
+}
@@ -0,0 +1,393 @@
+package com.calendar.service;
+
+import com.calendar.middleware.RedisRateLimiter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.ConsumptionProbe;
+import io.github.bucket4j.Refill;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps outbound Google Calendar calls within the project's API quota, across all instances.
+ *
+ * Every call takes tokens from its user's budget and from the project budget. Both are token
+ * buckets in Redis (see {@link RedisRateLimiter}), so the limits hold for the whole cluster; if
+ * Redis is unreachable each instance falls back to buckets of its own. Calls wait for tokens in
+ * one queue per priority: interactive calls, made while a user waits on a request, go before
+ * background sync, and background calls leave a reserve of the project budget untouched so that
+ * a sync backlog on one instance cannot starve interactive calls on the others. A call that
+ * waits longer than its priority allows fails with {@link QuotaExceededException} instead of
+ * reaching Google.
+ *
+ * The queues are only touched by a single dispatcher thread, which wakes up when a call arrives
+ * and whenever a waiting call could next get its tokens.
+ */
+@Service
+public class GoogleQuotaGovernor {
+
+    private static final Logger logger = LoggerFactory.getLogger(GoogleQuotaGovernor.class);
+
+    private static final String PROJECT_KEY = "google-quota:project";
+    private static final String USER_KEY_PREFIX = "google-quota:user:";
+
+    public enum Priority {
+        // Served first, in this order
+        INTERACTIVE, BACKGROUND
+    }
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // "redis" shares the budgets across all instances; "local" gives each instance the full budgets
+    @Value("${google.quota.mode:redis}")
+    private String mode = "redis";
+
+    // Calls per minute for the whole project and for each user; keep them below the Cloud console quotas
+    @Value("${google.quota.project-per-minute:6000}")
+    private long projectPerMinute = 6000;
+
+    @Value("${google.quota.user-per-minute:300}")
+    private long userPerMinute = 300;
+
+    // Share of the project budget background calls leave to interactive ones
+    @Value("${google.quota.interactive-reserve:0.2}")
+    private double interactiveReserve = 0.2;
+
+    @Value("${google.quota.interactive-max-wait-seconds:10}")
+    private long interactiveMaxWaitSeconds = 10;
+
+    @Value("${google.quota.background-max-wait-seconds:300}")
+    private long backgroundMaxWaitSeconds = 300;
+
+    // Tokens an instance takes from Redis at once, and how long it may hold them
+    @Value("${google.quota.lease-batch:20}")
+    private long leaseBatch = 20;
+
+    @Value("${google.quota.lease-ms:1000}")
+    private long leaseMs = 1000;
+
+    private long windowMs = Duration.ofMinutes(1).toMillis();
+
+    private RedisRateLimiter redisRateLimiter;
+    private Cache<String, Bucket> localBuckets;
+    private ScheduledExecutorService dispatcher;
+    private final Map<Priority, Deque<Waiter>> queues = new EnumMap<>(Priority.class);
+    private final Map<Priority, AtomicInteger> depths = new EnumMap<>(Priority.class);
+    private final Map<Priority, Timer> waitTimers = new EnumMap<>(Priority.class);
+    private final Map<Priority, Counter> timeouts = new EnumMap<>(Priority.class);
+
+    // Next scheduled drain; dispatcher thread only
+    private ScheduledFuture<?> wakeUp;
+    private long wakeUpAt;
+
+    @PostConstruct
+    void init() {
+        for (Priority priority : Priority.values()) {
+            String tag = priority.name().toLowerCase(Locale.ROOT);
+            queues.put(priority, new ArrayDeque<>());
+            AtomicInteger depth = new AtomicInteger();
+            depths.put(priority, depth);
+            Gauge.builder("google.quota.queue", depth, AtomicInteger::get)
+                    .description("Google API calls waiting for quota on this instance")
+                    .tag("priority", tag)
+                    .register(meterRegistry);
+            waitTimers.put(priority, Timer.builder("google.quota.wait")
+                    .description("Time Google API calls waited for quota")
+                    .tag("priority", tag)
+                    .register(meterRegistry));
+            timeouts.put(priority, Counter.builder("google.quota.timeouts")
+                    .description("Google API calls failed after waiting too long for quota")
+                    .tag("priority", tag)
+                    .register(meterRegistry));
+        }
+        localBuckets = Caffeine.newBuilder()
+                .maximumSize(10000)
+                .expireAfterAccess(Duration.ofMillis(windowMs))
+                .build();
+        if ("redis".equalsIgnoreCase(mode)) {
+            redisRateLimiter = new RedisRateLimiter(stringRedisTemplate, Duration.ofMillis(windowMs),
+                    leaseBatch, Duration.ofMillis(leaseMs), 10000);
+        }
+        dispatcher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "google-quota");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        dispatcher.shutdownNow();
+    }
+
+    /**
+     * Wait for {@code caller}'s share of the quota. The future completes, on the dispatcher
+     * thread, once the tokens are taken, or fails with {@link QuotaExceededException}.
+     * Cancelling it gives up the place in the queue.
+     */
+    public CompletableFuture<Void> acquire(Caller caller) {
+        Waiter waiter = new Waiter(caller, System.nanoTime());
+        depths.get(caller.priority).incrementAndGet();
+        try {
+            dispatcher.execute(() -> {
+                queues.get(caller.priority).add(waiter);
+                drain();
+            });
+        } catch (RejectedExecutionException e) {
+            depths.get(caller.priority).decrementAndGet();
+            waiter.future.completeExceptionally(new IOException("Google quota governor is shut down"));
+        }
+        return waiter.future;
+    }
+
+    public int queueDepth(Priority priority) {
+        return depths.get(priority).get();
+    }
+
+    /**
+     * Hand out tokens to waiting calls, highest priority first. A user over budget only holds
+     * back that user's calls; once the project budget is out, nobody else is served either.
+     */
+    private void drain() {
+        long now = System.nanoTime();
+        long nextTry = Long.MAX_VALUE;
+        boolean projectBlocked = false;
+        for (Priority priority : Priority.values()) {
+            Iterator<Waiter> queued = queues.get(priority).iterator();
+            while (queued.hasNext()) {
+                Waiter waiter = queued.next();
+                long waited = now - waiter.enqueuedAt;
+                if (waiter.future.isDone()) {
+                    remove(queued, waiter);
+                    continue;
+                }
+                long maxWaitNanos = maxWait(priority).toNanos();
+                if (waited >= maxWaitNanos) {
+                    remove(queued, waiter);
+                    timeouts.get(priority).increment();
+                    waiter.future.completeExceptionally(new QuotaExceededException(Duration.ofNanos(waited)));
+                    continue;
+                }
+
+                long waitNanos = projectBlocked ? Long.MAX_VALUE : take(waiter.caller);
+                if (waitNanos == 0) {
+                    remove(queued, waiter);
+                    waitTimers.get(priority).record(waited, TimeUnit.NANOSECONDS);
+                    waiter.future.complete(null);
+                    continue;
+                }
+                if (waitNanos < 0) {
+                    // Out of project budget (or down to the reserve, for background calls)
+                    projectBlocked = true;
+                    waitNanos = -waitNanos;
+                }
+                // Still queued: look again once it may get its tokens, or when it times out
+                nextTry = Math.min(nextTry, Math.min(waitNanos, maxWaitNanos - waited));
+            }
+        }
+        if (nextTry != Long.MAX_VALUE) {
+            scheduleDrain(Math.max(TimeUnit.MILLISECONDS.toNanos(1), nextTry));
+        }
+    }
+
+    private void remove(Iterator<Waiter> queued, Waiter waiter) {
+        queued.remove();
+        depths.get(waiter.caller.priority).decrementAndGet();
+    }
+
+    private void scheduleDrain(long delayNanos) {
+        long at = System.nanoTime() + delayNanos;
+        if (wakeUp != null && !wakeUp.isDone()) {
+            if (wakeUpAt - at <= 0) {
+                return;
+            }
+            wakeUp.cancel(false);
+        }
+        wakeUpAt = at;
+        wakeUp = dispatcher.schedule(this::wakeUp, delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void wakeUp() {
+        // This task is the pending wake-up until it returns; forget it so drain() can schedule the next
+        wakeUp = null;
+        drain();
+    }
+
+    /**
+     * Take the caller's tokens from its user's budget, then from the project's. Returns 0 once
+     * both are taken; otherwise nothing is kept and the result is the nanoseconds until it is
+     * worth trying again, negative when the project budget is what ran out.
+     */
+    private long take(Caller caller) {
+        String userKey = caller.userId != null ? USER_KEY_PREFIX + caller.userId : null;
+        Taken user = null;
+        if (userKey != null) {
+            user = consume(userKey, userPerMinute, Math.min(caller.units, userPerMinute));
+            if (!user.probe.isConsumed()) {
+                return Math.max(1, user.probe.getNanosToWaitForRefill());
+            }
+        }
+
+        long units = Math.min(caller.units, projectPerMinute);
+        Taken project = consume(PROJECT_KEY, projectPerMinute, units);
+        long waitNanos;
+        if (!project.probe.isConsumed()) {
+            waitNanos = project.probe.getNanosToWaitForRefill();
+        } else {
+            waitNanos = reserveWait(caller.priority, project.probe.getRemainingTokens());
+            if (waitNanos > 0) {
+                refund(PROJECT_KEY, units, project.shared);
+            }
+        }
+        if (waitNanos > 0) {
+            if (user != null) {
+                refund(userKey, Math.min(caller.units, userPerMinute), user.shared);
+            }
+            return -Math.max(1, waitNanos);
+        }
+        return 0;
+    }
+
+    // Background calls may not bring the project budget below the interactive reserve
+    private long reserveWait(Priority priority, long remaining) {
+        long reserve = (long) (projectPerMinute * interactiveReserve);
+        if (priority == Priority.INTERACTIVE || remaining >= reserve) {
+            return 0;
+        }
+        return TimeUnit.MILLISECONDS.toNanos((long) Math.ceil((reserve - remaining) * (double) windowMs / projectPerMinute));
+    }
+
+    private Taken consume(String key, long capacity, long tokens) {
+        if (redisRateLimiter != null) {
+            try {
+                return new Taken(redisRateLimiter.tryConsume(key, capacity, tokens), true);
+            } catch (RuntimeException e) {
+                // Keep limiting per instance rather than failing calls or letting everything through
+                logger.warn("Redis unavailable for the Google quota, using local budgets: {}", e.getMessage());
+            }
+        }
+        Bucket bucket = localBuckets.get(key, k -> Bucket.builder()
+                .addLimit(Bandwidth.classic(capacity, Refill.greedy(capacity, Duration.ofMillis(windowMs))))
+                .build());
+        return new Taken(bucket.tryConsumeAndReturnRemaining(tokens), false);
+    }
+
+    private void refund(String key, long tokens, boolean shared) {
+        if (shared) {
+            redisRateLimiter.refund(key, tokens);
+        } else {
+            Bucket bucket = localBuckets.getIfPresent(key);
+            if (bucket != null) {
+                bucket.addTokens(tokens);
+            }
+        }
+    }
+
+    private Duration maxWait(Priority priority) {
+        return Duration.ofSeconds(priority == Priority.INTERACTIVE ? interactiveMaxWaitSeconds : backgroundMaxWaitSeconds);
+    }
+
+    /**
+     * Whom a Google call is made for, how urgent it is, and how many calls it counts as
+     * against the quota (a batch request counts each call it carries).
+     */
+    public static final class Caller {
+        private final Long userId;
+        private final Priority priority;
+        private final int units;
+
+        private Caller(Long userId, Priority priority, int units) {
+            this.userId = userId;
+            this.priority = priority;
+            this.units = Math.max(1, units);
+        }
+
+        // A call a user is waiting on; a null user only counts against the project budget
+        public static Caller interactive(Long userId) {
+            return new Caller(userId, Priority.INTERACTIVE, 1);
+        }
+
+        public static Caller background(Long userId) {
+            return new Caller(userId, Priority.BACKGROUND, 1);
+        }
+
+        public Caller units(int units) {
+            return new Caller(userId, priority, units);
+        }
+
+        public Long getUserId() {
+            return userId;
+        }
+
+        public Priority getPriority() {
+            return priority;
+        }
+
+        public int getUnits() {
+            return units;
+        }
+    }
+
+    /**
+     * Thrown instead of calling Google when a call waited too long for quota.
+     */
+    public static class QuotaExceededException extends IOException {
+        public QuotaExceededException(Duration waited) {
+            super("Google Calendar quota exhausted; gave up after waiting " + waited.toMillis() + "ms");
+        }
+    }
+
+    private static final class Waiter {
+        final Caller caller;
+        final long enqueuedAt;
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        Waiter(Caller caller, long enqueuedAt) {
+            this.caller = caller;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+
+    // Tokens taken, and whether from Redis or a local bucket, so a refund goes back to the same place
+    private static final class Taken {
+        final ConsumptionProbe probe;
+        final boolean shared;
+
+        Taken(ConsumptionProbe probe, boolean shared) {
+            this.probe = probe;
+            this.shared = shared;
+        }
+    }
+}
@@ -0,0 +1,332 @@
+package com.calendar.service;
+
+import com.calendar.model.GoogleSyncState;
+import com.calendar.model.User;
+import com.calendar.repository.GoogleSyncStateRepository;
+import com.calendar.repository.UserRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToIntFunction;
+
+/**
+ * Keeps connected users in sync with Google in the background, so no request thread waits on
+ * Google.
+ *
+ * Each connected user has a {@link GoogleSyncState} row holding the time the next sync is due.
+ * A tick claims due rows with a short lease and runs each sync (pull, then push) on its own
+ * virtual thread, at most {@code google.sync.scheduler.max-concurrent} at a time across all
+ * users. Successful syncs are rescheduled a jittered interval later, failed ones with an
+ * exponential backoff, so syncs spread out over the interval instead of bunching up.
+ *
+ * A running sync renews its lease in the background, and records its outcome only while it
+ * still holds the lease, so a sync that lost it to another instance cannot overwrite that
+ * instance's schedule.
+ */
+@Service
+public class GoogleSyncScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(GoogleSyncScheduler.class);
+
+    // Fits GoogleSyncState.lastError
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    @Autowired
+    private GoogleSyncStateRepository syncStateRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private GoogleCalendarService googleCalendarService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${google.sync.scheduler.enabled:true}")
+    private boolean enabled = true;
+
+    // Average time between two background syncs of a user
+    @Value("${google.sync.scheduler.interval-minutes:15}")
+    private long intervalMinutes = 15;
+
+    // Each interval is randomly stretched or shortened by up to this fraction
+    @Value("${google.sync.scheduler.jitter:0.2}")
+    private double jitter = 0.2;
+
+    // Syncs running at once on this instance
+    @Value("${google.sync.scheduler.max-concurrent:16}")
+    private int maxConcurrent = 16;
+
+    // Delay after the first failure, doubled per further failure up to the maximum
+    @Value("${google.sync.scheduler.backoff-initial-seconds:60}")
+    private long backoffInitialSeconds = 60;
+
+    @Value("${google.sync.scheduler.backoff-max-minutes:360}")
+    private long backoffMaxMinutes = 360;
+
+    // Renewed every third of it while the sync runs; a lease left by a crashed instance expires
+    @Value("${google.sync.scheduler.lease-minutes:10}")
+    private long leaseMinutes = 10;
+
+    // Connected users without a schedule picked up per tick
+    @Value("${google.sync.scheduler.seed-batch-size:500}")
+    private int seedBatchSize = 500;
+
+    private ExecutorService executor;
+    private ScheduledExecutorService leaseRenewer;
+    private Semaphore permits;
+    private Timer succeeded;
+    private Timer failed;
+
+    @PostConstruct
+    void init() {
+        executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("google-sync-", 1).factory());
+        leaseRenewer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "google-sync-lease");
+            thread.setDaemon(true);
+            return thread;
+        });
+        permits = new Semaphore(Math.max(1, maxConcurrent));
+        Gauge.builder("google.sync.scheduler.running", permits, p -> Math.max(1, maxConcurrent) - p.availablePermits())
+                .description("Background Google syncs running on this instance")
+                .register(meterRegistry);
+        succeeded = Timer.builder("google.sync.scheduler.run")
+                .description("Background Google syncs")
+                .tag("outcome", "success")
+                .register(meterRegistry);
+        failed = Timer.builder("google.sync.scheduler.run")
+                .description("Background Google syncs")
+                .tag("outcome", "failure")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+        leaseRenewer.shutdownNow();
+    }
+
+    /**
+     * Start the syncs that are due, as many as there are free slots. Rows are only claimed for a
+     * free slot, so no claimed sync waits here while another instance could run it.
+     */
+    @Scheduled(fixedDelayString = "${google.sync.scheduler.tick-ms:5000}",
+               initialDelayString = "${google.sync.scheduler.initial-delay-ms:30000}")
+    public void tick() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            seedNewUsers();
+            int free = permits.availablePermits();
+            if (free == 0) {
+                return;
+            }
+            LocalDateTime now = LocalDateTime.now();
+            for (GoogleSyncState state : syncStateRepository.findDue(now, PageRequest.of(0, free))) {
+                if (!permits.tryAcquire()) {
+                    break;
+                }
+                boolean started = false;
+                try {
+                    LocalDateTime leaseUntil = leaseUntil(now);
+                    if (syncStateRepository.claim(state.getUserId(), now, leaseUntil) > 0) {
+                        int failures = state.getConsecutiveFailures();
+                        executor.execute(() -> run(state.getUserId(), now, leaseUntil, failures));
+                        started = true;
+                    }
+                } finally {
+                    // Lost to another instance, or failed to start; run() releases it otherwise
+                    if (!started) {
+                        permits.release();
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            // The next tick tries again
+            logger.error("Google sync scheduler tick failed", e);
+        }
+    }
+
+    /**
+     * Sync the user soon, e.g. when they press "Sync". Returns at once; a user backing off after
+     * failures keeps their delay.
+     */
+    public void requestSync(Long userId) {
+        LocalDateTime now = LocalDateTime.now();
+        if (syncStateRepository.request(userId, now) == 0) {
+            syncStateRepository.insertIfAbsent(userId, now, now);
+        }
+    }
+
+    /**
+     * Sync a user who just connected, or reconnected, right away.
+     */
+    public void onConnected(Long userId) {
+        LocalDateTime now = LocalDateTime.now();
+        if (syncStateRepository.reset(userId, now) == 0) {
+            syncStateRepository.insertIfAbsent(userId, now, now);
+        }
+    }
+
+    public Optional<GoogleSyncState> getState(Long userId) {
+        return syncStateRepository.findById(userId);
+    }
+
+    void run(Long userId, LocalDateTime startedAt, LocalDateTime leaseUntil, int previousFailures) {
+        long start = System.nanoTime();
+        Lease lease = new Lease(userId, leaseUntil);
+        try {
+            User user = userRepository.findById(userId).orElse(null);
+            if (user == null || user.getGoogleAccessToken() == null) {
+                // Disconnected since scheduled; reconnecting schedules them again
+                syncStateRepository.deleteById(userId);
+                return;
+            }
+            int pulled = googleCalendarService.syncGoogleEvents(user).size();
+            int pushed = googleCalendarService.pushLocalEventsToGoogle(user);
+            LocalDateTime now = LocalDateTime.now();
+            LocalDateTime nextRunAt = now.plus(nextInterval());
+            lease.complete(held -> syncStateRepository.markSucceeded(userId, held, startedAt, now, nextRunAt, pulled, pushed));
+            succeeded.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        } catch (Exception e) {
+            failed.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            Duration backoff = backoff(previousFailures + 1);
+            logger.warn("Background Google sync failed for user {} ({} in a row), retrying in {}s: {}",
+                    userId, previousFailures + 1, backoff.toSeconds(), e.getMessage());
+            try {
+                LocalDateTime now = LocalDateTime.now();
+                String error = truncate(e.getMessage());
+                lease.complete(held -> syncStateRepository.markFailed(userId, held, now, now.plus(backoff), error));
+            } catch (RuntimeException recordFailure) {
+                // The lease expires and the sync is retried then
+                logger.error("Could not record failed Google sync for user {}", userId, recordFailure);
+            }
+        } finally {
+            lease.release();
+            permits.release();
+        }
+    }
+
+    // Millisecond precision, so the value read back from the column still matches it
+    private LocalDateTime leaseUntil(LocalDateTime now) {
+        return now.plusMinutes(leaseMinutes).truncatedTo(ChronoUnit.MILLIS);
+    }
+
+    /**
+     * The interval, stretched or shortened by a random amount within the jitter.
+     */
+    Duration nextInterval() {
+        long intervalMillis = TimeUnit.MINUTES.toMillis(intervalMinutes);
+        double factor = jitter > 0 ? 1 + ThreadLocalRandom.current().nextDouble(-jitter, jitter) : 1;
+        return Duration.ofMillis(Math.max(1000, (long) (intervalMillis * factor)));
+    }
+
+    /**
+     * Exponential backoff after {@code failures} failures in a row, capped, with the upper half
+     * randomized so users failing together (e.g. during an outage) do not retry together.
+     */
+    Duration backoff(int failures) {
+        long capMillis = TimeUnit.MINUTES.toMillis(backoffMaxMinutes);
+        long millis = TimeUnit.SECONDS.toMillis(backoffInitialSeconds) << Math.min(Math.max(failures - 1, 0), 30);
+        millis = Math.min(Math.max(millis, 1000), capMillis);
+        return Duration.ofMillis(millis / 2 + ThreadLocalRandom.current().nextLong(millis / 2 + 1));
+    }
+
+    private void seedNewUsers() {
+        List<Long> userIds = syncStateRepository.findUnscheduledUserIds(PageRequest.of(0, seedBatchSize));
+        if (userIds.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        long intervalMillis = TimeUnit.MINUTES.toMillis(intervalMinutes);
+        for (Long userId : userIds) {
+            // Spread over one interval, so users present at deploy time do not all sync at once
+            LocalDateTime first = now.plus(Duration.ofMillis(ThreadLocalRandom.current().nextLong(intervalMillis + 1)));
+            syncStateRepository.insertIfAbsent(userId, first, null);
+        }
+        logger.info("Scheduled background Google sync for {} users", userIds.size());
+    }
+
+    /**
+     * The lease a running sync holds on its user's row, renewed until the sync records its
+     * outcome. Renewals and the final update go through this object one at a time, so the
+     * outcome is always written against the lease value currently in the row.
+     */
+    private final class Lease {
+        private final Long userId;
+        private final ScheduledFuture<?> renewal;
+        // Null once released, or lost to another instance
+        private LocalDateTime held;
+
+        Lease(Long userId, LocalDateTime held) {
+            this.userId = userId;
+            this.held = held;
+            long periodMs = Math.max(1000, TimeUnit.MINUTES.toMillis(leaseMinutes) / 3);
+            this.renewal = leaseRenewer.scheduleAtFixedRate(this::renew, periodMs, periodMs, TimeUnit.MILLISECONDS);
+        }
+
+        private synchronized void renew() {
+            if (held == null) {
+                return;
+            }
+            try {
+                LocalDateTime next = leaseUntil(LocalDateTime.now());
+                if (syncStateRepository.renew(userId, held, next) > 0) {
+                    held = next;
+                } else {
+                    logger.warn("Google sync for user {} lost its lease; its outcome will not be recorded", userId);
+                    release();
+                }
+            } catch (RuntimeException e) {
+                // Tried again next period, well before the lease runs out
+                logger.warn("Could not renew Google sync lease for user {}: {}", userId, e.getMessage());
+            }
+        }
+
+        /**
+         * Record the outcome with {@code update}, given the lease it must still hold.
+         */
+        synchronized void complete(ToIntFunction<LocalDateTime> update) {
+            if (held == null || update.applyAsInt(held) == 0) {
+                logger.warn("Google sync for user {} no longer holds its lease; outcome not recorded", userId);
+            }
+            release();
+        }
+
+        synchronized void release() {
+            held = null;
+            renewal.cancel(false);
+        }
+    }
+
+    private static String truncate(String message) {
+        if (message == null) {
+            return null;
+        }
+        return message.length() <= MAX_ERROR_LENGTH ? message : message.substring(0, MAX_ERROR_LENGTH);
+    }
+}
@@ -0,0 +1,331 @@
+package com.calendar.service;
+
+import com.calendar.model.Calendar;
+import com.calendar.model.Event;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Writes pulled Google events to the database in bulk.
+ *
+ * Incoming ids are resolved with one IN query per chunk instead of a SELECT per event, and
+ * inserts, updates and deletes go out as JDBC batches. Runs in the caller's transaction, or
+ * one of its own, together with the analytics deltas for what it wrote.
+ */
+@Service
+public class GoogleSyncWriter {
+
+    // Above this many changes, recounting analytics on the next read is cheaper than
+    // adjusting the counters once per event
+    static final int MAX_INCREMENTAL_ANALYTICS = 50;
+
+    // Inserts into the Google bucket; the unique (calendar_id, google_event_id) index turns a
+    // row written by a concurrent sync into an update instead of a duplicate
+    static final String UPSERT_SQL = "INSERT INTO events (subject, start_time, end_time, description, location, status, "
+            + "calendar_id, created_at, updated_at, long_running, google_event_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) "
+            + "ON DUPLICATE KEY UPDATE subject = VALUES(subject), start_time = VALUES(start_time), "
+            + "end_time = VALUES(end_time), description = VALUES(description), location = VALUES(location), "
+            + "status = VALUES(status), updated_at = VALUES(updated_at), long_running = VALUES(long_running)";
+
+    // Google's version wins over a local edit not yet pushed
+    static final String UPDATE_SQL = "UPDATE events SET subject = ?, start_time = ?, end_time = ?, description = ?, "
+            + "location = ?, status = ?, updated_at = ?, long_running = ?, google_push_pending = FALSE WHERE id = ?";
+
+    // The Google id is kept whatever happened since; an edit made during the push is left to the next one
+    static final String MARK_CREATED_SQL = "UPDATE events SET google_event_id = ?, "
+            + "google_push_pending = CASE WHEN updated_at = ? THEN FALSE ELSE TRUE END WHERE id = ?";
+
+    // Only the version that was sent; a row edited during the push stays pending
+    static final String MARK_PUSHED_SQL = "UPDATE events SET google_push_pending = FALSE WHERE id = ? AND updated_at = ?";
+
+    static final String DELETE_SQL = "DELETE FROM events WHERE id = ?";
+
+    private static final String SELECT_COLUMNS = "e.id, e.calendar_id, e.google_event_id, e.subject, e.start_time, "
+            + "e.end_time, e.description, e.location, e.status, e.recurrence_rule, e.recurrence_exceptions";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private AnalyticsAggregateService analyticsAggregateService;
+
+    // Rows per JDBC batch
+    @Value("${google.sync.batch-size:500}")
+    private int batchSize = 500;
+
+    // Google ids per IN list when resolving incoming events
+    @Value("${google.sync.lookup-chunk-size:1000}")
+    private int lookupChunkSize = 1000;
+
+    /**
+     * Apply pulled events and cancellations. An incoming event the user already has, in any of
+     * their calendars, is updated in place when it differs; anything else is inserted into
+     * {@code bucket}. An incoming event with a null status keeps the stored one.
+     *
+     * @param incoming     transient events carrying googleEventId and the Google fields
+     * @param cancelledIds Google ids whose local copies are deleted
+     * @return the events inserted or changed; inserted ones carry no id
+     */
+    @Transactional
+    public Result write(Long userId, Calendar bucket, List<Event> incoming, Collection<String> cancelledIds) {
+        // Google can list an event twice when it changes during a paginated listing; the later copy wins
+        Map<String, Event> latest = new LinkedHashMap<>(incoming.size() * 2);
+        incoming.forEach(event -> latest.put(event.getGoogleEventId(), event));
+        List<String> ids = new ArrayList<>(latest.size() + cancelledIds.size());
+        ids.addAll(latest.keySet());
+        ids.addAll(cancelledIds);
+        Map<String, Event> existing = findByGoogleIds(userId, ids);
+
+        List<Event> inserts = new ArrayList<>();
+        List<Event> updates = new ArrayList<>();
+        List<List<AnalyticsAggregateService.Contribution>> updatedBefore = new ArrayList<>();
+        for (Event event : latest.values()) {
+            Event current = existing.get(event.getGoogleEventId());
+            if (current == null) {
+                event.setCalendar(bucket);
+                if (event.getStatus() == null) {
+                    event.setStatus("CONFIRMED");
+                }
+                inserts.add(event);
+            } else if (differs(current, event)) {
+                updatedBefore.add(AnalyticsAggregateService.Contribution.allOf(current));
+                event.setId(current.getId());
+                event.setCalendar(current.getCalendar());
+                event.setRecurrenceRule(current.getRecurrenceRule());
+                event.setRecurrenceExceptions(current.getRecurrenceExceptions());
+                if (event.getStatus() == null) {
+                    event.setStatus(current.getStatus());
+                }
+                updates.add(event);
+            }
+        }
+        List<Event> deletes = new ArrayList<>();
+        for (String id : cancelledIds) {
+            Event current = existing.get(id);
+            if (current != null) {
+                deletes.add(current);
+            }
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        boolean collided = false;
+        if (!inserts.isEmpty()) {
+            int[][] counts = jdbcTemplate.batchUpdate(UPSERT_SQL, inserts, batchSize, (ps, event) -> bindInsert(ps, event, now));
+            collided = !allInserted(counts);
+        }
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPDATE_SQL, updates, batchSize, (ps, event) -> bindUpdate(ps, event, now));
+        }
+        delete(deletes);
+
+        // A row a concurrent sync wrote first became an update, whose old values are unknown here
+        if (collided || inserts.size() + updates.size() + deletes.size() > MAX_INCREMENTAL_ANALYTICS) {
+            analyticsAggregateService.invalidate(userId);
+        } else {
+            inserts.forEach(event -> analyticsAggregateService.recordCreated(userId, event));
+            for (int i = 0; i < updates.size(); i++) {
+                analyticsAggregateService.recordUpdated(userId, updatedBefore.get(i), updates.get(i));
+            }
+            deletes.forEach(event -> analyticsAggregateService.recordDeleted(userId,
+                    AnalyticsAggregateService.Contribution.allOf(event)));
+        }
+
+        List<Event> synced = new ArrayList<>(inserts.size() + updates.size());
+        synced.addAll(inserts);
+        synced.addAll(updates);
+        return new Result(synced, deletes.size());
+    }
+
+    /**
+     * Delete pulled events in {@code calendarId} starting at or after {@code from} whose Google
+     * id is not in {@code listedIds}: after a full listing of that window, they are gone from Google.
+     *
+     * @return the number of events deleted
+     */
+    @Transactional
+    public int deleteMissing(Long userId, Long calendarId, LocalDateTime from, Set<String> listedIds) {
+        List<Event> stale = new ArrayList<>();
+        jdbcTemplate.query("SELECT " + SELECT_COLUMNS + " FROM events e WHERE e.calendar_id = ? "
+                        + "AND e.google_event_id IS NOT NULL AND e.start_time >= ?",
+                rs -> {
+                    if (!listedIds.contains(rs.getString("google_event_id"))) {
+                        stale.add(mapRow(rs));
+                    }
+                },
+                calendarId, Timestamp.valueOf(from));
+        delete(stale);
+
+        if (stale.size() > MAX_INCREMENTAL_ANALYTICS) {
+            analyticsAggregateService.invalidate(userId);
+        } else {
+            stale.forEach(event -> analyticsAggregateService.recordDeleted(userId,
+                    AnalyticsAggregateService.Contribution.allOf(event)));
+        }
+        return stale.size();
+    }
+
+    /**
+     * Record the outcome of a push: Google ids for the events created there, and a cleared
+     * pending flag for those patched. Both go out as JDBC batches. The flag is only cleared on
+     * rows whose updated_at is still the one in {@code sentVersions}, read when the push was built.
+     */
+    public void markPushed(Map<Long, String> createdIds, Collection<Long> patchedIds,
+                           Map<Long, LocalDateTime> sentVersions) {
+        if (!createdIds.isEmpty()) {
+            jdbcTemplate.batchUpdate(MARK_CREATED_SQL, new ArrayList<>(createdIds.entrySet()), batchSize, (ps, entry) -> {
+                ps.setString(1, entry.getValue());
+                ps.setTimestamp(2, toTimestamp(sentVersions.get(entry.getKey())));
+                ps.setLong(3, entry.getKey());
+            });
+        }
+        if (!patchedIds.isEmpty()) {
+            jdbcTemplate.batchUpdate(MARK_PUSHED_SQL, new ArrayList<>(patchedIds), batchSize, (ps, id) -> {
+                ps.setLong(1, id);
+                ps.setTimestamp(2, toTimestamp(sentVersions.get(id)));
+            });
+        }
+    }
+
+    private static Timestamp toTimestamp(LocalDateTime time) {
+        return time != null ? Timestamp.valueOf(time) : null;
+    }
+
+    /**
+     * The user's copies of the given Google events, whichever of their calendars they are in.
+     */
+    Map<String, Event> findByGoogleIds(Long userId, List<String> googleIds) {
+        if (googleIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, Event> found = new HashMap<>(googleIds.size() * 2);
+        for (int from = 0; from < googleIds.size(); from += lookupChunkSize) {
+            List<String> chunk = googleIds.subList(from, Math.min(from + lookupChunkSize, googleIds.size()));
+            Object[] args = new Object[chunk.size() + 1];
+            args[0] = userId;
+            for (int i = 0; i < chunk.size(); i++) {
+                args[i + 1] = chunk.get(i);
+            }
+            String placeholders = String.join(", ", Collections.nCopies(chunk.size(), "?"));
+            jdbcTemplate.query("SELECT " + SELECT_COLUMNS + " FROM events e JOIN calendars c ON c.id = e.calendar_id "
+                            + "WHERE c.user_id = ? AND e.google_event_id IN (" + placeholders + ")",
+                    rs -> {
+                        Event event = mapRow(rs);
+                        found.put(event.getGoogleEventId(), event);
+                    },
+                    args);
+        }
+        return found;
+    }
+
+    // MariaDB reports 1 for a row inserted and 2 (or 0 if unchanged) for one updated instead;
+    // a driver that does not report per-row counts is treated as a collision
+    private static boolean allInserted(int[][] counts) {
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                if (count != 1) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private void delete(List<Event> events) {
+        if (!events.isEmpty()) {
+            jdbcTemplate.batchUpdate(DELETE_SQL, events, batchSize, (ps, event) -> ps.setLong(1, event.getId()));
+        }
+    }
+
+    private static boolean differs(Event current, Event incoming) {
+        return !Objects.equals(current.getSubject(), incoming.getSubject())
+                || !Objects.equals(current.getStartTime(), incoming.getStartTime())
+                || !Objects.equals(current.getEndTime(), incoming.getEndTime())
+                || !Objects.equals(current.getDescription(), incoming.getDescription())
+                || !Objects.equals(current.getLocation(), incoming.getLocation())
+                || (incoming.getStatus() != null && !incoming.getStatus().equals(current.getStatus()));
+    }
+
+    private static Event mapRow(ResultSet rs) throws SQLException {
+        Calendar calendar = new Calendar();
+        calendar.setId(rs.getLong("calendar_id"));
+        Event event = new Event();
+        event.setId(rs.getLong("id"));
+        event.setCalendar(calendar);
+        event.setGoogleEventId(rs.getString("google_event_id"));
+        event.setSubject(rs.getString("subject"));
+        event.setStartTime(rs.getTimestamp("start_time").toLocalDateTime());
+        event.setEndTime(rs.getTimestamp("end_time").toLocalDateTime());
+        event.setDescription(rs.getString("description"));
+        event.setLocation(rs.getString("location"));
+        event.setStatus(rs.getString("status"));
+        event.setRecurrenceRule(rs.getString("recurrence_rule"));
+        event.setRecurrenceExceptions(rs.getString("recurrence_exceptions"));
+        return event;
+    }
+
+    private static void bindInsert(PreparedStatement ps, Event event, LocalDateTime now) throws SQLException {
+        ps.setString(1, event.getSubject());
+        ps.setTimestamp(2, Timestamp.valueOf(event.getStartTime()));
+        ps.setTimestamp(3, Timestamp.valueOf(event.getEndTime()));
+        ps.setString(4, event.getDescription());
+        ps.setString(5, event.getLocation());
+        ps.setString(6, event.getStatus());
+        ps.setLong(7, event.getCalendar().getId());
+        ps.setTimestamp(8, Timestamp.valueOf(now));
+        ps.setTimestamp(9, Timestamp.valueOf(now));
+        ps.setBoolean(10, Event.isLongRunning(event.getStartTime(), event.getEndTime(), null));
+        ps.setString(11, event.getGoogleEventId());
+    }
+
+    private static void bindUpdate(PreparedStatement ps, Event event, LocalDateTime now) throws SQLException {
+        ps.setString(1, event.getSubject());
+        ps.setTimestamp(2, Timestamp.valueOf(event.getStartTime()));
+        ps.setTimestamp(3, Timestamp.valueOf(event.getEndTime()));
+        ps.setString(4, event.getDescription());
+        ps.setString(5, event.getLocation());
+        ps.setString(6, event.getStatus());
+        ps.setTimestamp(7, Timestamp.valueOf(now));
+        ps.setBoolean(8, Event.isLongRunning(event.getStartTime(), event.getEndTime(), event.getRecurrenceRule()));
+        ps.setLong(9, event.getId());
+    }
+
+    /**
+     * Outcome of {@link #write}.
+     */
+    public static final class Result {
+        private final List<Event> synced;
+        private final int deleted;
+
+        Result(List<Event> synced, int deleted) {
+            this.synced = synced;
+            this.deleted = deleted;
+        }
+
+        // Events inserted or changed
+        public List<Event> getSynced() {
+            return synced;
+        }
+
+        public int getDeleted() {
+            return deleted;
+        }
+    }
+}
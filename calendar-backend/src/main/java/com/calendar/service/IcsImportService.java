@@ -0,0 +1,524 @@
+package com.calendar.service;
+
+import com.calendar.dto.ImportResultDTO;
+import com.calendar.model.Calendar;
+import com.calendar.model.Event;
+import com.calendar.recurrence.RecurrenceIterator;
+import com.calendar.recurrence.RecurrenceRule;
+import com.calendar.repository.CalendarRepository;
+import com.calendar.util.IcsReader;
+import com.calendar.util.TimezoneUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk import of .ics files into a calendar.
+ *
+ * The file is read one VEVENT at a time and events are written in JDBC batches, each batch in
+ * its own transaction, so neither the file nor the import is held in memory and an interrupted
+ * import can simply be re-run: VEVENTs whose UID is already in the calendar are skipped.
+ *
+ * Recurring VEVENTs follow recurrence.storage-mode like events created through the API: one
+ * series master row, or one row per occurrence. A VEVENT with a RECURRENCE-ID replaces that
+ * occurrence of its series. Imports are not checked for conflicts; the file is taken as is.
+ */
+@Service
+public class IcsImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(IcsImportService.class);
+
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss");
+    private static final String NO_TITLE = "(No title)";
+    private static final int MAX_LOGGED_FAILURES = 10;
+
+    static final String INSERT_SQL = "INSERT INTO events (subject, start_time, end_time, description, location, status, "
+            + "series_id, calendar_id, created_at, updated_at, recurrence_rule, recurrence_exceptions, recurrence_end, "
+            + "long_running, ical_uid) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    @Autowired
+    private CalendarRepository calendarRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ConflictIndexService conflictIndexService;
+
+    @Autowired
+    private AnalyticsAggregateService analyticsAggregateService;
+
+    @Autowired
+    private AnalyticsCacheInvalidator analyticsCacheInvalidator;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Events per INSERT batch and per transaction
+    @Value("${ics.import.batch-size:1000}")
+    private int batchSize = 1000;
+
+    // A progress line is logged every this many VEVENTs
+    @Value("${ics.import.progress-interval:10000}")
+    private int progressInterval = 10000;
+
+    @Value("${recurrence.storage-mode:MATERIALIZED}")
+    private String recurrenceStorageMode = "MATERIALIZED";
+
+    /**
+     * Import every VEVENT in {@code in} into the calendar. {@code in} is read to the end but
+     * not closed.
+     *
+     * @throws RuntimeException if the calendar does not exist or belongs to another user
+     */
+    public ImportResultDTO importCalendar(Long calendarId, Long userId, InputStream in) throws IOException {
+        Calendar calendar = calendarRepository.findByIdAndUserId(calendarId, userId)
+                .orElseThrow(() -> new RuntimeException("Calendar not found or access denied"));
+
+        ImportRun run = new ImportRun(calendar);
+        long start = System.nanoTime();
+        try {
+            IcsReader reader = new IcsReader(in);
+            while (true) {
+                long parseStart = System.nanoTime();
+                IcsReader.VEvent vevent = reader.nextEvent();
+                if (vevent == null) {
+                    run.parseNanos += System.nanoTime() - parseStart;
+                    break;
+                }
+                run.parsed++;
+                PendingEvent pending = null;
+                try {
+                    pending = toPendingEvent(run, vevent);
+                } catch (RuntimeException e) {
+                    run.failed++;
+                    if (run.failed <= MAX_LOGGED_FAILURES) {
+                        logger.warn("Skipping VEVENT at line {} of import into calendar {}: {}",
+                                vevent.getLine(), calendarId, e.getMessage());
+                    }
+                }
+                run.parseNanos += System.nanoTime() - parseStart;
+
+                if (pending != null) {
+                    add(run, pending);
+                }
+                if (run.pendingRows >= batchSize) {
+                    flush(run);
+                }
+                if (run.parsed % progressInterval == 0) {
+                    logProgress(run, start);
+                }
+            }
+            flush(run);
+            applyOverrides(run);
+        } finally {
+            if (run.imported > 0) {
+                // Bulk change: recount analytics and rebuild the conflict index on next use
+                Long ownerId = calendar.getUser().getId();
+                conflictIndexService.invalidate(ownerId);
+                analyticsAggregateService.invalidate(ownerId);
+                analyticsCacheInvalidator.evict(ownerId);
+            }
+        }
+
+        ImportResultDTO result = run.toResult(System.nanoTime() - start);
+        recordMetrics(run);
+        logger.info("Imported {} events into calendar {} ({} VEVENTs, {} duplicates, {} failed) in {}ms",
+                result.getImported(), calendarId, result.getParsed(), result.getDuplicates(), result.getFailed(),
+                result.getMillis());
+        return result;
+    }
+
+    // Duplicates within the file are caught here; duplicates of earlier imports in flush()
+    private void add(ImportRun run, PendingEvent pending) {
+        long start = System.nanoTime();
+        if (pending.key != null && !run.seenKeys.add(pending.key)) {
+            run.duplicates++;
+        } else {
+            run.pending.add(pending);
+            run.pendingRows += pending.rows.size();
+        }
+        run.dedupeNanos += System.nanoTime() - start;
+    }
+
+    private void flush(ImportRun run) {
+        if (run.pending.isEmpty()) {
+            return;
+        }
+        long dedupeStart = System.nanoTime();
+        Set<String> existing = findExistingKeys(run.calendar.getId(),
+                run.pending.stream().map(p -> p.key).filter(key -> key != null).collect(Collectors.toList()));
+        List<Event> rows = new ArrayList<>(run.pendingRows);
+        for (PendingEvent pending : run.pending) {
+            if (pending.key != null && existing.contains(pending.key)) {
+                run.duplicates++;
+                continue;
+            }
+            rows.addAll(pending.rows);
+            if (pending.seriesUid != null) {
+                run.overrides.computeIfAbsent(pending.seriesUid, uid -> new TreeSet<>()).add(pending.replaces);
+            }
+        }
+        run.pending.clear();
+        run.pendingRows = 0;
+        run.dedupeNanos += System.nanoTime() - dedupeStart;
+
+        if (rows.isEmpty()) {
+            return;
+        }
+        long insertStart = System.nanoTime();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                jdbcTemplate.batchUpdate(INSERT_SQL, rows, rows.size(), IcsImportService::bind));
+        run.insertNanos += System.nanoTime() - insertStart;
+        run.inserted += rows.size();
+        run.imported += rows.size();
+    }
+
+    private Set<String> findExistingKeys(Long calendarId, List<String> keys) {
+        if (keys.isEmpty()) {
+            return Collections.emptySet();
+        }
+        String placeholders = String.join(", ", Collections.nCopies(keys.size(), "?"));
+        Object[] args = new Object[keys.size() + 1];
+        args[0] = calendarId;
+        for (int i = 0; i < keys.size(); i++) {
+            args[i + 1] = keys.get(i);
+        }
+        return new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT DISTINCT ical_uid FROM events WHERE calendar_id = ? AND ical_uid IN (" + placeholders + ")",
+                String.class, args));
+    }
+
+    private static void bind(PreparedStatement ps, Event event) throws SQLException {
+        ps.setString(1, event.getSubject());
+        ps.setTimestamp(2, Timestamp.valueOf(event.getStartTime()));
+        ps.setTimestamp(3, Timestamp.valueOf(event.getEndTime()));
+        ps.setString(4, event.getDescription());
+        ps.setString(5, event.getLocation());
+        ps.setString(6, event.getStatus());
+        ps.setString(7, event.getSeriesId());
+        ps.setLong(8, event.getCalendar().getId());
+        ps.setTimestamp(9, Timestamp.valueOf(event.getCreatedAt()));
+        ps.setTimestamp(10, Timestamp.valueOf(event.getUpdatedAt()));
+        ps.setString(11, event.getRecurrenceRule());
+        ps.setString(12, event.getRecurrenceExceptions());
+        if (event.getRecurrenceEnd() != null) {
+            ps.setTimestamp(13, Timestamp.valueOf(event.getRecurrenceEnd()));
+        } else {
+            ps.setNull(13, Types.TIMESTAMP);
+        }
+        ps.setBoolean(14, Event.isLongRunning(event.getStartTime(), event.getEndTime(), event.getRecurrenceRule()));
+        ps.setString(15, event.getIcalUid());
+    }
+
+    /**
+     * Take imported RECURRENCE-ID occurrences out of their series: an exception on the master
+     * row, or removal of the materialized occurrence row.
+     */
+    private void applyOverrides(ImportRun run) {
+        if (run.overrides.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        Long calendarId = run.calendar.getId();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            for (Map.Entry<String, Set<LocalDateTime>> entry : run.overrides.entrySet()) {
+                if (run.materialized) {
+                    for (LocalDateTime occurrenceStart : entry.getValue()) {
+                        int removed = jdbcTemplate.update(
+                                "DELETE FROM events WHERE calendar_id = ? AND ical_uid = ? AND start_time = ?",
+                                calendarId, entry.getKey(), Timestamp.valueOf(occurrenceStart));
+                        run.imported -= removed;
+                    }
+                    continue;
+                }
+                List<Map<String, Object>> masters = jdbcTemplate.queryForList(
+                        "SELECT id, recurrence_exceptions FROM events "
+                                + "WHERE calendar_id = ? AND ical_uid = ? AND recurrence_rule IS NOT NULL",
+                        calendarId, entry.getKey());
+                for (Map<String, Object> master : masters) {
+                    Set<LocalDateTime> exceptions = new TreeSet<>(entry.getValue());
+                    String current = (String) master.get("recurrence_exceptions");
+                    if (current != null && !current.isBlank()) {
+                        for (String value : current.split(",")) {
+                            exceptions.add(LocalDateTime.parse(value.trim()));
+                        }
+                    }
+                    jdbcTemplate.update("UPDATE events SET recurrence_exceptions = ? WHERE id = ?",
+                            joinExceptions(exceptions), ((Number) master.get("id")).longValue());
+                }
+            }
+        });
+        run.insertNanos += System.nanoTime() - start;
+    }
+
+    private PendingEvent toPendingEvent(ImportRun run, IcsReader.VEvent vevent) {
+        IcsReader.Property dtStart = vevent.get("DTSTART");
+        if (dtStart == null) {
+            throw new RuntimeException("DTSTART is missing");
+        }
+        boolean allDay = isDate(dtStart);
+        LocalDateTime start = toLocalDateTime(dtStart, dtStart.getValue(), run.zone);
+        LocalDateTime end = endOf(vevent, start, allDay, run.zone);
+        if (end.isBefore(start)) {
+            throw new RuntimeException("DTEND is before DTSTART");
+        }
+
+        String subject = vevent.getText("SUMMARY");
+        Event event = new Event(subject != null && !subject.isBlank() ? subject : NO_TITLE, start, end, run.calendar);
+        event.setDescription(vevent.getText("DESCRIPTION"));
+        event.setLocation(vevent.getText("LOCATION"));
+        event.setStatus(statusOf(vevent.getText("STATUS")));
+
+        String uid = vevent.getText("UID");
+        if (uid != null && uid.isBlank()) {
+            uid = null;
+        }
+        IcsReader.Property recurrenceId = vevent.get("RECURRENCE-ID");
+        IcsReader.Property rrule = vevent.get("RRULE");
+
+        if (uid != null && recurrenceId != null) {
+            LocalDateTime replaces = toLocalDateTime(recurrenceId, recurrenceId.getValue(), run.zone);
+            event.setSeriesId(seriesIdOf(run.calendar, uid));
+            event.setIcalUid(uid + "/" + replaces);
+            return new PendingEvent(event.getIcalUid(), List.of(event), uid, replaces);
+        }
+        if (rrule == null) {
+            event.setIcalUid(uid);
+            return new PendingEvent(uid, List.of(event), null, null);
+        }
+
+        RecurrenceRule rule = RecurrenceRule.parse(rrule.getValue());
+        Set<LocalDateTime> exdates = new TreeSet<>();
+        for (IcsReader.Property exdate : vevent.getAll("EXDATE")) {
+            for (String value : exdate.getValue().split(",")) {
+                exdates.add(toLocalDateTime(exdate, value.trim(), run.zone));
+            }
+        }
+        String seriesId = uid != null ? seriesIdOf(run.calendar, uid) : UUID.randomUUID().toString();
+        Duration duration = Duration.between(start, end);
+
+        if (run.materialized) {
+            List<Event> occurrences = new ArrayList<>();
+            for (LocalDateTime occurrenceStart : rule.withExceptions(exdates)
+                    .occurrences(start, null, null, EventService.MAX_UNBOUNDED_OCCURRENCES)) {
+                Event occurrence = new Event(event.getSubject(), occurrenceStart, occurrenceStart.plus(duration), run.calendar);
+                occurrence.setDescription(event.getDescription());
+                occurrence.setLocation(event.getLocation());
+                occurrence.setStatus(event.getStatus());
+                occurrence.setSeriesId(seriesId);
+                occurrence.setIcalUid(uid);
+                occurrences.add(occurrence);
+            }
+            if (occurrences.isEmpty()) {
+                throw new RuntimeException("RRULE has no occurrences");
+            }
+            return new PendingEvent(uid, occurrences, null, null);
+        }
+
+        // Like a series created through the API, the master starts at the first matching occurrence
+        RecurrenceIterator occurrences = rule.iterator(start);
+        if (!occurrences.hasNext()) {
+            throw new RuntimeException("RRULE has no occurrences");
+        }
+        LocalDateTime firstStart = occurrences.next();
+        event.setStartTime(firstStart);
+        event.setEndTime(firstStart.plus(duration));
+        event.setSeriesId(seriesId);
+        event.setRecurrenceRule(rule.toString());
+        event.setRecurrenceExceptions(exdates.isEmpty() ? null : joinExceptions(exdates));
+        if (rule.getCount() > 0) {
+            LocalDateTime lastStart = firstStart;
+            while (occurrences.hasNext()) {
+                lastStart = occurrences.next();
+            }
+            event.setRecurrenceEnd(lastStart.plus(duration));
+        } else if (rule.getUntil() != null) {
+            event.setRecurrenceEnd(rule.getUntil().plus(duration));
+        }
+        event.setIcalUid(uid);
+        return new PendingEvent(uid, List.of(event), null, null);
+    }
+
+    private static LocalDateTime endOf(IcsReader.VEvent vevent, LocalDateTime start, boolean allDay, ZoneId zone) {
+        IcsReader.Property dtEnd = vevent.get("DTEND");
+        if (dtEnd != null) {
+            return toLocalDateTime(dtEnd, dtEnd.getValue(), zone);
+        }
+        IcsReader.Property duration = vevent.get("DURATION");
+        if (duration != null) {
+            return start.plus(parseDuration(duration.getValue().trim()));
+        }
+        // RFC 5545: a date lasts one day, a date-time without an end takes no time
+        return allDay ? start.plusDays(1) : start;
+    }
+
+    // java.time parses everything iCalendar allows except weeks
+    private static Duration parseDuration(String value) {
+        boolean negative = value.startsWith("-");
+        String unsigned = value.startsWith("-") || value.startsWith("+") ? value.substring(1) : value;
+        Duration duration;
+        if (unsigned.endsWith("W") && unsigned.startsWith("P")) {
+            duration = Duration.ofDays(7L * Long.parseLong(unsigned.substring(1, unsigned.length() - 1)));
+        } else {
+            duration = Duration.parse(unsigned);
+        }
+        return negative ? duration.negated() : duration;
+    }
+
+    private static boolean isDate(IcsReader.Property property) {
+        return "DATE".equalsIgnoreCase(property.getParam("VALUE")) || property.getValue().trim().length() == 8;
+    }
+
+    /**
+     * Floating times are kept as written; UTC and TZID times are converted to the calendar's
+     * time zone. An unknown TZID is treated as floating.
+     */
+    static LocalDateTime toLocalDateTime(IcsReader.Property property, String value, ZoneId zone) {
+        try {
+            if (value.length() == 8) {
+                return LocalDate.parse(value, DateTimeFormatter.BASIC_ISO_DATE).atStartOfDay();
+            }
+            if (value.endsWith("Z") || value.endsWith("z")) {
+                return LocalDateTime.parse(value.substring(0, value.length() - 1), DATE_TIME)
+                        .atOffset(ZoneOffset.UTC).atZoneSameInstant(zone).toLocalDateTime();
+            }
+            LocalDateTime local = LocalDateTime.parse(value, DATE_TIME);
+            String tzid = property.getParam("TZID");
+            if (tzid != null) {
+                try {
+                    return local.atZone(ZoneId.of(tzid.startsWith("/") ? tzid.substring(1) : tzid))
+                            .withZoneSameInstant(zone).toLocalDateTime();
+                } catch (DateTimeException e) {
+                    return local;
+                }
+            }
+            return local;
+        } catch (DateTimeException e) {
+            throw new RuntimeException("Invalid " + property.getName() + " value: " + value);
+        }
+    }
+
+    private static String statusOf(String status) {
+        if (status == null) {
+            return "CONFIRMED";
+        }
+        String upper = status.trim().toUpperCase(Locale.ROOT);
+        return "TENTATIVE".equals(upper) || "CANCELLED".equals(upper) ? upper : "CONFIRMED";
+    }
+
+    // Stable per UID, so a RECURRENCE-ID event lands in its series whichever batch it is in
+    private static String seriesIdOf(Calendar calendar, String uid) {
+        return UUID.nameUUIDFromBytes((calendar.getId() + "/" + uid).getBytes(StandardCharsets.UTF_8)).toString();
+    }
+
+    private static String joinExceptions(Set<LocalDateTime> exceptions) {
+        return exceptions.stream().sorted().map(LocalDateTime::toString).collect(Collectors.joining(","));
+    }
+
+    private void logProgress(ImportRun run, long start) {
+        long millis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        logger.info("Import into calendar {}: {} VEVENTs read, {} events written, {} duplicates, {} failed ({} VEVENTs/s)",
+                run.calendar.getId(), run.parsed, run.inserted, run.duplicates, run.failed, run.parsed * 1000 / millis);
+    }
+
+    private void recordMetrics(ImportRun run) {
+        meterRegistry.timer("calendar.import.stage", "stage", "parse").record(run.parseNanos, TimeUnit.NANOSECONDS);
+        meterRegistry.timer("calendar.import.stage", "stage", "dedupe").record(run.dedupeNanos, TimeUnit.NANOSECONDS);
+        meterRegistry.timer("calendar.import.stage", "stage", "insert").record(run.insertNanos, TimeUnit.NANOSECONDS);
+        meterRegistry.counter("calendar.import.events", "outcome", "imported").increment(run.imported);
+        meterRegistry.counter("calendar.import.events", "outcome", "duplicate").increment(run.duplicates);
+        meterRegistry.counter("calendar.import.events", "outcome", "failed").increment(run.failed);
+    }
+
+    /**
+     * One VEVENT ready to write: a single row, or every occurrence of a materialized series.
+     */
+    private static final class PendingEvent {
+        final String key;
+        final List<Event> rows;
+        final String seriesUid;         // set for RECURRENCE-ID events
+        final LocalDateTime replaces;   // the occurrence start a RECURRENCE-ID event replaces
+
+        PendingEvent(String key, List<Event> rows, String seriesUid, LocalDateTime replaces) {
+            this.key = key;
+            this.rows = rows;
+            this.seriesUid = seriesUid;
+            this.replaces = replaces;
+        }
+    }
+
+    private final class ImportRun {
+        final Calendar calendar;
+        final ZoneId zone;
+        final boolean materialized = "MATERIALIZED".equalsIgnoreCase(recurrenceStorageMode);
+        // Only keys are kept for the whole file, never events
+        final Set<String> seenKeys = new HashSet<>();
+        final List<PendingEvent> pending = new ArrayList<>();
+        final Map<String, Set<LocalDateTime>> overrides = new LinkedHashMap<>();
+        int pendingRows;
+        long parsed;
+        long inserted;
+        long imported;
+        long duplicates;
+        long failed;
+        long parseNanos;
+        long dedupeNanos;
+        long insertNanos;
+
+        ImportRun(Calendar calendar) {
+            this.calendar = calendar;
+            this.zone = calendar.getTimezone() != null && TimezoneUtil.isValidTimezone(calendar.getTimezone())
+                    ? ZoneId.of(calendar.getTimezone()) : ZoneOffset.UTC;
+        }
+
+        ImportResultDTO toResult(long nanos) {
+            ImportResultDTO result = new ImportResultDTO(calendar.getId());
+            result.setParsed(parsed);
+            result.setImported(imported);
+            result.setDuplicates(duplicates);
+            result.setFailed(failed);
+            result.setMillis(TimeUnit.NANOSECONDS.toMillis(nanos));
+            result.getStages().put("parse", new ImportResultDTO.Stage(parsed, TimeUnit.NANOSECONDS.toMillis(parseNanos)));
+            result.getStages().put("dedupe", new ImportResultDTO.Stage(parsed - failed, TimeUnit.NANOSECONDS.toMillis(dedupeNanos)));
+            result.getStages().put("insert", new ImportResultDTO.Stage(inserted, TimeUnit.NANOSECONDS.toMillis(insertNanos)));
+            return result;
+        }
+    }
+}
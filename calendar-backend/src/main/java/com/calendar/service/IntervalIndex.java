@@ -0,0 +1,298 @@
+package com.calendar.service;
+
+import com.calendar.recurrence.RecurrenceIterator;
+import com.calendar.recurrence.RecurrenceRule;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable snapshot of one user's busy intervals, used for conflict detection.
+ *
+ * Single events are kept in parallel arrays sorted by start, with a prefix maximum of the
+ * end times: the intervals starting before {@code end} are a prefix of the arrays, and any
+ * of them overlaps [start, end) exactly when the prefix maximum end is after {@code start}.
+ * That makes a point query one binary search. Series masters are kept as compiled rules and
+ * checked by seeking their iterator to the queried window.
+ *
+ * Mutations return a new snapshot (copy-on-write), so readers never lock.
+ */
+final class IntervalIndex {
+
+    private final long[] ids;
+    private final long[] starts;
+    private final long[] ends;
+    private final long[] maxEnds;
+    private final List<Series> series;
+    private final long loadedAt;
+    // Writes made before this (less a safety margin) are already in the snapshot
+    private final long syncedAt;
+
+    private IntervalIndex(long[] ids, long[] starts, long[] ends, List<Series> series, long loadedAt, long syncedAt) {
+        this.ids = ids;
+        this.starts = starts;
+        this.ends = ends;
+        this.series = series;
+        this.loadedAt = loadedAt;
+        this.syncedAt = syncedAt;
+        this.maxEnds = new long[ends.length];
+        long max = Long.MIN_VALUE;
+        for (int i = 0; i < ends.length; i++) {
+            max = Math.max(max, ends[i]);
+            maxEnds[i] = max;
+        }
+    }
+
+    // Same intervals, shared rather than copied
+    private IntervalIndex(IntervalIndex base, long syncedAt) {
+        this.ids = base.ids;
+        this.starts = base.starts;
+        this.ends = base.ends;
+        this.maxEnds = base.maxEnds;
+        this.series = base.series;
+        this.loadedAt = base.loadedAt;
+        this.syncedAt = syncedAt;
+    }
+
+    /**
+     * Build from rows of (id, startTime, endTime, recurrenceRule, recurrenceExceptions, recurrenceEnd).
+     */
+    static IntervalIndex build(List<Object[]> rows) {
+        List<Object[]> singles = new ArrayList<>(rows.size());
+        List<Series> series = new ArrayList<>();
+        for (Object[] row : rows) {
+            if (row[1] == null || row[2] == null) continue;
+            if (row[3] != null) {
+                series.add(Series.of((Long) row[0], (String) row[3], (String) row[4],
+                        (LocalDateTime) row[1], (LocalDateTime) row[2], (LocalDateTime) row[5]));
+            } else {
+                singles.add(row);
+            }
+        }
+        singles.sort((a, b) -> ((LocalDateTime) a[1]).compareTo((LocalDateTime) b[1]));
+
+        long[] ids = new long[singles.size()];
+        long[] starts = new long[singles.size()];
+        long[] ends = new long[singles.size()];
+        for (int i = 0; i < singles.size(); i++) {
+            Object[] row = singles.get(i);
+            ids[i] = (Long) row[0];
+            starts[i] = toEpoch((LocalDateTime) row[1]);
+            ends[i] = toEpoch((LocalDateTime) row[2]);
+        }
+        long now = System.currentTimeMillis();
+        return new IntervalIndex(ids, starts, ends, series, now, now);
+    }
+
+    long getLoadedAt() {
+        return loadedAt;
+    }
+
+    long getSyncedAt() {
+        return syncedAt;
+    }
+
+    /**
+     * The same snapshot, known to hold every write made before {@code syncedAt}.
+     */
+    IntervalIndex syncedTo(long syncedAt) {
+        return new IntervalIndex(this, syncedAt);
+    }
+
+    int size() {
+        return ids.length + series.size();
+    }
+
+    /**
+     * Does [start, end) overlap any indexed event?
+     */
+    boolean overlaps(LocalDateTime start, LocalDateTime end) {
+        long s = toEpoch(start);
+        long e = toEpoch(end);
+        int before = lowerBound(starts, e);
+        if (before > 0 && maxEnds[before - 1] > s) {
+            return true;
+        }
+        for (Series entry : series) {
+            if (entry.overlaps(start, end)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Check every occurrence of a new series in one pass. Occurrence starts must be sorted.
+     *
+     * @return the start of the first conflicting occurrence, or null
+     */
+    LocalDateTime firstOverlap(List<LocalDateTime> occurrenceStarts, Duration duration) {
+        if (occurrenceStarts.isEmpty()) {
+            return null;
+        }
+        long length = duration.getSeconds();
+
+        // Occurrence ends increase monotonically, so the prefix boundary only moves forward
+        int before = 0;
+        LocalDateTime first = null;
+        for (LocalDateTime occurrence : occurrenceStarts) {
+            long s = toEpoch(occurrence);
+            long e = s + length;
+            while (before < starts.length && starts[before] < e) {
+                before++;
+            }
+            if (before > 0 && maxEnds[before - 1] > s) {
+                first = occurrence;
+                break;
+            }
+        }
+
+        for (Series entry : series) {
+            LocalDateTime conflict = entry.firstOverlap(occurrenceStarts, duration);
+            if (conflict != null && (first == null || conflict.isBefore(first))) {
+                first = conflict;
+            }
+        }
+        return first;
+    }
+
+    IntervalIndex with(Long id, LocalDateTime start, LocalDateTime end, String recurrenceRule,
+                       String recurrenceExceptions, LocalDateTime recurrenceEnd) {
+        IntervalIndex base = without(id);
+        if (start == null || end == null) {
+            return base;
+        }
+        if (recurrenceRule != null) {
+            List<Series> series = new ArrayList<>(base.series);
+            series.add(Series.of(id, recurrenceRule, recurrenceExceptions, start, end, recurrenceEnd));
+            return new IntervalIndex(base.ids, base.starts, base.ends, series, base.loadedAt, base.syncedAt);
+        }
+
+        long s = toEpoch(start);
+        int at = lowerBound(base.starts, s);
+        long[] ids = insert(base.ids, at, id);
+        long[] starts = insert(base.starts, at, s);
+        long[] ends = insert(base.ends, at, toEpoch(end));
+        return new IntervalIndex(ids, starts, ends, base.series, base.loadedAt, base.syncedAt);
+    }
+
+    IntervalIndex without(Long id) {
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i] == id) {
+                return new IntervalIndex(remove(ids, i), remove(starts, i), remove(ends, i), series, loadedAt, syncedAt);
+            }
+        }
+        for (int i = 0; i < series.size(); i++) {
+            if (series.get(i).id == id) {
+                List<Series> remaining = new ArrayList<>(series);
+                remaining.remove(i);
+                return new IntervalIndex(ids, starts, ends, remaining, loadedAt, syncedAt);
+            }
+        }
+        return this;
+    }
+
+    static IntervalIndex empty() {
+        long now = System.currentTimeMillis();
+        return new IntervalIndex(new long[0], new long[0], new long[0], Collections.emptyList(), now, now);
+    }
+
+    private static int lowerBound(long[] values, long key) {
+        int low = 0;
+        int high = values.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (values[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static long[] insert(long[] values, int at, long value) {
+        long[] result = Arrays.copyOf(values, values.length + 1);
+        System.arraycopy(values, at, result, at + 1, values.length - at);
+        result[at] = value;
+        return result;
+    }
+
+    private static long[] remove(long[] values, int at) {
+        long[] result = new long[values.length - 1];
+        System.arraycopy(values, 0, result, 0, at);
+        System.arraycopy(values, at + 1, result, at, values.length - at - 1);
+        return result;
+    }
+
+    private static long toEpoch(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static final class Series {
+        final long id;
+        final RecurrenceRule rule;
+        final LocalDateTime dtStart;
+        final Duration duration;
+        final LocalDateTime recurrenceEnd;
+
+        private Series(long id, RecurrenceRule rule, LocalDateTime dtStart, Duration duration, LocalDateTime recurrenceEnd) {
+            this.id = id;
+            this.rule = rule;
+            this.dtStart = dtStart;
+            this.duration = duration;
+            this.recurrenceEnd = recurrenceEnd;
+        }
+
+        static Series of(Long id, String rule, String exceptions, LocalDateTime start, LocalDateTime end, LocalDateTime recurrenceEnd) {
+            List<LocalDateTime> exdates = new ArrayList<>();
+            if (exceptions != null && !exceptions.isBlank()) {
+                for (String value : exceptions.split(",")) {
+                    exdates.add(LocalDateTime.parse(value.trim()));
+                }
+            }
+            return new Series(id, RecurrenceRule.parse(rule).withExceptions(exdates), start,
+                    Duration.between(start, end), recurrenceEnd);
+        }
+
+        boolean overlaps(LocalDateTime start, LocalDateTime end) {
+            if (!dtStart.isBefore(end) || (recurrenceEnd != null && !recurrenceEnd.isAfter(start))) {
+                return false;
+            }
+            RecurrenceIterator iterator = rule.iterator(dtStart);
+            // An occurrence starting at start - duration ends exactly at start, which is not an overlap
+            iterator.seek(start.minus(duration).plusNanos(1));
+            return iterator.hasNext() && iterator.next().isBefore(end);
+        }
+
+        LocalDateTime firstOverlap(List<LocalDateTime> occurrenceStarts, Duration otherDuration) {
+            LocalDateTime first = occurrenceStarts.get(0);
+            LocalDateTime last = occurrenceStarts.get(occurrenceStarts.size() - 1).plus(otherDuration);
+            if (!dtStart.isBefore(last) || (recurrenceEnd != null && !recurrenceEnd.isAfter(first))) {
+                return null;
+            }
+
+            RecurrenceIterator iterator = rule.iterator(dtStart);
+            iterator.seek(first.minus(duration).plusNanos(1));
+            LocalDateTime current = iterator.hasNext() ? iterator.next() : null;
+            for (LocalDateTime occurrence : occurrenceStarts) {
+                LocalDateTime occurrenceEnd = occurrence.plus(otherDuration);
+                while (current != null && !current.plus(duration).isAfter(occurrence)) {
+                    current = iterator.hasNext() ? iterator.next() : null;
+                }
+                if (current == null) {
+                    return null;
+                }
+                if (current.isBefore(occurrenceEnd)) {
+                    return occurrence;
+                }
+            }
+            return null;
+        }
+    }
+}
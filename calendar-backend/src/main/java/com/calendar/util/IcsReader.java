@@ -0,0 +1,261 @@
+package com.calendar.util;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Incremental iCalendar (RFC 5545) reader. Lines are unfolded as they are read and one VEVENT
+ * is returned at a time, so only the current event is held in memory whatever the file size.
+ *
+ * Properties of components nested in a VEVENT (VALARM) and of other top-level components
+ * (VTIMEZONE, VTODO) are skipped.
+ */
+public class IcsReader implements Closeable {
+
+    // Bounds a single unfolded line, so a file without line breaks cannot exhaust memory
+    private static final int MAX_LINE_LENGTH = 1024 * 1024;
+
+    private final BufferedReader reader;
+    private String lookahead;
+    private long lookaheadLine;
+    private long lineNumber;
+    // First physical line of the logical line last returned by nextLine()
+    private long logicalLine;
+
+    public IcsReader(InputStream in) {
+        this.reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 64 * 1024);
+    }
+
+    /**
+     * @return the next VEVENT, or null at the end of the input
+     */
+    public VEvent nextEvent() throws IOException {
+        VEvent event = null;
+        int nested = 0;
+        String line;
+        while ((line = nextLine()) != null) {
+            Property property = parseProperty(line);
+            if (property == null) {
+                continue;
+            }
+            if ("BEGIN".equals(property.name)) {
+                if (event == null) {
+                    if ("VEVENT".equalsIgnoreCase(property.value)) {
+                        // Not lineNumber: unfolding has already read the line after BEGIN
+                        event = new VEvent(logicalLine);
+                    }
+                } else {
+                    nested++;
+                }
+            } else if ("END".equals(property.name)) {
+                if (event != null) {
+                    if (nested == 0) {
+                        return event;
+                    }
+                    nested--;
+                }
+            } else if (event != null && nested == 0) {
+                event.properties.add(property);
+            }
+        }
+        // A truncated trailing VEVENT is dropped rather than imported half-read
+        return null;
+    }
+
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    // One logical line: a physical line plus any continuation lines (leading space or tab)
+    private String nextLine() throws IOException {
+        String line;
+        if (lookahead != null) {
+            line = lookahead;
+            logicalLine = lookaheadLine;
+        } else {
+            line = readPhysicalLine();
+            logicalLine = lineNumber;
+        }
+        lookahead = null;
+        if (line == null) {
+            return null;
+        }
+        StringBuilder unfolded = null;
+        String next;
+        while ((next = readPhysicalLine()) != null) {
+            if (next.isEmpty() || (next.charAt(0) != ' ' && next.charAt(0) != '\t')) {
+                lookahead = next;
+                lookaheadLine = lineNumber;
+                break;
+            }
+            if (unfolded == null) {
+                unfolded = new StringBuilder(line);
+            }
+            unfolded.append(next, 1, next.length());
+            if (unfolded.length() > MAX_LINE_LENGTH) {
+                throw new RuntimeException("Line " + lineNumber + " is longer than " + MAX_LINE_LENGTH + " characters");
+            }
+        }
+        return unfolded != null ? unfolded.toString() : line;
+    }
+
+    private String readPhysicalLine() throws IOException {
+        String line = reader.readLine();
+        if (line != null) {
+            lineNumber++;
+            if (line.length() > MAX_LINE_LENGTH) {
+                throw new RuntimeException("Line " + lineNumber + " is longer than " + MAX_LINE_LENGTH + " characters");
+            }
+        }
+        return line;
+    }
+
+    // NAME;PARAM=value;PARAM="quoted:value":VALUE
+    static Property parseProperty(String line) {
+        if (line.isBlank()) {
+            return null;
+        }
+        int nameEnd = 0;
+        while (nameEnd < line.length() && line.charAt(nameEnd) != ';' && line.charAt(nameEnd) != ':') {
+            nameEnd++;
+        }
+        if (nameEnd == line.length()) {
+            // Not a content line; tolerate stray text the way most clients do
+            return null;
+        }
+        String name = line.substring(0, nameEnd).trim().toUpperCase(Locale.ROOT);
+        Map<String, String> params = Collections.emptyMap();
+
+        int pos = nameEnd;
+        while (pos < line.length() && line.charAt(pos) == ';') {
+            int eq = line.indexOf('=', pos);
+            if (eq < 0) {
+                return null;
+            }
+            String paramName = line.substring(pos + 1, eq).trim().toUpperCase(Locale.ROOT);
+            int valueStart = eq + 1;
+            int valueEnd = valueStart;
+            boolean quoted = false;
+            while (valueEnd < line.length()) {
+                char c = line.charAt(valueEnd);
+                if (c == '"') {
+                    quoted = !quoted;
+                } else if (!quoted && (c == ';' || c == ':')) {
+                    break;
+                }
+                valueEnd++;
+            }
+            if (params.isEmpty()) {
+                params = new HashMap<>(4);
+            }
+            params.put(paramName, line.substring(valueStart, valueEnd).replace("\"", ""));
+            pos = valueEnd;
+        }
+        if (pos >= line.length() || line.charAt(pos) != ':') {
+            return null;
+        }
+        return new Property(name, params, line.substring(pos + 1));
+    }
+
+    /**
+     * Reverse of TEXT escaping: \n, \, \; and \\.
+     */
+    static String unescape(String value) {
+        if (value.indexOf('\\') < 0) {
+            return value;
+        }
+        StringBuilder text = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' && i + 1 < value.length()) {
+                char next = value.charAt(++i);
+                text.append(next == 'n' || next == 'N' ? '\n' : next);
+            } else {
+                text.append(c);
+            }
+        }
+        return text.toString();
+    }
+
+    public static final class Property {
+        private final String name;
+        private final Map<String, String> params;
+        private final String value;
+
+        Property(String name, Map<String, String> params, String value) {
+            this.name = name;
+            this.params = params;
+            this.value = value;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getParam(String param) {
+            return params.get(param);
+        }
+
+        public String getValue() {
+            return value;
+        }
+    }
+
+    public static final class VEvent {
+        private final long line;
+        private final List<Property> properties = new ArrayList<>();
+
+        VEvent(long line) {
+            this.line = line;
+        }
+
+        /**
+         * Line of the BEGIN:VEVENT, for error messages.
+         */
+        public long getLine() {
+            return line;
+        }
+
+        public Property get(String name) {
+            for (Property property : properties) {
+                if (property.name.equals(name)) {
+                    return property;
+                }
+            }
+            return null;
+        }
+
+        public List<Property> getAll(String name) {
+            List<Property> matches = new ArrayList<>(1);
+            for (Property property : properties) {
+                if (property.name.equals(name)) {
+                    matches.add(property);
+                }
+            }
+            return matches;
+        }
+
+        /**
+         * Unescaped value of a TEXT property, or null when absent.
+         */
+        public String getText(String name) {
+            Property property = get(name);
+            return property != null ? unescape(property.value) : null;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.calendar.util;
+
+import java.io.BufferedWriter;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Writes iCalendar (RFC 5545) content lines straight to an output stream: UTF-8, CRLF line
+ * endings, and lines folded at 75 octets without splitting a multi-byte character.
+ *
+ * Nothing is accumulated beyond the write buffer, so output size does not affect memory.
+ * {@link #flush()} must be called when done; the underlying stream is left open.
+ */
+public class IcsWriter implements Flushable {
+
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss");
+    private static final int MAX_LINE_OCTETS = 75;
+
+    private final Writer writer;
+    private int lineOctets;
+
+    public IcsWriter(OutputStream out) {
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 16 * 1024);
+    }
+
+    /**
+     * Write a property whose value is already in iCalendar syntax (e.g. RRULE, UID).
+     */
+    public IcsWriter property(String name, String value) throws IOException {
+        return line(name, value, false);
+    }
+
+    /**
+     * Write a TEXT property, escaping backslashes, separators and newlines.
+     */
+    public IcsWriter text(String name, String value) throws IOException {
+        return line(name, value != null ? value : "", true);
+    }
+
+    public IcsWriter dateTime(String name, LocalDateTime value) throws IOException {
+        return line(name, DATE_TIME.format(value), false);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    private IcsWriter line(String name, String value, boolean escape) throws IOException {
+        lineOctets = 0;
+        append(name);
+        append(":");
+        if (escape) {
+            appendEscaped(value);
+        } else {
+            append(value);
+        }
+        writer.write("\r\n");
+        return this;
+    }
+
+    private void appendEscaped(String value) throws IOException {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\' -> append("\\\\");
+                case ';' -> append("\\;");
+                case ',' -> append("\\,");
+                case '\n' -> append("\\n");
+                case '\r' -> {
+                    // CRLF becomes a single escaped newline
+                    if (i + 1 >= value.length() || value.charAt(i + 1) != '\n') {
+                        append("\\n");
+                    }
+                }
+                default -> {
+                    if (Character.isHighSurrogate(c) && i + 1 < value.length()) {
+                        appendCodePoint(c, value.charAt(++i));
+                    } else {
+                        appendCodePoint(c, '\0');
+                    }
+                }
+            }
+        }
+    }
+
+    private void append(String value) throws IOException {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (Character.isHighSurrogate(c) && i + 1 < value.length()) {
+                appendCodePoint(c, value.charAt(++i));
+            } else {
+                appendCodePoint(c, '\0');
+            }
+        }
+    }
+
+    // Writes one character (a surrogate pair when low != 0), folding first if it would not fit
+    private void appendCodePoint(char high, char low) throws IOException {
+        int octets = low != '\0' ? 4 : high < 0x80 ? 1 : high < 0x800 ? 2 : 3;
+        if (lineOctets + octets > MAX_LINE_OCTETS) {
+            writer.write("\r\n ");
+            lineOctets = 1;
+        }
+        writer.write(high);
+        if (low != '\0') {
+            writer.write(low);
+        }
+        lineOctets += octets;
+    }
+}
@@ -13,6 +13,7 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 import java.util.Collections;
@@ -39,6 +40,9 @@ public class LoadTestRunnerTest {
     @Mock
     private PasswordEncoder passwordEncoder;
 
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
     @Test
     public void loadTestData_RunsSuccessfully() throws Exception {
         LoadTestRunner runner = new LoadTestRunner();
@@ -60,7 +64,7 @@ public class LoadTestRunnerTest {
         when(eventRepository.saveAll(anyList())).thenReturn(Collections.emptyList());
 
         CommandLineRunner commandLineRunner = runner.loadTestData(
-                userRepository, calendarRepository, eventRepository, analyticsService, passwordEncoder);
+                userRepository, calendarRepository, eventRepository, analyticsService, passwordEncoder, jdbcTemplate);
 
         // Run logic
         commandLineRunner.run();
@@ -74,5 +78,9 @@ public class LoadTestRunnerTest {
         
         // Verify analytics test
         verify(analyticsService, atLeastOnce()).getUserAnalytics(anyLong());
+
+        // Verify range query benchmark ran both the legacy and the indexed query
+        verify(jdbcTemplate, atLeastOnce()).queryForList(startsWith("SELECT id FROM events"), eq(Long.class), any(Object[].class));
+        verify(eventRepository, atLeastOnce()).findEventsInRange(any(), any(), any());
     }
 }
@@ -0,0 +1,192 @@
+package com.calendar.aspect;
+
+import com.calendar.service.EventService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.Signature;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.aspectj.lang.reflect.SourceLocation;
+import org.aspectj.runtime.internal.AroundClosure;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Overhead of the performance aspect per advised call, against calling the target directly.
+ *
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test
+ *           -Dexec.mainClass=com.calendar.aspect.PerformanceAspectBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PerformanceAspectBenchmark {
+
+    private PerformanceAspect aspect;
+    private ProceedingJoinPoint joinPoint;
+
+    @Setup
+    public void setUp() throws NoSuchMethodException {
+        aspect = new PerformanceAspect(new SimpleMeterRegistry());
+        joinPoint = new FixedJoinPoint(EventService.class.getMethod("getEvents", Long.class));
+    }
+
+    @Benchmark
+    public Object direct() throws Throwable {
+        return joinPoint.proceed();
+    }
+
+    @Benchmark
+    public Object advised() throws Throwable {
+        return aspect.measureServiceMethodPerformance(joinPoint);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(PerformanceAspectBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+
+    /**
+     * Join point whose target does nothing, so the benchmark measures only the advice.
+     */
+    private static final class FixedJoinPoint implements ProceedingJoinPoint {
+        private static final Object RESULT = new Object();
+        private final MethodSignature signature;
+
+        FixedJoinPoint(Method method) {
+            this.signature = new FixedSignature(method);
+        }
+
+        @Override
+        public Object proceed() {
+            return RESULT;
+        }
+
+        @Override
+        public Object proceed(Object[] args) {
+            return RESULT;
+        }
+
+        @Override
+        public void set$AroundClosure(AroundClosure arc) {
+        }
+
+        @Override
+        public Signature getSignature() {
+            return signature;
+        }
+
+        @Override
+        public String toShortString() {
+            return signature.getName();
+        }
+
+        @Override
+        public String toLongString() {
+            return signature.getName();
+        }
+
+        @Override
+        public Object getThis() {
+            return null;
+        }
+
+        @Override
+        public Object getTarget() {
+            return null;
+        }
+
+        @Override
+        public Object[] getArgs() {
+            return new Object[0];
+        }
+
+        @Override
+        public SourceLocation getSourceLocation() {
+            return null;
+        }
+
+        @Override
+        public String getKind() {
+            return METHOD_EXECUTION;
+        }
+
+        @Override
+        public StaticPart getStaticPart() {
+            return null;
+        }
+    }
+
+    private static final class FixedSignature implements MethodSignature {
+        private final Method method;
+
+        FixedSignature(Method method) {
+            this.method = method;
+        }
+
+        @Override
+        public Method getMethod() {
+            return method;
+        }
+
+        @Override
+        public Class getReturnType() {
+            return method.getReturnType();
+        }
+
+        @Override
+        public Class[] getParameterTypes() {
+            return method.getParameterTypes();
+        }
+
+        @Override
+        public String[] getParameterNames() {
+            return new String[0];
+        }
+
+        @Override
+        public Class[] getExceptionTypes() {
+            return method.getExceptionTypes();
+        }
+
+        @Override
+        public String toShortString() {
+            return method.getName();
+        }
+
+        @Override
+        public String toLongString() {
+            return method.toString();
+        }
+
+        @Override
+        public String getName() {
+            return method.getName();
+        }
+
+        @Override
+        public int getModifiers() {
+            return method.getModifiers();
+        }
+
+        @Override
+        public Class getDeclaringType() {
+            return method.getDeclaringClass();
+        }
+
+        @Override
+        public String getDeclaringTypeName() {
+            return method.getDeclaringClass().getName();
+        }
+    }
+}
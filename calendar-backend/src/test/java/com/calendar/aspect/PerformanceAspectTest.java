@@ -1,19 +1,26 @@
 package com.calendar.aspect;
 
+import com.calendar.cache.CacheInvalidationBus;
+import com.calendar.cache.TwoTierCache;
+import com.calendar.dto.EventDTO;
+import com.calendar.service.AnalyticsService;
+import com.calendar.service.EventService;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
 import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.aspectj.lang.ProceedingJoinPoint;
-import org.aspectj.lang.Signature;
+import org.aspectj.lang.reflect.MethodSignature;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
-import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.data.redis.core.StringRedisTemplate;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.*;
 
@@ -26,38 +33,46 @@ public class PerformanceAspectTest {
     private ProceedingJoinPoint joinPoint;
 
     @Mock
-    private Signature signature;
+    private MethodSignature signature;
 
-    @InjectMocks
     private PerformanceAspect performanceAspect;
 
     @BeforeEach
     public void setUp() {
-        // Inject real registry manually since InjectMocks might not handle it if not a mock/spy
         performanceAspect = new PerformanceAspect(meterRegistry);
-        
+
         // Basic stubs used in multiple tests
         lenient().when(joinPoint.getSignature()).thenReturn(signature);
     }
 
     @Test
     public void measureServiceMethodPerformance_Success_RecordsMetric() throws Throwable {
-        when(signature.getDeclaringType()).thenReturn(com.calendar.service.EventService.class);
-        when(signature.getName()).thenReturn("getEvents");
+        when(signature.getMethod()).thenReturn(EventService.class.getMethod("getEvents", Long.class));
         when(joinPoint.proceed()).thenReturn("OK");
 
         Object result = performanceAspect.measureServiceMethodPerformance(joinPoint);
 
         assertEquals("OK", result);
-        
+
         Timer timer = meterRegistry.find("service.event.getEvents").timer();
         assertEquals(1, timer.count());
     }
 
+    @Test
+    public void measureServiceMethodPerformance_ReusesMeters() throws Throwable {
+        when(signature.getMethod()).thenReturn(EventService.class.getMethod("getEvents", Long.class));
+        when(joinPoint.proceed()).thenReturn("OK");
+
+        performanceAspect.measureServiceMethodPerformance(joinPoint);
+        performanceAspect.measureServiceMethodPerformance(joinPoint);
+
+        assertEquals(2, meterRegistry.find("service.event.getEvents").timer().count());
+        assertEquals(1, meterRegistry.find("service.event.getEvents").timers().size());
+    }
+
     @Test
     public void measureServiceMethodPerformance_Exception_RecordsErrorMetric() throws Throwable {
-        when(signature.getDeclaringType()).thenReturn(com.calendar.service.EventService.class);
-        when(signature.getName()).thenReturn("createEvent");
+        when(signature.getMethod()).thenReturn(EventService.class.getMethod("createEvent", Long.class, EventDTO.class));
         when(joinPoint.proceed()).thenThrow(new RuntimeException("Service Error"));
 
         assertThrows(RuntimeException.class, () -> {
@@ -69,26 +84,36 @@ public class PerformanceAspectTest {
     }
 
     @Test
-    public void measureAnalyticsPerformance_Success_RecordsAnalyticsMetric() throws Throwable {
+    public void measureServiceMethodPerformance_CacheableMethod_TagsCacheOutcome() throws Throwable {
+        when(signature.getMethod()).thenReturn(AnalyticsService.class.getMethod("getUserAnalytics", Long.class));
+        // Stand in for the caching proxy beneath the aspect: a miss, then a hit
+        TwoTierCache cache = analyticsCache();
+        when(joinPoint.proceed()).thenAnswer(invocation -> cache.get(1L, () -> "Analytics Data"));
+
+        performanceAspect.measureServiceMethodPerformance(joinPoint);
+        performanceAspect.measureServiceMethodPerformance(joinPoint);
+
+        Timer miss = meterRegistry.find("service.analytics.getUserAnalytics").tag("cached", "miss").timer();
+        Timer hit = meterRegistry.find("service.analytics.getUserAnalytics").tag("cached", "hit").timer();
+        assertNotNull(miss);
+        assertNotNull(hit);
+        assertEquals(1, miss.count());
+        assertEquals(1, hit.count());
+    }
+
+    @Test
+    public void measureServiceMethodPerformance_CacheableMethod_NoCacheRead() throws Throwable {
+        when(signature.getMethod()).thenReturn(AnalyticsService.class.getMethod("getUserAnalytics", Long.class));
         when(joinPoint.proceed()).thenReturn("Analytics Data");
 
-        Object result = performanceAspect.measureAnalyticsPerformance(joinPoint);
+        performanceAspect.measureServiceMethodPerformance(joinPoint);
 
-        assertEquals("Analytics Data", result);
-        
-        Timer timer = meterRegistry.find("analytics.query.time").timer();
-        assertEquals(1, timer.count());
+        assertEquals(1, meterRegistry.find("service.analytics.getUserAnalytics").tag("cached", "none").timer().count());
     }
-    
-    @Test
-    public void measureAnalyticsPerformance_Exception_RecordsErrorMetric() throws Throwable {
-        when(joinPoint.proceed()).thenThrow(new RuntimeException("Analytics Error"));
 
-        assertThrows(RuntimeException.class, () -> {
-            performanceAspect.measureAnalyticsPerformance(joinPoint);
-        });
-
-        Timer timer = meterRegistry.find("analytics.query.error").timer();
-        assertEquals(1, timer.count());
+    // A two-tier cache over in-memory tiers, read the way the caching proxy reads it
+    private TwoTierCache analyticsCache() {
+        return new TwoTierCache("analytics", new ConcurrentMapCache("analytics"), Caffeine.newBuilder().build(),
+                new CacheInvalidationBus(mock(StringRedisTemplate.class)), new SimpleMeterRegistry());
     }
 }
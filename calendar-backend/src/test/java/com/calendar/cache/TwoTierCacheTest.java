@@ -0,0 +1,220 @@
+package com.calendar.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class TwoTierCacheTest {
+
+    private ConcurrentMapCache l2;
+    private CacheInvalidationBus bus;
+    private StringRedisTemplate redisTemplate;
+    private SimpleMeterRegistry meterRegistry;
+    private TwoTierCache cache;
+
+    @BeforeEach
+    void setUp() {
+        l2 = spy(new ConcurrentMapCache("analytics"));
+        redisTemplate = mock(StringRedisTemplate.class);
+        bus = new CacheInvalidationBus(redisTemplate);
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new TwoTierCache("analytics", l2, Caffeine.newBuilder().maximumSize(100).build(), bus, meterRegistry);
+    }
+
+    @Test
+    void get_L2HitFillsL1() {
+        l2.put(1L, "value");
+
+        assertEquals("value", cache.get(1L).get());
+        assertEquals("value", cache.get(1L).get());
+
+        // Second read is served by L1
+        verify(l2, times(1)).get(1L);
+        assertEquals(1.0, meterRegistry.get("cache.tier.gets").tags("tier", "l1", "result", "hit").counter().count());
+        assertEquals(1.0, meterRegistry.get("cache.tier.gets").tags("tier", "l2", "result", "hit").counter().count());
+    }
+
+    @Test
+    void get_MissInBothTiers() {
+        assertNull(cache.get(1L));
+        assertEquals(1.0, meterRegistry.get("cache.tier.gets").tags("tier", "l2", "result", "miss").counter().count());
+    }
+
+    @Test
+    void evict_ClearsBothTiersAndBroadcasts() {
+        cache.put(1L, "value");
+        cache.evict(1L);
+
+        assertNull(l2.get(1L));
+        assertNull(cache.get(1L));
+        verify(redisTemplate, times(2)).convertAndSend(eq(CacheInvalidationBus.CHANNEL), anyString());
+    }
+
+    @Test
+    void remoteInvalidation_DropsOnlyL1() {
+        ConcurrentMapCacheManager l2Manager = new ConcurrentMapCacheManager("analytics");
+        TwoTierCacheManager manager = new TwoTierCacheManager(l2Manager, bus, meterRegistry, 100, Duration.ofMinutes(1));
+        Cache managed = manager.getCache("analytics");
+        managed.put(1L, "value");
+
+        // Another node updated the shared tier and broadcast an eviction
+        l2Manager.getCache("analytics").put(1L, "fresh");
+        bus.onMessage(new DefaultMessage(CacheInvalidationBus.CHANNEL.getBytes(StandardCharsets.UTF_8),
+                "other-node|analytics|E|1".getBytes(StandardCharsets.UTF_8)), null);
+
+        assertEquals("fresh", managed.get(1L).get());
+    }
+
+    @Test
+    void getWithLoader_ConcurrentMissesLoadOnce() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            results.add(pool.submit(() -> cache.get(1L, () -> {
+                loads.incrementAndGet();
+                loading.countDown();
+                release.await();
+                return "value";
+            })));
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+            for (int i = 0; i < 7; i++) {
+                results.add(pool.submit(() -> cache.get(1L, () -> {
+                    loads.incrementAndGet();
+                    return "other";
+                })));
+            }
+            Thread.sleep(50);
+            release.countDown();
+
+            for (Future<String> result : results) {
+                assertEquals("value", result.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, loads.get());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void getWithLoader_EvictDuringLoadKeepsResultOutOfCache() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> result = pool.submit(() -> cache.get(1L, () -> {
+                loading.countDown();
+                release.await();
+                return "before the write";
+            }));
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+            // A write lands while the loader is still reading
+            cache.evict(1L);
+            release.countDown();
+
+            assertEquals("before the write", result.get(5, TimeUnit.SECONDS));
+            assertNull(l2.get(1L));
+            assertEquals("after the write", cache.get(1L, () -> "after the write"));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void getWithLoader_WaitsForOtherNodeHoldingLease() {
+        SingleFlightLock lock = mock(SingleFlightLock.class);
+        when(lock.tryAcquire("analytics", "1")).thenReturn(null);
+        when(lock.await(eq("analytics"), eq("1"), any())).thenAnswer(invocation -> {
+            // The other node finishes while we wait
+            l2.put(1L, "remote");
+            return invocation.<Supplier<Object>>getArgument(2).get();
+        });
+        cache.setSingleFlightLock(lock);
+
+        assertEquals("remote", cache.get(1L, () -> "local"));
+        verify(lock, never()).release(anyString(), anyString(), anyString());
+    }
+
+    @Test
+    void getWithLoader_WakesWhenOtherNodeBroadcastsItsResult() throws Exception {
+        @SuppressWarnings("unchecked")
+        ValueOperations<String, String> values = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(values);
+        // Lease held elsewhere; without a broadcast this caller would wait 10s
+        SingleFlightLock lock = new SingleFlightLock(redisTemplate, Duration.ofSeconds(10), Duration.ofSeconds(10));
+        cache.setSingleFlightLock(lock);
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> result = pool.submit(() -> cache.get(1L, () -> "local"));
+            Thread.sleep(100);
+            assertFalse(result.isDone());
+
+            l2.put(1L, "remote");
+            cache.invalidateLocal("1");
+
+            assertEquals("remote", result.get(1, TimeUnit.SECONDS));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void get_SharedTierFailureIsAMiss() {
+        doThrow(new RuntimeException("connection refused")).when(l2).get(1L);
+        doThrow(new RuntimeException("connection refused")).when(l2).put(eq(1L), any());
+
+        assertNull(cache.get(1L));
+        assertEquals("local", cache.get(1L, () -> "local"));
+        assertEquals(2.0, meterRegistry.get("cache.tier.gets").tags("tier", "l2", "result", "miss").counter().count());
+    }
+
+    @Test
+    void getWithLoader_LeaseHolderComputesAndReleases() {
+        SingleFlightLock lock = mock(SingleFlightLock.class);
+        when(lock.tryAcquire("analytics", "1")).thenReturn("token");
+        cache.setSingleFlightLock(lock);
+
+        assertEquals("local", cache.get(1L, () -> "local"));
+        assertEquals("local", l2.get(1L).get());
+        verify(lock).release("analytics", "1", "token");
+    }
+
+    @Test
+    void staleWhileRevalidate_ServesStaleAndRefreshes() {
+        // Everything is stale as soon as it is written; refreshes run inline
+        cache.enableStaleWhileRevalidate(Duration.ZERO, Runnable::run);
+        cache.put(1L, "old");
+
+        assertNull(cache.get(1L));
+        assertEquals("old", cache.get(1L, () -> "new"));
+        assertEquals("new", ((StampedValue) l2.get(1L).get()).getValue());
+        assertEquals(1.0, meterRegistry.get("cache.stale.served").counter().count());
+    }
+}
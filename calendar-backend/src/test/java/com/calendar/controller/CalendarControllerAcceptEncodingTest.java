@@ -0,0 +1,34 @@
+package com.calendar.controller;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CalendarControllerAcceptEncodingTest {
+
+    @Test
+    void acceptsGzip_ListedWithPositiveQ() {
+        assertTrue(CalendarController.acceptsGzip("gzip, deflate"));
+        assertTrue(CalendarController.acceptsGzip("deflate;q=1.0, GZIP;q=0.5"));
+        assertTrue(CalendarController.acceptsGzip("x-gzip"));
+    }
+
+    @Test
+    void acceptsGzip_RefusedWithZeroQ() {
+        assertFalse(CalendarController.acceptsGzip("gzip;q=0"));
+        assertFalse(CalendarController.acceptsGzip("deflate, gzip; q=0.000"));
+        assertFalse(CalendarController.acceptsGzip("gzip;q=abc"));
+        assertFalse(CalendarController.acceptsGzip(null));
+        assertFalse(CalendarController.acceptsGzip("identity"));
+    }
+
+    @Test
+    void acceptsGzip_WildcardAppliesOnlyWhenGzipIsNotListed() {
+        assertTrue(CalendarController.acceptsGzip("*"));
+        assertFalse(CalendarController.acceptsGzip("*;q=0"));
+        assertFalse(CalendarController.acceptsGzip("identity, *;q=0"));
+        assertTrue(CalendarController.acceptsGzip("gzip, *;q=0"));
+        assertFalse(CalendarController.acceptsGzip("gzip;q=0, *"));
+    }
+}
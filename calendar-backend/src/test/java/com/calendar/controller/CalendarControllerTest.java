@@ -13,13 +13,23 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.Optional;
+import java.util.zip.GZIPInputStream;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -64,4 +74,50 @@ class CalendarControllerTest {
                 .andExpect(jsonPath("$[0].name").value("Test Calendar"))
                 .andExpect(jsonPath("$[0].id").value(10));
     }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    void exportCalendar_StreamsIcs() throws Exception {
+        User mockUser = new User("testuser", "password", "test@example.com");
+        mockUser.setId(1L);
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(mockUser));
+        doAnswer(invocation -> {
+            ((OutputStream) invocation.getArgument(2)).write("BEGIN:VCALENDAR\r\nEND:VCALENDAR\r\n".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(calendarService).exportCalendar(eq(10L), eq(1L), any(OutputStream.class));
+
+        MvcResult result = mockMvc.perform(get("/api/calendars/10/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"calendar.ics\""))
+                .andExpect(header().doesNotExist("Content-Encoding"))
+                .andExpect(content().string("BEGIN:VCALENDAR\r\nEND:VCALENDAR\r\n"));
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    void exportCalendar_GzipWhenAccepted() throws Exception {
+        User mockUser = new User("testuser", "password", "test@example.com");
+        mockUser.setId(1L);
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(mockUser));
+        doAnswer(invocation -> {
+            ((OutputStream) invocation.getArgument(2)).write("BEGIN:VCALENDAR\r\n".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(calendarService).exportCalendar(eq(10L), eq(1L), any(OutputStream.class));
+
+        MvcResult result = mockMvc.perform(get("/api/calendars/10/export").header("Accept-Encoding", "gzip, deflate"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        byte[] body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andReturn().getResponse().getContentAsByteArray();
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            assertEquals("BEGIN:VCALENDAR\r\n", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
 }
@@ -1,6 +1,7 @@
 package com.calendar.controller;
 
 import com.calendar.dto.EventDTO;
+import com.calendar.dto.EventPageDTO;
 import com.calendar.model.User;
 import com.calendar.repository.UserRepository;
 import com.calendar.service.EventService;
@@ -13,12 +14,15 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -80,6 +84,52 @@ class EventControllerTest {
                 .andExpect(jsonPath("$[0].subject").value("Test Event"));
     }
 
+    @Test
+    @WithMockUser(username = "testuser")
+    void getEventPage_Success() throws Exception {
+        EventDTO eventDTO = EventDTO.builder()
+                .id(1L)
+                .subject("Paged Event")
+                .startTime(LocalDateTime.now())
+                .endTime(LocalDateTime.now().plusHours(1))
+                .build();
+
+        when(eventService.getEventPage(1L, "abc", 50))
+                .thenReturn(new EventPageDTO(Collections.singletonList(eventDTO), "next"));
+
+        mockMvc.perform(get("/api/events/calendar/1/page")
+                .param("cursor", "abc")
+                .param("limit", "50"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.events[0].subject").value("Paged Event"))
+                .andExpect(jsonPath("$.nextCursor").value("next"));
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    @SuppressWarnings("unchecked")
+    void streamEvents_WritesJsonArray() throws Exception {
+        EventDTO eventDTO = EventDTO.builder()
+                .id(1L)
+                .subject("Streamed Event")
+                .startTime(LocalDateTime.now())
+                .endTime(LocalDateTime.now().plusHours(1))
+                .build();
+
+        doAnswer(invocation -> {
+            ((Consumer<EventDTO>) invocation.getArgument(1)).accept(eventDTO);
+            return null;
+        }).when(eventService).forEachEvent(eq(1L), any());
+
+        MvcResult result = mockMvc.perform(get("/api/events/calendar/1/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].subject").value("Streamed Event"));
+    }
+
     @Test
     @WithMockUser(username = "testuser")
     void createEvent_Success() throws Exception {
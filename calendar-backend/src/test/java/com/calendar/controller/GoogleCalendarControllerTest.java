@@ -2,6 +2,8 @@ package com.calendar.controller;
 
 import com.calendar.config.GoogleCalendarConfig;
 import com.calendar.service.GoogleCalendarService;
+import com.calendar.service.GoogleCallExecutor;
+import com.calendar.service.GoogleQuotaGovernor;
 import com.google.api.services.calendar.model.Event;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -11,9 +13,12 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
@@ -21,8 +26,9 @@ import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
-@WebMvcTest(GoogleCalendarController.class)
-@org.springframework.context.annotation.Import(com.calendar.config.SecurityConfig.class)
+// The whole class shares one rate limit bucket per tier; keep it out of the way
+@WebMvcTest(controllers = GoogleCalendarController.class, properties = "rate.limit.heavy.requests=1000")
+@org.springframework.context.annotation.Import({com.calendar.config.SecurityConfig.class, WebMvcSliceConfig.class})
 public class GoogleCalendarControllerTest {
 
     @Autowired
@@ -34,6 +40,9 @@ public class GoogleCalendarControllerTest {
     @MockBean
     private GoogleCalendarConfig googleCalendarConfig;
 
+    @MockBean
+    private com.calendar.service.GoogleSyncScheduler googleSyncScheduler;
+
     @MockBean
     private com.calendar.security.JwtUtils jwtUtils;
 
@@ -118,6 +127,8 @@ public class GoogleCalendarControllerTest {
         // Verify exchangeCode called with correct args
         // exchangeCode(code, redirectUri, userId)
         verify(googleCalendarService, times(1)).exchangeCode(eq(code), anyString(), eq("1"));
+        // The first sync starts in the background
+        verify(googleSyncScheduler).onConnected(1L);
     }
 
     @Test
@@ -127,9 +138,9 @@ public class GoogleCalendarControllerTest {
         
         // Controller calls getCredentialFromDatabase
         when(googleCalendarService.getCredentialFromDatabase(1L)).thenReturn(mock(com.google.api.client.auth.oauth2.Credential.class));
-        when(googleCalendarService.fetchGoogleCalendarEvents(any(), any())).thenReturn(events);
+        when(googleCalendarService.fetchGoogleCalendarEventsAsync(any(), any())).thenReturn(CompletableFuture.completedFuture(events));
 
-        mockMvc.perform(get("/api/google/events"))
+        mockMvc.perform(asyncDispatch(startAsync(get("/api/google/events"))))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$[0].summary").value("Test Event"));
     }
@@ -137,9 +148,10 @@ public class GoogleCalendarControllerTest {
     @Test
     public void fetchEvents_AuthError() throws Exception {
         when(googleCalendarService.getCredentialFromDatabase(1L)).thenReturn(mock(com.google.api.client.auth.oauth2.Credential.class));
-        when(googleCalendarService.fetchGoogleCalendarEvents(any(), any())).thenThrow(new java.io.IOException("401 Unauthorized"));
+        when(googleCalendarService.fetchGoogleCalendarEventsAsync(any(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new java.io.IOException("401 Unauthorized")));
 
-        mockMvc.perform(get("/api/google/events"))
+        mockMvc.perform(asyncDispatch(startAsync(get("/api/google/events"))))
                 .andExpect(status().isUnauthorized())
                 .andExpect(jsonPath("$.message").value("Google Calendar session expired. Please reconnect."));
     }
@@ -147,54 +159,103 @@ public class GoogleCalendarControllerTest {
     @Test
     public void fetchEvents_GenericError() throws Exception {
         when(googleCalendarService.getCredentialFromDatabase(1L)).thenReturn(mock(com.google.api.client.auth.oauth2.Credential.class));
-        when(googleCalendarService.fetchGoogleCalendarEvents(any(), any())).thenThrow(new java.io.IOException("Generic Error"));
+        when(googleCalendarService.fetchGoogleCalendarEventsAsync(any(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new java.io.IOException("Generic Error")));
 
-        mockMvc.perform(get("/api/google/events"))
+        mockMvc.perform(asyncDispatch(startAsync(get("/api/google/events"))))
                 .andExpect(status().isBadRequest())
                 .andExpect(jsonPath("$.message").value("Failed to fetch events from Google Calendar"));
     }
 
+    @Test
+    public void fetchEvents_CircuitOpen_ReturnsServiceUnavailable() throws Exception {
+        when(googleCalendarService.getCredentialFromDatabase(1L)).thenReturn(mock(com.google.api.client.auth.oauth2.Credential.class));
+        when(googleCalendarService.fetchGoogleCalendarEventsAsync(any(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new GoogleCallExecutor.CircuitOpenException("events.list")));
+
+        mockMvc.perform(asyncDispatch(startAsync(get("/api/google/events"))))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().exists("Retry-After"));
+    }
+
+    @Test
+    public void fetchEvents_QuotaExhausted_ReturnsTooManyRequests() throws Exception {
+        when(googleCalendarService.getCredentialFromDatabase(1L)).thenReturn(mock(com.google.api.client.auth.oauth2.Credential.class));
+        when(googleCalendarService.fetchGoogleCalendarEventsAsync(any(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new GoogleQuotaGovernor.QuotaExceededException(java.time.Duration.ofSeconds(10))));
+
+        mockMvc.perform(asyncDispatch(startAsync(get("/api/google/events"))))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists("Retry-After"));
+    }
+
     @Test
     public void exportEvent_Success() throws Exception {
         // Mock credential
         when(googleCalendarService.getCredentialFromDatabase(1L)).thenReturn(mock(com.google.api.client.auth.oauth2.Credential.class));
         
         Event exportedEvent = new Event().setId("evt123").setSummary("Test Event");
-        when(googleCalendarService.exportToGoogleCalendar(any(), any(Event.class))).thenReturn(exportedEvent);
+        when(googleCalendarService.exportToGoogleCalendar(any(), eq(1L), any(Event.class))).thenReturn(CompletableFuture.completedFuture(exportedEvent));
 
-        mockMvc.perform(post("/api/google/export")
+        mockMvc.perform(asyncDispatch(startAsync(post("/api/google/export")
                 .contentType(MediaType.APPLICATION_JSON)
-                .content("{\"summary\":\"Test Event\"}"))
+                .content("{\"summary\":\"Test Event\"}"))))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.status").value("success"));
+                .andExpect(jsonPath("$.status").value("success"))
+                .andExpect(jsonPath("$.eventId").value("evt123"));
+    }
+
+    // Google calls complete on another thread; the request thread is released first
+    private MvcResult startAsync(MockHttpServletRequestBuilder builder) throws Exception {
+        return mockMvc.perform(builder)
+                .andExpect(request().asyncStarted())
+                .andReturn();
     }
 
     @Test
-    public void syncEvents_Success() throws Exception {
-        // Mock sync
+    public void syncEvents_QueuesBackgroundSync() throws Exception {
         com.calendar.model.User mockUser = new com.calendar.model.User();
         mockUser.setId(1L);
         mockUser.setUsername("testuser");
+        mockUser.setGoogleAccessToken("valid-token");
         when(googleCalendarService.getUserById(1L)).thenReturn(mockUser);
-        
-        when(googleCalendarService.syncGoogleEvents(any())).thenReturn(Collections.emptyList());
-        when(googleCalendarService.pushLocalEventsToGoogle(any())).thenReturn(0);
+        com.calendar.model.GoogleSyncState state = new com.calendar.model.GoogleSyncState(1L, java.time.LocalDateTime.now());
+        state.setRequestedAt(java.time.LocalDateTime.of(2026, 3, 1, 9, 30));
+        when(googleSyncScheduler.getState(1L)).thenReturn(java.util.Optional.of(state));
 
         mockMvc.perform(post("/api/google/sync"))
-                .andExpect(status().isOk());
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.status").value("queued"))
+                .andExpect(jsonPath("$.requestedAt").value("2026-03-01T09:30:00"));
+
+        verify(googleSyncScheduler).requestSync(1L);
+        // The request never waits on Google
+        verify(googleCalendarService, never()).syncGoogleEvents(any());
+        verify(googleCalendarService, never()).pushLocalEventsToGoogle(any());
     }
 
     @Test
-    public void syncEvents_Exception() throws Exception {
-        // Mock sync exception
+    public void syncEvents_NotConnected_ReturnsBadRequest() throws Exception {
         com.calendar.model.User mockUser = new com.calendar.model.User();
         mockUser.setId(1L);
         when(googleCalendarService.getUserById(1L)).thenReturn(mockUser);
-        
-        when(googleCalendarService.syncGoogleEvents(any())).thenThrow(new RuntimeException("Sync Error"));
 
         mockMvc.perform(post("/api/google/sync"))
-                .andExpect(status().isInternalServerError())
-                .andExpect(jsonPath("$.message").value("Sync failed: Sync Error"));
+                .andExpect(status().isBadRequest());
+
+        verify(googleSyncScheduler, never()).requestSync(any());
+    }
+
+    @Test
+    public void getSyncStatus_ReportsLastOutcome() throws Exception {
+        com.calendar.model.GoogleSyncState state = new com.calendar.model.GoogleSyncState(1L, java.time.LocalDateTime.now());
+        state.setLastFailureAt(java.time.LocalDateTime.now());
+        state.setLastError("Sync Error");
+        when(googleSyncScheduler.getState(1L)).thenReturn(java.util.Optional.of(state));
+
+        mockMvc.perform(get("/api/google/sync"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.lastError").value("Sync Error"))
+                .andExpect(jsonPath("$.running").value(false));
     }
 }
@@ -19,6 +19,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(UserController.class)
+@org.springframework.context.annotation.Import(WebMvcSliceConfig.class)
 @AutoConfigureMockMvc(addFilters = false)
 public class UserControllerTest {
 
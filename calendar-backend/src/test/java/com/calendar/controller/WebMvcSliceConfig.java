@@ -0,0 +1,30 @@
+package com.calendar.controller;
+
+import com.calendar.middleware.RateLimitPolicy;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Beans the interceptors registered by RateLimitConfig need, which a @WebMvcTest slice does
+ * not load: a meter registry, the rate limit policy, and a Redis template (only used in redis mode).
+ */
+@TestConfiguration
+@Import(RateLimitPolicy.class)
+public class WebMvcSliceConfig {
+
+    @Bean
+    public MeterRegistry meterRegistry() {
+        return new SimpleMeterRegistry();
+    }
+
+    @Bean
+    public StringRedisTemplate stringRedisTemplate() {
+        return mock(StringRedisTemplate.class);
+    }
+}
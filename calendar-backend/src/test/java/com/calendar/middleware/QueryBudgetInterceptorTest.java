@@ -0,0 +1,82 @@
+package com.calendar.middleware;
+
+import com.calendar.monitoring.QueryCountingDataSource;
+import com.calendar.monitoring.QueryStats;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.sql.Connection;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueryBudgetInterceptorTest {
+
+    private QueryBudgetInterceptor interceptor;
+    private SimpleMeterRegistry meterRegistry;
+    private QueryCountingDataSource dataSource;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        interceptor = new QueryBudgetInterceptor();
+        ReflectionTestUtils.setField(interceptor, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(interceptor, "defaultBudget", 2);
+        ReflectionTestUtils.setField(interceptor, "endpointBudgets", "POST /api/google/sync=10");
+        interceptor.init();
+
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:query-budget;DB_CLOSE_DELAY=-1");
+        dataSource = new QueryCountingDataSource(h2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        QueryStats.stop();
+    }
+
+    @Test
+    void afterCompletion_RecordsPerEndpointAndFlagsOverBudget() throws Exception {
+        MockHttpServletRequest request = request("GET", "/api/calendars/{id}/export");
+
+        interceptor.preHandle(request, new MockHttpServletResponse(), null);
+        runQueries(3);
+        interceptor.afterCompletion(request, new MockHttpServletResponse(), null, null);
+
+        assertEquals(3.0, meterRegistry.get("db.request.queries").tag("uri", "/api/calendars/{id}/export").summary().totalAmount());
+        assertEquals(1.0, meterRegistry.get("db.request.budget.exceeded").counter().count());
+        assertNull(QueryStats.current());
+    }
+
+    @Test
+    void afterCompletion_EndpointOverrideRaisesBudget() throws Exception {
+        MockHttpServletRequest request = request("POST", "/api/google/sync");
+
+        interceptor.preHandle(request, new MockHttpServletResponse(), null);
+        runQueries(3);
+        interceptor.afterCompletion(request, new MockHttpServletResponse(), null, null);
+
+        assertEquals(0.0, meterRegistry.get("db.request.budget.exceeded").counter().count());
+    }
+
+    private void runQueries(int count) throws Exception {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            for (int i = 0; i < count; i++) {
+                statement.executeQuery("SELECT 1").close();
+            }
+        }
+    }
+
+    private MockHttpServletRequest request(String method, String pattern) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, pattern);
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, pattern);
+        return request;
+    }
+}
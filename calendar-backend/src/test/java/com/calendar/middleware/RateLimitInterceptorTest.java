@@ -0,0 +1,123 @@
+package com.calendar.middleware;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import com.calendar.model.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class RateLimitInterceptorTest {
+
+    private RateLimitInterceptor interceptor;
+    private SimpleMeterRegistry meterRegistry;
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        interceptor = new RateLimitInterceptor();
+        ReflectionTestUtils.setField(interceptor, "meterRegistry", meterRegistry);
+        RateLimitPolicy policy = new RateLimitPolicy();
+        ReflectionTestUtils.setField(policy, "readRequests", 2L);
+        ReflectionTestUtils.setField(policy, "heavyRequests", 10L);
+        ReflectionTestUtils.setField(policy, "routes", "GET /api/calendars/*/export=heavy:5");
+        policy.init();
+        ReflectionTestUtils.setField(interceptor, "rateLimitPolicy", policy);
+        ReflectionTestUtils.setField(interceptor, "maxBuckets", 10L);
+        interceptor.init();
+    }
+
+    @Test
+    void preHandle_RejectsOverLimit() throws Exception {
+        assertTrue(interceptor.preHandle(request("10.0.0.1"), new MockHttpServletResponse(), null));
+        assertTrue(interceptor.preHandle(request("10.0.0.1"), new MockHttpServletResponse(), null));
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertFalse(interceptor.preHandle(request("10.0.0.1"), response, null));
+        assertEquals(429, response.getStatus());
+        assertEquals(1.0, meterRegistry.get("rate.limit.rejected").counter().count());
+
+        // Other clients have their own quota
+        assertTrue(interceptor.preHandle(request("10.0.0.2"), new MockHttpServletResponse(), null));
+    }
+
+    @Test
+    void preHandle_HeavyRouteCostsMoreAndSetsRetryAfter() throws Exception {
+        assertTrue(interceptor.preHandle(request("GET", "/api/calendars/1/export", "10.0.0.1"), new MockHttpServletResponse(), null));
+        assertTrue(interceptor.preHandle(request("GET", "/api/calendars/1/export", "10.0.0.1"), new MockHttpServletResponse(), null));
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertFalse(interceptor.preHandle(request("GET", "/api/calendars/1/export", "10.0.0.1"), response, null));
+        assertEquals(429, response.getStatus());
+        // 5 of 10 tokens per minute refill in 30 seconds
+        long retryAfter = Long.parseLong(response.getHeader("Retry-After"));
+        assertTrue(retryAfter > 0 && retryAfter <= 30);
+
+        // Cheap reads draw from their own tier
+        assertTrue(interceptor.preHandle(request("10.0.0.1"), new MockHttpServletResponse(), null));
+    }
+
+    @Test
+    void preHandle_AuthenticatedUsersBehindOneIpHaveSeparateQuotas() throws Exception {
+        for (long userId = 1; userId <= 2; userId++) {
+            User user = new User();
+            user.setId(userId);
+            SecurityContextHolder.getContext().setAuthentication(
+                    new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+            assertTrue(interceptor.preHandle(request("10.0.0.1"), new MockHttpServletResponse(), null));
+            assertTrue(interceptor.preHandle(request("10.0.0.1"), new MockHttpServletResponse(), null));
+            assertFalse(interceptor.preHandle(request("10.0.0.1"), new MockHttpServletResponse(), null));
+        }
+    }
+
+    @Test
+    void preHandle_BucketTableStaysBounded() throws Exception {
+        for (int i = 0; i < 100; i++) {
+            interceptor.preHandle(request("10.0.1." + i), new MockHttpServletResponse(), null);
+        }
+
+        assertTrue(interceptor.bucketCount() <= 10);
+    }
+
+    @Test
+    void preHandle_FallsBackToLocalBucketsWhenRedisFails() throws Exception {
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        when(redisTemplate.execute(ArgumentMatchers.<RedisScript<List<Object>>>any(), anyList(), anyString(), anyString(), anyString(), anyString()))
+                .thenThrow(new RuntimeException("connection refused"));
+        ReflectionTestUtils.setField(interceptor, "stringRedisTemplate", redisTemplate);
+        ReflectionTestUtils.setField(interceptor, "mode", "redis");
+        interceptor.init();
+
+        assertTrue(interceptor.preHandle(request("10.0.0.1"), new MockHttpServletResponse(), null));
+        assertTrue(interceptor.preHandle(request("10.0.0.1"), new MockHttpServletResponse(), null));
+        assertFalse(interceptor.preHandle(request("10.0.0.1"), new MockHttpServletResponse(), null));
+    }
+
+    private MockHttpServletRequest request(String ip) {
+        return request("GET", "/api/calendars", ip);
+    }
+
+    private MockHttpServletRequest request(String method, String path, String ip) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, path);
+        request.setRemoteAddr(ip);
+        return request;
+    }
+}
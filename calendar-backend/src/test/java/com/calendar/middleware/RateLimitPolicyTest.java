@@ -0,0 +1,47 @@
+package com.calendar.middleware;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimitPolicyTest {
+
+    private RateLimitPolicy policy;
+
+    @BeforeEach
+    void setUp() {
+        policy = new RateLimitPolicy();
+        ReflectionTestUtils.setField(policy, "routes",
+                "GET /api/calendars/*/export=heavy:5, POST /api/google/sync=heavy:50");
+        policy.init();
+    }
+
+    @Test
+    void resolve_ConfiguredRoute() {
+        RateLimitPolicy.Route route = policy.resolve("GET", "/api/calendars/42/export");
+
+        assertEquals(RateLimitPolicy.Tier.HEAVY, route.getTier());
+        assertEquals(5, route.getCost());
+    }
+
+    @Test
+    void resolve_CostIsCappedAtTierCapacity() {
+        assertEquals(20, policy.resolve("POST", "/api/google/sync").getCost());
+    }
+
+    @Test
+    void resolve_DefaultsByMethod() {
+        assertEquals(RateLimitPolicy.Tier.READ, policy.resolve("GET", "/api/users/me").getTier());
+        assertEquals(RateLimitPolicy.Tier.WRITE, policy.resolve("POST", "/api/calendars").getTier());
+        assertEquals(1, policy.resolve("DELETE", "/api/events/1").getCost());
+    }
+
+    @Test
+    void init_RejectsMalformedRoute() {
+        ReflectionTestUtils.setField(policy, "routes", "GET /api/calendars");
+
+        assertThrows(RuntimeException.class, () -> policy.init());
+    }
+}
@@ -0,0 +1,92 @@
+package com.calendar.middleware;
+
+import io.github.bucket4j.ConsumptionProbe;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class RedisRateLimiterTest {
+
+    private StringRedisTemplate redisTemplate;
+    private RedisRateLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        redisTemplate = mock(StringRedisTemplate.class);
+        limiter = new RedisRateLimiter(redisTemplate, Duration.ofMinutes(1), 10, Duration.ofSeconds(5), 1000);
+    }
+
+    @Test
+    void tryConsume_ServesFromLeaseUntilExhausted() {
+        stubTake(10L, 90L);
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(limiter.tryConsume("10.0.0.1", 100, 1).isConsumed());
+        }
+
+        // One round trip leased tokens for all ten requests
+        verify(redisTemplate, times(1)).execute(anyScript(), anyList(), anyString(), anyString(), anyString(), anyString());
+    }
+
+    @Test
+    void tryConsume_RejectsWhenSharedBucketIsEmpty() {
+        stubTake(0L, 0L);
+
+        ConsumptionProbe probe = limiter.tryConsume("10.0.0.1", 100, 1);
+        assertFalse(probe.isConsumed());
+        assertTrue(probe.getNanosToWaitForRefill() > 0);
+
+        // Retrying before the refill is answered locally
+        assertFalse(limiter.tryConsume("10.0.0.1", 100, 1).isConsumed());
+        verify(redisTemplate, times(1)).execute(anyScript(), anyList(), anyString(), anyString(), anyString(), anyString());
+    }
+
+    @Test
+    void tryConsume_RedisErrorPropagates() {
+        when(redisTemplate.execute(anyScript(), anyList(), anyString(), anyString(), anyString(), anyString()))
+                .thenThrow(new RuntimeException("connection refused"));
+
+        assertThrows(RuntimeException.class, () -> limiter.tryConsume("10.0.0.1", 100, 1));
+    }
+
+    @Test
+    void tryConsume_RetryAfterCoversMissingTokens() {
+        stubTake(0L, 0L);
+
+        // 5 tokens at 100 per minute take 3 seconds to refill
+        ConsumptionProbe probe = limiter.tryConsume("10.0.0.1", 100, 5);
+        assertFalse(probe.isConsumed());
+        assertEquals(3000, TimeUnit.NANOSECONDS.toMillis(probe.getNanosToWaitForRefill()));
+    }
+
+    @Test
+    void refund_ReturnsTokensToTheLease() {
+        stubTake(10L, 0L);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(limiter.tryConsume("10.0.0.1", 100, 1).isConsumed());
+        }
+
+        limiter.refund("10.0.0.1", 2);
+
+        assertTrue(limiter.tryConsume("10.0.0.1", 100, 2).isConsumed());
+        verify(redisTemplate, times(1)).execute(anyScript(), anyList(), anyString(), anyString(), anyString(), anyString());
+    }
+
+    private void stubTake(long granted, long left) {
+        when(redisTemplate.execute(anyScript(), anyList(), anyString(), anyString(), anyString(), anyString()))
+                .thenReturn(List.of(granted, left));
+    }
+
+    private static RedisScript<List<Object>> anyScript() {
+        return any();
+    }
+}
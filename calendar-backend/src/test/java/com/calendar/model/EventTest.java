@@ -70,4 +70,23 @@ class EventTest {
         Event event = new Event("Meeting", startTime, endTime, calendar);
         assertNotNull(event.getUpdatedAt());
     }
+
+    @Test
+    void updateLongRunning_FlagsOnlyEventsBeyondIndexedDuration() {
+        Event shortEvent = new Event("Meeting", startTime, startTime.plus(Event.MAX_INDEXED_DURATION), calendar);
+        shortEvent.updateLongRunning();
+        assertFalse(shortEvent.isLongRunning());
+
+        Event longEvent = new Event("Conference", startTime, startTime.plusDays(3), calendar);
+        longEvent.updateLongRunning();
+        assertTrue(longEvent.isLongRunning());
+    }
+
+    @Test
+    void updateLongRunning_FlagsSeriesMasters() {
+        Event master = new Event("Standup", startTime, endTime, calendar);
+        master.setRecurrenceRule("FREQ=DAILY;INTERVAL=1");
+        master.updateLongRunning();
+        assertTrue(master.isLongRunning());
+    }
 }
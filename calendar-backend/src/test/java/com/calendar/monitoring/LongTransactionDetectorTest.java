@@ -0,0 +1,92 @@
+package com.calendar.monitoring;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongTransactionDetectorTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private LongTransactionDetector detector;
+    private TransactionTemplate transaction;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        detector = new LongTransactionDetector();
+        ReflectionTestUtils.setField(detector, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(detector, "thresholdMs", 50L);
+        ReflectionTestUtils.invokeMethod(detector, "init");
+
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:long-transactions;DB_CLOSE_DELAY=-1");
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(h2);
+        transactionManager.addListener(detector);
+        transaction = new TransactionTemplate(transactionManager);
+        transaction.setName("test.transaction");
+    }
+
+    @AfterEach
+    void tearDown() {
+        detector.shutdown();
+    }
+
+    @Test
+    void shortTransaction_IsTimedButNotCountedAsLong() {
+        transaction.executeWithoutResult(status -> assertEquals(1, detector.openCount()));
+
+        assertEquals(0, detector.openCount());
+        assertEquals(1, meterRegistry.get("db.transaction").tag("outcome", "commit").timer().count());
+        assertNull(meterRegistry.find("db.transaction.long").counter());
+    }
+
+    @Test
+    void longTransaction_IsCountedByName() {
+        transaction.executeWithoutResult(status -> sleep(80));
+
+        Counter counter = meterRegistry.get("db.transaction.long").tag("name", "test.transaction").counter();
+        assertEquals(1.0, counter.count());
+    }
+
+    @Test
+    void joinedTransaction_IsTimedOnce() {
+        transaction.executeWithoutResult(outer ->
+                transaction.executeWithoutResult(inner -> assertEquals(1, detector.openCount())));
+
+        assertEquals(1, meterRegistry.get("db.transaction").timer().count());
+    }
+
+    @Test
+    void rollback_IsTimedWithItsOutcome() {
+        assertThrows(IllegalStateException.class, () -> transaction.executeWithoutResult(status -> {
+            throw new IllegalStateException("fail");
+        }));
+
+        assertEquals(1, meterRegistry.get("db.transaction").tag("outcome", "rollback").timer().count());
+        assertEquals(0, detector.openCount());
+    }
+
+    @Test
+    void openTransactions_AreGauged() {
+        transaction.executeWithoutResult(status ->
+                assertEquals(1.0, meterRegistry.get("db.transaction.open").gauge().value()));
+
+        assertEquals(0.0, meterRegistry.get("db.transaction.open").gauge().value());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.calendar.monitoring;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueryCountingDataSourceTest {
+
+    private QueryCountingDataSource dataSource;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:query-counting;DB_CLOSE_DELAY=-1");
+        dataSource = new QueryCountingDataSource(h2);
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS items (id INT PRIMARY KEY)");
+            statement.execute("DELETE FROM items");
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        QueryStats.stop();
+    }
+
+    @Test
+    void countsStatementsAndRows() throws Exception {
+        QueryStats.start();
+        try (Connection connection = dataSource.getConnection()) {
+            try (PreparedStatement insert = connection.prepareStatement("INSERT INTO items (id) VALUES (?)")) {
+                for (int i = 1; i <= 3; i++) {
+                    insert.setInt(1, i);
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+            }
+            try (PreparedStatement select = connection.prepareStatement("SELECT id FROM items");
+                 ResultSet resultSet = select.executeQuery()) {
+                while (resultSet.next()) {
+                    assertTrue(resultSet.getInt(1) > 0);
+                }
+            }
+        }
+        QueryStats stats = QueryStats.stop();
+
+        assertEquals(2, stats.getQueries());
+        // 3 inserted and 3 read back
+        assertEquals(6, stats.getRows());
+        assertTrue(stats.getNanos() > 0);
+    }
+
+    @Test
+    void noCountingOutsideARequest() throws Exception {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.executeQuery("SELECT COUNT(*) FROM items").close();
+        }
+
+        assertNull(QueryStats.current());
+    }
+
+    @Test
+    void proxiesCompareByIdentity() throws Exception {
+        try (Connection connection = dataSource.getConnection()) {
+            assertEquals(connection, connection);
+            assertNotEquals(connection, dataSource.getConnection());
+        }
+    }
+}
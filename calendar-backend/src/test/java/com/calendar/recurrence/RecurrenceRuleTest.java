@@ -0,0 +1,122 @@
+package com.calendar.recurrence;
+
+import com.calendar.dto.RecurrenceDTO;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecurrenceRuleTest {
+
+    // Monday 5 January 2026, 10:00
+    private final LocalDateTime start = LocalDateTime.of(2026, 1, 5, 10, 0);
+
+    @Test
+    void weeklyByDay_JumpsBetweenMatchingDays() {
+        List<LocalDateTime> result = RecurrenceRule.parse("FREQ=WEEKLY;BYDAY=MO,WE;COUNT=5")
+                .occurrences(start, null, null, 100);
+
+        assertEquals(List.of(
+                start, start.plusDays(2), start.plusDays(7), start.plusDays(9), start.plusDays(14)), result);
+    }
+
+    @Test
+    void monthlyBySetPos_LastWeekdayOfMonth() {
+        List<LocalDateTime> result = RecurrenceRule.parse("FREQ=MONTHLY;BYDAY=MO,TU,WE,TH,FR;BYSETPOS=-1;COUNT=3")
+                .occurrences(start, null, null, 100);
+
+        assertEquals(LocalDateTime.of(2026, 1, 30, 10, 0), result.get(0));
+        assertEquals(LocalDateTime.of(2026, 2, 27, 10, 0), result.get(1));
+        assertEquals(LocalDateTime.of(2026, 3, 31, 10, 0), result.get(2));
+    }
+
+    @Test
+    void monthlyOrdinalByDay_SecondTuesday() {
+        List<LocalDateTime> result = RecurrenceRule.parse("RRULE:FREQ=MONTHLY;BYDAY=2TU;COUNT=2")
+                .occurrences(start, null, null, 100);
+
+        assertEquals(List.of(LocalDateTime.of(2026, 1, 13, 10, 0), LocalDateTime.of(2026, 2, 10, 10, 0)), result);
+    }
+
+    @Test
+    void monthlyByMonthDay_SkipsShortMonths() {
+        LocalDateTime lastOfJanuary = LocalDateTime.of(2026, 1, 31, 9, 0);
+        List<LocalDateTime> result = RecurrenceRule.parse("FREQ=MONTHLY;BYMONTHDAY=31;COUNT=3")
+                .occurrences(lastOfJanuary, null, null, 100);
+
+        assertEquals(List.of(lastOfJanuary, LocalDateTime.of(2026, 3, 31, 9, 0), LocalDateTime.of(2026, 5, 31, 9, 0)), result);
+    }
+
+    @Test
+    void untilAndExdate_AreHonoured() {
+        List<LocalDateTime> result = RecurrenceRule.parse("FREQ=DAILY;INTERVAL=2;UNTIL=20260112\nEXDATE:20260107T100000")
+                .occurrences(start, null, null, 100);
+
+        assertEquals(List.of(start, start.plusDays(4), start.plusDays(6)), result);
+    }
+
+    @Test
+    void seek_JumpsDeepIntoOpenEndedSeries() {
+        RecurrenceIterator iterator = RecurrenceRule.parse("FREQ=DAILY").iterator(start);
+
+        iterator.seek(LocalDateTime.of(2030, 6, 1, 0, 0));
+
+        assertEquals(LocalDateTime.of(2030, 6, 1, 10, 0), iterator.next());
+        assertEquals(LocalDateTime.of(2030, 6, 2, 10, 0), iterator.next());
+    }
+
+    @Test
+    void seek_KeepsCountAcrossSkippedPeriods() {
+        RecurrenceIterator iterator = RecurrenceRule.parse("FREQ=WEEKLY;BYDAY=FR;COUNT=6").iterator(start);
+
+        // Four Fridays in January are skipped but still consume the count
+        iterator.seek(LocalDateTime.of(2026, 2, 1, 0, 0));
+
+        assertEquals(LocalDateTime.of(2026, 2, 6, 10, 0), iterator.next());
+        assertEquals(LocalDateTime.of(2026, 2, 13, 10, 0), iterator.next());
+        assertFalse(iterator.hasNext());
+    }
+
+    @Test
+    void fromRecurrence_CompilesFrontendForm() {
+        RecurrenceDTO dto = new RecurrenceDTO("WEEKLY", 2, List.of("MONDAY", "FRIDAY"), "DATE", null, LocalDate.of(2026, 2, 1));
+
+        RecurrenceRule rule = RecurrenceRule.fromRecurrence(dto);
+
+        assertEquals("FREQ=WEEKLY;INTERVAL=2;BYDAY=MO,FR;UNTIL=20260201", rule.toString());
+        assertTrue(rule.isBounded());
+        assertEquals(RecurrenceRule.parse(rule.toString()).toString(), rule.toString());
+    }
+
+    @Test
+    void parse_InvalidRule_Throws() {
+        assertThrows(RuntimeException.class, () -> RecurrenceRule.parse("FREQ=HOURLY"));
+        assertThrows(RuntimeException.class, () -> RecurrenceRule.parse("INTERVAL=2"));
+    }
+
+    @Test
+    void dailyByMonthDay_LeapDayOnlyFindsNextLeapYear() {
+        List<LocalDateTime> result = RecurrenceRule.parse("FREQ=DAILY;BYMONTH=2;BYMONTHDAY=29;COUNT=2")
+                .occurrences(start, null, null, 100);
+
+        assertEquals(List.of(LocalDateTime.of(2028, 2, 29, 10, 0), LocalDateTime.of(2032, 2, 29, 10, 0)), result);
+    }
+
+    @Test
+    void yearlyLeapDayEveryThirdYear_ReachesPastSparsePeriods() {
+        // Only every twelfth year is both visited and a leap year
+        List<LocalDateTime> result = RecurrenceRule.parse("FREQ=YEARLY;INTERVAL=3;BYMONTH=2;BYMONTHDAY=29;COUNT=2")
+                .occurrences(LocalDateTime.of(2025, 1, 1, 10, 0), null, null, 100);
+
+        assertEquals(List.of(LocalDateTime.of(2028, 2, 29, 10, 0), LocalDateTime.of(2040, 2, 29, 10, 0)), result);
+    }
+
+    @Test
+    void impossibleRule_HasNoOccurrences() {
+        assertTrue(RecurrenceRule.parse("FREQ=DAILY;BYMONTH=2;BYMONTHDAY=30").occurrences(start, null, null, 10).isEmpty());
+        assertTrue(RecurrenceRule.parse("FREQ=MONTHLY;BYMONTH=4;BYMONTHDAY=31").occurrences(start, null, null, 10).isEmpty());
+    }
+}
@@ -1,5 +1,7 @@
 package com.calendar.security;
 
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -18,7 +20,9 @@ import org.springframework.security.core.userdetails.UserDetails;
 
 import java.io.IOException;
 import java.util.Collections;
+import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
@@ -51,14 +55,35 @@ public class AuthTokenFilterTest {
     }
 
     @Test
-    public void doFilterInternal_ValidJwt_SetsAuthentication() throws ServletException, IOException {
+    public void doFilterInternal_ValidJwt_SetsAuthenticationFromClaims() throws ServletException, IOException {
         String token = "valid.jwt.token";
+        Claims claims = Jwts.claims()
+                .subject("testUser")
+                .add(JwtUtils.CLAIM_USER_ID, 42)
+                .add(JwtUtils.CLAIM_AUTHORITIES, List.of("ROLE_USER"))
+                .build();
+
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + token);
+        when(jwtUtils.parseClaims(token)).thenReturn(claims);
+
+        authTokenFilter.doFilterInternal(request, response, filterChain);
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        verify(filterChain, times(1)).doFilter(request, response);
+        verify(userDetailsService, never()).loadUserByUsername(anyString());
+        assertEquals("testUser", authentication.getName());
+        assertEquals(42L, ((com.calendar.model.User) authentication.getPrincipal()).getId());
+        assertEquals("ROLE_USER", authentication.getAuthorities().iterator().next().getAuthority());
+    }
+
+    @Test
+    public void doFilterInternal_TokenWithoutUserId_LoadsUser() throws ServletException, IOException {
+        String token = "legacy.jwt.token";
         String username = "testUser";
         UserDetails userDetails = new User(username, "password", Collections.emptyList());
 
         when(request.getHeader("Authorization")).thenReturn("Bearer " + token);
-        when(jwtUtils.validateJwtToken(token)).thenReturn(true);
-        when(jwtUtils.getUserNameFromJwtToken(token)).thenReturn(username);
+        when(jwtUtils.parseClaims(token)).thenReturn(Jwts.claims().subject(username).build());
         when(userDetailsService.loadUserByUsername(username)).thenReturn(userDetails);
 
         authTokenFilter.doFilterInternal(request, response, filterChain);
@@ -77,7 +102,7 @@ public class AuthTokenFilterTest {
         authTokenFilter.doFilterInternal(request, response, filterChain);
 
         verify(filterChain, times(1)).doFilter(request, response);
-        verify(jwtUtils, never()).validateJwtToken(anyString());
+        verify(jwtUtils, never()).parseClaims(anyString());
         assertNull(SecurityContextHolder.getContext().getAuthentication());
     }
 
@@ -85,7 +110,7 @@ public class AuthTokenFilterTest {
     public void doFilterInternal_InvalidJwt_ContinuesChain() throws ServletException, IOException {
         String token = "invalid.token";
         when(request.getHeader("Authorization")).thenReturn("Bearer " + token);
-        when(jwtUtils.validateJwtToken(token)).thenReturn(false);
+        when(jwtUtils.parseClaims(token)).thenReturn(null);
 
         authTokenFilter.doFilterInternal(request, response, filterChain);
 
@@ -98,7 +123,7 @@ public class AuthTokenFilterTest {
     public void doFilterInternal_Exception_LogsErrorAndContinues() throws ServletException, IOException {
         String token = "valid.token";
         when(request.getHeader("Authorization")).thenReturn("Bearer " + token);
-        when(jwtUtils.validateJwtToken(token)).thenThrow(new RuntimeException("Test Exception"));
+        when(jwtUtils.parseClaims(token)).thenThrow(new RuntimeException("Test Exception"));
 
         authTokenFilter.doFilterInternal(request, response, filterChain);
 
@@ -1,5 +1,6 @@
 package com.calendar.security;
 
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
@@ -98,4 +99,24 @@ public class JwtUtilsTest {
         assertFalse(jwtUtils.validateJwtToken(""));
         assertFalse(jwtUtils.validateJwtToken(null));
     }
+
+    @Test
+    public void parseClaims_CarriesUserIdAndAuthorities() {
+        com.calendar.model.User user = new com.calendar.model.User("testUser", "test@example.com", "password");
+        user.setId(7L);
+        Authentication authentication = new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
+        String token = jwtUtils.generateJwtToken(authentication);
+
+        Claims claims = jwtUtils.parseClaims(token);
+
+        assertNotNull(claims);
+        assertEquals("testUser", claims.getSubject());
+        assertEquals(7L, ((Number) claims.get(JwtUtils.CLAIM_USER_ID)).longValue());
+        assertEquals(Collections.emptyList(), claims.get(JwtUtils.CLAIM_AUTHORITIES));
+    }
+
+    @Test
+    public void parseClaims_InvalidToken_ReturnsNull() {
+        assertNull(jwtUtils.parseClaims("invalid.token.string"));
+    }
 }
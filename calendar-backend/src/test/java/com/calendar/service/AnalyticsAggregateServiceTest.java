@@ -0,0 +1,195 @@
+package com.calendar.service;
+
+import com.calendar.model.AnalyticsCounter;
+import com.calendar.model.AnalyticsCounter.Dimension;
+import com.calendar.model.Calendar;
+import com.calendar.model.Event;
+import com.calendar.model.User;
+import com.calendar.repository.AnalyticsCounterRepository;
+import com.calendar.repository.EventRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class AnalyticsAggregateServiceTest {
+
+    @Mock
+    private AnalyticsCounterRepository counterRepository;
+
+    @Mock
+    private EventRepository eventRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private AnalyticsAggregateService aggregateService;
+
+    private Calendar calendar;
+    private LocalDateTime monday;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        User user = new User("testuser", "test@example.com", "password");
+        user.setId(1L);
+        calendar = new Calendar("Test Calendar", "UTC", user);
+        calendar.setId(1L);
+        monday = LocalDateTime.of(2026, 3, 2, 10, 0);
+    }
+
+    @Test
+    void recordCreated_IncrementsEveryDimension() {
+        Event event = new Event("Standup", monday, monday.plusHours(1), calendar);
+        event.setLocation("Zoom");
+
+        aggregateService.recordCreated(1L, event);
+
+        verify(counterRepository).increment(1L, "TOTAL", "", 1);
+        verify(counterRepository).increment(1L, "ONLINE", "", 1);
+        verify(counterRepository).increment(1L, "STATUS", "CONFIRMED", 1);
+        verify(counterRepository).increment(1L, "WEEKDAY", "MONDAY", 1);
+        verify(counterRepository).increment(1L, "SUBJECT", "Standup", 1);
+        verify(counterRepository).increment(1L, "DAY", "2026-03-02", 1);
+        verify(counterRepository).lockUser(1L);
+        verifyNoMoreInteractions(counterRepository);
+    }
+
+    @Test
+    void recordUpdated_OnlyMovesChangedBuckets() {
+        Event event = new Event("Standup", monday, monday.plusHours(1), calendar);
+        List<AnalyticsAggregateService.Contribution> before = AnalyticsAggregateService.Contribution.allOf(event);
+
+        event.setStatus("CANCELLED");
+        aggregateService.recordUpdated(1L, before, event);
+
+        verify(counterRepository).increment(1L, "STATUS", "CONFIRMED", -1);
+        verify(counterRepository).increment(1L, "STATUS", "CANCELLED", 1);
+        verify(counterRepository).lockUser(1L);
+        verifyNoMoreInteractions(counterRepository);
+    }
+
+    @Test
+    void recordDeleted_DecrementsEveryDimension() {
+        Event event = new Event("Standup", monday, monday.plusHours(1), calendar);
+
+        aggregateService.recordDeleted(1L, AnalyticsAggregateService.Contribution.allOf(event));
+
+        verify(counterRepository).increment(1L, "TOTAL", "", -1);
+        verify(counterRepository).increment(1L, "DAY", "2026-03-02", -1);
+        verify(counterRepository, never()).increment(eq(1L), eq("ONLINE"), anyString(), anyLong());
+    }
+
+    @Test
+    void recordCreated_CountsEachOccurrenceOfASeries() {
+        Event master = new Event("Standup", monday, monday.plusHours(1), calendar);
+        master.setRecurrenceRule("FREQ=WEEKLY;INTERVAL=1;BYDAY=MO;COUNT=3");
+        master.setRecurrenceExceptions(monday.plusWeeks(1).toString());
+
+        aggregateService.recordCreated(1L, master);
+
+        verify(counterRepository).increment(1L, "TOTAL", "", 2);
+        verify(counterRepository).increment(1L, "WEEKDAY", "MONDAY", 2);
+        verify(counterRepository).increment(1L, "DAY", "2026-03-02", 1);
+        verify(counterRepository).increment(1L, "DAY", "2026-03-16", 1);
+        verify(counterRepository, never()).increment(1L, "DAY", "2026-03-09", 1);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void getTotals_CountsSeriesMastersAsTheirOccurrences() {
+        Event master = new Event("Standup", monday, monday.plusHours(1), calendar);
+        master.setRecurrenceRule("FREQ=WEEKLY;INTERVAL=1;BYDAY=MO;COUNT=3");
+        master.setLocation("Teams");
+        when(counterRepository.findTotals(1L)).thenReturn(List.of());
+        when(eventRepository.findSeriesMastersByUserId(1L)).thenReturn(List.of(master));
+        when(eventRepository.countByDay(1L)).thenReturn(List.<Object[]>of(new Object[]{LocalDate.of(2026, 3, 2), 1L}));
+        when(eventRepository.countByStatus(1L)).thenReturn(List.<Object[]>of(new Object[]{"CONFIRMED", 1L}));
+        when(eventRepository.countBySubject(1L)).thenReturn(List.<Object[]>of(new Object[]{"Review", 1L}));
+
+        List<AnalyticsCounter> totals = aggregateService.getTotals(1L);
+
+        assertEquals(4L, count(totals, Dimension.TOTAL, ""));
+        assertEquals(4L, count(totals, Dimension.WEEKDAY, "MONDAY"));
+        assertEquals(4L, count(totals, Dimension.STATUS, "CONFIRMED"));
+        assertEquals(3L, count(totals, Dimension.SUBJECT, "Standup"));
+        assertEquals(3L, count(totals, Dimension.ONLINE, ""));
+        ArgumentCaptor<List<AnalyticsCounter>> saved = ArgumentCaptor.forClass(List.class);
+        verify(counterRepository).saveAll(saved.capture());
+        assertEquals(2L, count(saved.getValue(), Dimension.DAY, "2026-03-02"));
+        assertEquals(1L, count(saved.getValue(), Dimension.DAY, "2026-03-16"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void getTotals_RebuildsFromGroupedQueriesWhenNotBuilt() {
+        when(counterRepository.findTotals(1L)).thenReturn(List.of());
+        when(eventRepository.countByDay(1L)).thenReturn(List.of(
+                new Object[]{LocalDate.of(2026, 3, 2), 2L},
+                new Object[]{LocalDate.of(2026, 3, 9), 1L}));
+        when(eventRepository.countByStatus(1L)).thenReturn(List.<Object[]>of(new Object[]{null, 3L}));
+        when(eventRepository.countBySubject(1L)).thenReturn(List.<Object[]>of(new Object[]{"Standup", 3L}));
+        when(eventRepository.countOnline(1L)).thenReturn(1L);
+
+        List<AnalyticsCounter> totals = aggregateService.getTotals(1L);
+
+        InOrder order = inOrder(counterRepository);
+        order.verify(counterRepository).lockUser(1L);
+        order.verify(counterRepository).deleteByUserId(1L);
+        assertEquals(3L, count(totals, Dimension.TOTAL, ""));
+        assertEquals(3L, count(totals, Dimension.WEEKDAY, "MONDAY"));
+        assertEquals(3L, count(totals, Dimension.STATUS, "CONFIRMED"));
+        assertTrue(totals.stream().anyMatch(c -> c.getDimension() == Dimension.BUILT));
+
+        ArgumentCaptor<List<AnalyticsCounter>> saved = ArgumentCaptor.forClass(List.class);
+        verify(counterRepository).saveAll(saved.capture());
+        assertEquals(2L, count(saved.getValue(), Dimension.DAY, "2026-03-02"));
+    }
+
+    @Test
+    void getTotals_UsesStoredCountersOnceBuilt() {
+        when(counterRepository.findTotals(1L)).thenReturn(List.of(
+                new AnalyticsCounter(1L, Dimension.TOTAL, "", 5),
+                new AnalyticsCounter(1L, Dimension.BUILT, "built", 1)));
+
+        List<AnalyticsCounter> totals = aggregateService.getTotals(1L);
+
+        assertEquals(5L, count(totals, Dimension.TOTAL, ""));
+        verify(eventRepository, never()).countByDay(anyLong());
+        verify(counterRepository, never()).deleteByUserId(anyLong());
+    }
+
+    @Test
+    void rebuild_SkipsWhenBuiltWhileWaitingForTheLock() {
+        when(counterRepository.findTotals(1L)).thenReturn(List.of()).thenReturn(List.of(
+                new AnalyticsCounter(1L, Dimension.TOTAL, "", 5),
+                new AnalyticsCounter(1L, Dimension.BUILT, "built", 1)));
+
+        List<AnalyticsCounter> totals = aggregateService.getTotals(1L);
+
+        assertEquals(5L, count(totals, Dimension.TOTAL, ""));
+        verify(counterRepository).lockUser(1L);
+        verify(counterRepository, never()).deleteByUserId(anyLong());
+        verify(eventRepository, never()).countByDay(anyLong());
+    }
+
+    private long count(List<AnalyticsCounter> counters, Dimension dimension, String bucket) {
+        return counters.stream()
+                .filter(c -> c.getDimension() == dimension && c.getBucket().equals(bucket))
+                .mapToLong(AnalyticsCounter::getCount)
+                .sum();
+    }
+}
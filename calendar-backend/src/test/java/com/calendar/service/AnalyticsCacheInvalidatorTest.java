@@ -0,0 +1,81 @@
+package com.calendar.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+import static org.mockito.Mockito.*;
+
+class AnalyticsCacheInvalidatorTest {
+
+    @Mock
+    private CacheManager cacheManager;
+
+    @Mock
+    private Cache cache;
+
+    @InjectMocks
+    private AnalyticsCacheInvalidator invalidator;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(cacheManager.getCache("analytics")).thenReturn(cache);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        TransactionSynchronizationManager.unbindResourceIfPossible(invalidator);
+    }
+
+    @Test
+    void evict_OutsideTransaction_EvictsOnlyThatUser() {
+        invalidator.evict(1L);
+
+        verify(cache).evict(1L);
+        verify(cache, never()).clear();
+    }
+
+    @Test
+    void evict_InsideTransaction_CoalescesUntilCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        invalidator.evict(1L);
+        invalidator.evict(1L);
+        invalidator.evict(2L);
+        verifyNoInteractions(cache);
+
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        verify(cache, times(1)).evict(1L);
+        verify(cache, times(1)).evict(2L);
+    }
+
+    @Test
+    void evict_InsideTransaction_SkipsEvictionOnRollback() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        invalidator.evict(1L);
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        verifyNoInteractions(cache);
+    }
+
+    private void complete(int status) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(status));
+    }
+}
@@ -0,0 +1,59 @@
+package com.calendar.service;
+
+import com.calendar.model.AnalyticsCounter;
+import com.calendar.model.AnalyticsCounter.Dimension;
+import com.calendar.model.Event;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+/**
+ * Stubs an AnalyticsAggregateService mock with the counters the given events would produce.
+ */
+final class AnalyticsCounterFixtures {
+
+    private AnalyticsCounterFixtures() {
+    }
+
+    static void stubCounters(AnalyticsAggregateService aggregateService, Long userId, List<Event> events) {
+        Map<String, AnalyticsCounter> totals = new LinkedHashMap<>();
+        Map<LocalDate, Long> days = new HashMap<>();
+        for (Event event : events) {
+            AnalyticsAggregateService.Contribution contribution = AnalyticsAggregateService.Contribution.of(event);
+            for (Dimension dimension : Dimension.values()) {
+                String bucket = contribution.bucket(dimension);
+                if (bucket == null || dimension == Dimension.BUILT) continue;
+                if (dimension == Dimension.DAY) {
+                    days.merge(LocalDate.parse(bucket), 1L, Long::sum);
+                } else {
+                    AnalyticsCounter counter = totals.computeIfAbsent(dimension + ":" + bucket,
+                            key -> new AnalyticsCounter(userId, dimension, bucket, 0));
+                    counter.setCount(counter.getCount() + 1);
+                }
+            }
+        }
+
+        when(aggregateService.getTotals(userId)).thenReturn(new ArrayList<>(totals.values()));
+        when(aggregateService.getDailyCounts(eq(userId), any(), any())).thenAnswer(invocation -> {
+            LocalDate from = invocation.getArgument(1);
+            LocalDate to = invocation.getArgument(2);
+            Map<LocalDate, Long> window = new HashMap<>();
+            days.forEach((day, count) -> {
+                if (!day.isBefore(from) && !day.isAfter(to)) window.put(day, count);
+            });
+            return window;
+        });
+        when(aggregateService.countDaysAfter(eq(userId), any())).thenAnswer(invocation -> {
+            LocalDate after = invocation.getArgument(1);
+            return days.entrySet().stream().filter(e -> e.getKey().isAfter(after)).mapToLong(Map.Entry::getValue).sum();
+        });
+    }
+}
@@ -27,6 +27,9 @@ class AnalyticsServiceExtendedTest {
     @Mock
     private CalendarRepository calendarRepository;
 
+    @Mock
+    private AnalyticsAggregateService aggregateService;
+
     @InjectMocks
     private AnalyticsService analyticsService;
 
@@ -55,7 +58,7 @@ class AnalyticsServiceExtendedTest {
         Event event3 = new Event("In Person", LocalDateTime.now().plusDays(2), LocalDateTime.now().plusDays(2).plusHours(1), testCalendar);
         event3.setLocation("Office");
         
-        when(eventRepository.findByCalendar_User_Id(1L)).thenReturn(Arrays.asList(event1, event2, event3));
+        AnalyticsCounterFixtures.stubCounters(aggregateService, 1L, Arrays.asList(event1, event2, event3));
         when(calendarRepository.findByUserId(1L)).thenReturn(List.of(testCalendar));
         
         AnalyticsDTO result = analyticsService.getUserAnalytics(1L);
@@ -70,7 +73,7 @@ class AnalyticsServiceExtendedTest {
         Event event = new Event("Teams Meeting", LocalDateTime.now(), LocalDateTime.now().plusHours(1), testCalendar);
         event.setLocation("Microsoft Teams");
         
-        when(eventRepository.findByCalendar_User_Id(1L)).thenReturn(List.of(event));
+        AnalyticsCounterFixtures.stubCounters(aggregateService, 1L, List.of(event));
         when(calendarRepository.findByUserId(1L)).thenReturn(List.of(testCalendar));
         
         AnalyticsDTO result = analyticsService.getUserAnalytics(1L);
@@ -89,7 +92,7 @@ class AnalyticsServiceExtendedTest {
         Event event3 = new Event("Cancelled", LocalDateTime.now().plusDays(2), LocalDateTime.now().plusDays(2).plusHours(1), testCalendar);
         event3.setStatus("CANCELLED");
         
-        when(eventRepository.findByCalendar_User_Id(1L)).thenReturn(Arrays.asList(event1, event2, event3));
+        AnalyticsCounterFixtures.stubCounters(aggregateService, 1L, Arrays.asList(event1, event2, event3));
         when(calendarRepository.findByUserId(1L)).thenReturn(List.of(testCalendar));
         
         AnalyticsDTO result = analyticsService.getUserAnalytics(1L);
@@ -109,7 +112,7 @@ class AnalyticsServiceExtendedTest {
         Event event2 = new Event("Tuesday Event", tuesday, tuesday.plusHours(1), testCalendar);
         Event event3 = new Event("Wednesday Event", wednesday, wednesday.plusHours(1), testCalendar);
         
-        when(eventRepository.findByCalendar_User_Id(1L)).thenReturn(Arrays.asList(event1, event2, event3));
+        AnalyticsCounterFixtures.stubCounters(aggregateService, 1L, Arrays.asList(event1, event2, event3));
         when(calendarRepository.findByUserId(1L)).thenReturn(List.of(testCalendar));
         
         AnalyticsDTO result = analyticsService.getUserAnalytics(1L);
@@ -127,7 +130,7 @@ class AnalyticsServiceExtendedTest {
         Event event2 = new Event("Event 2", monday.plusHours(2), monday.plusHours(3), testCalendar);
         Event event3 = new Event("Event 3", monday.plusHours(4), monday.plusHours(5), testCalendar);
         
-        when(eventRepository.findByCalendar_User_Id(1L)).thenReturn(Arrays.asList(event1, event2, event3));
+        AnalyticsCounterFixtures.stubCounters(aggregateService, 1L, Arrays.asList(event1, event2, event3));
         when(calendarRepository.findByUserId(1L)).thenReturn(List.of(testCalendar));
         
         AnalyticsDTO result = analyticsService.getUserAnalytics(1L);
@@ -144,7 +147,7 @@ class AnalyticsServiceExtendedTest {
         Event event2 = new Event("Recent 2", now.minusDays(10), now.minusDays(10).plusHours(1), testCalendar);
         Event event3 = new Event("Recent 3", now.minusDays(15), now.minusDays(15).plusHours(1), testCalendar);
         
-        when(eventRepository.findByCalendar_User_Id(1L)).thenReturn(Arrays.asList(event1, event2, event3));
+        AnalyticsCounterFixtures.stubCounters(aggregateService, 1L, Arrays.asList(event1, event2, event3));
         when(calendarRepository.findByUserId(1L)).thenReturn(List.of(testCalendar));
         
         AnalyticsDTO result = analyticsService.getUserAnalytics(1L);
@@ -159,7 +162,7 @@ class AnalyticsServiceExtendedTest {
         Event event1 = new Event("Future Event", future, future.plusHours(1), testCalendar);
         Event event2 = new Event("Past Event", LocalDateTime.now().minusDays(5), LocalDateTime.now().minusDays(5).plusHours(1), testCalendar);
         
-        when(eventRepository.findByCalendar_User_Id(1L)).thenReturn(Arrays.asList(event1, event2));
+        AnalyticsCounterFixtures.stubCounters(aggregateService, 1L, Arrays.asList(event1, event2));
         when(calendarRepository.findByUserId(1L)).thenReturn(List.of(testCalendar));
         
         AnalyticsDTO result = analyticsService.getUserAnalytics(1L);
@@ -27,6 +27,9 @@ class AnalyticsServiceTest {
     @Mock
     private CalendarRepository calendarRepository;
 
+    @Mock
+    private AnalyticsAggregateService aggregateService;
+
     @InjectMocks
     private AnalyticsService analyticsService;
 
@@ -60,7 +63,7 @@ class AnalyticsServiceTest {
     @Test
     void getAnalytics_Success() {
         // Arrange
-        when(eventRepository.findByCalendar_User_Id(1L)).thenReturn(testEvents);
+        AnalyticsCounterFixtures.stubCounters(aggregateService, 1L, testEvents);
         when(calendarRepository.findByUserId(1L)).thenReturn(List.of(testCalendar));
 
         // Act
@@ -71,13 +74,14 @@ class AnalyticsServiceTest {
         assertEquals(3, result.getTotalEvents());
         assertNotNull(result.getEventsBySubject());
         assertNotNull(result.getEventsByWeekday());
-        verify(eventRepository, times(1)).findByCalendar_User_Id(1L);
+        // Served from the counters, never by loading the user's events
+        verify(eventRepository, never()).findByCalendar_User_Id(1L);
     }
 
     @Test
     void getAnalytics_NoEvents() {
         // Arrange
-        when(eventRepository.findByCalendar_User_Id(1L)).thenReturn(List.of());
+        AnalyticsCounterFixtures.stubCounters(aggregateService, 1L, List.of());
         when(calendarRepository.findByUserId(1L)).thenReturn(List.of(testCalendar));
 
         // Act
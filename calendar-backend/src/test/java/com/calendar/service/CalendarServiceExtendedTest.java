@@ -7,6 +7,7 @@ import com.calendar.model.User;
 import com.calendar.repository.CalendarRepository;
 import com.calendar.repository.EventRepository;
 import com.calendar.repository.UserRepository;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
@@ -16,10 +17,13 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -42,6 +46,18 @@ class CalendarServiceExtendedTest {
     @Mock
     private Authentication authentication;
 
+    @Mock
+    private ConflictIndexService conflictIndexService;
+
+    @Mock
+    private AnalyticsAggregateService analyticsAggregateService;
+
+    @Mock
+    private AnalyticsCacheInvalidator analyticsCacheInvalidator;
+
+    @Mock
+    private EntityManager entityManager;
+
     @InjectMocks
     private CalendarService calendarService;
 
@@ -77,38 +93,39 @@ class CalendarServiceExtendedTest {
     }
 
     @Test
-    void exportCalendar_Success() {
+    void exportCalendar_Success() throws Exception {
         Event event1 = new Event("Meeting", LocalDateTime.now(), LocalDateTime.now().plusHours(1), testCalendar);
         event1.setId(1L);
         event1.setDescription("Test meeting");
         event1.setLocation("Office");
         
         when(calendarRepository.findByIdAndUserId(1L, 1L)).thenReturn(Optional.of(testCalendar));
-        when(eventRepository.findByCalendarId(1L)).thenReturn(Arrays.asList(event1));
+        when(eventRepository.streamByCalendarId(1L)).thenReturn(Stream.of(event1));
         
-        byte[] result = calendarService.exportCalendar(1L, 1L);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        calendarService.exportCalendar(1L, 1L, out);
         
-        assertNotNull(result);
-        String icsContent = new String(result);
-        assertTrue(icsContent.contains("BEGIN:VCALENDAR"));
-        assertTrue(icsContent.contains("END:VCALENDAR"));
-        assertTrue(icsContent.contains("BEGIN:VEVENT"));
-        assertTrue(icsContent.contains("SUMMARY:Meeting"));
+        String icsContent = out.toString(StandardCharsets.UTF_8);
+        assertTrue(icsContent.startsWith("BEGIN:VCALENDAR\r\n"));
+        assertTrue(icsContent.endsWith("END:VCALENDAR\r\n"));
+        assertTrue(icsContent.contains("BEGIN:VEVENT\r\n"));
+        assertTrue(icsContent.contains("SUMMARY:Meeting\r\n"));
+        verify(entityManager).detach(event1);
     }
 
     @Test
-    void exportCalendar_WithSpecialCharacters() {
+    void exportCalendar_WithSpecialCharacters() throws Exception {
         Event event = new Event("Meeting; with, special\\chars", LocalDateTime.now(), LocalDateTime.now().plusHours(1), testCalendar);
         event.setDescription("Description\nwith\nnewlines");
         event.setLocation("Location;with;semicolons");
         
         when(calendarRepository.findByIdAndUserId(1L, 1L)).thenReturn(Optional.of(testCalendar));
-        when(eventRepository.findByCalendarId(1L)).thenReturn(Arrays.asList(event));
+        when(eventRepository.streamByCalendarId(1L)).thenReturn(Stream.of(event));
         
-        byte[] result = calendarService.exportCalendar(1L, 1L);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        calendarService.exportCalendar(1L, 1L, out);
         
-        assertNotNull(result);
-        String icsContent = new String(result);
+        String icsContent = out.toString(StandardCharsets.UTF_8);
         assertTrue(icsContent.contains("\\;"));
         assertTrue(icsContent.contains("\\n"));
     }
@@ -117,7 +134,8 @@ class CalendarServiceExtendedTest {
     void exportCalendar_NotFound_ThrowsException() {
         when(calendarRepository.findByIdAndUserId(1L, 1L)).thenReturn(Optional.empty());
         
-        assertThrows(RuntimeException.class, () -> calendarService.exportCalendar(1L, 1L));
+        assertThrows(RuntimeException.class, () -> calendarService.exportCalendar(1L, 1L, new ByteArrayOutputStream()));
+        verify(eventRepository, never()).streamByCalendarId(any());
     }
 
     @Test
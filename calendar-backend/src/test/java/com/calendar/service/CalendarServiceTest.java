@@ -5,6 +5,7 @@ import com.calendar.model.Calendar;
 import com.calendar.model.User;
 import com.calendar.repository.CalendarRepository;
 import com.calendar.repository.UserRepository;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
@@ -35,6 +36,18 @@ class CalendarServiceTest {
     @Mock
     private Authentication authentication;
 
+    @Mock
+    private ConflictIndexService conflictIndexService;
+
+    @Mock
+    private AnalyticsAggregateService analyticsAggregateService;
+
+    @Mock
+    private AnalyticsCacheInvalidator analyticsCacheInvalidator;
+
+    @Mock
+    private EntityManager entityManager;
+
     @InjectMocks
     private CalendarService calendarService;
 
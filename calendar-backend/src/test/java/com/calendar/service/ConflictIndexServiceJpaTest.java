@@ -0,0 +1,58 @@
+package com.calendar.service;
+
+import com.calendar.model.Calendar;
+import com.calendar.model.Event;
+import com.calendar.model.User;
+import com.calendar.repository.EventRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The cross-node catch-up of {@link ConflictIndexService} against real rows, so that it sees
+ * what JPA actually writes to updated_at.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Import(ConflictIndexService.class)
+class ConflictIndexServiceJpaTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @Autowired
+    private ConflictIndexService conflictIndexService;
+
+    @Test
+    void hasConflict_SeesEventMovedThroughJpa() {
+        User owner = entityManager.persist(new User("owner", "owner@example.com", "password"));
+        Calendar calendar = entityManager.persist(new Calendar("Work", "UTC", owner));
+        LocalDateTime nine = LocalDateTime.of(2026, 3, 2, 9, 0);
+        Event event = entityManager.persist(new Event("Standup", nine, nine.plusHours(1), calendar));
+        entityManager.flush();
+        // Written long before the snapshot below
+        entityManager.getEntityManager().createQuery("UPDATE Event e SET e.updatedAt = :old WHERE e.id = :id")
+                .setParameter("old", LocalDateTime.now().minusHours(1))
+                .setParameter("id", event.getId())
+                .executeUpdate();
+        entityManager.clear();
+        LocalDateTime fourteen = nine.withHour(14);
+        assertFalse(conflictIndexService.hasConflict(owner.getId(), fourteen, fourteen.plusHours(1)));
+
+        // Another node moves the event; this node's snapshot is not told
+        Event moved = eventRepository.findById(event.getId()).orElseThrow();
+        moved.setStartTime(fourteen);
+        moved.setEndTime(fourteen.plusHours(1));
+        eventRepository.saveAndFlush(moved);
+
+        assertTrue(conflictIndexService.hasConflict(owner.getId(), fourteen, fourteen.plusMinutes(30)));
+    }
+}
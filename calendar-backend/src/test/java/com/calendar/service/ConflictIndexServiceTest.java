@@ -0,0 +1,144 @@
+package com.calendar.service;
+
+import com.calendar.model.Calendar;
+import com.calendar.model.Event;
+import com.calendar.model.User;
+import com.calendar.repository.EventRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ConflictIndexServiceTest {
+
+    @Mock
+    private EventRepository eventRepository;
+
+    @InjectMocks
+    private ConflictIndexService conflictIndexService;
+
+    private final LocalDateTime monday = LocalDateTime.of(2026, 1, 5, 9, 0);
+    private List<Object[]> rows;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        rows = new ArrayList<>();
+        // Two single events on different calendars and a weekly Wednesday series
+        rows.add(new Object[]{1L, monday, monday.plusHours(1), null, null, null});
+        rows.add(new Object[]{2L, monday.plusDays(1).withHour(14), monday.plusDays(1).withHour(16), null, null, null});
+        rows.add(new Object[]{3L, monday.plusDays(2).withHour(10), monday.plusDays(2).withHour(11),
+                "FREQ=WEEKLY;INTERVAL=1;BYDAY=WE", null, null});
+        when(eventRepository.findIntervalsByUserId(1L)).thenReturn(rows);
+    }
+
+    @Test
+    void hasConflict_DetectsOverlapWithSingleEvents() {
+        assertTrue(conflictIndexService.hasConflict(1L, monday.plusMinutes(30), monday.plusMinutes(90)));
+        assertTrue(conflictIndexService.hasConflict(1L, monday.plusDays(1).withHour(15), monday.plusDays(1).withHour(15).plusMinutes(10)));
+    }
+
+    @Test
+    void hasConflict_TouchingIntervalsDoNotConflict() {
+        assertFalse(conflictIndexService.hasConflict(1L, monday.plusHours(1), monday.plusHours(2)));
+        assertFalse(conflictIndexService.hasConflict(1L, monday.minusHours(1), monday));
+    }
+
+    @Test
+    void hasConflict_DetectsOverlapWithSeriesOccurrenceFarAhead() {
+        LocalDateTime wednesdayInMay = LocalDateTime.of(2026, 5, 6, 10, 30);
+        assertTrue(conflictIndexService.hasConflict(1L, wednesdayInMay, wednesdayInMay.plusHours(1)));
+        assertFalse(conflictIndexService.hasConflict(1L, wednesdayInMay.plusDays(1), wednesdayInMay.plusDays(1).plusHours(1)));
+    }
+
+    @Test
+    void findFirstConflict_ChecksAllOccurrencesInOnePass() {
+        // Daily 14:30 series collides with event 2 on the Tuesday only
+        List<LocalDateTime> starts = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            starts.add(monday.plusDays(i).withHour(14).withMinute(30));
+        }
+
+        LocalDateTime conflict = conflictIndexService.findFirstConflict(1L, starts, Duration.ofMinutes(30));
+
+        assertEquals(starts.get(1), conflict);
+        assertNull(conflictIndexService.findFirstConflict(1L, List.of(monday.withHour(20)), Duration.ofHours(1)));
+    }
+
+    @Test
+    void addAndRemove_UpdateLoadedIndexWithoutReloading() {
+        assertFalse(conflictIndexService.hasConflict(1L, monday.withHour(18), monday.withHour(19)));
+
+        Calendar calendar = new Calendar("Work", "UTC", new User());
+        Event added = new Event("Late", monday.withHour(18), monday.withHour(19), calendar);
+        added.setId(4L);
+        conflictIndexService.add(1L, added);
+        assertTrue(conflictIndexService.hasConflict(1L, monday.withHour(18), monday.withHour(19)));
+
+        conflictIndexService.remove(1L, 4L);
+        assertFalse(conflictIndexService.hasConflict(1L, monday.withHour(18), monday.withHour(19)));
+
+        verify(eventRepository, times(1)).findIntervalsByUserId(1L);
+    }
+
+    @Test
+    void reload_DoesNotDropWriteAppliedWhileLoading() {
+        assertFalse(conflictIndexService.hasConflict(1L, monday.withHour(18), monday.withHour(19)));
+        Calendar calendar = new Calendar("Work", "UTC", new User());
+        Event added = new Event("Late", monday.withHour(18), monday.withHour(19), calendar);
+        added.setId(4L);
+        // The snapshot expires; while it reloads, a write commits that the reload did not read
+        ReflectionTestUtils.setField(conflictIndexService, "ttlSeconds", -1L);
+        when(eventRepository.findIntervalsByUserId(1L)).thenAnswer(invocation -> {
+            conflictIndexService.add(1L, added);
+            return rows;
+        });
+
+        conflictIndexService.hasConflict(1L, monday.withHour(7), monday.withHour(8));
+
+        ReflectionTestUtils.setField(conflictIndexService, "ttlSeconds", 300L);
+        assertTrue(conflictIndexService.hasConflict(1L, monday.withHour(18), monday.withHour(19)));
+    }
+
+    @Test
+    void hasConflict_SeesEventsWrittenOnOtherNodes() {
+        assertFalse(conflictIndexService.hasConflict(1L, monday.withHour(18), monday.withHour(19)));
+        List<Object[]> written = new ArrayList<>();
+        written.add(new Object[]{5L, monday.withHour(18), monday.withHour(19), null, null, null});
+        when(eventRepository.findIntervalsChangedSince(eq(1L), any())).thenReturn(written);
+
+        assertTrue(conflictIndexService.hasConflict(1L, monday.withHour(18), monday.withHour(19)));
+
+        // Merged into the cached snapshot
+        when(eventRepository.findIntervalsChangedSince(eq(1L), any())).thenReturn(List.of());
+        assertTrue(conflictIndexService.hasConflict(1L, monday.withHour(18), monday.withHour(19)));
+        verify(eventRepository, times(1)).findIntervalsByUserId(1L);
+    }
+
+    @Test
+    void hasConflict_CatchUpStartsAfterThePreviousOne() throws InterruptedException {
+        when(eventRepository.findIntervalsChangedSince(eq(1L), any())).thenReturn(List.of());
+        conflictIndexService.hasConflict(1L, monday.withHour(18), monday.withHour(19));
+        for (int i = 0; i < 2; i++) {
+            Thread.sleep(20);
+            conflictIndexService.hasConflict(1L, monday.withHour(18), monday.withHour(19));
+        }
+
+        ArgumentCaptor<LocalDateTime> since = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(eventRepository, times(3)).findIntervalsChangedSince(eq(1L), since.capture());
+        assertTrue(since.getAllValues().get(2).isAfter(since.getAllValues().get(1)));
+    }
+}
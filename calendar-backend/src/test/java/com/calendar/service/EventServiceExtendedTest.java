@@ -1,12 +1,14 @@
 package com.calendar.service;
 
 import com.calendar.dto.EventDTO;
+import com.calendar.dto.EventPageDTO;
 import com.calendar.dto.RecurrenceDTO;
 import com.calendar.model.Calendar;
 import com.calendar.model.Event;
 import com.calendar.model.User;
 import com.calendar.repository.CalendarRepository;
 import com.calendar.repository.EventRepository;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
@@ -15,13 +17,17 @@ import org.mockito.MockitoAnnotations;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 class EventServiceExtendedTest {
@@ -32,6 +38,18 @@ class EventServiceExtendedTest {
     @Mock
     private CalendarRepository calendarRepository;
 
+    @Mock
+    private ConflictIndexService conflictIndexService;
+
+    @Mock
+    private AnalyticsAggregateService analyticsAggregateService;
+
+    @Mock
+    private AnalyticsCacheInvalidator analyticsCacheInvalidator;
+
+    @Mock
+    private EntityManager entityManager;
+
     @InjectMocks
     private EventService eventService;
 
@@ -80,6 +98,27 @@ class EventServiceExtendedTest {
         
         assertNotNull(result);
         verify(eventRepository, times(1)).save(any(Event.class));
+        assertFalse(existingEvent.isGooglePushPending());
+    }
+
+    @Test
+    void updateEvent_PushedToGoogle_MarksPushPending() {
+        Event existingEvent = new Event("Old Subject", LocalDateTime.now(), LocalDateTime.now().plusHours(1), testCalendar);
+        existingEvent.setId(1L);
+        existingEvent.setGoogleEventId("g1");
+
+        EventDTO updateDTO = EventDTO.builder()
+                .subject("New Subject")
+                .startTime(LocalDateTime.now().plusDays(1))
+                .endTime(LocalDateTime.now().plusDays(1).plusHours(2))
+                .build();
+
+        when(eventRepository.findById(1L)).thenReturn(Optional.of(existingEvent));
+        when(eventRepository.save(any(Event.class))).thenReturn(existingEvent);
+
+        eventService.updateEvent(1L, updateDTO);
+
+        assertTrue(existingEvent.isGooglePushPending());
     }
 
     @Test
@@ -95,6 +134,39 @@ class EventServiceExtendedTest {
         assertThrows(RuntimeException.class, () -> eventService.updateEvent(1L, updateDTO));
     }
 
+    @Test
+    void updateEvent_RejectsSeriesMaster() {
+        Event master = new Event("Standup", LocalDateTime.now(), LocalDateTime.now().plusHours(1), testCalendar);
+        master.setRecurrenceRule("FREQ=DAILY;INTERVAL=1;COUNT=5");
+        when(eventRepository.findById(1L)).thenReturn(Optional.of(master));
+        EventDTO updateDTO = EventDTO.builder()
+                .subject("Moved")
+                .startTime(LocalDateTime.now().plusDays(1))
+                .endTime(LocalDateTime.now().plusDays(1).plusHours(1))
+                .build();
+
+        RuntimeException e = assertThrows(RuntimeException.class, () -> eventService.updateEvent(1L, updateDTO));
+        assertTrue(e.getMessage().contains("/occurrences"));
+        verify(eventRepository, never()).save(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void deleteEvent_SeriesMasterOnlyAsWholeSeries() {
+        Event master = new Event("Standup", LocalDateTime.now(), LocalDateTime.now().plusHours(1), testCalendar);
+        master.setId(1L);
+        master.setRecurrenceRule("FREQ=DAILY;INTERVAL=1;COUNT=5");
+        when(eventRepository.findById(1L)).thenReturn(Optional.of(master));
+
+        assertThrows(RuntimeException.class, () -> eventService.deleteEvent(1L));
+        verify(eventRepository, never()).deleteById(anyLong());
+
+        eventService.deleteEvent(1L, true);
+        verify(eventRepository).deleteById(1L);
+        verify(analyticsAggregateService).recordDeleted(eq(1L),
+                (List<AnalyticsAggregateService.Contribution>) argThat(before -> ((List<?>) before).size() == 5));
+    }
+
     @Test
     void deleteEvent_Success() {
         eventService.deleteEvent(1L);
@@ -212,4 +284,51 @@ class EventServiceExtendedTest {
         
         assertThrows(RuntimeException.class, () -> eventService.createEvent(1L, eventDTO));
     }
+
+    @Test
+    void getEventPage_ReturnsCursorWhenMoreRowsFollow() {
+        LocalDateTime start = LocalDateTime.of(2026, 3, 1, 9, 0);
+        Event event1 = new Event("Event 1", start, start.plusHours(1), testCalendar);
+        event1.setId(1L);
+        Event event2 = new Event("Event 2", start, start.plusHours(1), testCalendar);
+        event2.setId(2L);
+        Event event3 = new Event("Event 3", start.plusDays(1), start.plusDays(1).plusHours(1), testCalendar);
+        event3.setId(3L);
+
+        when(eventRepository.findFirstPage(eq(1L), any())).thenReturn(Arrays.asList(event1, event2, event3));
+        when(eventRepository.findPageAfter(eq(1L), any(), anyLong(), any())).thenReturn(List.of(event3));
+
+        EventPageDTO first = eventService.getEventPage(1L, null, 2);
+        assertEquals(2, first.getEvents().size());
+        assertNotNull(first.getNextCursor());
+
+        EventPageDTO second = eventService.getEventPage(1L, first.getNextCursor(), 2);
+        verify(eventRepository).findPageAfter(eq(1L), eq(start), eq(2L), any());
+        assertEquals(1, second.getEvents().size());
+        assertNull(second.getNextCursor());
+    }
+
+    @Test
+    void getEventPage_InvalidCursor_Throws() {
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> eventService.getEventPage(1L, "not-a-cursor", 10));
+        assertEquals("Invalid cursor", exception.getMessage());
+    }
+
+    @Test
+    void forEachEvent_StreamsAndDetachesRows() {
+        LocalDateTime start = LocalDateTime.of(2026, 3, 1, 9, 0);
+        Event event1 = new Event("Event 1", start, start.plusHours(1), testCalendar);
+        Event master = new Event("Standup", start, start.plusMinutes(15), testCalendar);
+        master.setRecurrenceRule("FREQ=DAILY;INTERVAL=1;COUNT=3");
+
+        when(eventRepository.streamByCalendarId(1L)).thenReturn(Stream.of(event1, master));
+
+        List<EventDTO> received = new ArrayList<>();
+        eventService.forEachEvent(1L, received::add);
+
+        assertEquals(4, received.size());
+        verify(entityManager).detach(event1);
+        verify(entityManager).detach(master);
+    }
 }
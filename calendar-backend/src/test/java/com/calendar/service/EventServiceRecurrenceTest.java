@@ -4,14 +4,17 @@ import com.calendar.dto.EventDTO;
 import com.calendar.dto.RecurrenceDTO;
 import com.calendar.model.Calendar;
 import com.calendar.model.Event;
+import com.calendar.model.User;
 import com.calendar.repository.CalendarRepository;
 import com.calendar.repository.EventRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -19,8 +22,12 @@ import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -32,6 +39,15 @@ public class EventServiceRecurrenceTest {
     @Mock
     private CalendarRepository calendarRepository;
 
+    @Mock
+    private ConflictIndexService conflictIndexService;
+
+    @Mock
+    private AnalyticsAggregateService analyticsAggregateService;
+
+    @Mock
+    private AnalyticsCacheInvalidator analyticsCacheInvalidator;
+
     @InjectMocks
     private EventService eventService;
 
@@ -41,8 +57,11 @@ public class EventServiceRecurrenceTest {
 
     @BeforeEach
     public void setUp() {
+        User owner = new User("testuser", "test@example.com", "password");
+        owner.setId(1L);
         mockCalendar = new Calendar();
         mockCalendar.setId(1L);
+        mockCalendar.setUser(owner);
         start = LocalDateTime.now().plusDays(1).withHour(10).withMinute(0); // Tomorrow 10:00
         end = start.plusHours(1); // Tomorrow 11:00
     }
@@ -61,13 +80,16 @@ public class EventServiceRecurrenceTest {
         dto.setEndTime(end);
         dto.setRecurrence(recurrence);
 
+        ReflectionTestUtils.setField(eventService, "recurrenceStorageMode", "MATERIALIZED");
         when(calendarRepository.findById(1L)).thenReturn(Optional.of(mockCalendar));
-        // when(eventRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(eventRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
 
         eventService.createEvent(1L, dto);
         
         // Verify saveAll is called with a list of 5 events
         verify(eventRepository, times(1)).saveAll(argThat(list -> ((List)list).size() == 5));
+        // Evictions for the series are coalesced into one
+        verify(analyticsCacheInvalidator, times(1)).evict(1L);
     }
     
     // Let's rewrite the test to be more robust about the method signature
@@ -90,8 +112,10 @@ public class EventServiceRecurrenceTest {
                 .recurrence(recurrence)
                 .build();
 
+        ReflectionTestUtils.setField(eventService, "recurrenceStorageMode", "MATERIALIZED");
         when(calendarRepository.findById(1L)).thenReturn(Optional.of(mockCalendar));
-        
+        when(eventRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
         eventService.createEvent(1L, dto);
 
         verify(eventRepository, times(1)).saveAll(argThat(list -> ((List)list).size() == 3));
@@ -112,10 +136,130 @@ public class EventServiceRecurrenceTest {
                 .recurrence(recurrence)
                 .build();
 
+        ReflectionTestUtils.setField(eventService, "recurrenceStorageMode", "MATERIALIZED");
         when(calendarRepository.findById(1L)).thenReturn(Optional.of(mockCalendar));
+        when(eventRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
 
         eventService.createEvent(1L, dto);
 
         verify(eventRepository, times(1)).saveAll(argThat(list -> ((List)list).size() == 3));
     }
+
+    @Test
+    public void createRecurringEvents_MasterMode_StoresSingleRowWithRule() {
+        RecurrenceDTO recurrence = new RecurrenceDTO();
+        recurrence.setPattern("DAILY");
+        recurrence.setInterval(1);
+        recurrence.setType("COUNT");
+        recurrence.setOccurrences(5);
+
+        EventDTO dto = EventDTO.builder()
+                .subject("Daily Standup")
+                .startTime(start)
+                .endTime(end)
+                .recurrence(recurrence)
+                .build();
+
+        ReflectionTestUtils.setField(eventService, "recurrenceStorageMode", "MASTER");
+        when(calendarRepository.findById(1L)).thenReturn(Optional.of(mockCalendar));
+        when(eventRepository.save(any(Event.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        eventService.createEvent(1L, dto);
+
+        ArgumentCaptor<Event> captor = ArgumentCaptor.forClass(Event.class);
+        verify(eventRepository, times(1)).save(captor.capture());
+        verify(eventRepository, never()).saveAll(anyList());
+        assertEquals("FREQ=DAILY;INTERVAL=1;COUNT=5", captor.getValue().getRecurrenceRule());
+        assertEquals(end.plusDays(4), captor.getValue().getRecurrenceEnd());
+    }
+
+    @Test
+    public void createRecurringEvents_MasterMode_OpenEndedHasNoRecurrenceEnd() {
+        RecurrenceDTO recurrence = new RecurrenceDTO();
+        recurrence.setPattern("WEEKLY");
+        recurrence.setInterval(1);
+        recurrence.setDaysOfWeek(List.of(start.getDayOfWeek().name()));
+
+        EventDTO dto = EventDTO.builder()
+                .subject("Weekly Sync")
+                .startTime(start)
+                .endTime(end)
+                .recurrence(recurrence)
+                .build();
+
+        ReflectionTestUtils.setField(eventService, "recurrenceStorageMode", "MASTER");
+        when(calendarRepository.findById(1L)).thenReturn(Optional.of(mockCalendar));
+        when(eventRepository.save(any(Event.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        eventService.createEvent(1L, dto);
+
+        ArgumentCaptor<Event> captor = ArgumentCaptor.forClass(Event.class);
+        verify(eventRepository).save(captor.capture());
+        assertTrue(captor.getValue().getRecurrenceRule().contains("BYDAY=" + start.getDayOfWeek().name().substring(0, 2)));
+        assertNull(captor.getValue().getRecurrenceEnd());
+    }
+
+    @Test
+    public void getEventsInRange_ExpandsSeriesMasterForWindowOnly() {
+        Event master = new Event("Daily Standup", start, end, mockCalendar);
+        master.setId(7L);
+        master.setSeriesId("series-1");
+        master.setRecurrenceRule("FREQ=DAILY;INTERVAL=1");
+        master.setRecurrenceExceptions(start.plusDays(11).toString());
+
+        LocalDateTime windowStart = start.plusDays(10).withHour(0);
+        LocalDateTime windowEnd = windowStart.plusDays(3);
+
+        when(eventRepository.findEventsInRange(1L, windowStart, windowEnd)).thenReturn(List.of());
+        when(eventRepository.findSeriesMastersInRange(1L, windowStart, windowEnd)).thenReturn(List.of(master));
+
+        List<EventDTO> result = eventService.getEventsInRange(1L, windowStart, windowEnd);
+
+        // Days 10 and 12 of the series; day 11 is an exception
+        assertEquals(2, result.size());
+        assertEquals(start.plusDays(10), result.get(0).getStartTime());
+        assertEquals(start.plusDays(12), result.get(1).getStartTime());
+        assertEquals(7L, result.get(0).getId());
+    }
+
+    @Test
+    public void deleteOccurrence_AddsExceptionToMaster() {
+        Event master = new Event("Daily Standup", start, end, mockCalendar);
+        master.setId(7L);
+        master.setRecurrenceRule("FREQ=DAILY;INTERVAL=1;COUNT=5");
+
+        when(eventRepository.findById(7L)).thenReturn(Optional.of(master));
+
+        eventService.deleteOccurrence(7L, start.plusDays(2));
+
+        assertEquals(start.plusDays(2).toString(), master.getRecurrenceExceptions());
+        verify(eventRepository).save(master);
+        // Counted as five occurrences before, four after
+        verify(analyticsAggregateService).recordUpdated(eq(1L), argThat(before -> before.size() == 5), eq(master));
+        assertEquals(4, AnalyticsAggregateService.Contribution.allOf(master).size());
+        verify(analyticsCacheInvalidator).evict(1L);
+    }
+
+    @Test
+    public void createRecurringEvents_ConflictingOccurrence_ThrowsBeforeSaving() {
+        RecurrenceDTO recurrence = new RecurrenceDTO();
+        recurrence.setPattern("DAILY");
+        recurrence.setInterval(1);
+        recurrence.setType("COUNT");
+        recurrence.setOccurrences(5);
+
+        EventDTO dto = EventDTO.builder()
+                .subject("Daily Standup")
+                .startTime(start)
+                .endTime(end)
+                .recurrence(recurrence)
+                .build();
+
+        when(calendarRepository.findById(1L)).thenReturn(Optional.of(mockCalendar));
+        when(conflictIndexService.findFirstConflict(eq(1L), argThat(starts -> starts.size() == 5), any()))
+                .thenReturn(start.plusDays(3));
+
+        assertThrows(RuntimeException.class, () -> eventService.createEvent(1L, dto));
+        verify(eventRepository, never()).save(any(Event.class));
+    }
 }
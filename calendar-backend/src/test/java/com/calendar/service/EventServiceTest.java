@@ -3,6 +3,7 @@ package com.calendar.service;
 import com.calendar.dto.EventDTO;
 import com.calendar.model.Calendar;
 import com.calendar.model.Event;
+import com.calendar.model.User;
 import com.calendar.repository.CalendarRepository;
 import com.calendar.repository.EventRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -16,6 +17,7 @@ import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 class EventServiceTest {
@@ -26,6 +28,15 @@ class EventServiceTest {
     @Mock
     private CalendarRepository calendarRepository;
 
+    @Mock
+    private ConflictIndexService conflictIndexService;
+
+    @Mock
+    private AnalyticsAggregateService analyticsAggregateService;
+
+    @Mock
+    private AnalyticsCacheInvalidator analyticsCacheInvalidator;
+
     @InjectMocks
     private EventService eventService;
 
@@ -50,6 +61,7 @@ class EventServiceTest {
 
         Calendar mockCalendar = new Calendar();
         mockCalendar.setId(calendarId);
+        mockCalendar.setUser(owner());
 
         Event savedEvent = new Event("Test Event", start, end, mockCalendar);
         savedEvent.setId(100L);
@@ -67,6 +79,8 @@ class EventServiceTest {
         assertEquals(100L, result.getId());
         assertEquals("Test Event", result.getSubject());
         verify(eventRepository, times(1)).save(any(Event.class));
+        // Only the owner's cached analytics are evicted
+        verify(analyticsCacheInvalidator).evict(1L);
     }
 
     @Test
@@ -83,12 +97,19 @@ class EventServiceTest {
                 .build();
 
         Calendar mockCalendar = new Calendar();
+        mockCalendar.setUser(owner());
         
         when(calendarRepository.findById(calendarId)).thenReturn(Optional.of(mockCalendar));
-        // Simulate conflict finding existing events
-        when(eventRepository.findEventsInRange(any(), any(), any())).thenReturn(java.util.List.of(new Event()));
+        // Simulate the owner's conflict index reporting an overlap
+        when(conflictIndexService.hasConflict(eq(1L), any(), any())).thenReturn(true);
 
         // Act & Assert
         assertThrows(RuntimeException.class, () -> eventService.createEvent(calendarId, inputDTO));
     }
+
+    private User owner() {
+        User user = new User("testuser", "test@example.com", "password");
+        user.setId(1L);
+        return user;
+    }
 }
@@ -0,0 +1,223 @@
+package com.calendar.service;
+
+import com.google.api.client.http.javanet.NetHttpTransport;
+import com.google.api.client.json.gson.GsonFactory;
+import com.google.api.services.calendar.Calendar;
+import com.google.api.services.calendar.model.Event;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Runs the pusher against a local stand-in for Google's batch endpoint, which answers each
+ * part of a multipart/mixed batch request the way the Calendar API does.
+ */
+class GoogleBatchPusherTest {
+
+    private static final Pattern REQUEST_LINE = Pattern.compile("^(POST|PATCH) (\\S+) HTTP/1\\.1$", Pattern.MULTILINE);
+    // The client sends PATCH inside a batch as POST with this header
+    private static final Pattern METHOD_OVERRIDE = Pattern.compile("^X-HTTP-Method-Override:\\s*(\\S+)", Pattern.MULTILINE | Pattern.CASE_INSENSITIVE);
+    private static final Pattern SUMMARY = Pattern.compile("\"summary\"\\s*:\\s*\"([^\"]*)\"");
+
+    private HttpServer server;
+    private Calendar calendar;
+    private GoogleBatchPusher pusher;
+    private GoogleCallExecutor callExecutor;
+    private GoogleQuotaGovernor quotaGovernor;
+
+    private final List<Integer> operationsPerRequest = Collections.synchronizedList(new ArrayList<>());
+    private final List<String> patchedPaths = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+    private final AtomicInteger batchRequests = new AtomicInteger();
+    private volatile int status = 200;
+    // Batch requests answered with status before answering normally; negative for all of them
+    private volatile int failuresLeft = -1;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/batch/calendar/v3", this::handleBatch);
+        server.setExecutor(Executors.newFixedThreadPool(8));
+        server.start();
+
+        calendar = new Calendar.Builder(new NetHttpTransport(), GsonFactory.getDefaultInstance(), null)
+                .setRootUrl("http://localhost:" + server.getAddress().getPort() + "/")
+                .setApplicationName("test")
+                .build();
+        quotaGovernor = mock(GoogleQuotaGovernor.class);
+        when(quotaGovernor.acquire(any())).thenAnswer(invocation -> CompletableFuture.completedFuture(null));
+        callExecutor = new GoogleCallExecutor();
+        ReflectionTestUtils.setField(callExecutor, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(callExecutor, "initialDelayMs", 1L);
+        ReflectionTestUtils.setField(callExecutor, "quotaGovernor", quotaGovernor);
+        ReflectionTestUtils.invokeMethod(callExecutor, "init");
+        pusher = new GoogleBatchPusher(2);
+        ReflectionTestUtils.setField(pusher, "googleCallExecutor", callExecutor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pusher.shutdown();
+        callExecutor.shutdown();
+        server.stop(0);
+    }
+
+    private static GoogleBatchPusher.Operation insert(long localId, String summary) {
+        return new GoogleBatchPusher.Operation(localId, null, new Event().setSummary(summary));
+    }
+
+    @Test
+    void push_GroupsOperationsIntoBatchesOfFifty() {
+        List<GoogleBatchPusher.Operation> operations = new ArrayList<>();
+        for (long i = 1; i <= 120; i++) {
+            operations.add(insert(i, "event-" + i));
+        }
+
+        GoogleBatchPusher.Result result = pusher.push(calendar, 1L, operations);
+
+        assertEquals(120, result.getCreated().size());
+        assertEquals("g-event-7", result.getCreated().get(7L));
+        assertEquals(0, result.getFailed());
+        assertNull(result.getError());
+        List<Integer> sizes = new ArrayList<>(operationsPerRequest);
+        Collections.sort(sizes);
+        assertEquals(List.of(20, 50, 50), sizes);
+        assertTrue(peakInFlight.get() <= 2, "at most two batch requests in flight, saw " + peakInFlight.get());
+    }
+
+    @Test
+    void push_PatchesPushedEventsAndReportsFailuresPerOperation() {
+        GoogleBatchPusher.Result result = pusher.push(calendar, 1L, List.of(
+                insert(1L, "new"),
+                insert(2L, "fail"),
+                new GoogleBatchPusher.Operation(3L, "g-3", new Event().setSummary("edited")),
+                new GoogleBatchPusher.Operation(4L, "deleted", new Event().setSummary("gone from Google"))));
+
+        assertEquals(1, result.getCreated().size());
+        assertEquals("g-new", result.getCreated().get(1L));
+        // A 404 on a patch means the event is gone from Google; nothing left to push
+        assertEquals(List.of(3L, 4L), result.getPatched().stream().sorted().toList());
+        assertEquals(1, result.getFailed());
+        assertEquals(1, operationsPerRequest.size());
+        assertEquals(2, patchedPaths.size());
+        assertTrue(patchedPaths.stream().anyMatch(path -> path.endsWith("/calendars/primary/events/g-3")));
+    }
+
+    @Test
+    void push_FailedBatchRequestIsReportedWithoutLosingOthers() {
+        status = 503;
+
+        GoogleBatchPusher.Result result = pusher.push(calendar, 1L, List.of(insert(1L, "a"), insert(2L, "b")));
+
+        assertTrue(result.getCreated().isEmpty());
+        assertEquals(2, result.getFailed());
+        assertNotNull(result.getError());
+        // 503 means Google did not apply the batch, so it was sent again up to the attempt limit
+        assertEquals(4, batchRequests.get());
+    }
+
+    @Test
+    void push_BatchRejectedOnceIsSentAgain() {
+        status = 503;
+        failuresLeft = 1;
+
+        GoogleBatchPusher.Result result = pusher.push(calendar, 1L, List.of(insert(1L, "a")));
+
+        assertEquals("g-a", result.getCreated().get(1L));
+        assertNull(result.getError());
+        assertEquals(2, batchRequests.get());
+    }
+
+    private void handleBatch(HttpExchange exchange) throws IOException {
+        batchRequests.incrementAndGet();
+        int current = inFlight.incrementAndGet();
+        peakInFlight.accumulateAndGet(current, Math::max);
+        try {
+            String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+            String boundary = contentType.substring(contentType.indexOf("boundary=") + "boundary=".length());
+            String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            if (status != 200 && failuresLeft != 0) {
+                failuresLeft--;
+                exchange.sendResponseHeaders(status, -1);
+                return;
+            }
+            // Keep requests overlapping long enough to observe the concurrency bound
+            Thread.sleep(50);
+
+            StringBuilder response = new StringBuilder();
+            int operations = 0;
+            for (String part : body.split("--" + Pattern.quote(boundary))) {
+                Matcher request = REQUEST_LINE.matcher(part);
+                if (!request.find()) {
+                    continue;
+                }
+                operations++;
+                Matcher summary = SUMMARY.matcher(part);
+                String subject = summary.find() ? summary.group(1) : "";
+                String path = request.group(2);
+                String id = path.substring(path.lastIndexOf('/') + 1);
+                Matcher override = METHOD_OVERRIDE.matcher(part);
+                String method = override.find() ? override.group(1).toUpperCase() : request.group(1);
+                if ("PATCH".equals(method)) {
+                    patchedPaths.add(path);
+                }
+
+                if ("fail".equals(subject)) {
+                    appendPart(response, operations, "400 Bad Request", "{\"error\":{\"code\":400,\"message\":\"Invalid event\"}}");
+                } else if ("deleted".equals(id)) {
+                    appendPart(response, operations, "404 Not Found", "{\"error\":{\"code\":404,\"message\":\"Not Found\"}}");
+                } else if ("PATCH".equals(method)) {
+                    appendPart(response, operations, "200 OK", "{\"id\":\"" + id + "\"}");
+                } else {
+                    appendPart(response, operations, "200 OK", "{\"id\":\"g-" + subject + "\"}");
+                }
+            }
+            response.append("--response_boundary--\r\n");
+            operationsPerRequest.add(operations);
+
+            byte[] bytes = response.toString().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "multipart/mixed; boundary=response_boundary");
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            inFlight.decrementAndGet();
+            exchange.close();
+        }
+    }
+
+    private static void appendPart(StringBuilder response, int contentId, String status, String json) {
+        response.append("--response_boundary\r\n")
+                .append("Content-Type: application/http\r\n")
+                .append("Content-ID: <response-").append(contentId).append(">\r\n\r\n")
+                .append("HTTP/1.1 ").append(status).append("\r\n")
+                .append("Content-Type: application/json; charset=UTF-8\r\n")
+                .append("Content-Length: ").append(json.length()).append("\r\n\r\n")
+                .append(json).append("\r\n");
+    }
+}
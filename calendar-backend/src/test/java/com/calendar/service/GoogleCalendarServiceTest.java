@@ -6,24 +6,28 @@ import com.calendar.repository.CalendarRepository;
 import com.calendar.repository.EventRepository;
 import com.calendar.repository.UserRepository;
 import com.google.api.client.auth.oauth2.Credential;
-import com.google.api.client.auth.oauth2.TokenResponse;
 import com.google.api.client.googleapis.auth.oauth2.GoogleAuthorizationCodeFlow;
 import com.google.api.client.googleapis.auth.oauth2.GoogleAuthorizationCodeTokenRequest;
 import com.google.api.client.googleapis.auth.oauth2.GoogleTokenResponse;
-import com.google.api.client.json.JsonFactory;
 import com.google.api.services.calendar.Calendar;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
 
 import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -45,13 +49,29 @@ public class GoogleCalendarServiceTest {
     private EventRepository eventRepository;
 
     @Mock
-    private JsonFactory jsonFactory;
+    private ConflictIndexService conflictIndexService;
+
+    @Mock
+    private AnalyticsCacheInvalidator analyticsCacheInvalidator;
+
+    @Mock
+    private GoogleSyncWriter googleSyncWriter;
+
+    @Mock
+    private GoogleBatchPusher googleBatchPusher;
+
+    @Mock
+    private GoogleClientCache googleClientCache;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
 
     @Spy
     @InjectMocks
     private GoogleCalendarService googleCalendarService;
 
     private User user;
+    private GoogleCallExecutor callExecutor;
 
     @BeforeEach
     void setUp() {
@@ -60,6 +80,21 @@ public class GoogleCalendarServiceTest {
         user.setUsername("testuser");
         user.setGoogleAccessToken("access-token");
         user.setGoogleRefreshToken("refresh-token");
+        lenient().when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+
+        callExecutor = new GoogleCallExecutor();
+        ReflectionTestUtils.setField(callExecutor, "meterRegistry", new io.micrometer.core.instrument.simple.SimpleMeterRegistry());
+        ReflectionTestUtils.setField(callExecutor, "initialDelayMs", 1L);
+        GoogleQuotaGovernor quotaGovernor = mock(GoogleQuotaGovernor.class);
+        lenient().when(quotaGovernor.acquire(any())).thenAnswer(invocation -> CompletableFuture.completedFuture(null));
+        ReflectionTestUtils.setField(callExecutor, "quotaGovernor", quotaGovernor);
+        ReflectionTestUtils.invokeMethod(callExecutor, "init");
+        ReflectionTestUtils.setField(googleCalendarService, "googleCallExecutor", callExecutor);
+    }
+
+    @org.junit.jupiter.api.AfterEach
+    void tearDown() {
+        callExecutor.shutdown();
     }
 
     @Test
@@ -86,24 +121,24 @@ public class GoogleCalendarServiceTest {
         assertNotNull(result);
         verify(userRepository).save(user);
         assertEquals("new-access-token", user.getGoogleAccessToken());
+        // The next call builds a credential from the new tokens
+        verify(googleClientCache).evict(1L);
     }
 
     @Test
-    void getCredentialFromDatabase_Success() throws IOException {
-        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
-        when(flow.createAndStoreCredential(any(TokenResponse.class), eq("1"))).thenReturn(mock(Credential.class));
+    void getCredentialFromDatabase_UsesClientCache() {
+        Credential cached = mock(Credential.class);
+        when(googleClientCache.getCredential(1L)).thenReturn(cached);
 
-        Credential credential = googleCalendarService.getCredentialFromDatabase(1L);
-        assertNotNull(credential);
+        assertSame(cached, googleCalendarService.getCredentialFromDatabase(1L));
+        verifyNoInteractions(flow);
     }
     
     @Test
-    void getCredentialFromDatabase_NoToken() {
-        user.setGoogleAccessToken(null);
-        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
-        
-        Credential credential = googleCalendarService.getCredentialFromDatabase(1L);
-        assertNull(credential);
+    void getCredentialFromDatabase_NotConnected() {
+        when(googleClientCache.getCredential(1L)).thenReturn(null);
+
+        assertNull(googleCalendarService.getCredentialFromDatabase(1L));
     }
 
     @Test
@@ -111,44 +146,260 @@ public class GoogleCalendarServiceTest {
         // Mock getCredential (internal call)
         doReturn(mock(Credential.class)).when(googleCalendarService).getCredentialFromDatabase(1L);
         
-        // Mock fetchGoogleCalendarEvents (internal call)
+        // Mock fetchGoogleChanges (internal call)
         com.google.api.services.calendar.model.Event googleEvent = new com.google.api.services.calendar.model.Event();
         googleEvent.setId("g123");
         googleEvent.setSummary("Google Event");
-        doReturn(Collections.singletonList(googleEvent)).when(googleCalendarService).fetchGoogleCalendarEvents(any(), any());
+        doReturn(new GoogleCalendarService.GoogleChanges(Collections.singletonList(googleEvent), "sync-2", false, null))
+                .when(googleCalendarService).fetchGoogleChanges(any(), any());
 
         // Mock repositories
         when(calendarRepository.findByUserId(1L)).thenReturn(Collections.emptyList());
         when(calendarRepository.save(any())).thenReturn(new com.calendar.model.Calendar("Google Calendar", "UTC", user));
-        when(eventRepository.findByGoogleEventId("g123")).thenReturn(Optional.empty());
-        when(eventRepository.save(any())).thenReturn(new Event());
+        when(googleSyncWriter.write(eq(1L), any(), anyList(), anyCollection()))
+                .thenReturn(new GoogleSyncWriter.Result(Collections.singletonList(new Event()), 0));
 
         var result = googleCalendarService.syncGoogleEvents(user);
 
         assertEquals(1, result.size());
-        verify(eventRepository).save(any(Event.class));
+        // Only the token column is written, in the last transaction
+        assertEquals("sync-2", user.getGoogleSyncToken());
+        verify(userRepository).updateGoogleSyncToken(1L, "sync-2");
+        verify(userRepository, never()).save(any());
+        verify(transactionManager, times(2)).commit(any());
+        verify(conflictIndexService).invalidate(1L);
+        verify(analyticsCacheInvalidator).evict(1L);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void syncGoogleEvents_SplitsChangesAndCancellations() throws IOException {
+        doReturn(mock(Credential.class)).when(googleCalendarService).getCredentialFromDatabase(1L);
+        com.calendar.model.Calendar bucket = new com.calendar.model.Calendar("Google Calendar", "UTC", user);
+        bucket.setId(5L);
+        when(calendarRepository.findByUserId(1L)).thenReturn(Collections.singletonList(bucket));
+
+        com.google.api.services.calendar.model.Event edited = new com.google.api.services.calendar.model.Event()
+                .setId("g1").setSummary("Renamed").setStatus("tentative");
+        com.google.api.services.calendar.model.Event cancelled = new com.google.api.services.calendar.model.Event()
+                .setId("g2").setStatus("cancelled");
+        com.google.api.services.calendar.model.Event untitled = new com.google.api.services.calendar.model.Event()
+                .setId("g3");
+        doReturn(new GoogleCalendarService.GoogleChanges(java.util.Arrays.asList(edited, cancelled, untitled), "sync-3", false, null))
+                .when(googleCalendarService).fetchGoogleChanges(any(), any());
+        when(googleSyncWriter.write(eq(1L), eq(bucket), anyList(), anyCollection()))
+                .thenReturn(new GoogleSyncWriter.Result(Collections.emptyList(), 0))
+                .thenReturn(new GoogleSyncWriter.Result(Collections.emptyList(), 1));
+
+        googleCalendarService.syncGoogleEvents(user);
+
+        org.mockito.ArgumentCaptor<List<Event>> incoming = org.mockito.ArgumentCaptor.forClass(List.class);
+        verify(googleSyncWriter).write(eq(1L), eq(bucket), incoming.capture(), eq(Collections.emptyList()));
+        verify(googleSyncWriter).write(1L, bucket, Collections.emptyList(), Collections.singletonList("g2"));
+        assertEquals(1, incoming.getValue().size());
+        assertEquals("g1", incoming.getValue().get(0).getGoogleEventId());
+        assertEquals("Renamed", incoming.getValue().get(0).getSubject());
+        assertEquals("TENTATIVE", incoming.getValue().get(0).getStatus());
+        verify(conflictIndexService).invalidate(1L);
+        verify(googleSyncWriter, never()).deleteMissing(any(), any(), any(), any());
+        verify(eventRepository, never()).save(any());
+    }
+
+    @Test
+    void syncGoogleEvents_FullSyncRemovesEventsGoneFromGoogle() throws IOException {
+        doReturn(mock(Credential.class)).when(googleCalendarService).getCredentialFromDatabase(1L);
+        com.calendar.model.Calendar bucket = new com.calendar.model.Calendar("Google Calendar", "UTC", user);
+        bucket.setId(5L);
+        when(calendarRepository.findByUserId(1L)).thenReturn(Collections.singletonList(bucket));
+
+        LocalDateTime windowStart = LocalDateTime.now().minusDays(365);
+        com.google.api.services.calendar.model.Event kept = new com.google.api.services.calendar.model.Event()
+                .setId("g1").setSummary("Kept");
+        doReturn(new GoogleCalendarService.GoogleChanges(Collections.singletonList(kept), "sync-1", true, windowStart))
+                .when(googleCalendarService).fetchGoogleChanges(any(), any());
+        when(googleSyncWriter.write(eq(1L), eq(bucket), anyList(), anyCollection()))
+                .thenReturn(new GoogleSyncWriter.Result(Collections.emptyList(), 0));
+        when(googleSyncWriter.deleteMissing(1L, 5L, windowStart, java.util.Set.of("g1"))).thenReturn(2);
+
+        googleCalendarService.syncGoogleEvents(user);
+
+        verify(googleSyncWriter).deleteMissing(1L, 5L, windowStart, java.util.Set.of("g1"));
+        verify(analyticsCacheInvalidator).evict(1L);
+    }
+
+    @Test
+    void syncGoogleEvents_CallsGoogleBeforeOpeningAnyTransaction() throws IOException {
+        doReturn(mock(Credential.class)).when(googleCalendarService).getCredentialFromDatabase(1L);
+        com.calendar.model.Calendar bucket = new com.calendar.model.Calendar("Google Calendar", "UTC", user);
+        bucket.setId(5L);
+        when(calendarRepository.findByUserId(1L)).thenReturn(Collections.singletonList(bucket));
+        com.google.api.services.calendar.model.Event gEvent = new com.google.api.services.calendar.model.Event()
+                .setId("g1").setSummary("Event");
+        doReturn(new GoogleCalendarService.GoogleChanges(Collections.singletonList(gEvent), "sync-2", false, null))
+                .when(googleCalendarService).fetchGoogleChanges(any(), any());
+        when(googleSyncWriter.write(eq(1L), eq(bucket), anyList(), anyCollection()))
+                .thenReturn(new GoogleSyncWriter.Result(Collections.emptyList(), 0));
+
+        googleCalendarService.syncGoogleEvents(user);
+
+        InOrder order = inOrder(googleCalendarService, transactionManager, googleSyncWriter);
+        order.verify(googleCalendarService).fetchGoogleChanges(any(), any());
+        order.verify(transactionManager).getTransaction(any());
+        order.verify(googleSyncWriter).write(eq(1L), eq(bucket), anyList(), anyCollection());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void syncGoogleEvents_WritesLargeSyncInSeparateTransactions() throws IOException {
+        ReflectionTestUtils.setField(googleCalendarService, "transactionSize", 2);
+        doReturn(mock(Credential.class)).when(googleCalendarService).getCredentialFromDatabase(1L);
+        com.calendar.model.Calendar bucket = new com.calendar.model.Calendar("Google Calendar", "UTC", user);
+        bucket.setId(5L);
+        when(calendarRepository.findByUserId(1L)).thenReturn(Collections.singletonList(bucket));
+        List<com.google.api.services.calendar.model.Event> items = new java.util.ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            items.add(new com.google.api.services.calendar.model.Event().setId("g" + i).setSummary("Event " + i));
+        }
+        doReturn(new GoogleCalendarService.GoogleChanges(items, "sync-2", false, null))
+                .when(googleCalendarService).fetchGoogleChanges(any(), any());
+        when(googleSyncWriter.write(eq(1L), eq(bucket), anyList(), anyCollection()))
+                .thenAnswer(invocation -> new GoogleSyncWriter.Result(invocation.getArgument(2), 0));
+
+        var result = googleCalendarService.syncGoogleEvents(user);
+
+        assertEquals(5, result.size());
+        org.mockito.ArgumentCaptor<List<Event>> chunks = org.mockito.ArgumentCaptor.forClass(List.class);
+        verify(googleSyncWriter, times(3)).write(eq(1L), eq(bucket), chunks.capture(), anyCollection());
+        assertEquals(List.of(2, 2, 1), chunks.getAllValues().stream().map(List::size).toList());
+        // Three chunks plus the one saving the sync token
+        verify(transactionManager, times(4)).commit(any());
+    }
+
+    @Test
+    void fetchGoogleChanges_FollowsPagesWithSyncToken() throws IOException {
+        user.setGoogleSyncToken("sync-1");
+        Calendar.Events.List request = mockListRequest();
+        when(request.execute())
+                .thenReturn(new com.google.api.services.calendar.model.Events()
+                        .setItems(Collections.singletonList(new com.google.api.services.calendar.model.Event().setId("a")))
+                        .setNextPageToken("page-2"))
+                .thenReturn(new com.google.api.services.calendar.model.Events()
+                        .setItems(Collections.singletonList(new com.google.api.services.calendar.model.Event().setId("b")))
+                        .setNextSyncToken("sync-2"));
+
+        GoogleCalendarService.GoogleChanges changes = googleCalendarService.fetchGoogleChanges(mock(Credential.class), user);
+
+        assertEquals(2, changes.getItems().size());
+        assertEquals("sync-2", changes.getNextSyncToken());
+        assertFalse(changes.isFullSync());
+        verify(request, times(2)).setSyncToken("sync-1");
+        verify(request).setPageToken("page-2");
+        verify(request, never()).setTimeMin(any());
+    }
+
+    @Test
+    void fetchGoogleChanges_ExpiredTokenFallsBackToFullSync() throws IOException {
+        user.setGoogleSyncToken("expired");
+        Calendar.Events.List request = mockListRequest();
+        com.google.api.client.http.HttpResponseException.Builder gone =
+                new com.google.api.client.http.HttpResponseException.Builder(410, "Gone", new com.google.api.client.http.HttpHeaders());
+        when(request.execute())
+                .thenThrow(new com.google.api.client.googleapis.json.GoogleJsonResponseException(gone, null))
+                .thenReturn(new com.google.api.services.calendar.model.Events()
+                        .setItems(Collections.emptyList())
+                        .setNextSyncToken("fresh"));
+
+        GoogleCalendarService.GoogleChanges changes = googleCalendarService.fetchGoogleChanges(mock(Credential.class), user);
+
+        assertTrue(changes.isFullSync());
+        assertNotNull(changes.getWindowStart());
+        assertEquals("fresh", changes.getNextSyncToken());
+        // Not retried: one failed incremental call, one full listing
+        verify(request, times(2)).execute();
+        verify(request).setTimeMin(any());
+    }
+
+    @Test
+    void fetchGoogleChanges_RetriesPageAfterServerError() throws IOException {
+        user.setGoogleSyncToken("sync-1");
+        Calendar.Events.List request = mockListRequest();
+        com.google.api.client.http.HttpResponseException.Builder unavailable =
+                new com.google.api.client.http.HttpResponseException.Builder(503, "Service Unavailable", new com.google.api.client.http.HttpHeaders());
+        when(request.execute())
+                .thenThrow(new com.google.api.client.googleapis.json.GoogleJsonResponseException(unavailable, null))
+                .thenReturn(new com.google.api.services.calendar.model.Events()
+                        .setItems(Collections.emptyList())
+                        .setNextSyncToken("sync-2"));
+
+        GoogleCalendarService.GoogleChanges changes = googleCalendarService.fetchGoogleChanges(mock(Credential.class), user);
+
+        assertFalse(changes.isFullSync());
+        assertEquals("sync-2", changes.getNextSyncToken());
+        verify(request, times(2)).execute();
+    }
+
+    private Calendar.Events.List mockListRequest() throws IOException {
+        Calendar client = mock(Calendar.class);
+        Calendar.Events events = mock(Calendar.Events.class);
+        Calendar.Events.List request = mock(Calendar.Events.List.class);
+        doReturn(client).when(googleCalendarService).getCalendarService(any());
+        when(client.events()).thenReturn(events);
+        when(events.list("primary")).thenReturn(request);
+        when(request.setSingleEvents(any())).thenReturn(request);
+        when(request.setMaxResults(any())).thenReturn(request);
+        when(request.setPageToken(any())).thenReturn(request);
+        lenient().when(request.setSyncToken(any())).thenReturn(request);
+        lenient().when(request.setTimeMin(any())).thenReturn(request);
+        return request;
     }
 
     @Test
     void pushLocalEventsToGoogle_Success() throws IOException {
         doReturn(mock(Credential.class)).when(googleCalendarService).getCredentialFromDatabase(1L);
+        doReturn(mock(Calendar.class)).when(googleCalendarService).getCalendarService(any());
         
         Event localEvent = new Event();
         localEvent.setId(10L);
         localEvent.setSubject("Local Event");
         localEvent.setStartTime(LocalDateTime.now());
         localEvent.setEndTime(LocalDateTime.now().plusHours(1));
+        Event editedEvent = new Event("Edited", LocalDateTime.now(), LocalDateTime.now().plusHours(1), null);
+        editedEvent.setId(11L);
+        editedEvent.setGoogleEventId("g11");
+        editedEvent.setGooglePushPending(true);
 
-        when(eventRepository.findByCalendar_User_Id(1L)).thenReturn(Collections.singletonList(localEvent));
-        
-        // Mock exportToGoogleCalendar
-        doReturn(new com.google.api.services.calendar.model.Event().setId("g999"))
-            .when(googleCalendarService).exportToGoogleCalendar(any(), any());
+        when(eventRepository.findGooglePushCandidates(1L)).thenReturn(java.util.Arrays.asList(localEvent, editedEvent));
+
+        GoogleBatchPusher.Result pushResult = new GoogleBatchPusher.Result();
+        pushResult.getCreated().put(10L, "g999");
+        pushResult.getPatched().add(11L);
+        when(googleBatchPusher.push(any(), any(), anyList())).thenReturn(pushResult);
 
         int pushed = googleCalendarService.pushLocalEventsToGoogle(user);
 
-        assertEquals(1, pushed);
-        verify(eventRepository).save(localEvent);
-        assertEquals("g999", localEvent.getGoogleEventId());
+        assertEquals(2, pushed);
+        verify(googleBatchPusher).push(any(), eq(1L), argThat(operations -> operations.size() == 2));
+        verify(googleSyncWriter).markPushed(java.util.Map.of(10L, "g999"), List.of(11L),
+                java.util.Map.of(10L, localEvent.getUpdatedAt(), 11L, editedEvent.getUpdatedAt()));
+        verify(eventRepository, never()).save(any());
+        // The push itself runs before the transaction writing back its results
+        InOrder order = inOrder(googleBatchPusher, transactionManager);
+        order.verify(googleBatchPusher).push(any(), any(), anyList());
+        order.verify(transactionManager).getTransaction(any());
+    }
+
+    @Test
+    void pushLocalEventsToGoogle_NothingPushedRethrowsBatchFailure() throws IOException {
+        doReturn(mock(Credential.class)).when(googleCalendarService).getCredentialFromDatabase(1L);
+        doReturn(mock(Calendar.class)).when(googleCalendarService).getCalendarService(any());
+        Event localEvent = new Event("Local Event", LocalDateTime.now(), LocalDateTime.now().plusHours(1), null);
+        localEvent.setId(10L);
+        when(eventRepository.findGooglePushCandidates(1L)).thenReturn(Collections.singletonList(localEvent));
+
+        GoogleBatchPusher.Result pushResult = new GoogleBatchPusher.Result();
+        pushResult.recordError(new IOException("401 Unauthorized"));
+        when(googleBatchPusher.push(any(), any(), anyList())).thenReturn(pushResult);
+
+        assertThrows(IOException.class, () -> googleCalendarService.pushLocalEventsToGoogle(user));
     }
 }
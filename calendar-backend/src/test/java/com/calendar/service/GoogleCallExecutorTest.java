@@ -0,0 +1,189 @@
+package com.calendar.service;
+
+import com.google.api.client.http.HttpHeaders;
+import com.google.api.client.http.HttpResponseException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class GoogleCallExecutorTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private GoogleCallExecutor executor;
+    private final AtomicInteger calls = new AtomicInteger();
+    private final GoogleQuotaGovernor quotaGovernor = mock(GoogleQuotaGovernor.class);
+    private final GoogleQuotaGovernor.Caller caller = GoogleQuotaGovernor.Caller.interactive(1L);
+
+    @BeforeEach
+    void setUp() {
+        when(quotaGovernor.acquire(any())).thenAnswer(invocation -> CompletableFuture.completedFuture(null));
+        meterRegistry = new SimpleMeterRegistry();
+        executor = new GoogleCallExecutor();
+        ReflectionTestUtils.setField(executor, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(executor, "quotaGovernor", quotaGovernor);
+        ReflectionTestUtils.setField(executor, "initialDelayMs", 1L);
+        ReflectionTestUtils.setField(executor, "maxDelayMs", 2000L);
+        ReflectionTestUtils.setField(executor, "minimumCalls", 4);
+        ReflectionTestUtils.setField(executor, "windowSize", 4);
+        ReflectionTestUtils.invokeMethod(executor, "init");
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    private static HttpResponseException status(int code, String retryAfter) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setRetryAfter(retryAfter);
+        return new HttpResponseException.Builder(code, "status " + code, headers).build();
+    }
+
+    // Fails the first `failures` calls with `error`, then returns "ok"
+    private GoogleCallExecutor.GoogleApiCall<String> failing(int failures, IOException error) {
+        return () -> {
+            if (calls.incrementAndGet() <= failures) {
+                throw error;
+            }
+            return "ok";
+        };
+    }
+
+    @Test
+    void execute_RetriesTransientErrorsOffTheCallingThread() throws IOException {
+        assertEquals("ok", executor.execute("events.list", true, caller, failing(2, status(503, null))));
+
+        assertEquals(3, calls.get());
+        assertEquals(2.0, meterRegistry.get("google.api.retries").tag("operation", "events.list").counter().count());
+        assertEquals(1.0, meterRegistry.get("google.api.calls").tag("outcome", "success").counter().count());
+    }
+
+    @Test
+    void execute_DoesNotRetryClientErrors() {
+        HttpResponseException notFound = status(404, null);
+
+        IOException thrown = assertThrows(IOException.class,
+                () -> executor.execute("events.list", true, caller, failing(5, notFound)));
+
+        // The original exception, so callers can still look at the status code
+        assertSame(notFound, thrown);
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void execute_RetriesBrokenConnectionOnlyWhenIdempotent() {
+        assertThrows(SocketTimeoutException.class,
+                () -> executor.execute("events.insert", false, caller, failing(5, new SocketTimeoutException("Read timed out"))));
+        assertEquals(1, calls.get());
+
+        calls.set(0);
+        assertDoesNotThrow(() -> executor.execute("events.list", true, caller, failing(1, new SocketTimeoutException("Read timed out"))));
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void execute_GivesUpAfterMaxAttempts() {
+        assertThrows(HttpResponseException.class, () -> executor.execute("events.list", true, caller, failing(10, status(429, null))));
+
+        assertEquals(4, calls.get());
+    }
+
+    @Test
+    void retryDelay_HonorsRetryAfter() {
+        Duration delay = executor.retryDelay(status(429, "1"), 1);
+
+        assertTrue(delay.toMillis() >= 1000, "delay " + delay);
+        // Asked to wait longer than we are willing to: fail instead
+        assertNull(executor.retryDelay(status(429, "120"), 1));
+    }
+
+    @Test
+    void parseRetryAfter_AcceptsSecondsAndHttpDates() {
+        assertEquals(Duration.ofSeconds(7), GoogleCallExecutor.parseRetryAfter("7"));
+        String inTenSeconds = DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now(ZoneOffset.UTC).plusSeconds(10));
+        Duration delay = GoogleCallExecutor.parseRetryAfter(inTenSeconds);
+        assertTrue(delay.toSeconds() >= 8 && delay.toSeconds() <= 10, "delay " + delay);
+        assertNull(GoogleCallExecutor.parseRetryAfter("soon"));
+        assertNull(GoogleCallExecutor.parseRetryAfter(null));
+    }
+
+    @Test
+    void circuitOpensOnServerErrorsAndFailsFast() {
+        ReflectionTestUtils.setField(executor, "maxAttempts", 1);
+        for (int i = 0; i < 4; i++) {
+            assertThrows(HttpResponseException.class, () -> executor.execute("events.list", true, caller, failing(100, status(500, null))));
+        }
+        assertEquals(CircuitBreaker.State.OPEN, executor.getCircuitState());
+
+        int before = calls.get();
+        assertThrows(GoogleCallExecutor.CircuitOpenException.class,
+                () -> executor.execute("events.list", true, caller, failing(100, status(500, null))));
+        assertEquals(before, calls.get());
+        assertEquals(1.0, meterRegistry.get("google.circuit.state").tag("state", "open").gauge().value());
+        assertEquals(1.0, meterRegistry.get("google.api.calls").tag("outcome", "rejected").counter().count());
+    }
+
+    @Test
+    void clientErrorsDoNotOpenTheCircuit() {
+        for (int i = 0; i < 8; i++) {
+            assertThrows(HttpResponseException.class, () -> executor.execute("events.list", true, caller, failing(100, status(400, null))));
+        }
+
+        assertEquals(CircuitBreaker.State.CLOSED, executor.getCircuitState());
+    }
+
+    @Test
+    void submit_RunsCallsOnVirtualThreads() {
+        CompletableFuture<Boolean> future = executor.submit("events.insert", false, caller,
+                () -> Thread.currentThread().isVirtual());
+
+        assertTrue(future.join());
+    }
+
+    @Test
+    void execute_FailsWithoutCallingGoogleWhenQuotaRunsOut() {
+        GoogleQuotaGovernor.QuotaExceededException exhausted = new GoogleQuotaGovernor.QuotaExceededException(Duration.ofSeconds(10));
+        when(quotaGovernor.acquire(any())).thenReturn(CompletableFuture.failedFuture(exhausted));
+
+        IOException thrown = assertThrows(IOException.class, () -> executor.execute("events.list", true, caller, failing(0, null)));
+
+        assertSame(exhausted, thrown);
+        assertEquals(0, calls.get());
+        assertEquals(1.0, meterRegistry.get("google.api.calls").tag("outcome", "throttled").counter().count());
+    }
+
+    @Test
+    void execute_EachRetryWaitsForQuotaAgain() throws IOException {
+        executor.execute("events.list", true, caller, failing(2, status(503, null)));
+
+        verify(quotaGovernor, times(3)).acquire(caller);
+    }
+
+    @Test
+    void openCircuitDoesNotSpendQuota() {
+        ReflectionTestUtils.setField(executor, "maxAttempts", 1);
+        for (int i = 0; i < 4; i++) {
+            assertThrows(HttpResponseException.class, () -> executor.execute("events.list", true, caller, failing(100, status(500, null))));
+        }
+        clearInvocations(quotaGovernor);
+
+        assertThrows(GoogleCallExecutor.CircuitOpenException.class,
+                () -> executor.execute("events.list", true, caller, failing(100, status(500, null))));
+        verify(quotaGovernor, never()).acquire(any());
+    }
+}
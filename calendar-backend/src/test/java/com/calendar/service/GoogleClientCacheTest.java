@@ -0,0 +1,134 @@
+package com.calendar.service;
+
+import com.calendar.model.User;
+import com.calendar.repository.UserRepository;
+import com.google.api.client.auth.oauth2.ClientParametersAuthentication;
+import com.google.api.client.auth.oauth2.Credential;
+import com.google.api.client.googleapis.auth.oauth2.GoogleAuthorizationCodeFlow;
+import com.google.api.client.http.LowLevelHttpRequest;
+import com.google.api.client.json.Json;
+import com.google.api.client.json.gson.GsonFactory;
+import com.google.api.client.testing.http.MockHttpTransport;
+import com.google.api.client.testing.http.MockLowLevelHttpRequest;
+import com.google.api.client.testing.http.MockLowLevelHttpResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class GoogleClientCacheTest {
+
+    @Mock
+    private GoogleAuthorizationCodeFlow flow;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @InjectMocks
+    private GoogleClientCache cache;
+
+    private final AtomicInteger tokenRequests = new AtomicInteger();
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        // Stands in for Google's token endpoint
+        MockHttpTransport tokenServer = new MockHttpTransport() {
+            @Override
+            public LowLevelHttpRequest buildRequest(String method, String url) {
+                tokenRequests.incrementAndGet();
+                return new MockLowLevelHttpRequest(url).setResponse(new MockLowLevelHttpResponse()
+                        .setContentType(Json.MEDIA_TYPE)
+                        .setContent("{\"access_token\":\"fresh-token\",\"expires_in\":3600,\"token_type\":\"Bearer\"}"));
+            }
+        };
+        lenient().when(flow.getTransport()).thenReturn(tokenServer);
+        lenient().when(flow.getJsonFactory()).thenReturn(GsonFactory.getDefaultInstance());
+        lenient().when(flow.getTokenServerEncodedUrl()).thenReturn("https://oauth2.googleapis.com/token");
+        // Credential.Builder refuses a token server without client authentication
+        lenient().when(flow.getClientAuthentication()).thenReturn(new ClientParametersAuthentication("client-id", "client-secret"));
+
+        ReflectionTestUtils.setField(cache, "httpTransport", tokenServer);
+        ReflectionTestUtils.setField(cache, "jsonFactory", GsonFactory.getDefaultInstance());
+        ReflectionTestUtils.setField(cache, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.invokeMethod(cache, "init");
+
+        user = new User();
+        user.setId(1L);
+        user.setUsername("testuser");
+        user.setGoogleAccessToken("access-token");
+        user.setGoogleRefreshToken("refresh-token");
+        user.setGoogleTokenExpirationTime(System.currentTimeMillis() + 3_600_000);
+        lenient().when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+    }
+
+    @Test
+    void getCredential_LoadsOnceAndReuses() {
+        Credential first = cache.getCredential(1L);
+        Credential second = cache.getCredential(1L);
+
+        assertNotNull(first);
+        assertSame(first, second);
+        assertEquals("access-token", first.getAccessToken());
+        verify(userRepository, times(1)).findById(1L);
+        assertEquals(0, tokenRequests.get());
+    }
+
+    @Test
+    void getCredential_NotConnected_IsNotCached() {
+        user.setGoogleAccessToken(null);
+
+        assertNull(cache.getCredential(1L));
+        user.setGoogleAccessToken("access-token");
+        assertNotNull(cache.getCredential(1L));
+        verify(userRepository, times(2)).findById(1L);
+    }
+
+    @Test
+    void getCredential_RefreshesTokenCloseToExpiryAndStoresIt() {
+        user.setGoogleTokenExpirationTime(System.currentTimeMillis() + 60_000);
+
+        Credential credential = cache.getCredential(1L);
+
+        assertEquals("fresh-token", credential.getAccessToken());
+        assertEquals(1, tokenRequests.get());
+        verify(userRepository).save(user);
+        assertEquals("fresh-token", user.getGoogleAccessToken());
+        assertTrue(user.getGoogleTokenExpirationTime() > System.currentTimeMillis() + 3_000_000);
+
+        // Fresh now: no second refresh
+        cache.getCredential(1L);
+        assertEquals(1, tokenRequests.get());
+    }
+
+    @Test
+    void evict_RebuildsFromStoredTokens() {
+        Credential before = cache.getCredential(1L);
+        user.setGoogleAccessToken("reconnected-token");
+
+        cache.evict(1L);
+        Credential after = cache.getCredential(1L);
+
+        assertNotSame(before, after);
+        assertEquals("reconnected-token", after.getAccessToken());
+    }
+
+    @Test
+    void getCalendar_ReusesClientPerCredential() {
+        Credential credential = cache.getCredential(1L);
+
+        assertSame(cache.getCalendar(credential), cache.getCalendar(credential));
+        assertNotSame(cache.getCalendar(credential), cache.getCalendar(mock(Credential.class)));
+    }
+}
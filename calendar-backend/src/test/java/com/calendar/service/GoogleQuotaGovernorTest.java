@@ -0,0 +1,155 @@
+package com.calendar.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class GoogleQuotaGovernorTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private StringRedisTemplate redisTemplate;
+    private GoogleQuotaGovernor governor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        redisTemplate = mock(StringRedisTemplate.class);
+        governor = new GoogleQuotaGovernor();
+        ReflectionTestUtils.setField(governor, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(governor, "stringRedisTemplate", redisTemplate);
+        ReflectionTestUtils.setField(governor, "mode", "local");
+        ReflectionTestUtils.setField(governor, "interactiveReserve", 0.0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        governor.shutdown();
+    }
+
+    // Budgets per window of `windowMs`
+    private void start(long projectLimit, long userLimit, long windowMs) {
+        ReflectionTestUtils.setField(governor, "projectPerMinute", projectLimit);
+        ReflectionTestUtils.setField(governor, "userPerMinute", userLimit);
+        ReflectionTestUtils.setField(governor, "windowMs", windowMs);
+        ReflectionTestUtils.invokeMethod(governor, "init");
+    }
+
+    private static void awaitGranted(CompletableFuture<Void> grant) throws Exception {
+        grant.get(2, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void acquire_GrantsWithinBudget() throws Exception {
+        start(10, 5, 60000);
+
+        for (int i = 0; i < 5; i++) {
+            awaitGranted(governor.acquire(GoogleQuotaGovernor.Caller.interactive(1L)));
+        }
+
+        assertEquals(5, meterRegistry.get("google.quota.wait").tag("priority", "interactive").timer().count());
+        assertEquals(0, governor.queueDepth(GoogleQuotaGovernor.Priority.INTERACTIVE));
+    }
+
+    @Test
+    void acquire_UserOverBudgetWaitsWithoutHoldingBackOthers() throws Exception {
+        // 2 per second: a token comes back every 500ms
+        start(100, 2, 1000);
+        awaitGranted(governor.acquire(GoogleQuotaGovernor.Caller.background(1L)));
+        awaitGranted(governor.acquire(GoogleQuotaGovernor.Caller.background(1L)));
+
+        CompletableFuture<Void> third = governor.acquire(GoogleQuotaGovernor.Caller.background(1L));
+        awaitGranted(governor.acquire(GoogleQuotaGovernor.Caller.background(2L)));
+
+        assertFalse(third.isDone());
+        assertEquals(1.0, meterRegistry.get("google.quota.queue").tag("priority", "background").gauge().value());
+        awaitGranted(third);
+        assertEquals(0, governor.queueDepth(GoogleQuotaGovernor.Priority.BACKGROUND));
+    }
+
+    @Test
+    void acquire_InteractiveCallsGoFirst() throws Exception {
+        start(2, 100, 1000);
+        awaitGranted(governor.acquire(GoogleQuotaGovernor.Caller.background(1L).units(2)));
+
+        CompletableFuture<Void> background = governor.acquire(GoogleQuotaGovernor.Caller.background(1L));
+        CompletableFuture<Void> interactive = governor.acquire(GoogleQuotaGovernor.Caller.interactive(2L));
+
+        // The first token back goes to the interactive call, though it queued second
+        awaitGranted(interactive);
+        assertFalse(background.isDone());
+        awaitGranted(background);
+    }
+
+    @Test
+    void acquire_BackgroundLeavesTheReserve() throws Exception {
+        ReflectionTestUtils.setField(governor, "interactiveReserve", 0.5);
+        start(10, 100, 60000);
+        for (int i = 0; i < 5; i++) {
+            awaitGranted(governor.acquire(GoogleQuotaGovernor.Caller.background((long) i)));
+        }
+
+        CompletableFuture<Void> background = governor.acquire(GoogleQuotaGovernor.Caller.background(9L));
+        awaitGranted(governor.acquire(GoogleQuotaGovernor.Caller.interactive(9L)));
+
+        assertFalse(background.isDone());
+    }
+
+    @Test
+    void acquire_FailsAfterMaxWait() {
+        ReflectionTestUtils.setField(governor, "interactiveMaxWaitSeconds", 1L);
+        start(100, 1, 60000);
+        governor.acquire(GoogleQuotaGovernor.Caller.interactive(1L)).join();
+
+        ExecutionException failure = assertThrows(ExecutionException.class,
+                () -> governor.acquire(GoogleQuotaGovernor.Caller.interactive(1L)).get(3, TimeUnit.SECONDS));
+
+        assertInstanceOf(GoogleQuotaGovernor.QuotaExceededException.class, failure.getCause());
+        assertEquals(1.0, meterRegistry.get("google.quota.timeouts").tag("priority", "interactive").counter().count());
+        assertEquals(0, governor.queueDepth(GoogleQuotaGovernor.Priority.INTERACTIVE));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void acquire_SharesBudgetsThroughRedis() throws Exception {
+        ReflectionTestUtils.setField(governor, "mode", "redis");
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), anyString(), anyString(), anyString(), anyString()))
+                .thenReturn(List.of(20L, 100L));
+        start(6000, 300, 60000);
+
+        awaitGranted(governor.acquire(GoogleQuotaGovernor.Caller.background(7L)));
+
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of("rate-limit:google-quota:user:7")),
+                anyString(), anyString(), anyString(), anyString());
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of("rate-limit:google-quota:project")),
+                anyString(), anyString(), anyString(), anyString());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void acquire_FallsBackToLocalBudgetsWithoutRedis() throws Exception {
+        ReflectionTestUtils.setField(governor, "mode", "redis");
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), anyString(), anyString(), anyString(), anyString()))
+                .thenThrow(new RuntimeException("connection refused"));
+        start(100, 1, 60000);
+
+        awaitGranted(governor.acquire(GoogleQuotaGovernor.Caller.interactive(1L)));
+
+        // Still limited, per instance
+        CompletableFuture<Void> second = governor.acquire(GoogleQuotaGovernor.Caller.interactive(1L));
+        Thread.sleep(100);
+        assertFalse(second.isDone());
+    }
+}
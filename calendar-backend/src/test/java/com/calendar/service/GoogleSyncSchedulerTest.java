@@ -0,0 +1,234 @@
+package com.calendar.service;
+
+import com.calendar.model.GoogleSyncState;
+import com.calendar.model.User;
+import com.calendar.repository.GoogleSyncStateRepository;
+import com.calendar.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class GoogleSyncSchedulerTest {
+
+    @Mock
+    private GoogleSyncStateRepository syncStateRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private GoogleCalendarService googleCalendarService;
+
+    @InjectMocks
+    private GoogleSyncScheduler scheduler;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(scheduler, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(scheduler, "maxConcurrent", 2);
+        ReflectionTestUtils.invokeMethod(scheduler, "init");
+
+        user = new User();
+        user.setId(1L);
+        user.setUsername("testuser");
+        user.setGoogleAccessToken("access-token");
+        lenient().when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        lenient().when(syncStateRepository.findUnscheduledUserIds(any())).thenReturn(Collections.emptyList());
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdown();
+    }
+
+    private GoogleSyncState due(Long userId, int failures) {
+        GoogleSyncState state = new GoogleSyncState(userId, LocalDateTime.now().minusMinutes(1));
+        state.setConsecutiveFailures(failures);
+        return state;
+    }
+
+    @Test
+    void tick_SyncsClaimedUsersOnVirtualThreads() throws IOException {
+        when(syncStateRepository.findDue(any(), any())).thenReturn(List.of(due(1L, 0)));
+        when(syncStateRepository.claim(eq(1L), any(), any())).thenReturn(1);
+        AtomicBoolean virtual = new AtomicBoolean();
+        when(googleCalendarService.syncGoogleEvents(user)).thenAnswer(invocation -> {
+            virtual.set(Thread.currentThread().isVirtual());
+            return List.of(new com.calendar.model.Event(), new com.calendar.model.Event());
+        });
+        when(googleCalendarService.pushLocalEventsToGoogle(user)).thenReturn(3);
+
+        scheduler.tick();
+
+        ArgumentCaptor<LocalDateTime> nextRun = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(syncStateRepository, timeout(2000)).markSucceeded(eq(1L), any(), any(), any(), nextRun.capture(), eq(2), eq(3));
+        assertTrue(virtual.get());
+        // 15 minutes +/- 20%
+        Duration untilNext = Duration.between(LocalDateTime.now(), nextRun.getValue());
+        assertTrue(untilNext.toMinutes() >= 11 && untilNext.toMinutes() <= 18, "next run in " + untilNext);
+    }
+
+    @Test
+    void tick_SkipsUsersClaimedByAnotherInstance() throws IOException {
+        when(syncStateRepository.findDue(any(), any())).thenReturn(List.of(due(1L, 0)));
+        when(syncStateRepository.claim(eq(1L), any(), any())).thenReturn(0);
+
+        scheduler.tick();
+
+        verify(googleCalendarService, never()).syncGoogleEvents(any());
+        assertEquals(2, ((java.util.concurrent.Semaphore) ReflectionTestUtils.getField(scheduler, "permits")).availablePermits());
+    }
+
+    @Test
+    void tick_ClaimsNoMoreThanTheConcurrencyCap() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch running = new CountDownLatch(2);
+        User other = new User();
+        other.setId(2L);
+        other.setGoogleAccessToken("token");
+        when(userRepository.findById(2L)).thenReturn(Optional.of(other));
+        when(syncStateRepository.findDue(any(), any())).thenReturn(List.of(due(1L, 0), due(2L, 0)));
+        when(syncStateRepository.claim(anyLong(), any(), any())).thenReturn(1);
+        when(googleCalendarService.syncGoogleEvents(any())).thenAnswer(invocation -> {
+            running.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return List.of();
+        });
+
+        scheduler.tick();
+        assertTrue(running.await(2, TimeUnit.SECONDS));
+        // Both slots busy: the next tick does not even look for due users
+        scheduler.tick();
+        release.countDown();
+
+        verify(syncStateRepository, times(1)).findDue(any(), any());
+        verify(syncStateRepository, timeout(2000).times(2)).markSucceeded(anyLong(), any(), any(), any(), any(), anyInt(), anyInt());
+    }
+
+    @Test
+    void run_FailureBacksOffExponentially() throws IOException {
+        when(googleCalendarService.syncGoogleEvents(user)).thenThrow(new IOException("503 Service Unavailable"));
+
+        LocalDateTime lease = LocalDateTime.now().plusMinutes(10);
+        scheduler.run(1L, LocalDateTime.now(), lease, 2);
+
+        ArgumentCaptor<LocalDateTime> nextRun = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(syncStateRepository).markFailed(eq(1L), eq(lease), any(), nextRun.capture(), eq("503 Service Unavailable"));
+        // Third failure in a row: 60s * 4, of which the upper half is random
+        long seconds = Duration.between(LocalDateTime.now(), nextRun.getValue()).toSeconds();
+        assertTrue(seconds >= 118 && seconds <= 240, "retry in " + seconds + "s");
+        verify(googleCalendarService, never()).pushLocalEventsToGoogle(any());
+    }
+
+    @Test
+    void backoff_IsCapped() {
+        Duration backoff = scheduler.backoff(40);
+
+        assertTrue(backoff.compareTo(Duration.ofMinutes(360)) <= 0);
+        assertTrue(backoff.compareTo(Duration.ofMinutes(180)) >= 0);
+    }
+
+    @Test
+    void run_DisconnectedUserIsUnscheduled() throws IOException {
+        user.setGoogleAccessToken(null);
+
+        scheduler.run(1L, LocalDateTime.now(), LocalDateTime.now().plusMinutes(10), 0);
+
+        verify(syncStateRepository).deleteById(1L);
+        verify(googleCalendarService, never()).syncGoogleEvents(any());
+    }
+
+    @Test
+    void tick_SpreadsNewlyConnectedUsersOverOneInterval() {
+        when(syncStateRepository.findUnscheduledUserIds(any())).thenReturn(List.of(1L, 2L, 3L));
+        when(syncStateRepository.findDue(any(), any())).thenReturn(Collections.emptyList());
+
+        scheduler.tick();
+
+        ArgumentCaptor<LocalDateTime> nextRuns = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(syncStateRepository, times(3)).insertIfAbsent(anyLong(), nextRuns.capture(), isNull());
+        LocalDateTime latest = LocalDateTime.now().plusMinutes(15).plusSeconds(1);
+        for (LocalDateTime nextRun : nextRuns.getAllValues()) {
+            assertFalse(nextRun.isAfter(latest));
+        }
+    }
+
+    @Test
+    void requestSync_CreatesStateForUnknownUser() {
+        when(syncStateRepository.request(eq(1L), any())).thenReturn(0);
+
+        scheduler.requestSync(1L);
+
+        ArgumentCaptor<LocalDateTime> nextRun = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(syncStateRepository).insertIfAbsent(eq(1L), nextRun.capture(), notNull());
+        assertFalse(nextRun.getValue().isAfter(LocalDateTime.now()));
+        verify(syncStateRepository, never()).save(any());
+    }
+
+    @Test
+    void onConnected_ResetsExistingState() {
+        when(syncStateRepository.reset(eq(1L), any())).thenReturn(1);
+
+        scheduler.onConnected(1L);
+
+        verify(syncStateRepository, never()).save(any());
+        verify(syncStateRepository, never()).insertIfAbsent(anyLong(), any(), any());
+    }
+
+    @Test
+    void run_RenewsTheLeaseAndRecordsAgainstTheRenewedOne() throws Exception {
+        // Renewed every second
+        ReflectionTestUtils.setField(scheduler, "leaseMinutes", 0L);
+        LocalDateTime claimed = LocalDateTime.now();
+        when(syncStateRepository.renew(eq(1L), any(), any())).thenReturn(1);
+        when(googleCalendarService.syncGoogleEvents(user)).thenAnswer(invocation -> {
+            Thread.sleep(1500);
+            return List.of();
+        });
+
+        scheduler.run(1L, LocalDateTime.now(), claimed, 0);
+
+        ArgumentCaptor<LocalDateTime> renewed = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(syncStateRepository).renew(eq(1L), eq(claimed), renewed.capture());
+        verify(syncStateRepository).markSucceeded(eq(1L), eq(renewed.getValue()), any(), any(), any(), eq(0), eq(0));
+    }
+
+    @Test
+    void run_LostLeaseRecordsNothing() throws Exception {
+        ReflectionTestUtils.setField(scheduler, "leaseMinutes", 0L);
+        when(syncStateRepository.renew(eq(1L), any(), any())).thenReturn(0);
+        when(googleCalendarService.syncGoogleEvents(user)).thenAnswer(invocation -> {
+            Thread.sleep(1500);
+            return List.of();
+        });
+
+        scheduler.run(1L, LocalDateTime.now(), LocalDateTime.now(), 0);
+
+        verify(syncStateRepository, never()).markSucceeded(anyLong(), any(), any(), any(), any(), anyInt(), anyInt());
+        verify(syncStateRepository, never()).markFailed(anyLong(), any(), any(), any(), any());
+    }
+}
@@ -0,0 +1,231 @@
+package com.calendar.service;
+
+import com.calendar.model.Calendar;
+import com.calendar.model.Event;
+import com.calendar.model.User;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class GoogleSyncWriterTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 3, 1, 9, 0);
+
+    @Mock
+    private AnalyticsAggregateService analyticsAggregateService;
+
+    @InjectMocks
+    private GoogleSyncWriter writer;
+
+    private JdbcTemplate jdbcTemplate;
+    private Calendar bucket;
+
+    @BeforeEach
+    void setUp() {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:google-sync;MODE=MariaDB;DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(h2);
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS calendars (id BIGINT PRIMARY KEY, user_id BIGINT)");
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS events (id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                + "subject VARCHAR(255), start_time TIMESTAMP, end_time TIMESTAMP, description VARCHAR(4000), "
+                + "location VARCHAR(4000), status VARCHAR(255), calendar_id BIGINT, created_at TIMESTAMP, "
+                + "updated_at TIMESTAMP, recurrence_rule VARCHAR(4000), recurrence_exceptions VARCHAR(4000), long_running BOOLEAN NOT NULL, "
+                + "google_event_id VARCHAR(255), google_push_pending BOOLEAN NOT NULL DEFAULT FALSE, "
+                + "CONSTRAINT uk_events_calendar_google_event_id UNIQUE (calendar_id, google_event_id))");
+        jdbcTemplate.execute("DELETE FROM events");
+        jdbcTemplate.execute("DELETE FROM calendars");
+        jdbcTemplate.update("INSERT INTO calendars (id, user_id) VALUES (5, 1), (6, 1), (7, 2)");
+
+        ReflectionTestUtils.setField(writer, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(writer, "batchSize", 2);
+
+        User owner = new User("testuser", "test@example.com", "password");
+        owner.setId(1L);
+        bucket = new Calendar("Google Calendar", "UTC", owner);
+        bucket.setId(5L);
+    }
+
+    private long insertRow(long calendarId, String googleId, String subject, LocalDateTime start) {
+        jdbcTemplate.update("INSERT INTO events (subject, start_time, end_time, status, calendar_id, long_running, google_event_id) "
+                        + "VALUES (?, ?, ?, 'CONFIRMED', ?, FALSE, ?)",
+                subject, Timestamp.valueOf(start), Timestamp.valueOf(start.plusHours(1)), calendarId, googleId);
+        return jdbcTemplate.queryForObject("SELECT id FROM events WHERE calendar_id = ? AND google_event_id = ?",
+                Long.class, calendarId, googleId);
+    }
+
+    private static Event incoming(String googleId, String subject, LocalDateTime start) {
+        Event event = new Event();
+        event.setGoogleEventId(googleId);
+        event.setSubject(subject);
+        event.setStartTime(start);
+        event.setEndTime(start.plusHours(1));
+        return event;
+    }
+
+    @Test
+    void write_InsertsNewUpdatesChangedAndDeletesCancelled() {
+        long pushedId = insertRow(6, "pushed", "Pushed", START);
+        jdbcTemplate.update("UPDATE events SET google_push_pending = TRUE WHERE id = ?", pushedId);
+        insertRow(5, "same", "Same", START);
+        insertRow(5, "gone", "Gone", START);
+        // Another user's copy of the same Google id is left alone
+        insertRow(7, "gone", "Not mine", START);
+
+        GoogleSyncWriter.Result result = writer.write(1L, bucket, Arrays.asList(
+                incoming("new-1", "New", START),
+                incoming("pushed", "Pushed, moved", START.plusDays(1)),
+                incoming("same", "Same", START)),
+                Collections.singletonList("gone"));
+
+        assertEquals(2, result.getSynced().size());
+        assertEquals(1, result.getDeleted());
+        assertEquals("New", jdbcTemplate.queryForObject(
+                "SELECT subject FROM events WHERE calendar_id = 5 AND google_event_id = 'new-1'", String.class));
+        // Updated where the user keeps it, not copied into the bucket
+        Map<String, Object> pushed = jdbcTemplate.queryForMap(
+                "SELECT calendar_id, subject, status, google_push_pending FROM events WHERE id = ?", pushedId);
+        assertEquals(6L, ((Number) pushed.get("calendar_id")).longValue());
+        assertEquals("Pushed, moved", pushed.get("subject"));
+        assertEquals("CONFIRMED", pushed.get("status"));
+        // Google's version replaced the unpushed local edit
+        assertEquals(false, pushed.get("google_push_pending"));
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM events WHERE calendar_id = 5 AND google_event_id = 'gone'", Integer.class));
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM events WHERE calendar_id = 7", Integer.class));
+
+        verify(analyticsAggregateService).recordCreated(eq(1L), any());
+        verify(analyticsAggregateService).recordUpdated(eq(1L), any(), any());
+        verify(analyticsAggregateService).recordDeleted(eq(1L), any());
+    }
+
+    @Test
+    void write_InsertThatCollidesInvalidatesAnalytics() {
+        // Stands in for a row a concurrent sync wrote to the bucket after this one looked the
+        // ids up: the lookup, by owner, does not see it
+        insertRow(5, "raced", "Raced", START);
+        jdbcTemplate.update("UPDATE calendars SET user_id = 3 WHERE id = 5");
+
+        writer.write(1L, bucket, List.of(incoming("raced", "Raced, renamed", START), incoming("fresh", "Fresh", START)),
+                List.of());
+
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM events WHERE google_event_id = 'raced'", Integer.class));
+        verify(analyticsAggregateService).invalidate(1L);
+        verify(analyticsAggregateService, never()).recordCreated(any(), any());
+    }
+
+    @Test
+    void write_RepeatedIdKeepsLaterCopy() {
+        // Google can list an event twice when it changes during a paginated listing
+        GoogleSyncWriter.Result result = writer.write(1L, bucket, Arrays.asList(
+                incoming("g1", "First", START),
+                incoming("g1", "Second", START)), Collections.emptyList());
+
+        assertEquals(1, result.getSynced().size());
+        assertEquals(List.of("Second"), jdbcTemplate.queryForList(
+                "SELECT subject FROM events WHERE google_event_id = 'g1'", String.class));
+        verify(analyticsAggregateService, times(1)).recordCreated(eq(1L), any());
+    }
+
+    @Test
+    void write_LargeSyncInvalidatesAnalyticsOnce() {
+        ReflectionTestUtils.setField(writer, "lookupChunkSize", 7);
+        List<Event> events = new ArrayList<>();
+        for (int i = 0; i <= GoogleSyncWriter.MAX_INCREMENTAL_ANALYTICS; i++) {
+            events.add(incoming("g" + i, "Event " + i, START.plusHours(i)));
+        }
+        insertRow(5, "g0", "Renamed in Google", START);
+
+        GoogleSyncWriter.Result result = writer.write(1L, bucket, events, Collections.emptyList());
+
+        assertEquals(GoogleSyncWriter.MAX_INCREMENTAL_ANALYTICS + 1, result.getSynced().size());
+        assertEquals(GoogleSyncWriter.MAX_INCREMENTAL_ANALYTICS + 1, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM events", Integer.class));
+        verify(analyticsAggregateService).invalidate(1L);
+        verify(analyticsAggregateService, never()).recordCreated(any(), any());
+        verify(analyticsAggregateService, never()).recordUpdated(any(), any(), any());
+    }
+
+    @Test
+    void findByGoogleIds_ResolvesAcrossChunks() {
+        ReflectionTestUtils.setField(writer, "lookupChunkSize", 2);
+        insertRow(5, "a", "A", START);
+        insertRow(6, "c", "C", START);
+        insertRow(7, "b", "Someone else's", START);
+
+        Map<String, Event> found = writer.findByGoogleIds(1L, Arrays.asList("a", "b", "c", "d", "e"));
+
+        assertEquals(Set.of("a", "c"), found.keySet());
+        assertEquals(6L, found.get("c").getCalendar().getId());
+    }
+
+    @Test
+    void deleteMissing_RemovesUnlistedEventsInWindow() {
+        insertRow(5, "kept", "Kept", START);
+        insertRow(5, "stale", "Stale", START);
+        insertRow(5, "old", "Before the window", START.minusYears(2));
+
+        int deleted = writer.deleteMissing(1L, 5L, START.minusDays(1), Set.of("kept"));
+
+        assertEquals(1, deleted);
+        assertEquals(Set.of("kept", "old"), Set.copyOf(jdbcTemplate.queryForList(
+                "SELECT google_event_id FROM events", String.class)));
+        verify(analyticsAggregateService).recordDeleted(eq(1L), any());
+    }
+
+    @Test
+    void markPushed_WritesIdsBackInBatches() {
+        long created1 = insertRow(6, "tmp-1", "Local 1", START);
+        long created2 = insertRow(6, "tmp-2", "Local 2", START);
+        jdbcTemplate.update("UPDATE events SET google_event_id = NULL");
+        long edited = insertRow(6, "g-edited", "Edited", START);
+        jdbcTemplate.update("UPDATE events SET google_push_pending = TRUE WHERE id = ?", edited);
+        jdbcTemplate.update("UPDATE events SET updated_at = ?", Timestamp.valueOf(START));
+
+        writer.markPushed(Map.of(created1, "g-1", created2, "g-2"), List.of(edited),
+                Map.of(created1, START, created2, START, edited, START));
+
+        assertEquals("g-1", jdbcTemplate.queryForObject("SELECT google_event_id FROM events WHERE id = ?", String.class, created1));
+        assertEquals("g-2", jdbcTemplate.queryForObject("SELECT google_event_id FROM events WHERE id = ?", String.class, created2));
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM events WHERE google_push_pending = TRUE", Integer.class));
+    }
+
+    @Test
+    void markPushed_KeepsRowsEditedDuringThePushPending() {
+        long created = insertRow(6, "tmp", "Local", START);
+        jdbcTemplate.update("UPDATE events SET google_event_id = NULL");
+        long edited = insertRow(6, "g-edited", "Edited", START);
+        jdbcTemplate.update("UPDATE events SET google_push_pending = TRUE WHERE id = ?", edited);
+        jdbcTemplate.update("UPDATE events SET updated_at = ?", Timestamp.valueOf(START));
+        // Both edited locally after the push read them
+        jdbcTemplate.update("UPDATE events SET subject = 'Renamed', updated_at = ?", Timestamp.valueOf(START.plusMinutes(1)));
+
+        writer.markPushed(Map.of(created, "g-1"), List.of(edited), Map.of(created, START, edited, START));
+
+        assertEquals("g-1", jdbcTemplate.queryForObject("SELECT google_event_id FROM events WHERE id = ?", String.class, created));
+        assertEquals(2, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM events WHERE google_push_pending = TRUE", Integer.class));
+    }
+}
@@ -0,0 +1,197 @@
+package com.calendar.service;
+
+import com.calendar.dto.ImportResultDTO;
+import com.calendar.model.Calendar;
+import com.calendar.model.User;
+import com.calendar.repository.CalendarRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IcsImportServiceTest {
+
+    @Mock
+    private CalendarRepository calendarRepository;
+
+    @Mock
+    private ConflictIndexService conflictIndexService;
+
+    @Mock
+    private AnalyticsAggregateService analyticsAggregateService;
+
+    @Mock
+    private AnalyticsCacheInvalidator analyticsCacheInvalidator;
+
+    @InjectMocks
+    private IcsImportService importService;
+
+    private JdbcTemplate jdbcTemplate;
+    private Calendar calendar;
+
+    @BeforeEach
+    void setUp() {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:ics-import;DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(h2);
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS events (id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                + "subject VARCHAR(255), start_time TIMESTAMP, end_time TIMESTAMP, description VARCHAR(4000), location VARCHAR(4000), "
+                + "status VARCHAR(255), series_id VARCHAR(255), calendar_id BIGINT, created_at TIMESTAMP, "
+                + "updated_at TIMESTAMP, recurrence_rule VARCHAR(4000), recurrence_exceptions VARCHAR(4000), recurrence_end TIMESTAMP, "
+                + "long_running BOOLEAN NOT NULL, ical_uid VARCHAR(255))");
+        jdbcTemplate.execute("DELETE FROM events");
+
+        ReflectionTestUtils.setField(importService, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(importService, "transactionManager", new DataSourceTransactionManager(h2));
+        ReflectionTestUtils.setField(importService, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(importService, "batchSize", 2);
+
+        User owner = new User("testuser", "test@example.com", "password");
+        owner.setId(1L);
+        calendar = new Calendar("Work", "UTC", owner);
+        calendar.setId(1L);
+        lenient().when(calendarRepository.findByIdAndUserId(1L, 1L)).thenReturn(Optional.of(calendar));
+    }
+
+    private ImportResultDTO importIcs(String... events) throws Exception {
+        StringBuilder ics = new StringBuilder("BEGIN:VCALENDAR\r\nVERSION:2.0\r\n");
+        for (String event : events) {
+            ics.append("BEGIN:VEVENT\r\n").append(event).append("END:VEVENT\r\n");
+        }
+        ics.append("END:VCALENDAR\r\n");
+        return importService.importCalendar(1L, 1L, new ByteArrayInputStream(ics.toString().getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static String event(String uid, String start, String end, String summary) {
+        return "UID:" + uid + "\r\nDTSTART:" + start + "\r\nDTEND:" + end + "\r\nSUMMARY:" + summary + "\r\n";
+    }
+
+    @Test
+    void importsEventsInBatches() throws Exception {
+        ImportResultDTO result = importIcs(
+                event("a", "20240301T090000", "20240301T100000", "One"),
+                event("b", "20240302T090000", "20240302T100000", "Two"),
+                event("c", "20240303T090000", "20240305T100000", "Three"));
+
+        assertEquals(3, result.getParsed());
+        assertEquals(3, result.getImported());
+        assertEquals(0, result.getDuplicates());
+        assertEquals(3, result.getStages().get("insert").getEvents());
+        assertEquals(3, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM events WHERE calendar_id = 1", Integer.class));
+
+        Map<String, Object> longEvent = jdbcTemplate.queryForMap("SELECT subject, long_running FROM events WHERE ical_uid = 'c'");
+        assertEquals("Three", longEvent.get("subject"));
+        assertEquals(true, longEvent.get("long_running"));
+
+        verify(analyticsAggregateService).invalidate(1L);
+        verify(analyticsCacheInvalidator).evict(1L);
+        verify(conflictIndexService).invalidate(1L);
+    }
+
+    @Test
+    void skipsUidsAlreadyImportedOrRepeated() throws Exception {
+        importIcs(event("a", "20240301T090000", "20240301T100000", "One"));
+
+        ImportResultDTO result = importIcs(
+                event("a", "20240301T090000", "20240301T100000", "One again"),
+                event("b", "20240302T090000", "20240302T100000", "Two"),
+                event("b", "20240302T090000", "20240302T100000", "Two again"));
+
+        assertEquals(3, result.getParsed());
+        assertEquals(1, result.getImported());
+        assertEquals(2, result.getDuplicates());
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM events", Integer.class));
+    }
+
+    @Test
+    void nothingImported_LeavesAnalyticsAlone() throws Exception {
+        ImportResultDTO result = importIcs("SUMMARY:No start\r\n");
+
+        assertEquals(1, result.getFailed());
+        assertEquals(0, result.getImported());
+        verifyNoInteractions(analyticsAggregateService, analyticsCacheInvalidator, conflictIndexService);
+    }
+
+    @Test
+    void recurringEvent_BecomesSeriesMasterWithOverride() throws Exception {
+        ReflectionTestUtils.setField(importService, "recurrenceStorageMode", "MASTER");
+
+        ImportResultDTO result = importIcs(
+                event("weekly", "20240304T090000", "20240304T100000", "Standup")
+                        + "RRULE:FREQ=WEEKLY;COUNT=4\r\nEXDATE:20240311T090000\r\n",
+                "UID:weekly\r\nRECURRENCE-ID:20240318T090000\r\nDTSTART:20240318T140000\r\n"
+                        + "DTEND:20240318T150000\r\nSUMMARY:Standup (moved)\r\n");
+
+        assertEquals(2, result.getImported());
+        Map<String, Object> master = jdbcTemplate.queryForMap(
+                "SELECT recurrence_rule, recurrence_exceptions, recurrence_end, series_id, long_running FROM events WHERE ical_uid = 'weekly'");
+        assertEquals("FREQ=WEEKLY;INTERVAL=1;COUNT=4", master.get("recurrence_rule"));
+        assertEquals("2024-03-11T09:00,2024-03-18T09:00", master.get("recurrence_exceptions"));
+        assertEquals(LocalDateTime.of(2024, 3, 25, 10, 0), ((java.sql.Timestamp) master.get("recurrence_end")).toLocalDateTime());
+        assertEquals(true, master.get("long_running"));
+
+        Map<String, Object> override = jdbcTemplate.queryForMap(
+                "SELECT subject, series_id FROM events WHERE ical_uid = 'weekly/2024-03-18T09:00'");
+        assertEquals("Standup (moved)", override.get("subject"));
+        assertEquals(master.get("series_id"), override.get("series_id"));
+    }
+
+    @Test
+    void recurringEvent_MaterializedMode_WritesOccurrences() throws Exception {
+        ReflectionTestUtils.setField(importService, "recurrenceStorageMode", "MATERIALIZED");
+
+        ImportResultDTO result = importIcs(
+                event("daily", "20240301T090000", "20240301T093000", "Daily")
+                        + "RRULE:FREQ=DAILY;COUNT=5\r\nEXDATE:20240302T090000\r\n");
+
+        assertEquals(1, result.getParsed());
+        assertEquals(4, result.getImported());
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(DISTINCT series_id) FROM events", Integer.class));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM events WHERE recurrence_rule IS NOT NULL", Integer.class));
+    }
+
+    @Test
+    void convertsUtcAndTzidTimesToCalendarZone() throws Exception {
+        calendar.setTimezone("Europe/Berlin");
+
+        importIcs(
+                event("utc", "20240301T090000Z", "20240301T100000Z", "UTC"),
+                "UID:ny\r\nDTSTART;TZID=America/New_York:20240301T090000\r\nDURATION:PT1H\r\nSUMMARY:NY\r\n",
+                "UID:allday\r\nDTSTART;VALUE=DATE:20240301\r\nSUMMARY:All day\r\n");
+
+        assertEquals(LocalDateTime.of(2024, 3, 1, 10, 0), startOf("utc"));
+        assertEquals(LocalDateTime.of(2024, 3, 1, 15, 0), startOf("ny"));
+        assertEquals(LocalDateTime.of(2024, 3, 1, 0, 0), startOf("allday"));
+        assertEquals(LocalDateTime.of(2024, 3, 2, 0, 0), jdbcTemplate.queryForObject(
+                "SELECT end_time FROM events WHERE ical_uid = 'allday'", LocalDateTime.class));
+    }
+
+    @Test
+    void foreignCalendar_ThrowsException() {
+        when(calendarRepository.findByIdAndUserId(1L, 2L)).thenReturn(Optional.empty());
+
+        assertThrows(RuntimeException.class,
+                () -> importService.importCalendar(1L, 2L, new ByteArrayInputStream(new byte[0])));
+    }
+
+    private LocalDateTime startOf(String uid) {
+        return jdbcTemplate.queryForObject("SELECT start_time FROM events WHERE ical_uid = ?", LocalDateTime.class, uid);
+    }
+}
@@ -0,0 +1,91 @@
+package com.calendar.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IcsReaderTest {
+
+    private IcsReader reader(String ics) {
+        return new IcsReader(new ByteArrayInputStream(ics.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void readsEventsOneAtATime() throws Exception {
+        IcsReader reader = reader("BEGIN:VCALENDAR\r\nVERSION:2.0\r\n"
+                + "BEGIN:VEVENT\r\nUID:a\r\nSUMMARY:First\r\nEND:VEVENT\r\n"
+                + "BEGIN:VEVENT\r\nUID:b\r\nSUMMARY:Second\r\nEND:VEVENT\r\n"
+                + "END:VCALENDAR\r\n");
+
+        assertEquals("First", reader.nextEvent().getText("SUMMARY"));
+        IcsReader.VEvent second = reader.nextEvent();
+        assertEquals("b", second.getText("UID"));
+        // The BEGIN:VEVENT line
+        assertEquals(7, second.getLine());
+        assertNull(reader.nextEvent());
+    }
+
+    @Test
+    void unfoldsContinuationLines() throws Exception {
+        IcsReader reader = reader("BEGIN:VEVENT\nDESCRIPTION:one\n  two\n\tthree\nEND:VEVENT\n");
+
+        assertEquals("one twothree", reader.nextEvent().getText("DESCRIPTION"));
+    }
+
+    @Test
+    void parsesParametersAndUnescapesText() throws Exception {
+        IcsReader reader = reader("BEGIN:VEVENT\r\n"
+                + "DTSTART;TZID=\"Europe/Berlin\";X-NOTE=\"a:b;c\":20240301T090000\r\n"
+                + "LOCATION:Room 1\\, 2nd floor\\; east\\nwing\\\\\r\n"
+                + "END:VEVENT\r\n");
+
+        IcsReader.VEvent event = reader.nextEvent();
+        IcsReader.Property dtStart = event.get("DTSTART");
+        assertEquals("Europe/Berlin", dtStart.getParam("TZID"));
+        assertEquals("a:b;c", dtStart.getParam("X-NOTE"));
+        assertEquals("20240301T090000", dtStart.getValue());
+        assertEquals("Room 1, 2nd floor; east\nwing\\", event.getText("LOCATION"));
+    }
+
+    @Test
+    void skipsNestedAndOtherComponents() throws Exception {
+        IcsReader reader = reader("BEGIN:VTIMEZONE\nTZID:Europe/Berlin\nBEGIN:STANDARD\nDTSTART:19701025T030000\nEND:STANDARD\nEND:VTIMEZONE\n"
+                + "BEGIN:VEVENT\nSUMMARY:Event\nBEGIN:VALARM\nSUMMARY:Alarm\nEND:VALARM\nEXDATE:20240101T090000\nEXDATE:20240108T090000\nEND:VEVENT\n");
+
+        IcsReader.VEvent event = reader.nextEvent();
+        assertEquals("Event", event.getText("SUMMARY"));
+        assertEquals(2, event.getAll("EXDATE").size());
+        assertNull(event.get("DTSTART"));
+        assertNull(reader.nextEvent());
+    }
+
+    @Test
+    void dropsTruncatedTrailingEvent() throws Exception {
+        IcsReader reader = reader("BEGIN:VEVENT\nSUMMARY:Complete\nEND:VEVENT\nBEGIN:VEVENT\nSUMMARY:Cut");
+
+        assertEquals("Complete", reader.nextEvent().getText("SUMMARY"));
+        assertNull(reader.nextEvent());
+    }
+
+    @Test
+    void readsWhatIcsWriterWrites() throws Exception {
+        String description = "Long text; with, separators\nand \u65e5\u672c\u8a9e ".repeat(10);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        IcsWriter writer = new IcsWriter(out);
+        writer.property("BEGIN", "VEVENT")
+                .text("DESCRIPTION", description)
+                .dateTime("DTSTART", LocalDateTime.of(2024, 3, 1, 9, 0))
+                .property("END", "VEVENT");
+        writer.flush();
+
+        IcsReader.VEvent event = new IcsReader(new ByteArrayInputStream(out.toByteArray())).nextEvent();
+
+        assertEquals(description, event.getText("DESCRIPTION"));
+        assertEquals("20240301T090000", event.get("DTSTART").getValue());
+    }
+}
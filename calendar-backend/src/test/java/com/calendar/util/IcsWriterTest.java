@@ -0,0 +1,69 @@
+package com.calendar.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IcsWriterTest {
+
+    private String write(IcsWriterAction action) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        IcsWriter ics = new IcsWriter(out);
+        action.apply(ics);
+        ics.flush();
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void linesEndWithCrlf() throws Exception {
+        String ics = write(w -> w.property("BEGIN", "VEVENT").dateTime("DTSTART", LocalDateTime.of(2024, 3, 5, 9, 30)));
+
+        assertEquals("BEGIN:VEVENT\r\nDTSTART:20240305T093000\r\n", ics);
+    }
+
+    @Test
+    void textIsEscaped() throws Exception {
+        String ics = write(w -> w.text("SUMMARY", "a;b,c\\d\r\ne\nf"));
+
+        assertEquals("SUMMARY:a\\;b\\,c\\\\d\\ne\\nf\r\n", ics);
+    }
+
+    @Test
+    void longLinesAreFoldedAt75Octets() throws Exception {
+        String ics = write(w -> w.text("DESCRIPTION", "x".repeat(200)));
+
+        String[] lines = ics.split("\r\n");
+        assertTrue(lines.length > 1);
+        for (int i = 0; i < lines.length; i++) {
+            assertTrue(lines[i].getBytes(StandardCharsets.UTF_8).length <= 75);
+            if (i > 0) {
+                assertTrue(lines[i].startsWith(" "));
+            }
+        }
+        assertEquals("DESCRIPTION:" + "x".repeat(200), ics.replace("\r\n ", "").trim());
+    }
+
+    @Test
+    void foldingNeverSplitsMultiByteCharacters() throws Exception {
+        String value = "\u00e9".repeat(40) + "\u65e5\u672c\u8a9e".repeat(20) + "\ud83d\udcc5".repeat(20);
+        String ics = write(w -> w.text("SUMMARY", value));
+
+        for (String line : ics.split("\r\n")) {
+            byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+            assertTrue(bytes.length <= 75);
+            // A split character would not survive the round trip
+            assertEquals(line, new String(bytes, StandardCharsets.UTF_8));
+            assertFalse(line.contains("\ufffd"));
+        }
+        assertEquals("SUMMARY:" + value, ics.replace("\r\n ", "").trim());
+    }
+
+    @FunctionalInterface
+    private interface IcsWriterAction {
+        void apply(IcsWriter writer) throws Exception;
+    }
+}
@@ -54,6 +54,25 @@ const GoogleCalendarSync: React.FC<Props> = ({ onSyncComplete }) => {
         }
     };
 
+    // The sync runs in the background; wait for the outcome of a run that started after our
+    // request. A run already under way when we asked may finish later but missed our changes
+    const waitForSync = async (requestedAt: string) => {
+        for (let attempt = 0; attempt < 60; attempt++) {
+            await new Promise(resolve => setTimeout(resolve, 2000));
+            const { data } = await api.get('/google/sync');
+            if (!data.lastStartedAt || data.lastStartedAt < requestedAt) {
+                continue;
+            }
+            if (data.lastSuccessAt && data.lastSuccessAt >= data.lastStartedAt) {
+                return data;
+            }
+            if (data.lastFailureAt && data.lastFailureAt >= data.lastStartedAt) {
+                throw new Error(`Sync failed: ${data.lastError || 'Unknown error'}`);
+            }
+        }
+        throw new Error('Sync is taking longer than expected. Your calendar will update once it finishes.');
+    };
+
     const handleSync = async () => {
         if (isLoading) return;
         setIsLoading(true);
@@ -62,7 +81,8 @@ const GoogleCalendarSync: React.FC<Props> = ({ onSyncComplete }) => {
             const response = await api.post('/google/sync');
             const data = response.data;
 
-            if (data.status === 'success') {
+            if (data.status === 'queued') {
+                await waitForSync(data.requestedAt);
                 const now = new Date().toLocaleString();
                 setLastSynced(now);
                 localStorage.setItem('google_last_sync', now);
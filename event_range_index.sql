@@ -0,0 +1,30 @@
+-- Composite indexes for the event range query (EventRepository.findEventsInRange)
+-- Run this on your AWS RDS database before deploying; ddl-auto=update only adds
+-- the long_running column and indexes on a best-effort basis
+
+-- 1. Flag for rows the bounded start_time scan cannot find:
+--    series masters and events longer than Event.MAX_INDEXED_DURATION (24 hours)
+ALTER TABLE events ADD COLUMN IF NOT EXISTS long_running BIT NOT NULL DEFAULT 0;
+
+-- 2. Backfill the flag for existing rows
+UPDATE events SET long_running = 1
+WHERE recurrence_rule IS NOT NULL
+   OR TIMESTAMPDIFF(SECOND, start_time, end_time) > 86400;
+
+-- 3. Range index: calendar_id = ? AND start_time > ? AND start_time < ? AND end_time > ?
+CREATE INDEX IF NOT EXISTS idx_events_calendar_range ON events (calendar_id, start_time, end_time);
+
+-- 4. Long event and series master index: calendar_id = ? AND long_running = 1 AND end_time > ?
+CREATE INDEX IF NOT EXISTS idx_events_calendar_long ON events (calendar_id, long_running, end_time);
+
+-- 5. Keyset pagination index: calendar_id = ? AND (start_time, id) > (?, ?) ORDER BY start_time, id
+CREATE INDEX IF NOT EXISTS idx_events_calendar_keyset ON events (calendar_id, start_time, id);
+
+-- 6. Conflict index catch-up (EventRepository.findIntervalsChangedSince): calendar_id = ? AND updated_at >= ?
+CREATE INDEX IF NOT EXISTS idx_events_calendar_updated ON events (calendar_id, updated_at);
+
+-- Verify the plan: expect type=range on idx_events_calendar_range
+EXPLAIN SELECT * FROM events
+WHERE calendar_id = 1 AND long_running = 0
+  AND start_time > '2025-12-31 00:00:00' AND start_time < '2026-01-08 00:00:00'
+  AND end_time > '2026-01-01 00:00:00';
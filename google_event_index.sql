@@ -0,0 +1,19 @@
+-- Unique index for Google sync dedupe (GoogleSyncWriter)
+-- Run this on your AWS RDS database before deploying; ddl-auto=update cannot add the
+-- constraint while duplicate rows exist
+
+-- 1. Drop duplicate copies of a Google event within a calendar, keeping the oldest row
+DELETE e FROM events e
+JOIN events d ON d.calendar_id = e.calendar_id
+             AND d.google_event_id = e.google_event_id
+             AND d.id < e.id;
+
+-- 2. Set-based lookup and upsert: calendar_id = ? AND google_event_id IN (...)
+CREATE UNIQUE INDEX IF NOT EXISTS uk_events_calendar_google_event_id ON events (calendar_id, google_event_id);
+
+-- 3. Local edits not yet pushed to Google (GoogleCalendarService.pushLocalEventsToGoogle)
+ALTER TABLE events ADD COLUMN IF NOT EXISTS google_push_pending BOOLEAN NOT NULL DEFAULT FALSE;
+
+-- Verify the plan: expect type=range on uk_events_calendar_google_event_id
+EXPLAIN SELECT e.id FROM events e JOIN calendars c ON c.id = e.calendar_id
+WHERE c.user_id = 1 AND e.google_event_id IN ('abc', 'def');
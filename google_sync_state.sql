@@ -0,0 +1,22 @@
+-- Background Google sync schedule (GoogleSyncScheduler)
+-- ddl-auto=update creates this table; run it by hand where schema changes are applied manually
+
+CREATE TABLE IF NOT EXISTS google_sync_states (
+    user_id BIGINT NOT NULL PRIMARY KEY,
+    next_run_at DATETIME(6) NOT NULL,
+    lease_until DATETIME(6) NULL,
+    requested_at DATETIME(6) NULL,
+    last_started_at DATETIME(6) NULL,
+    last_success_at DATETIME(6) NULL,
+    last_failure_at DATETIME(6) NULL,
+    consecutive_failures INT NOT NULL DEFAULT 0,
+    last_error VARCHAR(500) NULL,
+    last_pulled INT NOT NULL DEFAULT 0,
+    last_pushed INT NOT NULL DEFAULT 0
+);
+
+-- Due scan: next_run_at <= ? ORDER BY next_run_at
+CREATE INDEX IF NOT EXISTS idx_google_sync_states_next_run ON google_sync_states (next_run_at);
+
+-- Existing connected users are picked up by the scheduler and spread over one interval;
+-- nothing to backfill here